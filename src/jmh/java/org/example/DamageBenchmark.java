@@ -0,0 +1,68 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Damage resolution of one battle round, both cards attack each other, with the switch/println code
+ * cards used before and with DamageTable. The card pairs cover all element and card type combinations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DamageBenchmark {
+    private static final int PAIRS = 1024;
+
+    private Card[] user1Cards;
+    private Card[] user2Cards;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        user1Cards = new Card[PAIRS];
+        user2Cards = new Card[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            user1Cards[i] = randomCard(random);
+            user2Cards[i] = randomCard(random);
+        }
+    }
+
+    private static Card randomCard(Random random) {
+        ElementType elementType = ElementType.values()[random.nextInt(ElementType.values().length)];
+        double damage = 10 + random.nextInt(10) * 10;
+        return random.nextBoolean()
+                ? new MonsterCard(UUID.randomUUID(), CardName.Knight, damage, elementType, new String[]{"Knight"}, null)
+                : new SpellCard(UUID.randomUUID(), CardName.RegularSpell, damage, elementType, new String[]{"RegularSpell"}, null);
+    }
+
+    @Benchmark
+    public int legacyRound() {
+        int i = next++ & (PAIRS - 1);
+        return Double.compare(LegacyDamage.calculateEffectiveDamage(user1Cards[i], user2Cards[i]),
+                LegacyDamage.calculateEffectiveDamage(user2Cards[i], user1Cards[i]));
+    }
+
+    @Benchmark
+    public int damageTableRound() {
+        int i = next++ & (PAIRS - 1);
+        return Double.compare(user1Cards[i].calculateEffectiveDamage(user2Cards[i]),
+                user2Cards[i].calculateEffectiveDamage(user1Cards[i]));
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Copy of MonsterCard/SpellCard.calculateEffectiveDamage before DamageTable: nested switches on boxed Doubles
+ * and a println per call. The output goes to a discarding PrintStream, which is synchronized like System.out,
+ * so the benchmark pays for the string building and the locking without flooding the console.
+ * Kept as the baseline for DamageBenchmark.
+ */
+public class LegacyDamage {
+    private static final PrintStream OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    public static Double calculateEffectiveDamage(Card card, Card opponentCard) {
+        return card.getCardType() == CardType.MONSTER ? monsterDamage(card, opponentCard) : spellDamage(card, opponentCard);
+    }
+
+    private static Double monsterDamage(Card card, Card opponentCard) {
+        ElementType opponentElementType = opponentCard.getElementType();
+        CardType opponentCardType = opponentCard.getCardType();
+        Double baseDamage = card.getDamage();
+
+        // Check if it's a pure monster fight (no effect based on element type)
+        if (opponentCardType == CardType.MONSTER) {
+            OUT.println("Pure monster fight! Effective Damage against a monster card: " + baseDamage);
+            return baseDamage;
+        }
+
+        // Element-based spell attack
+        switch (card.getElementType()) {
+            case WATER:
+                switch (opponentElementType) {
+                    case FIRE:
+                        OUT.println("Effective Damage against FIRE: " + (baseDamage * 2));
+                        return baseDamage * 2;
+                    case NORMAL:
+                        OUT.println("Effective Damage against NORMAL: " + (baseDamage / 2));
+                        return baseDamage / 2;
+                    default:
+                        OUT.println("No Effect against WATER: " + baseDamage);
+                        return baseDamage;
+                }
+            case FIRE:
+                switch (opponentElementType) {
+                    case NORMAL:
+                        OUT.println("Effective Damage against NORMAL: " + (baseDamage * 2));
+                        return baseDamage * 2;
+                    case WATER:
+                        OUT.println("Effective Damage against WATER: " + (baseDamage / 2));
+                        return baseDamage / 2;
+                    default:
+                        OUT.println("No Effect against FIRE: " + baseDamage);
+                        return baseDamage;
+                }
+            case NORMAL:
+                switch (opponentElementType) {
+                    case WATER:
+                        OUT.println("Effective Damage against WATER: " + (baseDamage * 2));
+                        return baseDamage * 2;
+                    case FIRE:
+                        OUT.println("Effective Damage against FIRE: " + (baseDamage / 2));
+                        return baseDamage / 2;
+                    default:
+                        OUT.println("No Effect against NORMAL: " + baseDamage);
+                        return baseDamage;
+                }
+            default:
+                OUT.println("Invalid Element Type: " + card.getElementType());
+                return baseDamage;
+        }
+    }
+
+    private static Double spellDamage(Card card, Card opponentCard) {
+        ElementType opponentElementType = opponentCard.getElementType();
+        Double baseDamage = card.getDamage();
+
+        // we don't need to check if it's a monster or a spell we are fighting against
+
+        // Element-based spell attack
+        switch (card.getElementType()) {
+            case WATER:
+                switch (opponentElementType) {
+                    case FIRE:
+                        OUT.println("Effective Damage against FIRE: " + (baseDamage * 2));
+                        return baseDamage * 2;
+                    case NORMAL:
+                        OUT.println("Effective Damage against NORMAL: " + (baseDamage / 2));
+                        return baseDamage / 2;
+                    default:
+                        OUT.println("No Effect against WATER: " + baseDamage);
+                        return baseDamage;
+                }
+            case FIRE:
+                switch (opponentElementType) {
+                    case NORMAL:
+                        OUT.println("Effective Damage against NORMAL: " + (baseDamage * 2));
+                        return baseDamage * 2;
+                    case WATER:
+                        OUT.println("Effective Damage against WATER: " + (baseDamage / 2));
+                        return baseDamage / 2;
+                    default:
+                        OUT.println("No Effect against FIRE: " + baseDamage);
+                        return baseDamage;
+                }
+            case NORMAL:
+                switch (opponentElementType) {
+                    case WATER:
+                        OUT.println("Effective Damage against WATER: " + (baseDamage * 2));
+                        return baseDamage * 2;
+                    case FIRE:
+                        OUT.println("Effective Damage against FIRE: " + (baseDamage / 2));
+                        return baseDamage / 2;
+                    default:
+                        OUT.println("No Effect against NORMAL: " + baseDamage);
+                        return baseDamage;
+                }
+            default:
+                OUT.println("Invalid Element Type: " + card.getElementType());
+                return baseDamage;
+        }
+    }
+}
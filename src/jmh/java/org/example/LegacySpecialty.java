@@ -0,0 +1,78 @@
+package org.example;
+
+/**
+ * Copies of BattleSimulator.applySpecialty before the rule engine, kept as baselines for RuleBenchmark:
+ * the switch over the specialty names with a linear scan for the opponent's specialty,
+ * and the loop over a fixed array of bitmask rules that replaced it.
+ */
+public class LegacySpecialty {
+    private static final long[][] BITMASK_RULES = {
+            {Specialty.GOBLIN.bit(), Specialty.DRAGON.bit(), -1},
+            {Specialty.WIZZARD.bit(), Specialty.ORK.bit(), 1},
+            {Specialty.KNIGHT.bit(), Specialty.WATER_SPELL.bit(), -1},
+            {Specialty.KRAKEN.bit(), Specialty.SPELL.bit(), 1},
+            {Specialty.FIRE_ELF.bit(), Specialty.DRAGON.bit(), 1},
+    };
+
+    public static int switchOnNames(Card card, Card opponentCard) {
+        if (card.getSpecialties() == null) {
+            return 0;
+        }
+
+        for (String cardSpecialty : card.getSpecialties()) {
+            switch (cardSpecialty) {
+                case "WaterGoblin", "FireGoblin", "RegularGoblin":
+                    if (containsSpecialty(opponentCard, "Dragon")) {
+                        return -1;
+                    }
+                    break;
+                case "Wizzard":
+                    if (containsSpecialty(opponentCard, "Ork")) {
+                        return 1;
+                    }
+                    break;
+                case "Knight":
+                    if (opponentCard.getCardType() == CardType.SPELL && opponentCard.getElementType() == ElementType.WATER) {
+                        return -1;
+                    }
+                    break;
+                case "Kraken":
+                    if (opponentCard instanceof SpellCard) {
+                        return 1;
+                    }
+                    break;
+                case "FireElf":
+                    if (containsSpecialty(opponentCard, "Dragon")) {
+                        return 1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return 0;
+    }
+
+    public static int bitmaskLoop(Card card, Card opponentCard) {
+        long cardMask = card.getSpecialtyMask();
+        long opponentMask = opponentCard.getSpecialtyMask();
+        for (long[] rule : BITMASK_RULES) {
+            if ((cardMask & rule[0]) != 0 && (opponentMask & rule[1]) != 0) {
+                return (int) rule[2];
+            }
+        }
+        return 0;
+    }
+
+    private static boolean containsSpecialty(Card card, String specialtyToFind) {
+        if (card.getSpecialties() == null) {
+            return false;
+        }
+        for (String specialty : card.getSpecialties()) {
+            if (specialty.equals(specialtyToFind)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
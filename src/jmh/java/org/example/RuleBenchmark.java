@@ -0,0 +1,83 @@
+package org.example;
+
+import org.example.app.services.BattleRules;
+import org.example.app.services.BattleSimulator;
+import org.example.app.services.RuleTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specialty check of one battle round, both directions like BattleSimulator.fight, with the name switch,
+ * the bitmask rule loop and the compiled RuleTable. The card pairs are regular cards of all names,
+ * created the way CardDAO creates them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RuleBenchmark {
+    private static final int PAIRS = 1024;
+
+    private Card[] user1Cards;
+    private Card[] user2Cards;
+    private RuleTable ruleTable;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        user1Cards = new Card[PAIRS];
+        user2Cards = new Card[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            user1Cards[i] = randomCard(random);
+            user2Cards[i] = randomCard(random);
+        }
+        ruleTable = BattleRules.standard().compile(BattleSimulator.NUMBER_OF_ROUNDS);
+    }
+
+    private static Card randomCard(Random random) {
+        CardName name = CardName.values()[random.nextInt(CardName.values().length)];
+        ElementType elementType = name.name().contains("Water") ? ElementType.WATER
+                : name.name().contains("Fire") ? ElementType.FIRE : ElementType.NORMAL;
+        String[] specialties = {name.name()};
+        return name.name().endsWith("Spell")
+                ? new SpellCard(UUID.randomUUID(), name, 50.0, elementType, specialties, null)
+                : new MonsterCard(UUID.randomUUID(), name, 50.0, elementType, specialties, null);
+    }
+
+    @Benchmark
+    public int nameSwitch() {
+        int i = next++ & (PAIRS - 1);
+        int outcome = LegacySpecialty.switchOnNames(user1Cards[i], user2Cards[i]);
+        return outcome != 0 ? outcome : -LegacySpecialty.switchOnNames(user2Cards[i], user1Cards[i]);
+    }
+
+    @Benchmark
+    public int bitmaskLoop() {
+        int i = next++ & (PAIRS - 1);
+        int outcome = LegacySpecialty.bitmaskLoop(user1Cards[i], user2Cards[i]);
+        return outcome != 0 ? outcome : -LegacySpecialty.bitmaskLoop(user2Cards[i], user1Cards[i]);
+    }
+
+    @Benchmark
+    public int ruleTable() {
+        int i = next++ & (PAIRS - 1);
+        int outcome = ruleTable.outcome(user1Cards[i], user2Cards[i]);
+        return outcome != 0 ? outcome : -ruleTable.outcome(user2Cards[i], user1Cards[i]);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.app;
+
+import org.example.server.HttpParseException;
+import org.example.server.HttpRequestParser;
+import org.example.server.Request;
+import org.example.server.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * App.handleRequest for requests that are answered before a DAO is called: an unknown path
+ * and a request without a token. Measures routing, the access checks and building the response.
+ * The App is started as usual, the database does not have to be up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dmtcg.history.spool=target/benchmark-history.spool")
+@State(Scope.Thread)
+public class AppDispatchBenchmark {
+
+    @Param({"GET /unknown", "GET /deck", "DELETE /tradings/6cd85277-4590-49d4-b0cf-ba0a921faad0"})
+    private String requestLine;
+
+    private App app;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws HttpParseException {
+        app = new App();
+        byte[] requestBytes = (requestLine + " HTTP/1.1\r\nHost: localhost:10001\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        request = new HttpRequestParser(8 * 1024, 1024 * 1024).parse(requestBytes, 0, requestBytes.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public Response handleRequest() {
+        return app.handleRequest(request);
+    }
+}
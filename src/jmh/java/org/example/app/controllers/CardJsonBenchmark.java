@@ -0,0 +1,56 @@
+package org.example.app.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.dtos.CardDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of card lists as CardController writes them: a deck of 4 cards and a stack of 20.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CardJsonBenchmark {
+    private static final String[] NAMES = {"WaterGoblin", "Dragon", "WaterSpell", "Ork", "FireSpell"};
+
+    @Param({"4", "20"})
+    private int cardCount;
+
+    private List<CardDTO> cards;
+    // shared like the mapper of a controller
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cards = new ArrayList<>(cardCount);
+        for (int i = 0; i < cardCount; i++) {
+            cards.add(new CardDTO(UUID.randomUUID().toString(), NAMES[i % NAMES.length], 10.0 + 5 * i));
+        }
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public String writeCards() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(cards);
+    }
+}
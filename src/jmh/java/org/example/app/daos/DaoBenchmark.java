@@ -0,0 +1,111 @@
+package org.example.app.daos;
+
+import org.example.app.dtos.CardDTO;
+import org.example.app.dtos.UserStatDTO;
+import org.example.app.repositories.CardRepository;
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.ConnectionPoolConfig;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAO calls of frequent requests against an embedded H2 database with the test schema, through the ConnectionPool.
+ * The numbers include JDBC and the pool, not the network round trip to PostgreSQL.
+ * Run from the project directory, the schema is read from src/test/java/Schema.sql.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+    private static final String[] NAMES = {"WaterGoblin", "Dragon", "WaterSpell", "Ork", "FireSpell"};
+    private static final int USERS = 100;
+
+    private ConnectionPool dataSource;
+    private Connection schemaConnection;
+    private UserDAO userDAO;
+    private CardDAO cardDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException, CardRepository.InsufficientFundsException, CardRepository.CardPackageNotFoundException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:benchmarkdb;DB_CLOSE_DELAY=-1");
+        // keeps the in-memory database alive while the benchmark runs
+        schemaConnection = h2.getConnection();
+        try (Statement statement = schemaConnection.createStatement()) {
+            statement.execute(Files.readString(Path.of("src/test/java/Schema.sql")));
+        }
+
+        dataSource = new ConnectionPool(h2, new ConnectionPoolConfig());
+        userDAO = new UserDAO(dataSource);
+        cardDAO = new CardDAO(dataSource);
+
+        for (int i = 0; i < USERS; i++) {
+            userDAO.createUser("user" + i, "password");
+        }
+        // the 20 starting coins buy 4 packages, 20 cards in the stack
+        userDAO.createUser("kienboec", "daniel");
+        for (int i = 0; i < 4; i++) {
+            List<CardDTO> cards = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                cards.add(new CardDTO(UUID.randomUUID().toString(), NAMES[j], 10.0 + 5 * j));
+            }
+            cardDAO.createPackage(cards);
+            cardDAO.buyPackage("kienboec");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        dataSource.close();
+        schemaConnection.close();
+    }
+
+    // GET /stats
+    @Benchmark
+    public UserStatDTO getStats() {
+        return userDAO.getStats("kienboec");
+    }
+
+    // GET /scoreboard
+    @Benchmark
+    public List<UserStatDTO> getScoreBoard() {
+        return userDAO.getScoreBoard();
+    }
+
+    // GET /cards
+    @Benchmark
+    public List<CardDTO> getUserCards() {
+        return cardDAO.getUserCards("kienboec");
+    }
+
+    // token lookup of an authenticated request that misses the TokenCache
+    @Benchmark
+    public String getUsernameByToken() {
+        return userDAO.getUsernameByToken("kienboec-mtcgToken");
+    }
+}
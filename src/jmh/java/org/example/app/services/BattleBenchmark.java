@@ -0,0 +1,63 @@
+package org.example.app.services;
+
+import org.example.Card;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full in-memory battle of two random decks, up to 100 rounds, with and without building the BattleResult
+ * (battle ID, card transfers) that GameDAO persists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BattleBenchmark {
+    private static final int PAIRS = 256;
+
+    private BattleSimulator battleSimulator;
+    private List<Card>[] user1Decks;
+    private List<Card>[] user2Decks;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        battleSimulator = new BattleSimulator(() -> 42L);
+        DeckArchetype random = new DeckArchetype("Random", List.of());
+        SplittableRandom splittableRandom = new SplittableRandom(42);
+        user1Decks = new List[PAIRS];
+        user2Decks = new List[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            user1Decks[i] = random.dealDeck("kienboec", splittableRandom, 10, 100);
+            user2Decks[i] = random.dealDeck("altenhof", splittableRandom, 10, 100);
+        }
+    }
+
+    @Benchmark
+    public BattleResult simulate() {
+        int i = next++ & (PAIRS - 1);
+        return battleSimulator.simulate("kienboec", user1Decks[i], "altenhof", user2Decks[i], i);
+    }
+
+    @Benchmark
+    public BattleContext playRounds() {
+        int i = next++ & (PAIRS - 1);
+        return battleSimulator.play("kienboec", user1Decks[i], "altenhof", user2Decks[i], i);
+    }
+}
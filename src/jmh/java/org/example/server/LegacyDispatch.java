@@ -0,0 +1,115 @@
+package org.example.server;
+
+import org.example.http.Method;
+
+/**
+ * Copy of the route resolution App and Request did before Router: the authorization chain of
+ * Request.requiresAuthorization followed by the if/else chain of the App.handle*Request methods,
+ * including the String.split used to extract path parameters. Handlers are replaced by route names,
+ * kept as the baseline for RouterBenchmark.
+ */
+public class LegacyDispatch {
+
+    public static String dispatch(Method method, String pathname) {
+        boolean authorization = requiresAuthorization(method, pathname);
+        switch (method) {
+            case GET:
+                return handleGetRequest(pathname, authorization);
+            case POST:
+                return handlePostRequest(pathname, authorization);
+            case PUT:
+                return handlePutRequest(pathname, authorization);
+            case DELETE:
+                return handleDeleteRequest(pathname, authorization);
+        }
+        return null;
+    }
+
+    private static String handleGetRequest(String pathname, boolean authorization) {
+        if (pathname.equals("/users")) {
+            return "getUsers";
+        } else if (pathname.startsWith("/users/")) {
+            return getPathParameter(pathname);
+        } else if (pathname.equals("/cards")) {
+            return "getCards";
+        } else if (pathname.equals("/deck")) {
+            return "getDeck";
+        } else if (pathname.equals("/stats")) {
+            return "getStats";
+        } else if (pathname.equals("/scoreboard")) {
+            return "getScoreBoard";
+        } else if (pathname.equals("/tradings")) {
+            return "getTradeDeals";
+        }
+        return null;
+    }
+
+    private static String handlePostRequest(String pathname, boolean authorization) {
+        if (pathname.equals("/users")) {
+            return "createUser";
+        } else if (pathname.equals("/sessions")) {
+            return "loginUser";
+        } else if (pathname.equals("/logout")) {
+            return "logoutUser";
+        } else if (pathname.equals("/packages")) {
+            return "createPackage";
+        } else if (pathname.equals("/transactions/packages")) {
+            return "buyPackage";
+        } else if (pathname.equals("/tradings")) {
+            return "createTrade";
+        } else if (pathname.startsWith("/tradings/")) {
+            return getPathParameter(pathname);
+        } else if (pathname.equals("/battles")) {
+            return "battle";
+        }
+        return null;
+    }
+
+    private static String handlePutRequest(String pathname, boolean authorization) {
+        if (pathname.startsWith("/users/")) {
+            return getPathParameter(pathname);
+        } else if (pathname.equals("/deck")) {
+            return "updateDeck";
+        }
+        return null;
+    }
+
+    private static String handleDeleteRequest(String pathname, boolean authorization) {
+        if (pathname.startsWith("/users/")) {
+            return getPathParameter(pathname);
+        } else if (pathname.startsWith("/tradings/")) {
+            return getPathParameter(pathname);
+        }
+        return null;
+    }
+
+    private static String getPathParameter(String path) {
+        String[] parts = path.split("/");
+        return parts.length > 2 ? parts[2] : null;
+    }
+
+    private static boolean requiresAuthorization(Method method, String pathname) {
+        if (method == Method.GET) {
+            if (pathname.startsWith("/users/") || pathname.equals("/users") || pathname.equals("/cards") ||
+                    pathname.equals("/deck") || pathname.equals("/stats") || pathname.equals("/scoreboard") ||
+                    pathname.equals("/tradings")) {
+                return true;
+            }
+        } else if (method == Method.POST) {
+            if (pathname.equals("/users") || pathname.equals("/sessions") || pathname.equals("/logout") ||
+                    pathname.equals("/packages") || pathname.equals("/transactions/packages") || pathname.equals("/tradings") ||
+                    pathname.startsWith("/tradings/") || pathname.equals("/battles")) {
+                return true;
+            }
+        } else if (method == Method.PUT) {
+            if (pathname.startsWith("/users") || pathname.equals("/deck")) {
+                return true;
+            }
+        } else if (method == Method.DELETE) {
+            if (pathname.startsWith("/users/") || pathname.startsWith("/tradings/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.server;
+
+import org.example.http.Method;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Copy of the BufferedReader based parsing that Request.buildRequest used before HttpRequestParser,
+ * kept as the baseline for RequestParserBenchmark.
+ */
+public class LegacyRequestParser {
+    private static final String CONTENT_TYPE = "Content-Type: ";
+    private static final String CONTENT_LENGTH = "Content-Length: ";
+    private static final String AUTHORIZATION = "Authorization: Bearer ";
+    private static final String CONNECTION = "Connection: ";
+
+    public static Request parse(BufferedReader inputStream) {
+        Request request = new Request();
+        try {
+            // Read the first line of the request
+            String line = inputStream.readLine();
+
+            if (line != null) {
+                String[] splitFirstLine = line.split(" ");
+                Boolean hasParams = splitFirstLine[1].indexOf("?") != -1;
+
+                request.setMethod(Method.valueOf(splitFirstLine[0].toUpperCase(Locale.ROOT)));
+                request.setPathname(hasParams ? splitFirstLine[1].split("\\?")[0] : splitFirstLine[1]);
+                request.setParams(hasParams ? splitFirstLine[1].split("\\?")[1] : "");
+                request.setHttpVersion(splitFirstLine.length > 2 ? splitFirstLine[2] : "HTTP/1.0");
+
+                // Read headers until an empty line is encountered
+                while (line != null && !line.isEmpty()) {
+                    line = inputStream.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    if (line.startsWith(CONTENT_TYPE)) {
+                        request.setContentType(line.substring(CONTENT_TYPE.length()));
+                    }
+                    if (line.startsWith(CONTENT_LENGTH)) {
+                        request.setContentLength(Integer.parseInt(line.substring(CONTENT_LENGTH.length())));
+                    }
+                    if (line.startsWith(AUTHORIZATION)) {
+                        request.setAuthorization(line.length() > AUTHORIZATION.length() ? line.substring(AUTHORIZATION.length()) : "");
+                    }
+                    if (line.regionMatches(true, 0, CONNECTION, 0, CONNECTION.length())) {
+                        request.setConnection(line.substring(CONNECTION.length()).trim());
+                    }
+                }
+
+                // Read request body for POST or PUT requests, one char at a time
+                if ((request.getMethod() == Method.POST || request.getMethod() == Method.PUT) && request.getContentLength() != null) {
+                    int asciiChar;
+                    for (int i = 0; i < request.getContentLength(); i++) {
+                        asciiChar = inputStream.read();
+                        String body = request.getBody();
+                        request.setBody(body + ((char) asciiChar));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return request;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old BufferedReader based parsing with HttpRequestParser on the two largest requests
+ * of the curl script: an admin creating a package and a user offering a trade.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestParserBenchmark {
+    private static final String PACKAGES_BODY = "["
+            + "{\"Id\":\"845f0dc7-37d0-426e-994e-43fc3ac83c08\", \"Name\":\"WaterGoblin\", \"Damage\": 10.0}, "
+            + "{\"Id\":\"99f8f8dc-e25e-4a95-aa2c-782823f36e2a\", \"Name\":\"Dragon\", \"Damage\": 50.0}, "
+            + "{\"Id\":\"e85e3976-7c86-4d06-9a80-641c2019a79f\", \"Name\":\"WaterSpell\", \"Damage\": 20.0}, "
+            + "{\"Id\":\"1cb6ab86-bdb2-47e5-b6e4-68c5ab389334\", \"Name\":\"Ork\", \"Damage\": 45.0}, "
+            + "{\"Id\":\"dfdd758f-649c-40f9-ba3a-8657f4b3439f\", \"Name\":\"FireSpell\", \"Damage\": 25.0}"
+            + "]";
+    private static final String TRADINGS_BODY = "{\"Id\": \"6cd85277-4590-49d4-b0cf-ba0a921faad0\", "
+            + "\"CardToTrade\": \"1cb6ab86-bdb2-47e5-b6e4-68c5ab389334\", \"Type\": \"monster\", \"MinimumDamage\": 15}";
+
+    @Param({"packages", "tradings"})
+    private String payload;
+
+    private byte[] requestBytes;
+    private HttpRequestParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String request = "packages".equals(payload)
+                ? request("POST /packages HTTP/1.1", "admin-mtcgToken", PACKAGES_BODY)
+                : request("POST /tradings HTTP/1.1", "kienboec-mtcgToken", TRADINGS_BODY);
+        requestBytes = request.getBytes(StandardCharsets.UTF_8);
+        parser = new HttpRequestParser(8 * 1024, 1024 * 1024);
+    }
+
+    @Benchmark
+    public Request legacyParser() {
+        return LegacyRequestParser.parse(new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(requestBytes), StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public Request byteParser() throws HttpParseException {
+        return parser.parse(requestBytes, 0, requestBytes.length);
+    }
+
+    // Builds a request the way curl sends it
+    private static String request(String requestLine, String token, String body) {
+        return requestLine + "\r\n"
+                + "Host: localhost:10001\r\n"
+                + "User-Agent: curl/8.4.0\r\n"
+                + "Accept: */*\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Authorization: Bearer " + token + "\r\n"
+                + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                + "\r\n"
+                + body;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.dtos.CardDTO;
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a response into the buffers the servers write: an error without body data
+ * and the card list of GET /cards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseBenchmark {
+
+    @Param({"unauthorized", "cards"})
+    private String payload;
+
+    private Response response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        if ("unauthorized".equals(payload)) {
+            response = new Response(HttpStatus.UNAUTHORIZED, ContentType.JSON,
+                    "{ \"data\": null, \"error\": Access token is missing or invalid }");
+            return;
+        }
+        List<CardDTO> cards = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cards.add(new CardDTO(UUID.randomUUID().toString(), "WaterGoblin", 10.0 + i));
+        }
+        response = new Response(HttpStatus.OK, ContentType.JSON,
+                String.format("{ \"data\": %s, \"message\": %s }", new ObjectMapper().writeValueAsString(cards), null));
+    }
+
+    @Benchmark
+    public ByteBuffer[] toByteBuffers() {
+        return response.toByteBuffers(true);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.server;
+
+import org.example.http.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the if/else dispatch App used before with Router on the same route set,
+ * for an early route, a late route and a route with a path parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouterBenchmark {
+
+    @Param({"GET /users", "POST /battles", "DELETE /tradings/6cd85277-4590-49d4-b0cf-ba0a921faad0"})
+    private String requestLine;
+
+    private Method method;
+    private String pathname;
+    private Router<String> router;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = requestLine.split(" ");
+        method = Method.valueOf(parts[0]);
+        pathname = parts[1];
+        router = new Router<String>()
+                .add(Method.GET, "/users", "getUsers", true, true)
+                .add(Method.GET, "/users/{username}", "getUser", true, false)
+                .add(Method.GET, "/cards", "getCards", true, false)
+                .add(Method.GET, "/deck", "getDeck", true, false)
+                .add(Method.GET, "/stats", "getStats", true, false)
+                .add(Method.GET, "/scoreboard", "getScoreBoard", true, false)
+                .add(Method.GET, "/tradings", "getTradeDeals", true, false)
+                .add(Method.POST, "/users", "createUser", false, false)
+                .add(Method.POST, "/sessions", "loginUser", false, false)
+                .add(Method.POST, "/logout", "logoutUser", true, false)
+                .add(Method.POST, "/packages", "createPackage", true, true)
+                .add(Method.POST, "/transactions/packages", "buyPackage", true, false)
+                .add(Method.POST, "/tradings", "createTrade", true, false)
+                .add(Method.POST, "/tradings/{id}", "carryOutTrade", true, false)
+                .add(Method.POST, "/battles", "battle", true, false)
+                .add(Method.PUT, "/users/{username}", "updateUser", true, false)
+                .add(Method.PUT, "/deck", "updateDeck", true, false)
+                .add(Method.DELETE, "/users/{username}", "deleteUser", true, false)
+                .add(Method.DELETE, "/tradings/{id}", "deleteTradeDeal", true, false);
+    }
+
+    @Benchmark
+    public String legacyDispatch() {
+        return LegacyDispatch.dispatch(method, pathname);
+    }
+
+    @Benchmark
+    public RouteMatch<String> router() {
+        return router.match(method, pathname);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.services.BalanceReport;
+import org.example.app.services.BalanceSimulator;
+import org.example.app.services.DeckArchetype;
+
+/**
+ * Runs a balance simulation from the command line, without a database:
+ * <pre>
+ * java -cp target/classes:&lt;dependencies&gt; org.example.BalanceSimulation --battles 1000000 --seed 42 --threads 8 --json
+ * </pre>
+ * Without --seed every run draws a new seed, without --threads all cores are used,
+ * without --json the win rates are printed as text tables.
+ */
+public class BalanceSimulation {
+    public static void main(String[] args) {
+        long battles = 1_000_000;
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean json = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--battles" -> battles = Long.parseLong(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--json" -> json = true;
+                    default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BalanceSimulation [--battles N] [--seed S] [--threads T] [--json]");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        BalanceReport report;
+        try (BalanceSimulator balanceSimulator = new BalanceSimulator(threads)) {
+            report = balanceSimulator.simulate(DeckArchetype.standard(), battles, seed);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (json) {
+            try {
+                System.out.println(new ObjectMapper().writeValueAsString(report));
+            } catch (JsonProcessingException e) {
+                e.printStackTrace();
+            }
+        } else {
+            System.out.printf("Seed %d, %d threads, %d ms%n", seed, threads, elapsedMillis);
+            System.out.print(report.toText());
+        }
+    }
+}
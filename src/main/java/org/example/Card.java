@@ -1,6 +1,7 @@
 package org.example;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import java.util.UUID;
@@ -23,14 +24,43 @@ public abstract class Card {
     protected CardType cardType;
     @JsonAlias({"OwnerUserName"})
     protected String ownerUsername;
+    // Specialty bits of the specialties, card type and element, kept up to date by their setters
+    @Setter(AccessLevel.NONE)
+    private long specialtyMask;
 
-    public Card(UUID Id, CardName name, Double damage, ElementType elementType, String[] specialties, String ownerUsername) {
+    protected Card(UUID Id, CardName name, Double damage, ElementType elementType, String[] specialties, String ownerUsername,
+                   CardType cardType) {
         this.Id = Id;
         this.name = name;
         this.damage = damage;
         this.elementType = elementType;
         this.specialties = specialties;
         this.ownerUsername = ownerUsername;
+        this.cardType = cardType;
+        updateSpecialtyMask();
+    }
+
+    public void setSpecialties(String[] specialties) {
+        this.specialties = specialties;
+        updateSpecialtyMask();
+    }
+
+    public void setCardType(CardType cardType) {
+        this.cardType = cardType;
+        updateSpecialtyMask();
+    }
+
+    public void setElementType(ElementType elementType) {
+        this.elementType = elementType;
+        updateSpecialtyMask();
+    }
+
+    public boolean hasSpecialty(Specialty specialty) {
+        return (specialtyMask & specialty.bit()) != 0;
+    }
+
+    private void updateSpecialtyMask() {
+        specialtyMask = Specialty.maskOf(specialties, cardType, elementType);
     }
 
     public abstract void displayCardInfo();
@@ -43,7 +73,15 @@ public abstract class Card {
         System.out.println(getName() + " upgraded! New damage: " + upgradedDamage);
     }
 
-    public abstract Double calculateEffectiveDamage(Card opponentCard);
+    /**
+     * Calculates the damage this card deals to the opponent's card, see DamageTable.
+     *
+     * @param opponentCard The card this card attacks.
+     * @return The effective damage.
+     */
+    public double calculateEffectiveDamage(Card opponentCard) {
+        return DamageTable.effectiveDamage(this, opponentCard);
+    }
 
     protected String specialtiesToString() {
         if (getSpecialties() != null) {
@@ -0,0 +1,75 @@
+package org.example;
+
+/**
+ * Damage multipliers of every attacker/defender combination, computed once when the class is loaded.
+ * A lookup is three array reads on primitive doubles, no switch, no boxing and no logging on the battle's hot path.
+ * <p>
+ * Element effectiveness: WATER beats FIRE, FIRE beats NORMAL, NORMAL beats WATER; the effective element
+ * doubles the damage, the other one halves it. It does not apply when a monster attacks a monster.
+ */
+public final class DamageTable {
+    private static final int CARD_TYPES = CardType.values().length;
+    // [attacker element][defender element][attacker card type * CARD_TYPES + defender card type]
+    private static final double[][][] MULTIPLIERS = buildTable();
+
+    private DamageTable() {
+    }
+
+    /**
+     * Looks up the factor the attacker's damage is multiplied with.
+     *
+     * @param attacker The attacking card.
+     * @param defender The defending card.
+     * @return 2.0 for an effective element, 0.5 for a not effective one, 1.0 otherwise.
+     */
+    public static double multiplier(Card attacker, Card defender) {
+        return MULTIPLIERS[attacker.getElementType().ordinal()][defender.getElementType().ordinal()]
+                [attacker.getCardType().ordinal() * CARD_TYPES + defender.getCardType().ordinal()];
+    }
+
+    /**
+     * Calculates the damage the attacker deals to the defender.
+     *
+     * @param attacker The attacking card.
+     * @param defender The defending card.
+     * @return The base damage of the attacker times the multiplier of the pairing.
+     */
+    public static double effectiveDamage(Card attacker, Card defender) {
+        return attacker.getDamage() * multiplier(attacker, defender);
+    }
+
+    private static double[][][] buildTable() {
+        ElementType[] elements = ElementType.values();
+        CardType[] cardTypes = CardType.values();
+        double[][][] table = new double[elements.length][elements.length][CARD_TYPES * CARD_TYPES];
+        for (ElementType attackerElement : elements) {
+            for (ElementType defenderElement : elements) {
+                for (CardType attackerType : cardTypes) {
+                    for (CardType defenderType : cardTypes) {
+                        // Pure monster fight, no effect based on element type
+                        boolean pureMonsterFight = attackerType == CardType.MONSTER && defenderType == CardType.MONSTER;
+                        table[attackerElement.ordinal()][defenderElement.ordinal()][attackerType.ordinal() * CARD_TYPES + defenderType.ordinal()] =
+                                pureMonsterFight ? 1.0 : elementMultiplier(attackerElement, defenderElement);
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private static double elementMultiplier(ElementType attacker, ElementType defender) {
+        if (beats(attacker, defender)) {
+            return 2.0;
+        }
+        if (beats(defender, attacker)) {
+            return 0.5;
+        }
+        return 1.0;
+    }
+
+    private static boolean beats(ElementType attacker, ElementType defender) {
+        return (attacker == ElementType.WATER && defender == ElementType.FIRE)
+                || (attacker == ElementType.FIRE && defender == ElementType.NORMAL)
+                || (attacker == ElementType.NORMAL && defender == ElementType.WATER);
+    }
+}
@@ -1,18 +1,33 @@
 package org.example;
 
 import org.example.app.App;
+import org.example.server.NioServer;
 import org.example.server.Server;
+import org.example.server.ServerConfig;
+import org.example.server.ServerEngine;
 import java.io.IOException;
 
 public class Main {
     public static void main(String[] args) {
 
         App app = new App();
-        Server server = new Server(app, 10001);
+        // the engine is chosen with -Dmtcg.server.engine=blocking|nio
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        ServerEngine server = config.getEngine() == ServerConfig.Engine.NIO
+                ? new NioServer(app, 10001, config)
+                : new Server(app, 10001, config);
+        app.getMetricsRegistry().gauge("mtcg_server_active_connections", "Connections currently open.", server::getActiveConnections);
+        app.getMetricsRegistry().counter("mtcg_server_accepted_connections_total", "Connections accepted since start.",
+                server::getAcceptedConnections);
+        // on SIGTERM/Ctrl+C stop accepting requests, then let the app flush what is still pending
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            app.close();
+        }, "shutdown"));
         try {
             server.start();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
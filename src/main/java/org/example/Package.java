@@ -1,7 +1,8 @@
 package org.example;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,17 +12,31 @@ public class Package {
 
     // array to store the cards in the package
     private Card[] packageCards;
+    // one generator per package instead of a new Random for every value
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SplittableRandom random;
 
     // constructor initializes the package with an array of 5 cards
     public Package() {
+        this(new SplittableRandom());
+    }
+
+    // a package with a fixed seed always contains the same cards
+    public Package(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private Package(SplittableRandom random) {
         this.packageCards = new Card[5];
+        this.random = random;
     }
 
     // opens the package and generates random MonsterCard or SpellCard instances
     public void openPackage() {
         for (int i = 0; i < packageCards.length; i++) {
             // random boolean to decide whether to create a MonsterCard or SpellCard
-            if (new Random().nextBoolean()) {
+            if (random.nextBoolean()) {
                 // create a new instance of MonsterCard with random attributes
                 packageCards[i] = new MonsterCard(generateRandomId(), generateRandomName(), generateRandomDamage(), generateRandomElementType(), new String[]{String.valueOf(generateRandomName())}, null);
             } else {
@@ -46,17 +61,17 @@ public class Package {
     // generate a random name for a card from the CardName enum
     private CardName generateRandomName() {
         CardName[] cardNames = CardName.values();
-        return cardNames[new Random().nextInt(cardNames.length)];
+        return cardNames[random.nextInt(cardNames.length)];
     }
 
     // generate a random damage value for a card
     private Double generateRandomDamage() {
-        return new Random().nextDouble(100) + 1; // random value between 1 and 100
+        return random.nextDouble(100) + 1; // random value between 1 and 100
     }
 
     // generate a random ElementType for a card
     private ElementType generateRandomElementType() {
         ElementType[] elementTypes = ElementType.values();
-        return elementTypes[new Random().nextInt(elementTypes.length)];
+        return elementTypes[random.nextInt(elementTypes.length)];
     }
 }
@@ -0,0 +1,72 @@
+package org.example;
+
+/**
+ * Specialties the battle rules look at, encoded as bits of a long.
+ * A card's specialties are parsed into a mask once when the card is created,
+ * so a rule check is a bit test instead of a scan over the specialty names.
+ */
+public enum Specialty {
+    GOBLIN,
+    WIZZARD,
+    KNIGHT,
+    KRAKEN,
+    FIRE_ELF,
+    ORK,
+    DRAGON,
+    // derived from the card type and element, not from the specialty names
+    SPELL,
+    WATER_SPELL;
+
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Maps a specialty name as it is stored with the card.
+     *
+     * @param name The specialty name, e.g. "FireGoblin".
+     * @return The specialty, or null if no rule uses it.
+     */
+    public static Specialty fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "WaterGoblin", "FireGoblin", "RegularGoblin" -> GOBLIN;
+            case "Wizzard" -> WIZZARD;
+            case "Knight" -> KNIGHT;
+            case "Kraken" -> KRAKEN;
+            case "FireElf" -> FIRE_ELF;
+            case "Ork" -> ORK;
+            case "Dragon" -> DRAGON;
+            default -> null;
+        };
+    }
+
+    /**
+     * Builds the specialty mask of a card.
+     *
+     * @param specialties The specialty names of the card, may be null.
+     * @param cardType    The type of the card.
+     * @param elementType The element of the card.
+     * @return The bits of all specialties of the card.
+     */
+    public static long maskOf(String[] specialties, CardType cardType, ElementType elementType) {
+        long mask = 0;
+        if (specialties != null) {
+            for (String name : specialties) {
+                Specialty specialty = fromName(name);
+                if (specialty != null) {
+                    mask |= specialty.bit();
+                }
+            }
+        }
+        if (cardType == CardType.SPELL) {
+            mask |= SPELL.bit();
+            if (elementType == ElementType.WATER) {
+                mask |= WATER_SPELL.bit();
+            }
+        }
+        return mask;
+    }
+}
@@ -9,8 +9,7 @@ import java.util.UUID;
 public class SpellCard extends Card {
 
     public SpellCard(UUID Id, CardName name, Double damage, ElementType elementType, String[] specialties, String ownerUsername) {
-        super(Id, name, damage, elementType, specialties, ownerUsername);
-        this.cardType = CardType.SPELL;
+        super(Id, name, damage, elementType, specialties, ownerUsername, CardType.SPELL);
     }
 
     @Override
@@ -23,55 +22,4 @@ public class SpellCard extends Card {
         System.out.println("Specialties: " + specialtiesToString());
     }
 
-    @Override
-    public Double calculateEffectiveDamage(Card opponentCard) {
-        ElementType opponentElementType = opponentCard.getElementType();
-        Double baseDamage = getDamage();
-
-        // we don't need to check if it's a monster or a spell we are fighting against
-
-        // Element-based spell attack
-        switch (getElementType()) {
-            case WATER:
-                switch (opponentElementType) {
-                    case FIRE:
-                        System.out.println("Effective Damage against FIRE: " + (baseDamage * 2));
-                        return baseDamage * 2;
-                    case NORMAL:
-                        System.out.println("Effective Damage against NORMAL: " + (baseDamage / 2));
-                        return baseDamage / 2;
-                    default:
-                        System.out.println("No Effect against WATER: " + baseDamage);
-                        return baseDamage;
-                }
-            case FIRE:
-                switch (opponentElementType) {
-                    case NORMAL:
-                        System.out.println("Effective Damage against NORMAL: " + (baseDamage * 2));
-                        return baseDamage * 2;
-                    case WATER:
-                        System.out.println("Effective Damage against WATER: " + (baseDamage / 2));
-                        return baseDamage / 2;
-                    default:
-                        System.out.println("No Effect against FIRE: " + baseDamage);
-                        return baseDamage;
-                }
-            case NORMAL:
-                switch (opponentElementType) {
-                    case WATER:
-                        System.out.println("Effective Damage against WATER: " + (baseDamage * 2));
-                        return baseDamage * 2;
-                    case FIRE:
-                        System.out.println("Effective Damage against FIRE: " + (baseDamage / 2));
-                        return baseDamage / 2;
-                    default:
-                        System.out.println("No Effect against NORMAL: " + baseDamage);
-                        return baseDamage;
-                }
-            default:
-                System.out.println("Invalid Element Type: " + getElementType());
-                return baseDamage;
-        }
-    }
-
 }
@@ -1,7 +1,5 @@
 package org.example.app;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.Getter;
@@ -10,23 +8,39 @@ import org.example.app.controllers.CardController;
 import org.example.app.controllers.TradeDealController;
 import org.example.app.controllers.UserController;
 import org.example.app.controllers.GameController;
+import org.example.app.daos.BattleHistoryWriter;
 import org.example.app.daos.CardDAO;
 import org.example.app.daos.TradeDealDAO;
 import org.example.app.daos.UserDAO;
 import org.example.app.daos.GameDAO;
+import org.example.app.dtos.UserStatDTO;
 import org.example.app.repositories.CardRepository;
 import org.example.app.repositories.TradeDealRepository;
 import org.example.app.repositories.UserRepository;
 import org.example.app.repositories.GameRepository;
+import org.example.app.services.AuthenticationService;
+import org.example.app.services.BalanceSimulator;
+import org.example.app.services.BattleSimulator;
+import org.example.app.services.BattleTicket;
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.MatchmakingService;
 import org.example.app.services.DatabaseService;
 import org.example.http.ContentType;
 import org.example.http.HttpStatus;
+import org.example.http.Method;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
 import org.example.server.Request;
 import org.example.server.Response;
+import org.example.server.Route;
+import org.example.server.RouteMatch;
+import org.example.server.Router;
 import org.example.server.ServerApp;
 
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReentrantLock;
 
 @AllArgsConstructor
 @Setter(AccessLevel.PRIVATE)
@@ -37,400 +51,347 @@ public class App implements ServerApp {
     private CardController cardController;
     private TradeDealController tradeDealController;
     private GameController gameController;
-    private final ReentrantLock lock = new ReentrantLock();
-    private final ConcurrentLinkedQueue<String> lobbyQueue = new ConcurrentLinkedQueue<>();
-    private String userName1;
-    private String userName2;
-    private String battleLog;
+    private MatchmakingService matchmakingService;
+    // how long POST /battles and GET /battles/{id} wait for the battle before answering with 202
+    private long battleLongPollMillis;
+    private Router<Handler> router;
+    private AuthenticationService authenticationService;
+    private DatabaseService databaseService;
+    private BattleHistoryWriter battleHistoryWriter;
+    private BalanceSimulator balanceSimulator;
+    // upper bound of the battles of one GET /simulations
+    private long maxSimulatedBattles;
+    @Getter(AccessLevel.PUBLIC)
+    private MetricsRegistry metricsRegistry;
+    // route (or Method for requests no route matched) -> status code -> latency histogram
+    private Map<Object, Map<Integer, Histogram>> requestDurations;
 
 
     public App() {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        setMetricsRegistry(metricsRegistry);
+        setRequestDurations(new ConcurrentHashMap<>());
         DatabaseService databaseService = new DatabaseService();
-        UserDAO userDAO = new UserDAO(databaseService.getConnection());
-        CardDAO cardDAO = new CardDAO(databaseService.getConnection());
-        TradeDealDAO tradeDealDAO = new TradeDealDAO(databaseService.getConnection());
-        GameDAO gameDAO = new GameDAO(databaseService.getConnection());
-
-        UserRepository userRepository = new UserRepository(userDAO);
-        CardRepository cardRepository = new CardRepository(cardDAO);
-        TradeDealRepository tradeDealRepository = new TradeDealRepository(tradeDealDAO);
-        GameRepository gameRepository = new GameRepository(gameDAO);
-
-        setUserController(new UserController(userRepository));
+        setDatabaseService(databaseService);
+        // battle history is written behind the /battles response, the spool keeps it across crashes
+        setBattleHistoryWriter(new BattleHistoryWriter(databaseService.getDataSource(),
+                Path.of(System.getProperty("mtcg.history.spool", "battle-history.spool")),
+                Integer.getInteger("mtcg.history.capacity", 1024)));
+        UserDAO userDAO = new UserDAO(databaseService.getDataSource());
+        CardDAO cardDAO = new CardDAO(databaseService.getDataSource());
+        TradeDealDAO tradeDealDAO = new TradeDealDAO(databaseService.getDataSource());
+        GameDAO gameDAO = new GameDAO(databaseService.getDataSource(), new BattleSimulator(), getBattleHistoryWriter(), metricsRegistry);
+
+        UserRepository userRepository = new UserRepository(userDAO, metricsRegistry);
+        CardRepository cardRepository = new CardRepository(cardDAO, metricsRegistry);
+        TradeDealRepository tradeDealRepository = new TradeDealRepository(tradeDealDAO, metricsRegistry);
+        GameRepository gameRepository = new GameRepository(gameDAO, metricsRegistry);
+
+        setAuthenticationService(new AuthenticationService(userRepository));
+        setUserController(new UserController(userRepository, getAuthenticationService()));
         setCardController(new CardController(cardRepository));
         setTradeDealController(new TradeDealController(tradeDealRepository));
-        setGameController(new GameController(gameRepository));
+        // balance simulations run on their own pool, not on the battle or request threads
+        setBalanceSimulator(new BalanceSimulator(
+                Integer.getInteger("mtcg.simulation.threads", Runtime.getRuntime().availableProcessors())));
+        setMaxSimulatedBattles(Long.getLong("mtcg.simulation.maxBattles", 10_000_000));
+        setGameController(new GameController(gameRepository, getBalanceSimulator()));
+        setMatchmakingService(new MatchmakingService(gameRepository::carryOutBattle, username -> {
+            UserStatDTO stats = userRepository.getStats(username);
+            return stats != null ? stats.getElo_score() : 0;
+        }, Integer.getInteger("mtcg.battle.threads", Runtime.getRuntime().availableProcessors())));
+        setBattleLongPollMillis(Long.getLong("mtcg.battle.longPollMillis", 20_000));
+        setRouter(buildRouter());
+        registerMetrics();
+    }
+
+    // Gauges and counters over the statistics the pool, the lobby and the history writer already keep
+    private void registerMetrics() {
+        MetricsRegistry metrics = getMetricsRegistry();
+        ConnectionPool pool = getDatabaseService().getDataSource();
+        metrics.gauge("mtcg_db_pool_active_connections", "Connections borrowed from the pool.", pool::getActiveConnections);
+        metrics.gauge("mtcg_db_pool_idle_connections", "Open connections waiting in the pool.", pool::getIdleConnections);
+        metrics.gauge("mtcg_db_pool_connections", "Open connections, borrowed or idle.", pool::getTotalConnections);
+        metrics.gauge("mtcg_db_pool_pending_threads", "Threads waiting for a connection.", pool::getThreadsAwaitingConnection);
+        metrics.counter("mtcg_db_pool_borrows_total", "Connections handed out by the pool.", pool::getBorrowCount);
+        metrics.counter("mtcg_db_pool_timeouts_total", "Borrows that gave up waiting for a connection.", pool::getTimeoutCount);
+        metrics.counter("mtcg_db_pool_leaks_total", "Connections held longer than the leak detection threshold.", pool::getLeakCount);
+        metrics.counter("mtcg_db_pool_wait_seconds_total", "Time spent waiting for connections.",
+                () -> pool.getTotalWaitMillis() / 1000.0);
+        metrics.counter("mtcg_db_statement_cache_hits_total", "Prepared statements reused from the cache.", pool::getStatementCacheHits);
+        metrics.counter("mtcg_db_statement_cache_misses_total", "Prepared statements that had to be prepared.", pool::getStatementCacheMisses);
+
+        MatchmakingService lobby = getMatchmakingService();
+        metrics.gauge("mtcg_lobby_waiting_players", "Players waiting in the lobby for an opponent.", lobby::getWaitingPlayers);
+        metrics.counter("mtcg_lobby_matches_total", "Pairs formed.", lobby::getMatchCount);
+        metrics.gauge("mtcg_lobby_time_to_match_seconds", "Average time from entering the lobby to being paired.",
+                () -> lobby.getAverageTimeToMatchMillis() / 1000.0);
+        metrics.gauge("mtcg_lobby_rating_spread_average", "Average ELO difference of paired players.", lobby::getAverageRatingSpread);
+        metrics.gauge("mtcg_lobby_rating_spread_max", "Largest ELO difference of paired players.", lobby::getMaxRatingSpread);
+
+        BattleHistoryWriter history = getBattleHistoryWriter();
+        metrics.gauge("mtcg_battle_history_pending", "Battles waiting to be written to the database.", history::getPending);
+        metrics.counter("mtcg_battle_history_written_total", "Battles written to the database.", history::getWrittenBattles);
+        metrics.counter("mtcg_battle_history_inline_writes_total", "Battles written on the battle thread because the queue was full.",
+                history::getInlineWrites);
+        metrics.counter("mtcg_battle_history_failed_batches_total", "Batches that failed to be written.", history::getFailedBatches);
+        metrics.counter("mtcg_battle_history_dead_letters_total", "Battles the database refused, moved to the dead-letter file.",
+                history::getDeadLetters);
+    }
+
+    /**
+     * Shuts the application down in dependency order: running battles finish, their history is flushed,
+     * then the connection pool is closed.
+     */
+    public void close() {
+        getMatchmakingService().close();
+        getBalanceSimulator().close();
+        getBattleHistoryWriter().close();
+        getDatabaseService().close();
     }
 
     public Response handleRequest(Request request) {
+        return handleRequestAsync(request).join();
+    }
+
+    @Override
+    public CompletableFuture<Response> handleRequestAsync(Request request) {
+        long start = System.nanoTime();
+        RouteMatch<Handler> match = getRouter().match(request.getMethod(), request.getPathname());
+        // recorded when the response is complete, so long polls are timed until they answer
+        return dispatch(request, match).whenComplete((response, exception) -> recordRequestDuration(
+                request, match, response != null ? response.getStatusCode() : HttpStatus.INTERNAL_SERVER_ERROR.getCode(), start));
+    }
+
+    private CompletableFuture<Response> dispatch(Request request, RouteMatch<Handler> match) {
         try {
-            switch (request.getMethod()) {
-                case GET:
-                    return handleGetRequest(request);
-                case POST:
-                    return handlePostRequest(request);
-                case PUT:
-                    return handlePutRequest(request);
-                case DELETE:
-                    return handleDeleteRequest(request);
+            if (match == null) {
+                return CompletableFuture.completedFuture(notFoundResponse());
+            }
+
+            Route<Handler> route = match.getRoute();
+            String usernameFromToken = null;
+            if (route.isAuthRequired()) {
+                // Resolve the bearer token to the user it was issued to
+                usernameFromToken = getAuthenticationService().authenticate(request.getAuthorization());
+                if (usernameFromToken == null) {
+                    return CompletableFuture.completedFuture(
+                            buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid"));
+                }
+
+                if (route.isAdminOnly() && !usernameFromToken.equals("admin")) {
+                    return CompletableFuture.completedFuture(
+                            buildJsonResponse(HttpStatus.FORBIDDEN, null, "Provided user is not \"admin\""));
+                }
             }
+
+            if (route.getHandler() instanceof AsyncHandler asyncHandler) {
+                return asyncHandler.handleAsync(request, match, usernameFromToken);
+            }
+            return CompletableFuture.completedFuture(route.getHandler().handle(request, match, usernameFromToken));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Restore interrupted status
             handleException(e);
         } catch (Exception e) {
             handleException(e);
-            return internalServerErrorResponse();
+            return CompletableFuture.completedFuture(internalServerErrorResponse());
         }
-        return notFoundResponse();
+        return CompletableFuture.completedFuture(notFoundResponse());
     }
 
-    private Response handleGetRequest(Request request) throws InterruptedException {
-        if (request.getPathname().equals("/users")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Check if the user associated with the token has the necessary permissions
-            String authenticatedUsername = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticatedUsername.equals("admin")) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            testMultithreading();
-            return getUserController().getUsers();
-        } else if (request.getPathname().startsWith("/users/")) {
-            String usernameFromPath = getUsernameFromPath(request.getPathname());
-            if (!authenticateUser(request, usernameFromPath)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-            return getUserController().getUser(usernameFromPath);
-        } else if (request.getPathname().equals("/cards")) {
-
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            return getCardController().getCards(usernameFromToken);
-        } else if (request.getPathname().equals("/deck")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Extract the format parameter from the query parameters
-            String format = getFormatParameter(request.getParams());
-
-            // Pass the format parameter to the getDeck method
-            return getCardController().getDeck(usernameFromToken, format);
-        } else if (request.getPathname().equals("/stats")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            return getUserController().getStats(usernameFromToken);
-        } else if (request.getPathname().equals("/scoreboard")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            return getUserController().getScoreBoard();
-        } else if (request.getPathname().equals("/tradings")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    // Route table with the access rules of every endpoint: (method, template, handler, auth required, admin only)
+    private Router<Handler> buildRouter() {
+        return new Router<Handler>()
+                .add(Method.GET, "/users", this::getUsers, true, true)
+                .add(Method.GET, "/users/{username}", this::getUser, true, false)
+                .add(Method.GET, "/cards", this::getCards, true, false)
+                .add(Method.GET, "/deck", this::getDeck, true, false)
+                .add(Method.GET, "/stats", this::getStats, true, false)
+                .add(Method.GET, "/scoreboard", this::getScoreBoard, true, false)
+                .add(Method.GET, "/tradings", this::getTradeDeals, true, false)
+                .add(Method.GET, "/battles/{id}", (AsyncHandler) this::getBattle, true, false)
+                .add(Method.GET, "/battles/{id}/replay", this::replayBattle, true, true)
+                .add(Method.GET, "/simulations", (AsyncHandler) this::simulateBalance, true, true)
+                .add(Method.GET, "/metrics", this::getMetrics, false, false)
+                .add(Method.POST, "/users", this::createUser, false, false)
+                .add(Method.POST, "/sessions", this::loginUser, false, false)
+                .add(Method.POST, "/logout", this::logoutUser, true, false)
+                .add(Method.POST, "/packages", this::createPackage, true, true)
+                .add(Method.POST, "/transactions/packages", this::buyPackage, true, false)
+                .add(Method.POST, "/tradings", this::createTrade, true, false)
+                .add(Method.POST, "/tradings/{id}", this::carryOutTrade, true, false)
+                .add(Method.POST, "/battles", (AsyncHandler) this::battle, true, false)
+                .add(Method.PUT, "/users/{username}", this::updateUser, true, false)
+                .add(Method.PUT, "/deck", this::updateDeck, true, false)
+                .add(Method.DELETE, "/users/{username}", this::deleteUser, true, false)
+                .add(Method.DELETE, "/tradings/{id}", this::deleteTradeDeal, true, false)
+                .add(Method.DELETE, "/battles", this::leaveLobby, true, false);
+    }
 
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response getUsers(Request request, RouteMatch<Handler> match, String usernameFromToken) throws InterruptedException {
+        testMultithreading();
+        return getUserController().getUsers();
+    }
 
-            return getTradeDealController().getTradeDeals();
+    private Response getUser(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        String usernameFromPath = match.getPathParam("username");
+        if (!authenticateUser(usernameFromToken, usernameFromPath)) { // authentication check
+            return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
         }
-        return notFoundResponse();
-    }
-
-    private Response handlePostRequest(Request request) {
-        if (request.getPathname().equals("/users")) {
-            String body = request.getBody();
-            return getUserController().createUser(body);
-        } else if (request.getPathname().equals("/sessions")) {
-            String body = request.getBody();
-            return getUserController().loginUser(body);
-        } else if (request.getPathname().equals("/logout")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            return getUserController().logoutUser(usernameFromToken);
-        } else if (request.getPathname().equals("/packages")) {
-
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!usernameFromToken.equals("admin")) {
-                return buildJsonResponse(HttpStatus.FORBIDDEN, null, "Provided user is not \"admin\"");
-            }
-
-            String body = request.getBody();
-            return getCardController().createPackage(body);
-        } else if (request.getPathname().equals("/transactions/packages")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            return getCardController().buyPackage(usernameFromToken);
-        } else if (request.getPathname().equals("/tradings")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
+        return getUserController().getUser(usernameFromPath);
+    }
 
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response getCards(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getCardController().getCards(usernameFromToken);
+    }
 
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response getDeck(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        // Extract the format parameter from the query parameters
+        String format = getFormatParameter(request.getParams());
 
-            String body = request.getBody();
-            return getTradeDealController().createTrade(usernameFromToken, body);
-        } else if (request.getPathname().startsWith("/tradings/")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
+        // Pass the format parameter to the getDeck method
+        return getCardController().getDeck(usernameFromToken, format);
+    }
 
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response getStats(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getUserController().getStats(usernameFromToken);
+    }
 
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response getScoreBoard(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getUserController().getScoreBoard();
+    }
 
-            String body = request.getBody();
-            String tradeDealId = getTradeDealIdFromPath(request.getPathname());
-            return getTradeDealController().carryOutTrade(usernameFromToken, tradeDealId, body);
-        } else if (request.getPathname().equals("/battles")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
+    private Response getTradeDeals(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getTradeDealController().getTradeDeals();
+    }
 
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response createUser(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getUserController().createUser(request.getBody());
+    }
 
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
+    private Response loginUser(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getUserController().loginUser(request.getBody());
+    }
 
-            synchronized (lock) {
-                // Add the user to the lobby
-                addUserToLobby(usernameFromToken);
+    private Response logoutUser(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getUserController().logoutUser(usernameFromToken);
+    }
 
-                // Check if there are enough users in the lobby to start a battle
-                if (canStartBattle()) {
-                    System.out.println("Both usernames are set in the lobby");
+    private Response createPackage(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getCardController().createPackage(request.getBody());
+    }
 
-                    // If there are two users in the lobby, start the battle
-                    Response battleResponse = startBattle();
-                    setBattleLog(extractBattleLog(battleResponse));
-                    System.out.println(battleLog);
+    private Response buyPackage(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getCardController().buyPackage(usernameFromToken);
+    }
 
-                    return battleResponse;
-                } else {
-                    // Otherwise, print a message to the console indicating that the battle hasn't started yet
-                    System.out.println("Waiting for another user to enter the lobby");
+    private Response createTrade(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getTradeDealController().createTrade(usernameFromToken, request.getBody());
+    }
 
-                    String jsonResponse = String.format("{ \"data\": %s, \"message\": %s }", null, "Waiting for another user to enter the lobby");
-                    return new Response(HttpStatus.NO_CONTENT, ContentType.JSON, jsonResponse);
-                }
-            }
+    private Response carryOutTrade(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getTradeDealController().carryOutTrade(usernameFromToken, match.getPathParam("id"), request.getBody());
+    }
 
+    // Enters the lobby and long-polls for the battle; the request thread is not held while waiting
+    private CompletableFuture<Response> battle(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        BattleTicket ticket = getMatchmakingService().enterLobby(usernameFromToken);
+        if (ticket == null) {
+            return CompletableFuture.completedFuture(
+                    buildJsonResponse(HttpStatus.CONFLICT, null, "The battle of the user is still in progress"));
         }
-        return notFoundResponse();
+        return getGameController().awaitBattle(ticket, getBattleLongPollMillis());
     }
 
-    private Response handlePutRequest(Request request) {
-        if (request.getPathname().startsWith("/users/")) {
-            String usernameFromPath = getUsernameFromPath(request.getPathname());
-            if (!authenticateUser(request, usernameFromPath)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-            String body = request.getBody();
-            return getUserController().updateUser(usernameFromPath, body);
-        } else if (request.getPathname().equals("/deck")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            String body = request.getBody();
-            return getCardController().updateDeck(usernameFromToken, body);
+    // Leave the lobby before being paired
+    private Response leaveLobby(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        if (!getMatchmakingService().leaveLobby(usernameFromToken)) {
+            return buildJsonResponse(HttpStatus.NOT_FOUND, null, "User is not waiting in the lobby");
         }
-        return notFoundResponse();
+        return new Response(HttpStatus.OK, ContentType.JSON, "{ \"data\": null, \"message\": \"Left the lobby\" }");
     }
 
-    private Response handleDeleteRequest(Request request) {
-        if (request.getPathname().startsWith("/users/")) {
-            String usernameFromPath = getUsernameFromPath(request.getPathname());
-            if (!authenticateUser(request, usernameFromPath)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-            return getUserController().deleteUser(usernameFromPath);
-        } else if (request.getPathname().startsWith("/tradings/")) {
-            // Extract the user token from the request
-            String userToken = request.getAuthorization();
-
-            // Check if the user token is null or empty
-            if (userToken == null || userToken.isEmpty()) {
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            // Get the user from the token
-            String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-            if (!authenticateUser(request, usernameFromToken)) { // authentication check
-                return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
-            }
-
-            String tradeDealIdFromPath = getTradeDealIdFromPath(request.getPathname());
-            return getTradeDealController().deleteTradeDeal(usernameFromToken, tradeDealIdFromPath);
+    // Follow-up for a battle that was not finished when POST /battles answered with 202
+    private CompletableFuture<Response> getBattle(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        BattleTicket ticket;
+        try {
+            ticket = getMatchmakingService().getTicket(UUID.fromString(match.getPathParam("id")), usernameFromToken);
+        } catch (IllegalArgumentException e) {
+            ticket = null;
+        }
+        if (ticket == null) {
+            return CompletableFuture.completedFuture(notFoundResponse());
         }
-        return notFoundResponse();
+        return getGameController().awaitBattle(ticket, getBattleLongPollMillis());
     }
 
-    // Method to add a user to the lobby queue
-    private void addUserToLobby(String username) {
-        lobbyQueue.offer(username);
+    // Re-simulates a stored battle from its seed, for investigating disputes
+    private Response replayBattle(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        UUID battleId;
+        try {
+            battleId = UUID.fromString(match.getPathParam("id"));
+        } catch (IllegalArgumentException e) {
+            return notFoundResponse();
+        }
+        return getGameController().replayBattle(battleId);
     }
 
-    // Method to remove a user from the lobby queue
-    private void removeUserFromLobby(String username) {
-        lobbyQueue.remove(username);
+    // Balance simulation of the deck archetypes, e.g. GET /simulations?battles=1000000&seed=42
+    private CompletableFuture<Response> simulateBalance(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        long battles;
+        long seed;
+        try {
+            battles = Long.parseLong(getQueryParameter(request.getParams(), "battles", "100000"));
+            String seedParameter = getQueryParameter(request.getParams(), "seed", null);
+            seed = seedParameter != null ? Long.parseLong(seedParameter) : ThreadLocalRandom.current().nextLong();
+        } catch (NumberFormatException e) {
+            return CompletableFuture.completedFuture(
+                    buildJsonResponse(HttpStatus.BAD_REQUEST, null, "battles and seed must be numbers"));
+        }
+        if (battles < 1 || battles > getMaxSimulatedBattles()) {
+            return CompletableFuture.completedFuture(
+                    buildJsonResponse(HttpStatus.BAD_REQUEST, null, "battles must be between 1 and " + getMaxSimulatedBattles()));
+        }
+        return getGameController().simulateBalance(battles, seed);
     }
 
-    // Method to check if there are enough users in the lobby to start a battle
-    private boolean canStartBattle() {
-        return lobbyQueue.size() >= 2;
+    // Prometheus scrapes without a token
+    private Response getMetrics(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return new Response(HttpStatus.OK, ContentType.TEXT, getMetricsRegistry().scrape());
     }
 
-    // Method to start a battle with the first two users in the lobby
-    private Response startBattle() {
-        // Retrieve the first two users from the lobby queue
-        String userName1 = lobbyQueue.poll();
-        String userName2 = lobbyQueue.poll();
-
-        // Remove the users from the lobby queue
-        removeUserFromLobby(userName1);
-        removeUserFromLobby(userName2);
+    private Response updateUser(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        String usernameFromPath = match.getPathParam("username");
+        if (!authenticateUser(usernameFromToken, usernameFromPath)) { // authentication check
+            return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
+        }
+        return getUserController().updateUser(usernameFromPath, request.getBody());
+    }
 
-        // Carry out the battle
-        return getGameController().carryOutBattle(userName1, userName2);
+    private Response updateDeck(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getCardController().updateDeck(usernameFromToken, request.getBody());
     }
 
-    private String getUsernameFromPath(String path) {
-        // Extract username from path, e.g., "/users/john" -> "john"
-        String[] parts = path.split("/");
-        return parts.length > 2 ? parts[2] : null;
+    private Response deleteUser(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        String usernameFromPath = match.getPathParam("username");
+        if (!authenticateUser(usernameFromToken, usernameFromPath)) { // authentication check
+            return buildJsonResponse(HttpStatus.UNAUTHORIZED, null, "Access token is missing or invalid");
+        }
+        return getUserController().deleteUser(usernameFromPath);
     }
 
-    private String getTradeDealIdFromPath(String path) {
-        // Extract trade deal ID from path, e.g., "/tradings/3fa85f64-5717-4562-b3fc-2c963f66afa6" -> "3fa85f64-5717-4562-b3fc-2c963f66afa6"
-        String[] parts = path.split("/");
-        return parts.length > 2 ? parts[2] : null;
+    private Response deleteTradeDeal(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+        return getTradeDealController().deleteTradeDeal(usernameFromToken, match.getPathParam("id"));
     }
 
     // Method to extract the format parameter from the query parameters
     private String getFormatParameter(String params) {
+        // If no "format" parameter is found, return json
+        return getQueryParameter(params, "format", "json");
+    }
+
+    // Method to extract a parameter from the query parameters
+    private String getQueryParameter(String params, String key, String defaultValue) {
         // Check if the params string is not null and not empty
         if (params != null && !params.isEmpty()) {
             // Split the params string into individual parameter pairs using "&" as the delimiter
@@ -441,15 +402,14 @@ public class App implements ServerApp {
                 // Split the parameter pair into key and value using "=" as the delimiter
                 String[] keyValue = pair.split("=");
 
-                // Check if the key-value pair has exactly two elements and the key is "format"
-                if (keyValue.length == 2 && keyValue[0].equals("format")) {
-                    // Return the value associated with the "format" key
+                // Check if the key-value pair has exactly two elements and the key is the one asked for
+                if (keyValue.length == 2 && keyValue[0].equals(key)) {
+                    // Return the value associated with the key
                     return keyValue[1];
                 }
             }
         }
-        // If no "format" parameter is found, return json
-        return "json";
+        return defaultValue;
     }
 
     private Response notFoundResponse() {
@@ -468,27 +428,9 @@ public class App implements ServerApp {
         );
     }
 
-    private boolean authenticateUser(Request request, String username) {
-        // Extract the user token from the request
-        String userToken = request.getAuthorization();
-
-        // Check if the user token is null or empty
-        if (userToken == null || userToken.isEmpty()) {
-            return false;
-        }
-
-        // Check if the user associated with the token has the necessary permissions
-        String usernameFromToken = getAuthenticatedUsernameFromToken(userToken);
-        if (!usernameFromToken.equals("admin") && !usernameFromToken.equals(username)) {
-            return false;
-        }
-
-        return true;
-    }
-
-    private String getAuthenticatedUsernameFromToken(String userToken) {
-        // extract the username from the user token
-        return userToken.replace("-mtcgToken", "");
+    // Users may only access their own data, the admin may access everyone's
+    private boolean authenticateUser(String usernameFromToken, String username) {
+        return usernameFromToken.equals("admin") || usernameFromToken.equals(username);
     }
 
     private void testMultithreading() throws InterruptedException {
@@ -496,35 +438,47 @@ public class App implements ServerApp {
         Thread.sleep(2500);
     }
 
-    private String extractBattleLog(Response response) {
-        if (response == null || response.getContent() == null || response.getContent().isEmpty()) {
-            return null;
-        }
-
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(response.getContent());
-
-            if (rootNode.has("data")) {
-                JsonNode dataNode = rootNode.get("data");
-                if (dataNode != null && dataNode.isTextual()) {
-                    return dataNode.asText();
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
-    }
-
     private Response buildJsonResponse(HttpStatus status, String data, String error) {
         String jsonResponse = String.format("{ \"data\": %s, \"error\": %s }", data, error);
         return new Response(status, ContentType.JSON, jsonResponse);
     }
 
+    private void recordRequestDuration(Request request, RouteMatch<Handler> match, int statusCode, long start) {
+        long elapsed = System.nanoTime() - start;
+        // labelled by the route template, not the path, so /users/{username} stays one series
+        Method requestMethod = match != null ? match.getRoute().getMethod() : request.getMethod();
+        Object key = match != null ? match.getRoute() : requestMethod != null ? requestMethod : "unmatched";
+        Map<Integer, Histogram> byStatus = getRequestDurations().computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        Histogram histogram = byStatus.get(statusCode);
+        if (histogram == null) {
+            String method = requestMethod != null ? requestMethod.name() : "UNKNOWN";
+            String route = match != null ? match.getRoute().getTemplate() : "unmatched";
+            histogram = byStatus.computeIfAbsent(statusCode, code -> getMetricsRegistry().histogram(
+                    "mtcg_http_request_duration_seconds", "Time from parsed request to complete response.",
+                    "method=\"" + method + "\",route=\"" + route + "\",status=\"" + code + "\"", Histogram.LATENCY_BUCKETS));
+        }
+        histogram.observeNanos(elapsed);
+    }
+
     private void handleException(Exception e) {
         e.printStackTrace();
     }
 
+    // Endpoint handler; usernameFromToken is the authenticated user, null for routes that do not require authentication
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Request request, RouteMatch<Handler> match, String usernameFromToken) throws InterruptedException;
+    }
+
+    // Endpoint handler that completes its response later, e.g. after waiting for a battle
+    @FunctionalInterface
+    private interface AsyncHandler extends Handler {
+        CompletableFuture<Response> handleAsync(Request request, RouteMatch<Handler> match, String usernameFromToken);
+
+        @Override
+        default Response handle(Request request, RouteMatch<Handler> match, String usernameFromToken) {
+            return handleAsync(request, match, usernameFromToken).join();
+        }
+    }
+
 }
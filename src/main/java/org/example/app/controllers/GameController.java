@@ -5,14 +5,25 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.example.app.repositories.GameRepository;
+import org.example.app.services.BalanceSimulator;
+import org.example.app.services.BattleResult;
+import org.example.app.services.BattleTicket;
+import org.example.app.services.DeckArchetype;
+import org.example.app.services.MissingCardException;
+import org.example.app.services.StaleBattleException;
 import org.example.http.ContentType;
 import org.example.http.HttpStatus;
 import org.example.server.Response;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Setter
@@ -20,17 +31,93 @@ import java.util.stream.Collectors;
 public class GameController extends Controller {
 
     private GameRepository gameRepository;
+    private BalanceSimulator balanceSimulator;
     private ObjectMapper objectMapper;
 
-    public GameController(GameRepository gameRepository) {
+    public GameController(GameRepository gameRepository, BalanceSimulator balanceSimulator) {
         setGameRepository(gameRepository);
+        setBalanceSimulator(balanceSimulator);
         setObjectMapper(new ObjectMapper());
     }
 
-    public Response carryOutBattle(String username1, String username2) {
+    /**
+     * Waits for the battle of a lobby ticket without blocking the calling thread.
+     *
+     * @param ticket        The ticket of the player.
+     * @param timeoutMillis How long to wait for the battle before answering with 202 and the ticket ID.
+     * @return A future with 200 and the battle log, 202 if the battle is not finished in time,
+     *         404 if the player left the lobby, 409 if a deck changed during the battle, or 500 if the battle failed.
+     */
+    public CompletableFuture<Response> awaitBattle(BattleTicket ticket, long timeoutMillis) {
+        return ticket.getBattleLog()
+                .thenApply(this::battleLogResponse)
+                .exceptionally(e -> {
+                    if (e instanceof CancellationException || e.getCause() instanceof CancellationException) {
+                        // the player left the lobby
+                        return buildJsonResponse(HttpStatus.NOT_FOUND, null, "Left the lobby");
+                    }
+                    if (isStaleBattle(e)) {
+                        // nothing was saved, the players can configure their decks and battle again
+                        return buildJsonResponse(HttpStatus.CONFLICT, null, "A deck changed during the battle, the battle was not saved");
+                    }
+                    e.printStackTrace();
+                    return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Internal Server Error");
+                })
+                .completeOnTimeout(waitingResponse(ticket), timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // GET /battles/{id}/replay
+    public Response replayBattle(UUID battleId) {
         try {
-            String battleLog = getGameRepository().carryOutBattle(username1, username2);
+            BattleResult result = getGameRepository().replayBattle(battleId);
+            if (result == null) {
+                return buildJsonResponse(HttpStatus.NOT_FOUND, null, "Battle not found or recorded without seed");
+            }
+            return battleLogResponse(result.getBattleLog());
+        } catch (MissingCardException e) {
+            return buildJsonResponse(HttpStatus.CONFLICT, null, "A card of the battle no longer exists, the battle cannot be replayed");
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Internal Server Error");
+        }
+    }
+
+    /**
+     * Runs a balance simulation of the standard deck archetypes, without touching the database.
+     *
+     * @param battles The number of battles to play.
+     * @param seed    The seed of the simulation; the same seed gives the same win rates.
+     * @return A future with 200 and the win rate matrices, or 500 if the simulation failed.
+     */
+    public CompletableFuture<Response> simulateBalance(long battles, long seed) {
+        return getBalanceSimulator().simulateAsync(DeckArchetype.standard(), battles, seed)
+                .thenApply(report -> {
+                    try {
+                        String jsonResponse = String.format("{ \"data\": %s, \"message\": %s }",
+                                getObjectMapper().writeValueAsString(report), null);
+                        return new Response(HttpStatus.OK, ContentType.JSON, jsonResponse);
+                    } catch (JsonProcessingException e) {
+                        return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Internal Server Error");
+                    }
+                })
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Internal Server Error");
+                });
+    }
 
+    // The battle failure is wrapped in a CompletionException and the IllegalStateException of the DAO
+    private static boolean isStaleBattle(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StaleBattleException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Response battleLogResponse(String battleLog) {
+        try {
             if (!battleLog.isEmpty()) {
                 String battleLogJSON = getObjectMapper().writeValueAsString(battleLog);
                 String jsonResponse = String.format("{ \"data\": %s, \"message\": %s }", battleLogJSON, null);
@@ -44,6 +131,12 @@ public class GameController extends Controller {
         }
     }
 
+    // The battle is still pending, the client can ask again with GET /battles/{id}
+    private Response waitingResponse(BattleTicket ticket) {
+        String jsonResponse = String.format("{ \"data\": { \"id\": \"%s\" }, \"message\": \"Waiting for the battle\" }", ticket.getId());
+        return new Response(HttpStatus.ACCEPTED, ContentType.JSON, jsonResponse);
+    }
+
     private Response buildJsonResponse(HttpStatus status, String data, String error) {
         String jsonResponse = String.format("{ \"data\": %s, \"error\": %s }", data, error);
         return new Response(status, ContentType.JSON, jsonResponse);
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.example.app.repositories.UserRepository;
+import org.example.app.services.AuthenticationService;
 import org.example.http.ContentType;
 import org.example.http.HttpStatus;
 import org.example.server.Response;
@@ -20,10 +21,12 @@ import java.util.List;
 public class UserController extends Controller {
 
     private UserRepository userRepository;
+    private AuthenticationService authenticationService;
     private ObjectMapper objectMapper;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, AuthenticationService authenticationService) {
         setUserRepository(userRepository);
+        setAuthenticationService(authenticationService);
         setObjectMapper(new ObjectMapper());
     }
 
@@ -139,6 +142,8 @@ public class UserController extends Controller {
     public Response deleteUser(String username) {
         try {
             getUserRepository().deleteUser(username);
+            // tokens of the deleted user must not authenticate anymore
+            getAuthenticationService().invalidate(username);
             return buildJsonResponse(HttpStatus.NO_CONTENT, null, null);
         } catch (Exception e) {
             return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Failed to delete user");
@@ -172,7 +177,8 @@ public class UserController extends Controller {
                 case "500":
                     return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Failed to authenticate user");
                 default:
-                    // Authentication successful
+                    // Authentication successful, later requests with this token are served from the token cache
+                    getAuthenticationService().loggedIn(username, authenticationStatus);
                     // Include the token in the JSON response
                     String jsonResponse = String.format("{ \"data\": { \"token\": \"%s\" }, \"error\": null }", authenticationStatus);
                     return new Response(HttpStatus.OK, ContentType.JSON, jsonResponse);
@@ -199,6 +205,8 @@ public class UserController extends Controller {
                 case "500":
                     return buildJsonResponse(HttpStatus.INTERNAL_SERVER_ERROR, null, "Failed to logout user");
                 default:
+                    // The token was removed from the database, drop it from the token cache as well
+                    getAuthenticationService().invalidate(username);
                     // Assuming the logout operation was successful, return a response with HTTP status 200 (OK)
                     return buildJsonResponse(HttpStatus.OK, null, "User successfully logged out");
             }
@@ -0,0 +1,491 @@
+package org.example.app.daos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.app.dtos.BattleHistoryDTO;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.stream.Stream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind persistence of the rounds of a battle ("RoundDetail" and "RoundLog").
+ * The rounds are not needed to answer /battles, so battles publish them to a bounded queue and a background thread
+ * writes them in batches, one transaction per batch. The "Battle" row is written in the battle's own transaction.
+ * <p>
+ * A battle is appended to the spool, one JSON line per battle, before its transaction commits. The spool is split into
+ * numbered segment files ("battle-history.spool.1", ".2", ...) of at most SEGMENT_SIZE battles; a segment is deleted
+ * as soon as all of its battles are written, so the spool stays small under constant load. Battles still in the spool
+ * when the server starts are written then, so a crash loses no history. A spooled battle without a "Battle" row
+ * was rolled back and is skipped.
+ * When the queue is full, publish() writes the battle on the caller's thread, which slows down the battles
+ * instead of dropping their history.
+ * <p>
+ * A batch that fails because the database is unreachable is retried as a whole. Any other failure is blamed on
+ * a single battle: the batch is written battle by battle, and a battle the database refuses is moved from the spool
+ * to a dead-letter file next to it ("battle-history.spool.failed"), so it neither blocks the others nor is retried forever.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class BattleHistoryWriter implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final long PUBLISH_TIMEOUT_MILLIS = 100;
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+    // battles per spool segment, also bounds what a recovery reads at once
+    private static final int SEGMENT_SIZE = 256;
+
+    private DataSource dataSource;
+    private Path spoolFile;
+    private BlockingQueue<BattleHistoryDTO> queue;
+    // battles whose write failed outside the writer thread, and battles recovered from the spool; written before the queue
+    private final ConcurrentLinkedQueue<BattleHistoryDTO> retries = new ConcurrentLinkedQueue<>();
+    private ObjectMapper objectMapper;
+    private Thread writerThread;
+    // guards the spool segments
+    private final Object spoolLock = new Object();
+    // segment new battles are appended to, null until the next battle is spooled
+    private Segment activeSegment;
+    private long nextSegmentNumber = 1;
+    // segment of every spooled battle that is not in the database yet
+    private final Map<UUID, Segment> segmentsByBattle = new HashMap<>();
+    private volatile boolean closing;
+
+    private final LongAdder writtenBattles = new LongAdder();
+    private final LongAdder inlineWrites = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+
+    public BattleHistoryWriter(DataSource dataSource, Path spoolFile) {
+        this(dataSource, spoolFile, DEFAULT_CAPACITY);
+    }
+
+    public BattleHistoryWriter(DataSource dataSource, Path spoolFile, int capacity) {
+        setDataSource(dataSource);
+        setSpoolFile(spoolFile);
+        setQueue(new ArrayBlockingQueue<>(capacity));
+        setObjectMapper(new ObjectMapper());
+
+        recoverSpool();
+
+        Thread thread = new Thread(this::writeLoop, "battle-history-writer");
+        thread.setDaemon(true);
+        setWriterThread(thread);
+        thread.start();
+    }
+
+    /**
+     * Appends a battle to the spool file. Called in the battle's transaction, right before the commit,
+     * so there is no moment in which the battle is committed but its rounds are neither in the database nor in the spool.
+     *
+     * @param history The battle and its rounds.
+     */
+    public void spool(BattleHistoryDTO history) {
+        appendToSpool(history);
+    }
+
+    /**
+     * Forgets a spooled battle whose transaction was rolled back. Its line stays in the spool until its segment
+     * is deleted, a recovery skips it because there is no "Battle" row.
+     *
+     * @param history The battle.
+     */
+    public void discard(BattleHistoryDTO history) {
+        release(history);
+    }
+
+    /**
+     * Hands the rounds of a spooled battle over for writing, after the battle's transaction has committed.
+     *
+     * @param history The battle and its rounds.
+     */
+    public void publish(BattleHistoryDTO history) {
+        try {
+            if (getQueue().offer(history, PUBLISH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore interrupted status
+        }
+
+        // backpressure: the writer does not keep up, the caller writes the battle itself
+        inlineWrites.increment();
+        try {
+            writeBatch(List.of(history));
+        } catch (SQLException e) {
+            // the writer thread tries again, until then the battle keeps the spool from being emptied
+            failedBatches.increment();
+            e.printStackTrace();
+            retries.add(history);
+        }
+    }
+
+    // Battles waiting in the queue or for a retry
+    public int getPending() {
+        return getQueue().size() + retries.size();
+    }
+
+    public long getWrittenBattles() {
+        return writtenBattles.sum();
+    }
+
+    // Battles written on the publishing thread because the queue was full
+    public long getInlineWrites() {
+        return inlineWrites.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    // Battles the database refused, moved to the dead-letter file
+    public long getDeadLetters() {
+        return deadLetters.sum();
+    }
+
+    /**
+     * Writes everything still queued and stops the writer thread. Battles that could not be written stay in the spool.
+     */
+    @Override
+    public void close() {
+        // the writer notices within one poll interval, it is not interrupted in the middle of a batch
+        setClosing(true);
+        try {
+            getWriterThread().join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (spoolLock) {
+            if (activeSegment != null) {
+                activeSegment.closeWriter();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<BattleHistoryDTO> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!isClosing() || !getQueue().isEmpty() || !retries.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    BattleHistoryDTO retry;
+                    while (batch.size() < MAX_BATCH_SIZE && (retry = retries.poll()) != null) {
+                        batch.add(retry);
+                    }
+                    if (batch.isEmpty()) {
+                        BattleHistoryDTO first = isClosing() ? getQueue().poll() : getQueue().poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                    }
+                    getQueue().drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                }
+
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // only close() ends the loop, after the queue has been drained
+            } catch (SQLException e) {
+                failedBatches.increment();
+                e.printStackTrace();
+                if (!isTransient(e)) {
+                    // retrying the batch would fail on the same battle again
+                    writeOneByOne(batch);
+                    batch.clear();
+                    continue;
+                }
+                if (isClosing()) {
+                    // the batch stays in the spool and is written on the next start
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException ignored) {
+                    // retry right away
+                }
+            }
+        }
+    }
+
+    // Writes the battles of a failed batch one at a time, to find the one the database refuses
+    private void writeOneByOne(List<BattleHistoryDTO> batch) {
+        for (BattleHistoryDTO history : batch) {
+            try {
+                writeBatch(List.of(history));
+            } catch (SQLException e) {
+                if (isTransient(e)) {
+                    retries.add(history);
+                } else {
+                    e.printStackTrace();
+                    deadLetter(history);
+                }
+            }
+        }
+    }
+
+    // Failures that go away by themselves: the connection broke, the pool ran dry, a deadlock or serialization failure
+    private static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String sqlState = e.getSQLState();
+        return sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("40"));
+    }
+
+    /**
+     * Moves a battle whose rounds cannot be written to the dead-letter file, where it is kept for inspection.
+     *
+     * @param history The battle and its rounds.
+     */
+    private void deadLetter(BattleHistoryDTO history) {
+        Path deadLetterFile = getSpoolFile().resolveSibling(getSpoolFile().getFileName() + ".failed");
+        synchronized (spoolLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(getObjectMapper().writeValueAsString(history));
+                writer.newLine();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        deadLetters.increment();
+        System.err.println("Battle " + history.getBattleId() + " moved to " + deadLetterFile);
+
+        release(history);
+    }
+
+    /**
+     * Writes the rounds of a batch of battles in one transaction and deletes the spool segments that have been written completely.
+     *
+     * @param batch The battles to write.
+     * @throws SQLException If a SQL exception occurs; the transaction has been rolled back.
+     */
+    private void writeBatch(List<BattleHistoryDTO> batch) throws SQLException {
+        try (Connection connection = getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                RoundLogWriter roundLogWriter = new RoundLogWriter(connection);
+                for (BattleHistoryDTO history : batch) {
+                    roundLogWriter.addRounds(history);
+                }
+                roundLogWriter.flush();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        writtenBattles.add(batch.size());
+        for (BattleHistoryDTO history : batch) {
+            release(history);
+        }
+    }
+
+    private void appendToSpool(BattleHistoryDTO history) {
+        synchronized (spoolLock) {
+            if (activeSegment == null) {
+                activeSegment = new Segment(segmentFile(nextSegmentNumber++));
+            }
+            Segment segment = activeSegment;
+            try {
+                segment.append(getObjectMapper().writeValueAsString(history));
+            } catch (IOException e) {
+                // the battle is still queued, only the crash safety is lost
+                e.printStackTrace();
+            }
+            segment.unwritten++;
+            segmentsByBattle.put(history.getBattleId(), segment);
+
+            // the next battle starts a new segment, this one is deleted once its battles are written
+            if (++segment.appended >= SEGMENT_SIZE) {
+                segment.closeWriter();
+                activeSegment = null;
+            }
+        }
+    }
+
+    // Called once a spooled battle is written, dead-lettered or rolled back
+    private void release(BattleHistoryDTO history) {
+        synchronized (spoolLock) {
+            Segment segment = segmentsByBattle.remove(history.getBattleId());
+            if (segment == null || --segment.unwritten > 0) {
+                return;
+            }
+            // nothing in the segment is left to write, even if it is the active one
+            segment.closeWriter();
+            if (segment == activeSegment) {
+                activeSegment = null;
+            }
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Path segmentFile(long number) {
+        return getSpoolFile().resolveSibling(getSpoolFile().getFileName() + "." + number);
+    }
+
+    // Segment files left by the last run in the order they were written, and the spool of a build without segments
+    private List<Path> listSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.exists(getSpoolFile())) {
+            files.add(getSpoolFile());
+        }
+
+        Path directory = getSpoolFile().toAbsolutePath().getParent();
+        String prefix = getSpoolFile().getFileName() + ".";
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> siblings = Files.list(directory)) {
+            siblings.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.length() > prefix.length()
+                            && name.substring(prefix.length()).chars().allMatch(Character::isDigit))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(prefix.length()))));
+        }
+        numbers.sort(null);
+        for (long number : numbers) {
+            files.add(segmentFile(number));
+            nextSegmentNumber = Math.max(nextSegmentNumber, number + 1);
+        }
+        return files;
+    }
+
+    // Writes the rounds left in the spool by the last run, skipping battles that were rolled back
+    // and battles whose rounds already made it into the database
+    private void recoverSpool() {
+        try {
+            int missing = 0;
+            for (Path file : listSegments()) {
+                missing += recoverSegment(file);
+            }
+            if (missing > 0) {
+                System.out.println("Recovered " + missing + " battles from " + getSpoolFile());
+            }
+        } catch (IOException | SQLException e) {
+            // the rest of the spool is kept for the next start
+            e.printStackTrace();
+        }
+    }
+
+    private int recoverSegment(Path file) throws IOException, SQLException {
+        List<BattleHistoryDTO> recovered = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                recovered.add(getObjectMapper().readValue(line, BattleHistoryDTO.class));
+            } catch (IOException e) {
+                // a line cut off by the crash
+                e.printStackTrace();
+            }
+        }
+
+        // committed battles without rounds; the rounds of a battle are written in one transaction, all of them or none
+        String selectMissingQuery = "SELECT b.\"id\" FROM \"Battle\" b WHERE b.\"id\" = ANY(?) " +
+                "AND NOT EXISTS (SELECT 1 FROM \"RoundLog\" rl WHERE rl.\"battle_id\" = b.\"id\")";
+        Set<UUID> missingIds = new HashSet<>();
+        if (!recovered.isEmpty()) {
+            try (Connection connection = getDataSource().getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(selectMissingQuery)) {
+                UUID[] battleIds = recovered.stream().map(BattleHistoryDTO::getBattleId).toArray(UUID[]::new);
+                Array battleIdArray = connection.createArrayOf("uuid", battleIds);
+                preparedStatement.setArray(1, battleIdArray);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        missingIds.add(resultSet.getObject(1, UUID.class));
+                    }
+                }
+            }
+        }
+
+        // the segment is never appended to again, it is deleted once its missing battles are written
+        Segment segment = new Segment(file);
+        List<BattleHistoryDTO> missing = new ArrayList<>();
+        synchronized (spoolLock) {
+            for (BattleHistoryDTO history : recovered) {
+                if (missingIds.contains(history.getBattleId()) && !history.getRounds().isEmpty()
+                        && !segmentsByBattle.containsKey(history.getBattleId())) {
+                    segment.unwritten++;
+                    segmentsByBattle.put(history.getBattleId(), segment);
+                    missing.add(history);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            Files.deleteIfExists(file);
+        } else {
+            // the writer thread writes them first, a failure goes through its retries like any other battle
+            retries.addAll(missing);
+        }
+        return missing.size();
+    }
+
+    // A spool file; guarded by spoolLock
+    private static final class Segment {
+        private final Path file;
+        private BufferedWriter writer;
+        // battles appended by this run
+        private int appended;
+        // battles in the file that are not in the database yet
+        private int unwritten;
+
+        private Segment(Path file) {
+            this.file = file;
+        }
+
+        private void append(String line) throws IOException {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(line);
+            writer.newLine();
+            // survives a crash of the process, not of the machine
+            writer.flush();
+        }
+
+        private void closeWriter() {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            writer = null;
+        }
+    }
+}
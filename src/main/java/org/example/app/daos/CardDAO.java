@@ -6,18 +6,20 @@ import lombok.Setter;
 import org.example.app.dtos.CardDTO;
 import org.example.app.repositories.CardRepository;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class CardDAO {
+    private static final double PACKAGE_COST = 5;
 
     @Setter(AccessLevel.PRIVATE)
     @Getter(AccessLevel.PRIVATE)
-    Connection connection;
+    DataSource dataSource;
 
-    public CardDAO(Connection connection) {
-        setConnection(connection);
+    public CardDAO(DataSource dataSource) {
+        setDataSource(dataSource);
     }
 
     /**
@@ -31,7 +33,8 @@ public class CardDAO {
 
         String query = "SELECT * FROM \"Stack\" s JOIN \"Card\" c ON s.\"card_id\" = c.\"id\" WHERE s.\"username\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setString(1, username); // Set the parameter for the username
             ResultSet resultSet = preparedStatement.executeQuery();
 
@@ -70,7 +73,8 @@ public class CardDAO {
 
         List<CardDTO> cards = new ArrayList<>();
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setString(1, username); // Set the parameter for the username
             ResultSet resultSet = preparedStatement.executeQuery();
 
@@ -118,7 +122,8 @@ public class CardDAO {
         // If validation passes, proceed with the update
         String updateQuery = "UPDATE \"Deck\" SET \"card1_id\" = ?, \"card2_id\" = ?, \"card3_id\" = ?, \"card4_id\" = ? WHERE \"username\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
             // cardIds is a list of UUIDs in the same order as they should be updated in the deck
             for (int i = 0; i < cardIds.size(); i++) {
                 preparedStatement.setObject(i + 1, UUID.fromString(cardIds.get(i)));
@@ -165,7 +170,8 @@ public class CardDAO {
     private boolean isCardInUserStack(String cardId, String username) {
         String query = "SELECT COUNT(*) FROM \"Stack\" WHERE \"username\" = ? AND \"card_id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setString(1, username);
             preparedStatement.setObject(2, UUID.fromString(cardId));
 
@@ -193,7 +199,8 @@ public class CardDAO {
     private boolean isCardInAnotherDeck(String cardId, String username) {
         String query = "SELECT COUNT(*) FROM \"Deck\" WHERE (\"card1_id\" = ? OR \"card2_id\" = ? OR \"card3_id\" = ? OR \"card4_id\" = ?) AND \"username\" != ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             for (int i = 1; i <= 4; i++) {
                 preparedStatement.setObject(i, UUID.fromString(cardId));
             }
@@ -223,7 +230,8 @@ public class CardDAO {
     private boolean isCardInAnotherUserStack(String cardId, String username) {
         String query = "SELECT COUNT(*) FROM \"Stack\" WHERE \"username\" != ? AND \"card_id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setString(1, username);
             preparedStatement.setObject(2, UUID.fromString(cardId));
 
@@ -272,7 +280,8 @@ public class CardDAO {
         // If validation passes and cards are created, proceed with creating the package
         String insertQuery = "INSERT INTO \"Package\" (\"id\", \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\", \"card5_id\") VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(insertQuery)) {
             // Generate a new UUID for the package
             UUID packageId = UUID.randomUUID();
             preparedStatement.setObject(1, packageId);
@@ -329,13 +338,14 @@ public class CardDAO {
 
         // SQL statement to insert a new card into the Card table
         String insertStmt = "INSERT INTO \"Card\" (\"id\", \"name\", \"damage\", \"elementType\", \"specialties\", \"cardType\") VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(insertStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(insertStmt)) {
             // Set parameters in the prepared statement
             preparedStatement.setObject(1, id);
             preparedStatement.setString(2, name);
             preparedStatement.setDouble(3, damage);
             preparedStatement.setString(4, elementType);
-            preparedStatement.setArray(5, getConnection().createArrayOf("VARCHAR", specialties));
+            preparedStatement.setArray(5, connection.createArrayOf("VARCHAR", specialties));
             preparedStatement.setString(6, cardType);
 
             // Execute the SQL update statement to insert the new card
@@ -355,7 +365,8 @@ public class CardDAO {
     private boolean areCardsNotInOtherPackages(List<CardDTO> cards) {
         String query = "SELECT COUNT(*) FROM \"Package\" WHERE \"card1_id\" = ? OR \"card2_id\" = ? OR \"card3_id\" = ? OR \"card4_id\" = ? OR \"card5_id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             for (CardDTO card : cards) {
                 preparedStatement.setObject(1, UUID.fromString(card.getId()));
                 preparedStatement.setObject(2, UUID.fromString(card.getId()));
@@ -389,36 +400,44 @@ public class CardDAO {
      * @throws CardRepository.CardPackageNotFoundException If no card package is available for buying.
      */
     public List<CardDTO> buyPackage(String username) throws CardRepository.InsufficientFundsException, CardRepository.CardPackageNotFoundException {
-        // Select a random package from the "Package" table
-        Map<UUID, List<CardDTO>> packageInfo = getFirstPackage();
+        // The purchase is one unit of work, all statements run on the same pooled connection
+        try (Connection connection = getDataSource().getConnection()) {
+            try {
+                // Start the transaction before selecting the package, its row lock is held until the commit
+                connection.setAutoCommit(false);
 
-        // Check if the packageInfo map is empty, indicating that no package was found
-        if (packageInfo.isEmpty()) {
-            throw new CardRepository.CardPackageNotFoundException("No card package available for buying");
-        }
+                // Select and lock the first package nobody else is buying at the moment
+                Map<UUID, List<CardDTO>> packageInfo = getFirstPackage(connection);
 
-        // Extract package ID and cards from the map
-        // this line is extracting the UUID (package ID) from the set of keys in the packageInfo map
-        UUID purchasedPackageId = packageInfo.keySet().iterator().next();
-        // this line is getting the list of cards associated with the extracted UUID (package ID) from the packageInfo map
-        List<CardDTO> purchasedCards = packageInfo.get(purchasedPackageId);
+                // Check if the packageInfo map is empty, indicating that no package was found
+                if (packageInfo.isEmpty()) {
+                    throw new CardRepository.CardPackageNotFoundException("No card package available for buying");
+                }
 
-        // Check if the user has enough funds
-        if (userHasSufficientFunds(username)) {
+                // Extract package ID and cards from the map
+                // this line is extracting the UUID (package ID) from the set of keys in the packageInfo map
+                UUID purchasedPackageId = packageInfo.keySet().iterator().next();
+                // this line is getting the list of cards associated with the extracted UUID (package ID) from the packageInfo map
+                List<CardDTO> purchasedCards = packageInfo.get(purchasedPackageId);
+
+                // Deduct the funds from the user's account in one statement, the row lock keeps a parallel purchase
+                // of the same user waiting until this one has committed and then sees the new balance
+                if (debitPackageCost(connection, username) != 1) {
+                    connection.rollback();
+                    throw new CardRepository.InsufficientFundsException("Not enough money for buying a card package");
+                }
 
-            try {
-                connection.setAutoCommit(false); // Start a transaction
-                // Deduct the funds from the user's account
-                updateUserCoins(username, getUserCoins(username) - 5);
+                // Delete the purchased package first, if another buyer got it after all nothing is written
+                if (deletePackage(connection, purchasedPackageId) != 1) {
+                    connection.rollback();
+                    throw new CardRepository.CardPackageNotFoundException("No card package available for buying");
+                }
 
                 // Add the purchased cards to the user's stack
-                addCardsToUserStack(username, purchasedCards);
+                addCardsToUserStack(connection, username, purchasedCards);
 
                 // update the "owner_username" column in the "Card" table for each purchased card with the username of the user who bought the package
-                insertUsernameIntoCardTable(username, purchasedCards);
-
-                // Delete the purchased package from the "Package" table using the specific package ID
-                deletePackage(purchasedPackageId);
+                insertUsernameIntoCardTable(connection, username, purchasedCards);
 
                 connection.commit(); // Commit the transaction
 
@@ -434,23 +453,27 @@ public class CardDAO {
                 throw new CardRepository.InsufficientFundsException("Not enough money for buying a card package");
             } finally {
                 try {
+                    // Nothing was written if the purchase was given up, ending the transaction releases the package lock
                     connection.setAutoCommit(true); // Reset auto-commit to true
                 } catch (SQLException e) {
                     e.printStackTrace();
                 }
             }
-        } else {
-            throw new CardRepository.InsufficientFundsException("Not enough money for buying a card package");
+        } catch (SQLException e) {
+            // No connection could be borrowed from the pool
+            throw new IllegalStateException("Database unavailable", e);
         }
     }
 
     /**
-     * Selects the first package from the "Package" table.
+     * Selects and locks the first package from the "Package" table. Packages locked by a concurrent purchase are skipped,
+     * so two buyers never get the same package and neither waits for the other.
      *
+     * @param connection The connection of the current unit of work.
      * @return A Map containing the package ID and a list of CardDTO representing the cards in the selected package.
      */
-    private Map<UUID, List<CardDTO>> getFirstPackage() {
-        String query = "SELECT \"id\", \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\", \"card5_id\" FROM \"Package\" LIMIT 1";
+    private Map<UUID, List<CardDTO>> getFirstPackage(Connection connection) {
+        String query = "SELECT \"id\", \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\", \"card5_id\" FROM \"Package\" LIMIT 1 FOR UPDATE SKIP LOCKED";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             ResultSet resultSet = preparedStatement.executeQuery();
@@ -461,7 +484,7 @@ public class CardDAO {
                 List<CardDTO> cards = new ArrayList<>();
                 for (int i = 2; i <= 6; i++) {
                     String cardId = resultSet.getObject(i, UUID.class).toString();
-                    cards.add(read(cardId)); // read() method retrieves a CardDTO by cardId
+                    cards.add(read(connection, cardId)); // read() method retrieves a CardDTO by cardId
                 }
 
                 Map<UUID, List<CardDTO>> packageInfo = new HashMap<>();
@@ -477,79 +500,34 @@ public class CardDAO {
     }
 
     /**
-     * Checks if the user has sufficient funds to purchase a card package.
-     *
-     * @param username The username of the user to check for sufficient funds.
-     * @return True if the user has sufficient funds, false otherwise.
-     * @throws CardRepository.InsufficientFundsException If the user does not have enough money for buying a card package.
-     */
-    private boolean userHasSufficientFunds(String username) throws CardRepository.InsufficientFundsException {
-
-        double packageCost = 5;
-        double userCoins = getUserCoins(username);
-
-        if (userCoins >= packageCost) {
-            return true;
-        } else {
-            throw new CardRepository.InsufficientFundsException("Not enough money for buying a card package");
-        }
-    }
-
-    /**
-     * Method to update the user's coins in the database.
+     * Deducts the price of a package from the user's coins, if the user has enough of them.
      *
-     * @param username      The username of the user.
-     * @param updatedCoins  The updated amount of coins for the user.
+     * @param connection The connection of the current unit of work.
+     * @param username The username of the buyer.
+     * @return 1 if the coins were deducted, 0 if the user does not have enough money.
      * @throws SQLException If a database access error occurs.
      */
-    private void updateUserCoins(String username, double updatedCoins) throws SQLException {
-
-        String updateQuery = "UPDATE \"User\" SET \"coins\" = ? WHERE \"username\" = ?";
+    private int debitPackageCost(Connection connection, String username) throws SQLException {
+        String updateQuery = "UPDATE \"User\" SET \"coins\" = \"coins\" - ? WHERE \"username\" = ? AND \"coins\" >= ?";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
-            preparedStatement.setDouble(1, updatedCoins);
+            preparedStatement.setDouble(1, PACKAGE_COST);
             preparedStatement.setString(2, username);
+            preparedStatement.setDouble(3, PACKAGE_COST);
 
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw e; // Re-throw the exception to ensure proper transaction handling
-        }
-    }
-
-    /**
-     * Gets the user's current coins from the database.
-     *
-     * @param username The username of the user.
-     * @return The user's current coins.
-     */
-    private double getUserCoins(String username) {
-        String query = "SELECT \"coins\" FROM \"User\" WHERE \"username\" = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, username);
-            ResultSet resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                return resultSet.getDouble("coins");
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return preparedStatement.executeUpdate();
         }
-
-        // Return a default value or throw an exception based on your application requirements
-        return 0.0;
     }
 
     /**
      * Adds purchased cards to the user's stack in the database.
      *
+     * @param connection The connection of the current unit of work.
      * @param username        The username of the user.
      * @param purchasedCards  The list of CardDTO representing the purchased cards.
      * @throws SQLException If a database access error occurs.
      */
-    private void addCardsToUserStack(String username, List<CardDTO> purchasedCards) throws SQLException {
+    private void addCardsToUserStack(Connection connection, String username, List<CardDTO> purchasedCards) throws SQLException {
 
         String insertQuery = "INSERT INTO \"Stack\" (\"username\", \"card_id\") VALUES (?, ?)";
 
@@ -569,11 +547,12 @@ public class CardDAO {
     /**
      * Inserts the username of the user who bought the package into the "Card" table for the purchased cards.
      *
+     * @param connection The connection of the current unit of work.
      * @param username       The username of the user who bought the package.
      * @param purchasedCards The list of CardDTO representing the purchased cards.
      * @throws SQLException If a database access error occurs.
      */
-    private void insertUsernameIntoCardTable(String username, List<CardDTO> purchasedCards) throws SQLException {
+    private void insertUsernameIntoCardTable(Connection connection, String username, List<CardDTO> purchasedCards) throws SQLException {
         String insertQuery = "UPDATE \"Card\" SET \"owner_username\" = ? WHERE \"id\" = ?";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery)) {
@@ -591,15 +570,17 @@ public class CardDAO {
     /**
      * Deletes a purchased package from the "Package" table.
      *
+     * @param connection The connection of the current unit of work.
      * @param packageId The ID of the package to be deleted.
+     * @return The number of deleted rows, 0 if the package is gone already.
      * @throws SQLException If a database access error occurs.
      */
-    private void deletePackage(UUID packageId) throws SQLException {
+    private int deletePackage(Connection connection, UUID packageId) throws SQLException {
         String deleteQuery = "DELETE FROM \"Package\" WHERE \"id\" = ?";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(deleteQuery)) {
             preparedStatement.setObject(1, packageId);
-            preparedStatement.executeUpdate();
+            return preparedStatement.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
             throw e; // Re-throw the exception to ensure proper transaction handling
@@ -609,11 +590,12 @@ public class CardDAO {
     /**
      * Deletes unwanted cards from the user's stack in the database.
      *
+     * @param connection The connection of the current unit of work.
      * @param username        The username of the user.
      * @param cardsToRemove   The list of CardDTO representing the cards to be removed.
      * @throws SQLException If a database access error occurs.
      */
-    private void deleteCardsFromUserStack(String username, List<CardDTO> cardsToRemove) throws SQLException {
+    private void deleteCardsFromUserStack(Connection connection, String username, List<CardDTO> cardsToRemove) throws SQLException {
 
         String deleteQuery = "DELETE FROM \"Stack\" WHERE \"username\" = ? AND \"card_id\" = ?";
 
@@ -640,7 +622,8 @@ public class CardDAO {
 
         String deleteQuery = "DELETE FROM \"Stack\" WHERE \"username\" = ? AND \"card_id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(deleteQuery)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(deleteQuery)) {
             preparedStatement.setString(1, username);
             preparedStatement.setObject(2, UUID.fromString(cardId));
             preparedStatement.executeUpdate();
@@ -657,6 +640,16 @@ public class CardDAO {
      * @return The CardDTO representing the card, or null if the card is not found.
      */
     public CardDTO read(String cardId) {
+        try (Connection connection = getDataSource().getConnection()) {
+            return read(connection, cardId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private CardDTO read(Connection connection, String cardId) {
         // Implement logic to retrieve a card by its ID from the database
         String query = "SELECT * FROM \"Card\" WHERE \"id\" = ?";
 
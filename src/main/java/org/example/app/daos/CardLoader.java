@@ -0,0 +1,171 @@
+package org.example.app.daos;
+
+import org.example.*;
+import org.example.app.services.MissingCardException;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads fully hydrated MonsterCard/SpellCard objects for the DAOs.
+ * Decks and stacks are read with a single join instead of one query per card.
+ */
+final class CardLoader {
+    private static final String SELECT_CARD_QUERY = "SELECT * FROM \"Card\" WHERE \"id\" = ?";
+    private static final String SELECT_CARDS_QUERY = "SELECT * FROM \"Card\" WHERE \"id\" = ANY(?)";
+    // the CASE keeps the cards in the order of the deck slots
+    private static final String SELECT_DECK_QUERY = "SELECT c.* FROM \"Deck\" d " +
+            "JOIN \"Card\" c ON c.\"id\" IN (d.\"card1_id\", d.\"card2_id\", d.\"card3_id\", d.\"card4_id\") " +
+            "WHERE d.\"username\" = ? " +
+            "ORDER BY CASE c.\"id\" WHEN d.\"card1_id\" THEN 1 WHEN d.\"card2_id\" THEN 2 WHEN d.\"card3_id\" THEN 3 ELSE 4 END";
+    private static final String SELECT_STACK_QUERY = "SELECT c.* FROM \"Stack\" s " +
+            "JOIN \"Card\" c ON c.\"id\" = s.\"card_id\" " +
+            "WHERE s.\"username\" = ?";
+
+    private CardLoader() {
+    }
+
+    /**
+     * Loads a single card.
+     *
+     * @param connection The connection to read with.
+     * @param cardId     The ID of the card.
+     * @return The card, or null if there is no card with this ID.
+     * @throws SQLException If a database access error occurs.
+     */
+    static Card loadCard(Connection connection, UUID cardId) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_CARD_QUERY)) {
+            preparedStatement.setObject(1, cardId);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? createCardFromResultSet(resultSet) : null;
+            }
+        }
+    }
+
+    /**
+     * Loads several cards with one query.
+     *
+     * @param connection The connection to read with.
+     * @param cardIds    The IDs of the cards.
+     * @return The cards in the order of the IDs.
+     * @throws MissingCardException If there is no card for one of the IDs.
+     * @throws SQLException         If a database access error occurs.
+     */
+    static List<Card> loadCards(Connection connection, List<UUID> cardIds) throws SQLException {
+        Map<UUID, Card> cardsById = new HashMap<>();
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_CARDS_QUERY)) {
+            preparedStatement.setArray(1, connection.createArrayOf("uuid", cardIds.toArray(new UUID[0])));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Card card = createCardFromResultSet(resultSet);
+                    if (card != null) {
+                        cardsById.put(card.getId(), card);
+                    }
+                }
+            }
+        }
+
+        // the database returns the rows in any order
+        List<Card> cards = new ArrayList<>(cardIds.size());
+        for (UUID cardId : cardIds) {
+            Card card = cardsById.get(cardId);
+            if (card == null) {
+                throw new MissingCardException("Card " + cardId + " does not exist");
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * Loads the cards of a user's deck in slot order.
+     *
+     * @param connection The connection to read with.
+     * @param username   The owner of the deck.
+     * @return The cards of the deck; empty slots are left out, so the list has fewer than 4 cards if the deck is incomplete.
+     * @throws SQLException If a database access error occurs.
+     */
+    static List<Card> loadDeck(Connection connection, String username) throws SQLException {
+        return loadCards(connection, SELECT_DECK_QUERY, username);
+    }
+
+    /**
+     * Loads the cards of a user's stack.
+     *
+     * @param connection The connection to read with.
+     * @param username   The owner of the stack.
+     * @return The cards of the stack.
+     * @throws SQLException If a database access error occurs.
+     */
+    static List<Card> loadStack(Connection connection, String username) throws SQLException {
+        return loadCards(connection, SELECT_STACK_QUERY, username);
+    }
+
+    private static List<Card> loadCards(Connection connection, String query, String username) throws SQLException {
+        List<Card> cards = new ArrayList<>();
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setString(1, username);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Card card = createCardFromResultSet(resultSet);
+                    if (card != null) {
+                        cards.add(card);
+                    }
+                }
+            }
+        }
+
+        return cards;
+    }
+
+    /**
+     * Creates a Card from the current row of a ResultSet over the "Card" table.
+     *
+     * @param resultSet The ResultSet positioned on a card row.
+     * @return A MonsterCard or SpellCard, or null for other card types.
+     * @throws SQLException If a SQL exception occurs while reading the row.
+     */
+    private static Card createCardFromResultSet(ResultSet resultSet) throws SQLException {
+        UUID cardId = resultSet.getObject("id", UUID.class);
+        CardName cardName = CardName.valueOf(resultSet.getString("name"));
+        Double damage = resultSet.getDouble("damage");
+        // Map elementTypeString to ElementType enum
+        ElementType elementType = ElementType.valueOf(resultSet.getString("elementType"));
+        String[] specialties = toStringArray(resultSet.getArray("specialties"));
+        CardType cardType = CardType.valueOf(resultSet.getString("cardType"));
+        String ownerUsername = resultSet.getString("owner_username");
+
+        // Create a new Card instance based on the type of card (Monster or Spell)
+        if (cardType == CardType.MONSTER) {
+            return new MonsterCard(cardId, cardName, damage, elementType, specialties, ownerUsername);
+        } else if (cardType == CardType.SPELL) {
+            return new SpellCard(cardId, cardName, damage, elementType, specialties, ownerUsername);
+        } else {
+            // other card types
+            return null;
+        }
+    }
+
+    // PostgreSQL returns a String[] for VARCHAR arrays, other drivers an Object[]
+    static String[] toStringArray(Array array) throws SQLException {
+        if (array == null) {
+            return new String[0];
+        }
+        Object[] values = (Object[]) array.getArray();
+        return Arrays.copyOf(values, values.length, String[].class);
+    }
+}
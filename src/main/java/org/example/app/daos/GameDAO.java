@@ -5,6 +5,17 @@ import lombok.Getter;
 import lombok.Setter;
 
 import org.example.*;
+import org.example.app.dtos.BattleHistoryDTO;
+import org.example.app.services.BattleResult;
+import org.example.app.services.BattleSimulator;
+import org.example.app.services.CardTransfer;
+import org.example.app.services.MissingCardException;
+import org.example.app.services.StaleBattleException;
+import org.example.app.services.StatDelta;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
 
@@ -12,805 +23,302 @@ import java.util.*;
 @Getter(AccessLevel.PRIVATE)
 public class GameDAO {
 
-    Connection connection;
-    private String username1 = null;
-    private String username2 = null;
-    private List<Card> user1Deck = null;
-    private List<Card> user2Deck = null;
-    private String winner = null;
-    private String loser = null;
-    private Card winnerCard = null;
-    private Card loserCard = null;
-
-    public static final String WATER_GOBLIN_SPECIALTY = "WaterGoblin";
-    public static final String FIRE_GOBLIN_SPECIALTY = "FireGoblin";
-    public static final String REGULAR_GOBLIN_SPECIALTY = "RegularGoblin";
-    public static final String WIZZARD_SPECIALTY = "Wizzard";
-    public static final String KNIGHT_SPECIALTY = "Knight";
-    public static final String KRAKEN_SPECIALTY = "Kraken";
-    public static final String FIRE_ELF_SPECIALTY = "FireElf";
-    public static final String ORK_SPECIALTY = "Ork";
-    public static final String DRAGON_SPECIALTY = "Dragon";
-    private static final int NUMBER_OF_ROUNDS = 100;
-
-    public GameDAO(Connection connection) {
-        setConnection(connection);
+    DataSource dataSource;
+    BattleSimulator battleSimulator;
+    // null writes the battle history in the battle's transaction
+    BattleHistoryWriter historyWriter;
+    // time spent playing the rounds in memory and the number of rounds of a battle
+    Histogram battleDuration;
+    Histogram battleRounds;
+
+    public GameDAO(DataSource dataSource) {
+        this(dataSource, new BattleSimulator());
+    }
+
+    public GameDAO(DataSource dataSource, BattleSimulator battleSimulator) {
+        this(dataSource, battleSimulator, null);
+    }
+
+    public GameDAO(DataSource dataSource, BattleSimulator battleSimulator, BattleHistoryWriter historyWriter) {
+        this(dataSource, battleSimulator, historyWriter, new MetricsRegistry());
+    }
+
+    public GameDAO(DataSource dataSource, BattleSimulator battleSimulator, BattleHistoryWriter historyWriter,
+                   MetricsRegistry metricsRegistry) {
+        setDataSource(dataSource);
+        setBattleSimulator(battleSimulator);
+        setHistoryWriter(historyWriter);
+        setBattleDuration(metricsRegistry.histogram("mtcg_battle_duration_seconds",
+                "Time spent simulating the rounds of a battle, without loading decks and saving the result.", "",
+                new double[]{0.00001, 0.000025, 0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01}));
+        setBattleRounds(metricsRegistry.histogram("mtcg_battle_rounds", "Number of rounds played in a battle.", "",
+                new double[]{1, 5, 10, 20, 30, 40, 50, 60, 70, 80, 90, BattleSimulator.NUMBER_OF_ROUNDS}));
     }
 
     /**
      * Initiates a battle between two users and simulates the battle rounds.
+     * The battle is played in memory and then written to the database in one transaction.
      *
      * @param username1 The username of the first user.
      * @param username2 The username of the second user.
      * @return A detailed log of the battle rounds.
      */
     public String carryOutBattle(String username1, String username2) {
-
-        setUsername1(username1);
-        setUsername2(username2);
-
-        UUID battleId = createBattle(username1, username2);
-
-        StringBuilder battleLog = new StringBuilder();
+        List<Card> user1Deck;
+        List<Card> user2Deck;
 
         // Select deck cards at the start of each battle
-        setUser1Deck(buildUpDeckList(username1));
-        setUser2Deck(buildUpDeckList(username2));
-
-        for (int round = 1; round <= NUMBER_OF_ROUNDS; round++) {
-
-            boolean draw = false;
-
-            // Select one card for each user from their decks
-            Card user1Card = selectRandomCardFromDeck(user1Deck);
-            Card user2Card = selectRandomCardFromDeck(user2Deck);
-
-            // Check if it's a chaos round
-            if (round == 25 || round == 50 || round == 75) {
-                // Calculate effective damage randomly for both users
-                Double effectiveDamageUser1 = getRandomEffectiveDamage();
-                Double effectiveDamageUser2 = getRandomEffectiveDamage();
-                // Update the winner based on random damage
-                if (effectiveDamageUser1 > effectiveDamageUser2) {
-                    setWinnerAndLoser(username1, username2, user1Card, user2Card);
-                } else if (effectiveDamageUser1 < effectiveDamageUser2) {
-                    setWinnerAndLoser(username2, username1, user2Card, user1Card);
-                } else {
-                    draw = true;
-                }
-            } else {
-
-                // battle logic using the selected cards
-                applySpecialty(user1Card, user2Card, username1, username2);
-                applySpecialty(user2Card, user1Card, username2, username1);
-
-                if (winner == null && loser == null) {
-                    Double effectiveDamageUser1 = user1Card.calculateEffectiveDamage(user2Card);
-                    Double effectiveDamageUser2 = user2Card.calculateEffectiveDamage(user1Card);
-
-                    if (effectiveDamageUser1 > effectiveDamageUser2) {
-                        setWinnerAndLoser(username1, username2, user1Card, user2Card);
-                    } else if (effectiveDamageUser1 < effectiveDamageUser2) {
-                        setWinnerAndLoser(username2, username1, user2Card, user1Card);
-                    } else {
-                        draw = true;
-                    }
-                }
-            }
-
-            // Log the round details, winner, loser, cards, and draw status
-            logRound(battleId, round, winner, loser, winnerCard, loserCard, draw, battleLog);
-
-            // end the battle, if one user has lost all his cards
-            if (user1Deck.isEmpty() || user2Deck.isEmpty()) {
-                break;
-            }
-        }
-
-        // Reset variables
-        setWinner(null);
-        setLoser(null);
-        setWinnerCard(null);
-        setLoserCard(null);
-
-        // Update decks and stacks when the battle ends
-        updateDecksAndStacks();
-
-        // Return the detailed battle log
-        return "Battle completed\n" + battleLog;
-    }
-
-    /**
-     * Generates a random value representing effective damage for chaos rounds.
-     *
-     * @return A random double value between 0 (inclusive) and 100 (inclusive)
-     *         representing the effective damage.
-     */
-    private Double getRandomEffectiveDamage() {
-        Random random = new Random();
-        // Generate a random double value between 0 and 100 (inclusive) for effective damage
-        return random.nextDouble() * 101;
-    }
-
-    /**
-     * Creates a new battle record in the database.
-     *
-     * @param user1Username The username of the first user.
-     * @param user2Username The username of the second user.
-     * @return The unique identifier (UUID) of the created battle.
-     */
-    public UUID createBattle(String user1Username, String user2Username) {
-        UUID battleId = UUID.randomUUID();
-
-        String insertBattleQuery = "INSERT INTO \"Battle\"(\"id\", \"user1_username\", \"user2_username\") VALUES (?, ?, ?)";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertBattleQuery, PreparedStatement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setObject(1, battleId);
-            preparedStatement.setString(2, user1Username);
-            preparedStatement.setString(3, user2Username);
-
-            preparedStatement.executeUpdate();
-
-            // Retrieve the generated battle ID
-            ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                return battleId;
-            } else {
-                throw new SQLException("Creating battle failed, no ID obtained.");
-            }
+        try (Connection connection = getDataSource().getConnection()) {
+            user1Deck = CardLoader.loadDeck(connection, username1);
+            user2Deck = CardLoader.loadDeck(connection, username2);
         } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
+            throw new IllegalStateException("Database unavailable", e);
         }
-    }
-
-    /**
-     * Builds up a list of cards for a given username from the user's deck.
-     *
-     * @param username The username for which to build the deck list.
-     * @return A list of cards from the user's deck.
-     */
-    private List<Card> buildUpDeckList(String username) {
-        List<Card> selectedCards = new ArrayList<>();
 
-        // Select all cards for the user from their deck
-        String selectDeckQuery = "SELECT \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\" FROM \"Deck\" WHERE \"username\" = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectDeckQuery)) {
-            preparedStatement.setString(1, username);
+        // No connection is held while the rounds are played
+        long start = System.nanoTime();
+        BattleResult result = getBattleSimulator().simulate(username1, user1Deck, username2, user2Deck);
+        getBattleDuration().observeNanos(System.nanoTime() - start);
+        getBattleRounds().observe(result.getRounds().size());
 
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                while (resultSet.next()) {
-                    for (int i = 1; i <= 4; i++) {
-                        UUID cardId = UUID.fromString(resultSet.getString("card" + i + "_id"));
-                        Card card = getCardById(cardId);
-                        if (card != null) {
-                            selectedCards.add(card);
-                        }
-                    }
-                }
-            }
+        try {
+            saveBattle(result);
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Battle could not be saved", e);
         }
 
-        return selectedCards;
+        return result.getBattleLog();
     }
 
     /**
-     * Retrieves a card from the database based on its ID.
+     * Plays a past battle again in memory from its seed and the starting decks stored with it.
+     * Nothing is written; the rounds match the original battle as long as the rules have not changed since.
      *
-     * @param cardId The unique identifier (UUID) of the card.
-     * @return The Card object representing the retrieved card or null if not found.
+     * @param battleId The ID of the battle.
+     * @return The replayed battle, or null if there is no such battle or it was played before seeds were stored.
+     * @throws MissingCardException If a card of the stored decks no longer exists.
+     * @throws SQLException         If a SQL exception occurs while loading the battle or its cards.
      */
-    public Card getCardById(UUID cardId) {
-        String selectCardQuery = "SELECT * FROM \"Card\" WHERE \"id\" = ?";
+    public BattleResult replayBattle(UUID battleId) throws SQLException {
+        String selectBattleQuery = "SELECT \"user1_username\", \"user2_username\", \"seed\", \"user1_deck\", \"user2_deck\" FROM \"Battle\" WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectCardQuery)) {
-            preparedStatement.setObject(1, cardId);
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectBattleQuery)) {
+            preparedStatement.setObject(1, battleId);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    CardName cardName = CardName.valueOf(resultSet.getString("name"));
-                    Double damage = resultSet.getDouble("damage");
-                    String elementTypeString = resultSet.getString("elementType");
-                    // Map elementTypeString to ElementType enum
-                    ElementType elementType = ElementType.valueOf(elementTypeString);
-                    String[] specialties = (String[]) resultSet.getArray("specialties").getArray();
-                    CardType cardType = CardType.valueOf(resultSet.getString("cardType"));
-                    String ownerUsername = resultSet.getString("owner_username");
-
-                    // Create a new Card instance based on the type of card (Monster or Spell)
-                    if (cardType == CardType.MONSTER) {
-                        return new MonsterCard(cardId, cardName, damage, elementType, specialties, ownerUsername);
-                    } else if (cardType == CardType.SPELL) {
-                        return new SpellCard(cardId, cardName, damage, elementType, specialties, ownerUsername);
-                    } else {
-                        // other card types
-                        return null;
-                    }
+                if (!resultSet.next() || resultSet.getObject("seed") == null || resultSet.getArray("user1_deck") == null) {
+                    return null;
                 }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return null; // if no card is found
-    }
 
-    /**
-     * Selects a random card from the given deck.
-     *
-     * @param deck The deck from which to select a card.
-     * @return A randomly selected card from the deck.
-     */
-    private Card selectRandomCardFromDeck(List<Card> deck) {
-        if (deck.isEmpty()) {
-            return null; // if the deck is empty
-        }
-
-        Random random = new Random();
-        int randomIndex = random.nextInt(deck.size());
-        Card selectedCard = deck.get(randomIndex);
-
-        return selectedCard;
-    }
-
-    /**
-     * Applies specialty effects during a battle round based on the selected cards.
-     *
-     * @param user1Card   The card selected by the first user.
-     * @param user2Card   The card selected by the second user.
-     * @param username1   The username of the first user.
-     * @param username2   The username of the second user.
-     */
-    public void applySpecialty(Card user1Card, Card user2Card, String username1,  String username2) {
-        if (user1Card.getSpecialties() != null) {
-            for (String cardSpecialty : user1Card.getSpecialties()) {
-                // logic to apply the specialty effect to the card
-                // This method modifies the card based on the specialty
-
-                // Check the specialty type and apply the corresponding effect
-                switch (cardSpecialty) {
-                    case WATER_GOBLIN_SPECIALTY, FIRE_GOBLIN_SPECIALTY, REGULAR_GOBLIN_SPECIALTY:
-                        // Goblins are too afraid of Dragons to attack
-                        if (user2Card.getSpecialties() != null &&
-                                containsSpecialty(user2Card.getSpecialties(), DRAGON_SPECIALTY)) {
-                            setWinnerAndLoser(username2, username1, user2Card, user1Card);
-                        }
-                        break;
-
-                    case WIZZARD_SPECIALTY:
-                        // Wizzard can control Orks so they are not able to damage them
-                        if (user2Card.getSpecialties() != null &&
-                                containsSpecialty(user2Card.getSpecialties(), ORK_SPECIALTY)) {
-                            setWinnerAndLoser(username1, username2, user1Card, user2Card);
-                        }
-                        break;
-
-                    case KNIGHT_SPECIALTY:
-                        // The armor of Knights is so heavy that WaterSpells make them drown instantly
-                        if (user2Card.getCardType().equals(CardType.SPELL) && user2Card.getElementType().equals(ElementType.WATER)) {
-                            setWinnerAndLoser(username2, username1, user2Card, user1Card);
-                        }
-                        break;
-
-                    case KRAKEN_SPECIALTY:
-                        // The Kraken is immune against spells
-                        if (user2Card instanceof SpellCard) {
-                            setWinnerAndLoser(username1, username2, user1Card, user2Card);
-                        }
-                        break;
-
-                    case FIRE_ELF_SPECIALTY:
-                        // The FireElves know Dragons since they were little and can evade their attacks
-                        if (user2Card.getSpecialties() != null &&
-                                containsSpecialty(user2Card.getSpecialties(), DRAGON_SPECIALTY)) {
-                            setWinnerAndLoser(username1, username2, user1Card, user2Card);
-                        }
-                        break;
-
-                    default:
-                        // Handle other specialties or no effect
-                        break;
+                // both decks with one query, in slot order, the order decides which card a random draw picks
+                List<UUID> cardIds = new ArrayList<>();
+                for (String cardId : CardLoader.toStringArray(resultSet.getArray("user1_deck"))) {
+                    cardIds.add(UUID.fromString(cardId));
                 }
-            }
-        }
-    }
-
-    /**
-     * Checks if the specialties of a card contain a specific specialty.
-     *
-     * @param specialties      The array of specialties of a card.
-     * @param specialtyToFind  The specialty to check for.
-     * @return True if the card has the specified specialty; false otherwise.
-     */
-    protected boolean containsSpecialty(String[] specialties, String specialtyToFind) {
-        for (String specialty : specialties) {
-            if (specialty.equals(specialtyToFind)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Sets the winner and loser based on the battle outcome.
-     *
-     * @param winnerUsername The username of the winner.
-     * @param loserUsername  The username of the loser.
-     * @param winnerCard     The card of the winner.
-     * @param loserCard      The card of the loser.
-     */
-    private void setWinnerAndLoser(String winnerUsername, String loserUsername, Card winnerCard, Card loserCard) {
-        setWinner(winnerUsername);
-        setLoser(loserUsername);
-        setWinnerCard(winnerCard);
-        setLoserCard(loserCard);
-
-        // Update decks based on the winner and loser
-        updateDecks();
-
-        // Update user stats
-        updateStats(winnerUsername, loserUsername);
-
-        // Update Elo scores
-        updateEloScores(winnerUsername, loserUsername);
-    }
+                int user1DeckSize = cardIds.size();
+                for (String cardId : CardLoader.toStringArray(resultSet.getArray("user2_deck"))) {
+                    cardIds.add(UUID.fromString(cardId));
+                }
+                List<Card> cards = CardLoader.loadCards(connection, cardIds);
 
-    /**
-     * Updates the decks based on the winner and loser after a battle round.
-     */
-    private void updateDecks() {
-        try {
-            // Remove defeated cards from the loser's deck and add to the winner's deck
-            if (winner.equals(username1)) {
-                // Move the card from the loser's deck to the winner's deck
-                removeFromDeck(user2Deck, loserCard);
-                addToDeck(user1Deck, loserCard);
-            } else if (winner.equals(username2)) {
-                removeFromDeck(user1Deck, loserCard);
-                addToDeck(user2Deck, loserCard);
+                return getBattleSimulator().simulate(resultSet.getString("user1_username"), cards.subList(0, user1DeckSize),
+                        resultSet.getString("user2_username"), cards.subList(user1DeckSize, cards.size()), resultSet.getLong("seed"));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
     /**
-     * Removes a card from the given deck.
+     * Persists a simulated battle in one transaction: the stats of both users, the emptied decks and the cards
+     * that changed hands. Nothing is written if one of the steps fails.
+     * The decks are locked and compared with the decks the battle started with first, so a deck that was
+     * reconfigured, traded from or used by another battle while the rounds were played is not overwritten.
+     * The "Battle" row is part of the transaction. The rounds are spooled by the history writer before the commit
+     * and handed to it for writing after the commit; without a history writer they are written in the same transaction.
      *
-     * @param deck The deck from which to remove the card.
-     * @param card The card to be removed.
+     * @param result The result of the simulation.
+     * @throws StaleBattleException If a deck changed since the battle started; the transaction has been rolled back.
+     * @throws SQLException         If a SQL exception occurs; the transaction has been rolled back.
      */
-    private void removeFromDeck(List<Card> deck, Card card) {
-        deck.remove(card);
-    }
-
-    /**
-     * Adds a card to the given deck.
-     *
-     * @param deck The deck to which the card should be added.
-     * @param card The card to be added.
-     */
-    private void addToDeck(List<Card> deck, Card card) {
-        deck.add(card);
-    }
-
-    /**
-     * Updates user statistics (wins and losses) after a battle round.
-     *
-     * @param winnerUsername The username of the winner.
-     * @param loserUsername  The username of the loser.
-     */
-    private void updateStats(String winnerUsername, String loserUsername) {
-        try {
-            // Increment wins for the winner
-            incrementWins(winnerUsername);
-
-            // Increment losses for the loser
-            incrementLosses(loserUsername);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Updates Elo scores after a battle round.
-     *
-     * @param winnerUsername The username of the winner.
-     * @param loserUsername  The username of the loser.
-     */
-    private void updateEloScores(String winnerUsername, String loserUsername) {
-        try {
-            // Increment Elo score for the winner and decrement for the loser
-            incrementEloScore(winnerUsername, 3);
-            decrementEloScore(loserUsername, 5);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Increments the number of wins for the specified user in the database.
-     *
-     * @param username The username of the user to increment wins for.
-     * @throws SQLException If a SQL exception occurs during the database update.
-     */
-    private void incrementWins(String username) throws SQLException {
-        // Query to retrieve the current number of wins
-        String selectWinsQuery = "SELECT \"wins\" FROM \"User\" WHERE \"username\" = ?";
-
-        // Update query to increment the wins
-        String updateWinsQuery = "UPDATE \"User\" SET \"wins\" = ? WHERE \"username\" = ?";
-
-        int currentWins = 0;
-
-        // Step 1: Query current number of wins
-        try (PreparedStatement selectStatement = connection.prepareStatement(selectWinsQuery)) {
-            selectStatement.setString(1, username);
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    currentWins = resultSet.getInt("wins");
+    public void saveBattle(BattleResult result) throws SQLException {
+        BattleHistoryDTO history = result.toHistory();
+        boolean spooled = false;
+        try (Connection connection = getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                lockDecks(connection, result);
+                RoundLogWriter roundLogWriter = new RoundLogWriter(connection);
+                if (getHistoryWriter() == null) {
+                    roundLogWriter.add(history);
+                } else {
+                    // the "Battle" row commits with the result, a recovery of the spool uses it to tell committed battles apart
+                    roundLogWriter.addBattle(history);
+                }
+                roundLogWriter.flush();
+                updateStats(connection, Arrays.asList(result.getUser1Stats(), result.getUser2Stats()));
+                clearDecks(connection, result.getUsername1(), result.getUsername2());
+                transferCards(connection, result.getTransfers());
+                if (getHistoryWriter() != null) {
+                    getHistoryWriter().spool(history);
+                    spooled = true;
                 }
+                connection.commit();
+            } catch (SQLException e) {
+                if (spooled) {
+                    getHistoryWriter().discard(history);
+                }
+                connection.rollback();
+                throw e;
             }
         }
 
-        // Step 2: Increment the wins
-        int updatedWins = currentWins + 1;
-
-        // Step 3: Update the value in the database
-        try (PreparedStatement updateStatement = connection.prepareStatement(updateWinsQuery)) {
-            updateStatement.setInt(1, updatedWins);
-            updateStatement.setString(2, username);
-            updateStatement.executeUpdate();
+        if (getHistoryWriter() != null) {
+            getHistoryWriter().publish(history);
         }
     }
 
     /**
-     * Increments the number of losses for the specified user in the database.
+     * Locks the deck rows of both users in username order and checks that they still hold the cards
+     * the battle started with, in the same slots.
      *
-     * @param username The username of the user to increment losses for.
-     * @throws SQLException If a SQL exception occurs during the database update.
+     * @param connection The connection of the current unit of work.
+     * @param result     The result of the simulation.
+     * @throws StaleBattleException If a deck changed since the battle started.
+     * @throws SQLException         If a SQL exception occurs while reading the decks.
      */
-    private void incrementLosses(String username) throws SQLException {
-        // Query to retrieve the current number of losses
-        String selectLossesQuery = "SELECT \"losses\" FROM \"User\" WHERE \"username\" = ?";
+    private void lockDecks(Connection connection, BattleResult result) throws SQLException {
+        String lockDeckQuery = "SELECT \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\" FROM \"Deck\" WHERE \"username\" = ? FOR UPDATE";
 
-        // Update query to increment the losses
-        String updateLossesQuery = "UPDATE \"User\" SET \"losses\" = ? WHERE \"username\" = ?";
+        Map<String, List<Card>> startingDecks = new TreeMap<>();
+        startingDecks.put(result.getUsername1(), result.getUser1StartingDeck());
+        startingDecks.put(result.getUsername2(), result.getUser2StartingDeck());
 
-        int currentLosses = 0;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(lockDeckQuery)) {
+            for (Map.Entry<String, List<Card>> startingDeck : startingDecks.entrySet()) {
+                preparedStatement.setString(1, startingDeck.getKey());
 
-        // Step 1: Query current number of losses
-        try (PreparedStatement selectStatement = connection.prepareStatement(selectLossesQuery)) {
-            selectStatement.setString(1, username);
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    currentLosses = resultSet.getInt("losses");
+                // the starting deck leaves out empty slots, so do the IDs read here
+                List<UUID> deckCardIds = new ArrayList<>(4);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        for (int slot = 1; slot <= 4; slot++) {
+                            UUID cardId = resultSet.getObject("card" + slot + "_id", UUID.class);
+                            if (cardId != null) {
+                                deckCardIds.add(cardId);
+                            }
+                        }
+                    }
                 }
-            }
-        }
-
-        // Step 2: Increment the losses
-        int updatedLosses = currentLosses + 1;
-
-        // Step 3: Update the value in the database
-        try (PreparedStatement updateStatement = connection.prepareStatement(updateLossesQuery)) {
-            updateStatement.setInt(1, updatedLosses);
-            updateStatement.setString(2, username);
-            updateStatement.executeUpdate();
-        }
-    }
-
-    /**
-     * Increments the Elo score for the specified user in the database.
-     *
-     * @param username The username of the user to increment the Elo score for.
-     * @param increment The amount by which to increment the Elo score.
-     * @throws SQLException If a SQL exception occurs during the database update.
-     */
-    private void incrementEloScore(String username, int increment) throws SQLException {
-        // Query to retrieve the current Elo score
-        String selectEloQuery = "SELECT \"elo_score\" FROM \"User\" WHERE \"username\" = ?";
-
-        // Update query to increment the Elo score
-        String updateEloQuery = "UPDATE \"User\" SET \"elo_score\" = ? WHERE \"username\" = ?";
 
-        int currentEloScore = 0;
-
-        // Step 1: Query current Elo score
-        try (PreparedStatement selectStatement = connection.prepareStatement(selectEloQuery)) {
-            selectStatement.setString(1, username);
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    currentEloScore = resultSet.getInt("elo_score");
+                List<UUID> startingCardIds = new ArrayList<>(4);
+                for (Card card : startingDeck.getValue()) {
+                    startingCardIds.add(card.getId());
+                }
+                if (!deckCardIds.equals(startingCardIds)) {
+                    throw new StaleBattleException("The deck of " + startingDeck.getKey() + " changed during the battle");
                 }
             }
         }
-
-        // Step 2: Increment the Elo score
-        int updatedEloScore = currentEloScore + increment;
-
-        // Step 3: Update the value in the database
-        try (PreparedStatement updateStatement = connection.prepareStatement(updateEloQuery)) {
-            updateStatement.setInt(1, updatedEloScore);
-            updateStatement.setString(2, username);
-            updateStatement.executeUpdate();
-        }
     }
 
     /**
-     * Decrements the Elo score for the specified user in the database.
+     * Applies the wins, losses and Elo changes of a battle with one relative UPDATE per user,
+     * so concurrent battles of the same user add up instead of overwriting each other.
+     * The rows are updated in username order, so two battles sharing users always lock them in the same order.
+     * The Elo score does not go below 0.
      *
-     * @param username  The username of the user to decrement the Elo score for.
-     * @param decrement The amount by which to decrement the Elo score.
+     * @param connection The connection of the current unit of work.
+     * @param stats      The stat changes of the users.
      * @throws SQLException If a SQL exception occurs during the database update.
      */
-    private void decrementEloScore(String username, int decrement) throws SQLException {
-        // Query to retrieve the current Elo score
-        String selectEloQuery = "SELECT \"elo_score\" FROM \"User\" WHERE \"username\" = ?";
-
-        // Update query to decrement the Elo score
-        String updateEloQuery = "UPDATE \"User\" SET \"elo_score\" = ? WHERE \"username\" = ?";
-
-        int currentEloScore = 0;
-
-        // Step 1: Query current Elo score
-        try (PreparedStatement selectStatement = connection.prepareStatement(selectEloQuery)) {
-            selectStatement.setString(1, username);
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    currentEloScore = resultSet.getInt("elo_score");
+    private void updateStats(Connection connection, List<StatDelta> stats) throws SQLException {
+        String updateStatsQuery = "UPDATE \"User\" SET \"wins\" = \"wins\" + ?, \"losses\" = \"losses\" + ?, " +
+                "\"elo_score\" = GREATEST(\"elo_score\" + ?, 0) WHERE \"username\" = ?";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(updateStatsQuery)) {
+            List<StatDelta> changed = new ArrayList<>();
+            for (StatDelta delta : stats) {
+                // a battle that only had draws changes nothing
+                if (delta.hasChanges()) {
+                    changed.add(delta);
                 }
             }
-        }
-
-        // Step 2: Decrement the Elo score
-        int updatedEloScore = Math.max(currentEloScore - decrement, 0); // Ensure Elo score doesn't go below 0
-
-        // Step 3: Update the value in the database
-        try (PreparedStatement updateStatement = connection.prepareStatement(updateEloQuery)) {
-            updateStatement.setInt(1, updatedEloScore);
-            updateStatement.setString(2, username);
-            updateStatement.executeUpdate();
-        }
-    }
-
-    /**
-     * Logs details of a battle round, including winner, loser, and drawn status.
-     *
-     * @param battleId   The unique identifier (UUID) of the battle.
-     * @param round      The round number.
-     * @param winner     The username of the winner.
-     * @param loser      The username of the loser.
-     * @param winnerCard The card of the winner.
-     * @param loserCard  The card of the loser.
-     * @param draw       True if the round ended in a draw; false otherwise.
-     */
-    private void logRound(UUID battleId, Integer round, String winner, String loser, Card winnerCard, Card loserCard, boolean draw, StringBuilder battleLog) {
-        try {
-            // Insert into RoundDetail table
-            UUID roundId = UUID.randomUUID();
-
-            if (draw) {
-                // Log round details for draw
-                String drawRoundLog = String.format("Round %d ended in a draw.\n", round);
-                // Insert into RoundDetail table
-                insertRoundDetail(roundId, null, null, null, null, null, null);
-                // Insert into RoundLog table
-                insertRoundLog(battleId, round, null, null, true, roundId);
-                // Append draw round log
-                battleLog.append(drawRoundLog);
-            } else {
-                // Log round details for normal round
-                insertRoundDetail(roundId, winnerCard.getId(), winnerCard.getName(), winner, loserCard.getId(), loserCard.getName(), loser);
-                insertRoundLog(battleId, round, winner, loser, false, roundId);
-                // Retrieve and append round details to the battle log
-                battleLog.append(getRoundLogDetails(battleId, round));
+            if (changed.isEmpty()) {
+                return;
             }
-
-        } catch (SQLException e) {
-            // Handle SQL exception by logging or rethrowing if necessary
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Inserts details of a round into the "RoundDetail" table in the database.
-     *
-     * @param roundId             The unique identifier (UUID) of the round.
-     * @param winnerCardId       The unique identifier (UUID) of the winning card used in the round.
-     * @param winnerCardName     The name of the winning card used in the round.
-     * @param winnerPlayerUsername The username of the player who won the round.
-     * @param loserCardId        The unique identifier (UUID) of the losing card used in the round.
-     * @param loserCardName      The name of the losing card used in the round.
-     * @param loserPlayerUsername The username of the player who lost the round.
-     * @throws SQLException If a SQL exception occurs during the database update.
-     */
-    private void insertRoundDetail(UUID roundId, UUID winnerCardId, CardName winnerCardName, String winnerPlayerUsername, UUID loserCardId, CardName loserCardName, String loserPlayerUsername) throws SQLException {
-        String insertRoundDetailQuery = "INSERT INTO \"RoundDetail\"(\"round_id\", \"winner_card_id\", \"winner_card_name\", \"winner_player_username\", \"loser_card_id\", \"loser_card_name\", \"loser_player_username\") VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertRoundDetailQuery)) {
-            preparedStatement.setObject(1, roundId);
-            preparedStatement.setObject(2, winnerCardId);
-            preparedStatement.setString(3, String.valueOf(winnerCardName));
-            preparedStatement.setString(4, winnerPlayerUsername);
-            preparedStatement.setObject(5, loserCardId);
-            preparedStatement.setString(6, String.valueOf(loserCardName));
-            preparedStatement.setString(7, loserPlayerUsername);
-
-            preparedStatement.executeUpdate();
+            changed.sort(Comparator.comparing(StatDelta::getUsername));
+
+            for (StatDelta delta : changed) {
+                preparedStatement.setInt(1, delta.getWins());
+                preparedStatement.setInt(2, delta.getLosses());
+                preparedStatement.setInt(3, delta.getEloDelta());
+                preparedStatement.setString(4, delta.getUsername());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
         }
     }
 
     /**
-     * Inserts a log entry for a round into the "RoundLog" table in the database.
+     * Empties the decks of both users, the cards stay in their stacks.
+     * The deck rows are kept so the users can configure a new deck afterwards.
      *
-     * @param battleId        The unique identifier (UUID) of the battle associated with the round.
-     * @param roundNumber     The round number.
-     * @param winnerUsername  The username of the winner of the round.
-     * @param loserUsername   The username of the loser of the round.
-     * @param draw            True if the round ended in a draw; false otherwise.
-     * @param roundId         The unique identifier (UUID) of the round.
+     * @param connection The connection of the current unit of work.
+     * @param usernames  The users whose decks are emptied.
      * @throws SQLException If a SQL exception occurs during the database update.
      */
-    private void insertRoundLog(UUID battleId, Integer roundNumber, String winnerUsername, String loserUsername, boolean draw, UUID roundId) throws SQLException {
-        String insertRoundLogQuery = "INSERT INTO \"RoundLog\"(\"battle_id\", \"round_number\", \"winner_username\", \"loser_username\", \"draw\", \"round_id\") VALUES (?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertRoundLogQuery)) {
-            preparedStatement.setObject(1, battleId);
-            preparedStatement.setInt(2, roundNumber);
-            preparedStatement.setString(3, winnerUsername);
-            preparedStatement.setString(4, loserUsername);
-            preparedStatement.setBoolean(5, draw);
-            preparedStatement.setObject(6, roundId);
-
-            preparedStatement.executeUpdate();
-        }
-    }
-
-    /**
-     * Retrieves and formats details of a battle round from the database.
-     *
-     * @param battleId    The unique identifier (UUID) of the battle.
-     * @param roundNumber The round number.
-     * @return A formatted string containing details of the battle round.
-     */
-    private String getRoundLogDetails(UUID battleId, int roundNumber) {
-        StringBuilder roundLogDetails = new StringBuilder();
+    private void clearDecks(Connection connection, String... usernames) throws SQLException {
+        String clearDeckQuery = "UPDATE \"Deck\" SET \"card1_id\" = NULL, \"card2_id\" = NULL, \"card3_id\" = NULL, \"card4_id\" = NULL WHERE \"username\" = ?";
 
-        try {
-            String selectRoundLogDetailsQuery =
-                    "SELECT rd.\"winner_player_username\", rd.\"winner_card_name\", rd.\"winner_card_id\", rd.\"loser_player_username\", rd.\"loser_card_name\", rd.\"loser_card_id\", rl.\"draw\" " +
-                            "FROM \"RoundLog\" rl " +
-                            "JOIN \"RoundDetail\" rd ON rl.\"round_id\" = rd.\"round_id\" " +
-                            "WHERE rl.\"battle_id\" = ? AND rl.\"round_number\" = ?";
-
-            try (PreparedStatement preparedStatement = connection.prepareStatement(selectRoundLogDetailsQuery)) {
-                preparedStatement.setObject(1, battleId);
-                preparedStatement.setInt(2, roundNumber);
-
-                try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                    roundLogDetails.append(String.format("Round %d Details:\n", roundNumber));
-
-                    while (resultSet.next()) {
-                        String winnerPlayerUsername = resultSet.getString("winner_player_username");
-                        String winnerCardName = resultSet.getString("winner_card_name");
-                        UUID winnerCardId = UUID.fromString(resultSet.getString("winner_card_id"));
-                        String loserPlayerUsername = resultSet.getString("loser_player_username");
-                        String loserCardName = resultSet.getString("loser_card_name");
-                        UUID loserCardId = UUID.fromString(resultSet.getString("loser_card_id"));
-                        boolean draw = resultSet.getBoolean("draw");
-
-                        roundLogDetails.append(String.format("  Winner: %s, Winning Card: %s, Winning Card ID: %s\n" +
-                                        " Loser: %s, Losing Card: %s, Losing Card ID: %s\n" +
-                                        " %s\n",
-                                winnerPlayerUsername, winnerCardName, winnerCardId,
-                                loserPlayerUsername, loserCardName, loserCardId,
-                                (draw ? " (Draw)" : "")));
-                    }
-                }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(clearDeckQuery)) {
+            for (String username : usernames) {
+                preparedStatement.setString(1, username);
+                preparedStatement.addBatch();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            roundLogDetails.append("Error retrieving round details.\n");
-        }
-
-        return String.valueOf(roundLogDetails);
-    }
-
-    /**
-     * Updates decks and stacks after the battle ends, moving all cards to the stack.
-     */
-    private void updateDecksAndStacks() {
-        try {
-            // Remove all cards from the decks of both players at the end of the battle
-            removeAllCardsFromDeck(username1);
-            removeAllCardsFromDeck(username2);
-
-            // Move all cards from the deck list to the stack of each player
-            moveAllCardsToStack(username1, user1Deck);
-            moveAllCardsToStack(username2, user2Deck);
-        } catch (Exception e) {
-            e.printStackTrace();
+            preparedStatement.executeBatch();
         }
     }
 
     /**
-     * Removes all cards from the deck of the specified username.
+     * Moves the cards won in the battle to their new owners: the owner in the "Card" table is updated
+     * and the card is moved from the stack of the previous owner to the stack of the new owner.
+     * Both updates only match while the previous owner still has the card.
      *
-     * @param username The username for which to remove all cards from the deck.
+     * @param connection The connection of the current unit of work.
+     * @param transfers  The cards that changed hands.
+     * @throws StaleBattleException If a card no longer belongs to the player who lost it.
+     * @throws SQLException         If a SQL exception occurs during the database update.
      */
-    private void removeAllCardsFromDeck(String username) {
-        String deleteDeckQuery = "DELETE FROM \"Deck\" WHERE \"username\" = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(deleteDeckQuery)) {
-            preparedStatement.setString(1, username);
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    private void transferCards(Connection connection, List<CardTransfer> transfers) throws SQLException {
+        if (transfers.isEmpty()) {
+            return;
         }
-    }
 
-    /**
-     * Moves all cards from the deck list to the stack of the specified username,
-     * if they are not already present in the stack.
-     *
-     * @param username The username for which to move cards to the stack.
-     * @param deck     The deck containing the cards to be moved.
-     */
-    private void moveAllCardsToStack(String username, List<Card> deck) {
-        String updateCardOwnerQuery = "UPDATE \"Card\" SET \"owner_username\" = ? WHERE \"id\" = ?";
-
-        try (PreparedStatement updateStatement = connection.prepareStatement(updateCardOwnerQuery)) {
-            String insertStackQuery = "INSERT INTO \"Stack\"(\"username\", \"card_id\") VALUES (?, ?)";
-
-            try (PreparedStatement insertStatement = connection.prepareStatement(insertStackQuery)) {
-                for (Card card : deck) {
-                    // Check if the card is already in the user's stack
-                    if (!isCardInStack(username, card.getId())) {
-                        // Update owner_username in Card table
-                        updateStatement.setString(1, username);
-                        updateStatement.setObject(2, card.getId());
-                        updateStatement.executeUpdate();
-
-                        // Insert into Stack table
-                        insertStatement.setString(1, username);
-                        insertStatement.setObject(2, card.getId());
-                        insertStatement.executeUpdate();
-                    }
-                }
+        String updateCardOwnerQuery = "UPDATE \"Card\" SET \"owner_username\" = ? WHERE \"id\" = ? AND \"owner_username\" = ?";
+        String moveStackQuery = "UPDATE \"Stack\" SET \"username\" = ? WHERE \"username\" = ? AND \"card_id\" = ?";
+
+        try (PreparedStatement ownerStatement = connection.prepareStatement(updateCardOwnerQuery);
+             PreparedStatement moveStatement = connection.prepareStatement(moveStackQuery)) {
+            for (CardTransfer transfer : transfers) {
+                ownerStatement.setString(1, transfer.getToUsername());
+                ownerStatement.setObject(2, transfer.getCard().getId());
+                ownerStatement.setString(3, transfer.getFromUsername());
+                ownerStatement.addBatch();
+
+                moveStatement.setString(1, transfer.getToUsername());
+                moveStatement.setString(2, transfer.getFromUsername());
+                moveStatement.setObject(3, transfer.getCard().getId());
+                moveStatement.addBatch();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
+            int[] ownerRows = ownerStatement.executeBatch();
+            int[] movedRows = moveStatement.executeBatch();
 
-    /**
-     * Checks if a card is already present in the user's stack.
-     *
-     * @param username The username of the user.
-     * @param cardId   The ID of the card to check.
-     * @return True if the card is already in the user's stack, false otherwise.
-     * @throws SQLException If a SQL exception occurs during the database query.
-     */
-    private boolean isCardInStack(String username, UUID cardId) throws SQLException {
-        String selectStackQuery = "SELECT COUNT(*) AS count FROM \"Stack\" WHERE \"username\" = ? AND \"card_id\" = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectStackQuery)) {
-            preparedStatement.setString(1, username);
-            preparedStatement.setObject(2, cardId);
-
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    int count = resultSet.getInt("count");
-                    return count > 0;
+            for (int i = 0; i < transfers.size(); i++) {
+                if (ownerRows[i] == 0 || movedRows[i] == 0) {
+                    throw new StaleBattleException("Card " + transfers.get(i).getCard().getId() + " no longer belongs to "
+                            + transfers.get(i).getFromUsername());
                 }
             }
         }
-
-        return false; // Default to false if no result is found
     }
-
-
 }
@@ -0,0 +1,129 @@
+package org.example.app.daos;
+
+import org.example.app.dtos.BattleHistoryDTO;
+import org.example.app.dtos.RoundLogDTO;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Buffers the history rows of battles ("Battle", "RoundDetail" and "RoundLog") and writes them with one JDBC batch per table.
+ * The writer works on the caller's connection and does not commit, so the rows become part of the caller's transaction.
+ * The "Battle" row and the rounds can be written in different transactions, the BattleHistoryWriter writes the rounds
+ * of battles whose "Battle" row was committed with their result.
+ * With reWriteBatchedInserts the PostgreSQL driver sends each batch as multi-row INSERTs.
+ */
+final class RoundLogWriter {
+    private static final String INSERT_BATTLE_QUERY = "INSERT INTO \"Battle\"(\"id\", \"user1_username\", \"user2_username\", \"seed\", \"user1_deck\", \"user2_deck\") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ROUND_DETAIL_QUERY = "INSERT INTO \"RoundDetail\"(\"round_id\", \"winner_card_id\", \"winner_card_name\", \"winner_player_username\", \"loser_card_id\", \"loser_card_name\", \"loser_player_username\") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ROUND_LOG_QUERY = "INSERT INTO \"RoundLog\"(\"battle_id\", \"round_number\", \"winner_username\", \"loser_username\", \"draw\", \"round_id\") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final Connection connection;
+    // battles whose "Battle" row is written, and battles whose rounds are written
+    private final List<BattleHistoryDTO> pendingBattles = new ArrayList<>();
+    private final List<BattleHistoryDTO> pendingRounds = new ArrayList<>();
+
+    RoundLogWriter(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Buffers a battle and its rounds, nothing is sent to the database until flush() is called.
+     *
+     * @param history The battle to log.
+     */
+    void add(BattleHistoryDTO history) {
+        pendingBattles.add(history);
+        pendingRounds.add(history);
+    }
+
+    /**
+     * Buffers only the "Battle" row of a battle.
+     *
+     * @param history The battle to log.
+     */
+    void addBattle(BattleHistoryDTO history) {
+        pendingBattles.add(history);
+    }
+
+    /**
+     * Buffers only the rounds of a battle whose "Battle" row is in the database already.
+     *
+     * @param history The battle to log.
+     */
+    void addRounds(BattleHistoryDTO history) {
+        pendingRounds.add(history);
+    }
+
+    /**
+     * Writes the buffered rows: one batch for the battles, one for the round details and one for the log entries.
+     *
+     * @throws SQLException If a SQL exception occurs; the buffered battles are kept.
+     */
+    void flush() throws SQLException {
+        if (pendingBattles.isEmpty() && pendingRounds.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement battleStatement = connection.prepareStatement(INSERT_BATTLE_QUERY);
+             PreparedStatement detailStatement = connection.prepareStatement(INSERT_ROUND_DETAIL_QUERY);
+             PreparedStatement logStatement = connection.prepareStatement(INSERT_ROUND_LOG_QUERY)) {
+            for (BattleHistoryDTO history : pendingBattles) {
+                battleStatement.setObject(1, history.getBattleId());
+                battleStatement.setString(2, history.getUsername1());
+                battleStatement.setString(3, history.getUsername2());
+                battleStatement.setLong(4, history.getSeed());
+                battleStatement.setArray(5, toArray(history.getUser1DeckIds()));
+                battleStatement.setArray(6, toArray(history.getUser2DeckIds()));
+                battleStatement.addBatch();
+            }
+            for (BattleHistoryDTO history : pendingRounds) {
+                for (RoundLogDTO round : history.getRounds()) {
+                    detailStatement.setObject(1, round.getRoundId());
+                    detailStatement.setObject(2, round.getWinnerCardId());
+                    detailStatement.setString(3, round.getWinnerCardName());
+                    detailStatement.setString(4, round.getWinner());
+                    detailStatement.setObject(5, round.getLoserCardId());
+                    detailStatement.setString(6, round.getLoserCardName());
+                    detailStatement.setString(7, round.getLoser());
+                    detailStatement.addBatch();
+
+                    logStatement.setObject(1, history.getBattleId());
+                    logStatement.setInt(2, round.getRoundNumber());
+                    logStatement.setString(3, round.getWinner());
+                    logStatement.setString(4, round.getLoser());
+                    logStatement.setBoolean(5, round.isDraw());
+                    logStatement.setObject(6, round.getRoundId());
+                    logStatement.addBatch();
+                }
+            }
+
+            // "RoundLog" references "Battle" and "RoundDetail", so those go first
+            if (!pendingBattles.isEmpty()) {
+                battleStatement.executeBatch();
+            }
+            detailStatement.executeBatch();
+            logStatement.executeBatch();
+        }
+
+        pendingBattles.clear();
+        pendingRounds.clear();
+    }
+
+    // Card IDs as a SQL array, null for histories spooled before decks were recorded
+    private Array toArray(List<UUID> cardIds) throws SQLException {
+        if (cardIds == null) {
+            return null;
+        }
+        String[] ids = new String[cardIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cardIds.get(i).toString();
+        }
+        return connection.createArrayOf("VARCHAR", ids);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.example.app.dtos.TradeDealDTO;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
 
@@ -12,13 +13,13 @@ public class TradeDealDAO {
 
     @Setter(AccessLevel.PRIVATE)
     @Getter(AccessLevel.PRIVATE)
-    Connection connection;
+    DataSource dataSource;
 
     @Setter(AccessLevel.PRIVATE)
     ArrayList<TradeDealDTO> tradeDealCache;
 
-    public TradeDealDAO(Connection connection) {
-        setConnection(connection);
+    public TradeDealDAO(DataSource dataSource) {
+        setDataSource(dataSource);
     }
 
     /**
@@ -30,7 +31,8 @@ public class TradeDealDAO {
         String sql = "SELECT * FROM \"TradeDeal\"";
         List<TradeDealDTO> tradeDeals = new ArrayList<>();
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             ResultSet resultSet = preparedStatement.executeQuery();
 
             while (resultSet.next()) {
@@ -83,7 +85,8 @@ public class TradeDealDAO {
                 "(\"id\", \"offeringUser_username\", \"offeredCard_id\", \"requirement_cardType\", \"requirement_minDamage\") " +
                 "VALUES (?, ?, ?, ?, ?)";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealDTO.getId()));
             preparedStatement.setString(2, username);
             preparedStatement.setObject(3, UUID.fromString(tradeDealDTO.getCardToTrade()));
@@ -108,7 +111,8 @@ public class TradeDealDAO {
     private boolean isTradeDealIdExists(String tradeDealId) {
         String sql = "SELECT COUNT(*) FROM \"TradeDeal\" WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealId));
             ResultSet resultSet = preparedStatement.executeQuery();
 
@@ -132,7 +136,8 @@ public class TradeDealDAO {
     private boolean isCardOwnedByUser(String username, String cardId) {
         String sql = "SELECT COUNT(*) FROM \"Card\" WHERE \"id\" = ? AND \"owner_username\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(cardId)); // Assuming it's a valid UUID
             preparedStatement.setString(2, username);
             ResultSet resultSet = preparedStatement.executeQuery();
@@ -157,7 +162,8 @@ public class TradeDealDAO {
     private boolean isCardLockedInDeck(String username, String cardId) {
         String sql = "SELECT COUNT(*) FROM \"Deck\" WHERE \"username\" = ? AND (\"card1_id\" = ? OR \"card2_id\" = ? OR \"card3_id\" = ? OR \"card4_id\" = ?)";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setString(1, username);
             preparedStatement.setObject(2, UUID.fromString(cardId));
             preparedStatement.setObject(3, UUID.fromString(cardId));
@@ -196,7 +202,8 @@ public class TradeDealDAO {
 
         String sql = "DELETE FROM \"TradeDeal\" WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealId));
 
             int rowsAffected = preparedStatement.executeUpdate();
@@ -221,7 +228,8 @@ public class TradeDealDAO {
     private String getCardIdFromTradeDeal(String tradeDealId) {
         String sql = "SELECT \"offeredCard_id\" FROM \"TradeDeal\" WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealId));
             ResultSet resultSet = preparedStatement.executeQuery();
 
@@ -272,7 +280,8 @@ public class TradeDealDAO {
         // Carry out the trade
         String sql = "UPDATE \"TradeDeal\" SET \"status\" = 'COMPLETED' WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealId));
 
             int rowsAffected = preparedStatement.executeUpdate();
@@ -280,9 +289,9 @@ public class TradeDealDAO {
             if (rowsAffected > 0) {
 
                 System.out.println("accepting user tradedeal:");
-                System.out.println(getOfferingUserUsername(tradeDealId));
+                System.out.println(getOfferingUserUsername(connection, tradeDealId));
                 System.out.println("accepting cardid tradedeal:");
-                System.out.println(getOfferedCardId(tradeDealId));
+                System.out.println(getOfferedCardId(connection, tradeDealId));
 
                 System.out.println("offering user:");
                 System.out.println(username);
@@ -290,15 +299,15 @@ public class TradeDealDAO {
                 System.out.println(offeredCardId);
 
                 // Add cards to the user's stacks
-                updateCardInUserStack(getOfferingUserUsername(tradeDealId), offeredCardId);
-                updateCardInUserStack(username, getOfferedCardId(tradeDealId));
+                updateCardInUserStack(connection, getOfferingUserUsername(connection, tradeDealId), offeredCardId);
+                updateCardInUserStack(connection, username, getOfferedCardId(connection, tradeDealId));
 
                 // Update the owner_username attribute in the card table
-                updateCardOwner(getOfferedCardId(tradeDealId), username);
-                updateCardOwner(offeredCardId, getOfferingUserUsername(tradeDealId));
+                updateCardOwner(connection, getOfferedCardId(connection, tradeDealId), username);
+                updateCardOwner(connection, offeredCardId, getOfferingUserUsername(connection, tradeDealId));
 
                 // Delete the trade deal after successful trade
-                if (!deleteDeal(tradeDealId)) {
+                if (!deleteDeal(connection, tradeDealId)) {
                     // Handle the case where the trade deal couldn't be deleted
                     return 500; // HTTP status code for Internal Server Error
                 }
@@ -323,7 +332,8 @@ public class TradeDealDAO {
     private boolean isTradeDealBelongsToUser(String username, String tradeDealId) {
         String sql = "SELECT \"offeringUser_username\" FROM \"TradeDeal\" WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealId));
 
             ResultSet resultSet = preparedStatement.executeQuery();
@@ -352,7 +362,8 @@ public class TradeDealDAO {
         String sql = "SELECT \"requirement_cardType\", \"requirement_minDamage\" FROM \"TradeDeal\" " +
                 "WHERE \"id\" = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(tradeDealId));
 
             ResultSet resultSet = preparedStatement.executeQuery();
@@ -361,8 +372,8 @@ public class TradeDealDAO {
                 String requiredCardType = resultSet.getString("requirement_cardType");
                 Double requiredMinDamage = resultSet.getDouble("requirement_minDamage");
 
-                String offeredCardType = getCardTypeFromCardId(offeredCardId);
-                Double offeredDamage = getDamageFromCardId(offeredCardId);
+                String offeredCardType = getCardTypeFromCardId(connection, offeredCardId);
+                Double offeredDamage = getDamageFromCardId(connection, offeredCardId);
 
                 // Check if the offered card meets the requirements
                 return offeredCardType.equalsIgnoreCase(requiredCardType) && offeredDamage >= requiredMinDamage;
@@ -377,11 +388,12 @@ public class TradeDealDAO {
     /**
      * Updates the owner of a card in the database.
      *
+     * @param connection The connection of the current unit of work.
      * @param cardId           The ID of the card.
      * @param newOwnerUsername The username of the new owner.
      * @throws SQLException If a database access error occurs.
      */
-    public void updateCardOwner(String cardId, String newOwnerUsername) throws SQLException {
+    private void updateCardOwner(Connection connection, String cardId, String newOwnerUsername) throws SQLException {
         String updateQuery = "UPDATE \"Card\" SET \"owner_username\" = ? WHERE \"id\" = ?";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
@@ -397,11 +409,12 @@ public class TradeDealDAO {
     /**
      * Adds a purchased card to the user's stack in the database.
      *
+     * @param connection The connection of the current unit of work.
      * @param username The username of the user.
      * @param cardId   The ID of the card to be added.
      * @throws SQLException If a database access error occurs.
      */
-    public void updateCardInUserStack(String username, String cardId) throws SQLException {
+    private void updateCardInUserStack(Connection connection, String username, String cardId) throws SQLException {
 
         String insertQuery = "UPDATE \"Stack\" SET \"username\" = ? WHERE \"card_id\" = ?";
 
@@ -419,10 +432,11 @@ public class TradeDealDAO {
     /**
      * Deletes a trade deal from the "TradeDeal" table.
      *
+     * @param connection The connection of the current unit of work.
      * @param tradeDealId The ID of the trade deal to be deleted.
      * @return True if the trade deal is successfully deleted, false otherwise.
      */
-    private boolean deleteDeal(String tradeDealId) {
+    private boolean deleteDeal(Connection connection, String tradeDealId) {
         String deleteSql = "DELETE FROM \"TradeDeal\" WHERE \"id\" = ?";
 
         try (PreparedStatement deleteStatement = connection.prepareStatement(deleteSql)) {
@@ -441,10 +455,11 @@ public class TradeDealDAO {
     /**
      * Helper method to get the card type from the card ID.
      *
+     * @param connection The connection of the current unit of work.
      * @param cardId The ID of the card.
      * @return The card type.
      */
-    private String getCardTypeFromCardId(String cardId) {
+    private String getCardTypeFromCardId(Connection connection, String cardId) {
         String sql = "SELECT \"cardType\" FROM \"Card\" WHERE \"id\" = ?";
         try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(cardId));
@@ -459,10 +474,11 @@ public class TradeDealDAO {
     /**
      * Helper method to get the damage value from the card ID.
      *
+     * @param connection The connection of the current unit of work.
      * @param cardId The ID of the card.
      * @return The damage value.
      */
-    private double getDamageFromCardId(String cardId) {
+    private double getDamageFromCardId(Connection connection, String cardId) {
         String sql = "SELECT \"damage\" FROM \"Card\" WHERE \"id\" = ?";
         try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setObject(1, UUID.fromString(cardId));
@@ -477,11 +493,12 @@ public class TradeDealDAO {
     /**
      * Helper method to get the username of the user offering a trade deal.
      *
+     * @param connection The connection of the current unit of work.
      * @param tradeDealId The ID of the trade deal.
      * @return The username of the user offering the trade deal.
      * @throws SQLException If a SQL exception occurs.
      */
-    private String getOfferingUserUsername(String tradeDealId) throws SQLException {
+    private String getOfferingUserUsername(Connection connection, String tradeDealId) throws SQLException {
         String sql = "SELECT \"offeringUser_username\" FROM \"TradeDeal\" WHERE \"id\" = ?";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
@@ -502,11 +519,12 @@ public class TradeDealDAO {
     /**
      * Retrieves the ID of the card offered in a specific trade deal from the database.
      *
+     * @param connection The connection of the current unit of work.
      * @param tradeDealId The ID of the trade deal.
      * @return A String representing the ID of the offered card or null if not found.
      * @throws SQLException If a database access error occurs.
      */
-    private String getOfferedCardId(String tradeDealId) throws SQLException {
+    private String getOfferedCardId(Connection connection, String tradeDealId) throws SQLException {
         String sql = "SELECT \"offeredCard_id\" FROM \"TradeDeal\" WHERE \"id\" = ?";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
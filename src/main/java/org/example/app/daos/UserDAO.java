@@ -8,6 +8,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -19,13 +20,13 @@ import java.util.UUID;
 public class UserDAO {
     @Setter(AccessLevel.PRIVATE)
     @Getter(AccessLevel.PRIVATE)
-    Connection connection;
+    DataSource dataSource;
 
     @Setter(AccessLevel.PRIVATE)
     ArrayList<UserDataDTO> usersCache;
 
-    public UserDAO(Connection connection) {
-        setConnection(connection);
+    public UserDAO(DataSource dataSource) {
+        setDataSource(dataSource);
     }
 
     /**
@@ -50,7 +51,8 @@ public class UserDAO {
         Integer losses = 0;
         // SQL statement to insert a new user into the usercredentials table
         String insertStmt = "INSERT INTO \"User\" (\"username\", \"password\", \"token\", \"coins\", \"elo_score\", \"wins\", \"losses\") VALUES (?, ?, ?, ?, ?, ?, ?);";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(insertStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(insertStmt)) {
             // Set parameters in the prepared statement
             preparedStatement.setString(1, username);
             preparedStatement.setString(2, password);
@@ -64,7 +66,7 @@ public class UserDAO {
             preparedStatement.executeUpdate();
 
             // Call the helper method to insert the new user into the "Deck" table
-            insertNewUserIntoDeck(username);
+            insertNewUserIntoDeck(connection, username);
 
             // Return 201 to indicate successful user creation
             return 201;
@@ -85,7 +87,8 @@ public class UserDAO {
     private boolean userExists(String username) {
         // SQL statement to count the number of users with the specified username
         String selectStmt = "SELECT COUNT(*) FROM \"User\" WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(selectStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectStmt)) {
             // Set the username parameter in the prepared statement
             preparedStatement.setString(1, username);
 
@@ -111,10 +114,11 @@ public class UserDAO {
     /**
      * Helper method to insert a new username into the "Deck" table with all card entries set to null.
      *
-     * @param username The username to be inserted into the "Deck" table.
+     * @param connection The connection the user was inserted with.
+     * @param username   The username to be inserted into the "Deck" table.
      * @throws SQLException If a database access error occurs.
      */
-    private void insertNewUserIntoDeck(String username) throws SQLException {
+    private void insertNewUserIntoDeck(Connection connection, String username) throws SQLException {
         String insertQuery = "INSERT INTO \"Deck\" (\"username\", \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\") VALUES (?, NULL, NULL, NULL, NULL)";
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery)) {
@@ -140,7 +144,8 @@ public class UserDAO {
         }
 
         String selectStmt = "SELECT \"profile_name\", \"profile_bio\", \"profile_image\" FROM \"User\";";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(selectStmt);
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectStmt);
              ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -165,7 +170,8 @@ public class UserDAO {
      */
     public UserDataDTO getUser(String username) {
         String selectStmt = "SELECT \"profile_name\", \"profile_bio\", \"profile_image\" FROM \"User\" WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(selectStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectStmt)) {
             preparedStatement.setString(1, username);
             ResultSet resultSet = preparedStatement.executeQuery();
 
@@ -198,7 +204,8 @@ public class UserDAO {
 
         // Update the user data
         String updateStmt = "UPDATE \"User\" SET \"profile_name\" = ?, \"profile_bio\" = ?, \"profile_image\" = ? WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(updateStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(updateStmt)) {
             preparedStatement.setString(1, name);
             preparedStatement.setString(2, bio);
             preparedStatement.setString(3, image);
@@ -270,7 +277,8 @@ public class UserDAO {
     private String retrieveUserToken(String username) throws SQLException {
         String selectStmt = "SELECT \"token\" FROM \"User\" WHERE \"username\" = ?;";
 
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(selectStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectStmt)) {
             preparedStatement.setString(1, username);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
@@ -286,6 +294,31 @@ public class UserDAO {
         return "404";
     }
 
+    /**
+     * Looks up the user a token was issued to.
+     *
+     * @param token The bearer token sent by the client.
+     * @return The username the token belongs to, or null if no user holds this token.
+     */
+    public String getUsernameByToken(String token) {
+        String selectStmt = "SELECT \"username\" FROM \"User\" WHERE \"token\" = ?;";
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectStmt)) {
+            preparedStatement.setString(1, token);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString("username");
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        // Return null if an exception occurred or the token is unknown
+        return null;
+    }
+
     /**
      * Checks if the provided password matches the stored password for the given username.
      *
@@ -296,7 +329,8 @@ public class UserDAO {
     public boolean passwordMatches(String username, String password) {
         // SQL statement to retrieve the password for the given username
         String selectStmt = "SELECT \"password\" FROM \"User\" WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(selectStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(selectStmt)) {
             // Set parameters in the prepared statement
             preparedStatement.setString(1, username);
 
@@ -328,7 +362,8 @@ public class UserDAO {
      */
     private void insertUserToken(String username, String token) throws SQLException {
         String updateTokenStmt = "UPDATE \"User\" SET \"token\" = ? WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(updateTokenStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(updateTokenStmt)) {
             preparedStatement.setString(1, token);
             preparedStatement.setString(2, username);
             preparedStatement.executeUpdate();
@@ -353,7 +388,8 @@ public class UserDAO {
 
         // Remove the token associated with the user
         String updateTokenStmt = "UPDATE \"User\" SET \"token\" = NULL WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(updateTokenStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(updateTokenStmt)) {
             preparedStatement.setString(1, username);
             int rowsUpdated = preparedStatement.executeUpdate();
 
@@ -382,7 +418,8 @@ public class UserDAO {
 
         // Delete the user
         String deleteStmt = "DELETE FROM \"User\" WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(deleteStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(deleteStmt)) {
             preparedStatement.setString(1, username);
 
             // Execute the SQL delete statement to delete the user
@@ -405,7 +442,8 @@ public class UserDAO {
      */
     private void deleteUserDeck(String username) {
         String deleteDeckStmt = "DELETE FROM \"Deck\" WHERE \"username\" = ?;";
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(deleteDeckStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(deleteDeckStmt)) {
             preparedStatement.setString(1, username);
             // Execute the SQL delete statement to delete the user's entry from the "Deck" table
             preparedStatement.executeUpdate();
@@ -421,17 +459,18 @@ public class UserDAO {
     /**
      * Helper method to create a User instance from a ResultSet.
      *
-     * @param resultSet The ResultSet containing user data.
+     * @param connection The connection the ResultSet was read from, used to load the user's cards.
+     * @param resultSet  The ResultSet containing user data.
      * @return User instance created from the ResultSet.
      * @throws SQLException If a SQL exception occurs during the creation.
      */
-    private User createUserFromResultSet(ResultSet resultSet) throws SQLException {
+    private User createUserFromResultSet(Connection connection, ResultSet resultSet) throws SQLException {
         User user = new User(
                 resultSet.getString("username"),
                 resultSet.getString("password"),
                 resultSet.getString("token"),
-                initStack(resultSet.getString("username")),
-                initDeck(resultSet.getString("username")),
+                initStack(connection, resultSet.getString("username")),
+                initDeck(connection, resultSet.getString("username")),
                 new Profile(
                         resultSet.getString("profile_name"),
                         resultSet.getString("profile_email"),
@@ -466,23 +505,16 @@ public class UserDAO {
     /**
      * Helper method to initialize Stack for a user.
      *
-     * @param username The username of the user to initialize the stack for.
+     * @param connection The connection to read the cards with.
+     * @param username   The username of the user to initialize the stack for.
      * @return Stack instance containing cards from the user's stack.
      */
-    private Stack initStack(String username) {
+    private Stack initStack(Connection connection, String username) {
         Stack stack = new Stack();
 
-        String selectStackStmt = "SELECT \"card_id\" FROM Stack WHERE \"username\" = ?;";
-        try (PreparedStatement stackStatement = getConnection().prepareStatement(selectStackStmt)) {
-            stackStatement.setString(1, username);
-            ResultSet stackResultSet = stackStatement.executeQuery();
-
-            while (stackResultSet.next()) {
-                UUID cardId = (UUID) stackResultSet.getObject("card_id");
-                Card card = getCardById(cardId);
-                if (card != null) {
-                    stack.attainCard(card);
-                }
+        try {
+            for (Card card : CardLoader.loadStack(connection, username)) {
+                stack.attainCard(card);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -494,33 +526,19 @@ public class UserDAO {
     /**
      * Helper method to initialize Deck for a user.
      *
-     * @param username The username of the user to initialize the deck for.
+     * @param connection The connection to read the cards with.
+     * @param username   The username of the user to initialize the deck for.
      * @return Deck instance containing cards from the user's deck.
      */
-    private Deck initDeck(String username) {
+    private Deck initDeck(Connection connection, String username) {
         Deck deck = new Deck();
 
-        String selectDeckStmt = "SELECT \"card1_id\", \"card2_id\", \"card3_id\", \"card4_id\" FROM Deck WHERE \"username\" = ?;";
-        try (PreparedStatement deckStatement = getConnection().prepareStatement(selectDeckStmt)) {
-            deckStatement.setString(1, username);
-            ResultSet deckResultSet = deckStatement.executeQuery();
-
-            while (deckResultSet.next()) {
-                UUID card1Id = (UUID) deckResultSet.getObject("card1_id");
-                UUID card2Id = (UUID) deckResultSet.getObject("card2_id");
-                UUID card3Id = (UUID) deckResultSet.getObject("card3_id");
-                UUID card4Id = (UUID) deckResultSet.getObject("card4_id");
-
-                Card card1 = getCardById(card1Id);
-                Card card2 = getCardById(card2Id);
-                Card card3 = getCardById(card3Id);
-                Card card4 = getCardById(card4Id);
-
-                if (card1 != null && card2 != null && card3 != null && card4 != null) {
-                    deck.addCardToDeck(card1);
-                    deck.addCardToDeck(card2);
-                    deck.addCardToDeck(card3);
-                    deck.addCardToDeck(card4);
+        try {
+            List<Card> cards = CardLoader.loadDeck(connection, username);
+            // the deck only counts once all four slots are filled
+            if (cards.size() == 4) {
+                for (Card card : cards) {
+                    deck.addCardToDeck(card);
                 }
             }
         } catch (SQLException e) {
@@ -537,33 +555,8 @@ public class UserDAO {
      * @return Card instance retrieved from the database.
      */
     public Card getCardById(UUID cardId) {
-        String selectCardQuery = "SELECT * FROM Card WHERE \"id\" = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectCardQuery)) {
-            preparedStatement.setObject(1, cardId);
-
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    CardName cardName = CardName.valueOf(resultSet.getString("name"));
-                    Double damage = resultSet.getDouble("damage");
-                    String elementTypeString = resultSet.getString("elementType");
-                    // Map elementTypeString to ElementType enum
-                    ElementType elementType = ElementType.valueOf(elementTypeString);
-                    String[] specialties = (String[]) resultSet.getArray("specialties").getArray();
-                    CardType cardType = CardType.valueOf(resultSet.getString("cardType"));
-                    String ownerUsername = resultSet.getString("owner_username");
-
-                    // Create a new Card instance based on the type of card (Monster or Spell)
-                    if (cardType == CardType.MONSTER) {
-                        return new MonsterCard(cardId, cardName, damage, elementType, specialties, ownerUsername);
-                    } else if (cardType == CardType.SPELL) {
-                        return new SpellCard(cardId, cardName, damage, elementType, specialties, ownerUsername);
-                    } else {
-                        // other card types
-                        return null;
-                    }
-                }
-            }
+        try (Connection connection = getDataSource().getConnection()) {
+            return CardLoader.loadCard(connection, cardId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -580,7 +573,8 @@ public class UserDAO {
     public UserStatDTO getStats(String username) {
         String selectStatsStmt = "SELECT \"profile_name\", \"elo_score\", \"wins\", \"losses\" FROM \"User\" WHERE \"username\" = ?;";
 
-        try (PreparedStatement statsStatement = getConnection().prepareStatement(selectStatsStmt)) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statsStatement = connection.prepareStatement(selectStatsStmt)) {
             statsStatement.setString(1, username);
 
             try (ResultSet statsResultSet = statsStatement.executeQuery()) {
@@ -610,7 +604,8 @@ public class UserDAO {
 
         // SQL statement to retrieve user stats ordered by ELO
         String selectScoreBoardStmt = "SELECT \"profile_name\", \"elo_score\", \"wins\", \"losses\" FROM \"User\" ORDER BY \"elo_score\" DESC;";
-        try (PreparedStatement scoreBoardStatement = getConnection().prepareStatement(selectScoreBoardStmt);
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement scoreBoardStatement = connection.prepareStatement(selectScoreBoardStmt);
              ResultSet scoreBoardResultSet = scoreBoardStatement.executeQuery()) {
 
             while (scoreBoardResultSet.next()) {
@@ -0,0 +1,25 @@
+package org.example.app.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+// The "Battle", "RoundDetail" and "RoundLog" rows of one battle
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BattleHistoryDTO {
+    private UUID battleId;
+    private String username1;
+    private String username2;
+    private long seed;
+    // card IDs of the starting decks in slot order
+    private List<UUID> user1DeckIds;
+    private List<UUID> user2DeckIds;
+    private List<RoundLogDTO> rounds;
+}
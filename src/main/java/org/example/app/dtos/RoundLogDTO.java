@@ -0,0 +1,25 @@
+package org.example.app.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundLogDTO {
+    private UUID roundId;
+    private int roundNumber;
+    // winner and loser are null for a draw, and so are the card fields
+    private String winner;
+    private String loser;
+    private boolean draw;
+    private UUID winnerCardId;
+    private String winnerCardName;
+    private UUID loserCardId;
+    private String loserCardName;
+}
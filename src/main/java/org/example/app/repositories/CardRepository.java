@@ -3,6 +3,8 @@ package org.example.app.repositories;
 
 import org.example.app.daos.CardDAO;
 import org.example.app.dtos.CardDTO;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.QueryTimer;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,6 +16,7 @@ import java.util.List;
 public class CardRepository {
 
     private CardDAO cardDAO;
+    private QueryTimer queryTimer;
 
     // Define InsufficientFundsException as a nested static class
     public static class InsufficientFundsException extends Exception {
@@ -29,33 +32,34 @@ public class CardRepository {
         }
     }
 
-    public CardRepository(CardDAO cardDAO) {
+    public CardRepository(CardDAO cardDAO, MetricsRegistry metricsRegistry) {
         setCardDAO(cardDAO);
+        setQueryTimer(new QueryTimer(metricsRegistry, "CardDAO"));
     }
 
 
     public List<CardDTO> getCards(String username) {
-        return cardDAO.getUserCards(username);
+        return getQueryTimer().time("getUserCards", () -> cardDAO.getUserCards(username));
     }
 
     public List<CardDTO> getDeck(String username) {
-        return cardDAO.getDeckCards(username);
+        return getQueryTimer().time("getDeckCards", () -> cardDAO.getDeckCards(username));
     }
 
     public Integer updateDeck(String username, List<String> cardIds) {
-        return cardDAO.updateUserDeck(username, cardIds);
+        return getQueryTimer().time("updateUserDeck", () -> cardDAO.updateUserDeck(username, cardIds));
     }
 
     public Integer createPackage(List<CardDTO> cards) {
-        return cardDAO.createPackage(cards);
+        return getQueryTimer().time("createPackage", () -> cardDAO.createPackage(cards));
     }
 
     public List<CardDTO> buyPackage(String username) throws InsufficientFundsException, CardPackageNotFoundException {
-        return cardDAO.buyPackage(username);
+        return getQueryTimer().<List<CardDTO>, InsufficientFundsException, CardPackageNotFoundException>timeChecked("buyPackage", () -> cardDAO.buyPackage(username));
     }
 
     public CardDTO get(String cardId) {
-        return cardDAO.read(cardId);
+        return getQueryTimer().time("read", () -> cardDAO.read(cardId));
     }
 
 }
@@ -1,20 +1,32 @@
 package org.example.app.repositories;
 
 import org.example.app.daos.GameDAO;
+import org.example.app.services.BattleResult;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.QueryTimer;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.sql.SQLException;
+import java.util.UUID;
+
 @Setter(AccessLevel.PRIVATE)
 @Getter(AccessLevel.PRIVATE)
 public class GameRepository {
     private GameDAO gameDAO;
+    private QueryTimer queryTimer;
 
-    public GameRepository(GameDAO gameDAO) {
+    public GameRepository(GameDAO gameDAO, MetricsRegistry metricsRegistry) {
         setGameDAO(gameDAO);
+        setQueryTimer(new QueryTimer(metricsRegistry, "GameDAO"));
     }
 
     public String carryOutBattle(String username1, String username2) {
-        return gameDAO.carryOutBattle(username1, username2);
+        return getQueryTimer().time("carryOutBattle", () -> gameDAO.carryOutBattle(username1, username2));
+    }
+
+    public BattleResult replayBattle(UUID battleId) throws SQLException {
+        return getQueryTimer().timeChecked("replayBattle", () -> gameDAO.replayBattle(battleId));
     }
 }
@@ -2,6 +2,8 @@ package org.example.app.repositories;
 
 import org.example.app.daos.TradeDealDAO;
 import org.example.app.dtos.TradeDealDTO;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.QueryTimer;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,25 +15,27 @@ import java.util.List;
 public class TradeDealRepository {
 
     private TradeDealDAO tradeDealDAO;
+    private QueryTimer queryTimer;
 
-    public TradeDealRepository(TradeDealDAO tradeDealDAO) {
+    public TradeDealRepository(TradeDealDAO tradeDealDAO, MetricsRegistry metricsRegistry) {
         setTradeDealDAO(tradeDealDAO);
+        setQueryTimer(new QueryTimer(metricsRegistry, "TradeDealDAO"));
     }
 
     public List<TradeDealDTO> getTradeDeals() {
-        return tradeDealDAO.getTradeDeals();
+        return getQueryTimer().time("getTradeDeals", () -> tradeDealDAO.getTradeDeals());
     }
 
     public Integer createTradeDeal(String username, TradeDealDTO tradeDealDTO) {
-        return tradeDealDAO.createTradeDeal(username, tradeDealDTO);
+        return getQueryTimer().time("createTradeDeal", () -> tradeDealDAO.createTradeDeal(username, tradeDealDTO));
     }
 
     public Integer deleteTradeDeal(String username, String tradeDealId) {
-        return tradeDealDAO.deleteTradeDeal(username, tradeDealId);
+        return getQueryTimer().time("deleteTradeDeal", () -> tradeDealDAO.deleteTradeDeal(username, tradeDealId));
     }
 
     public Integer carryOutTrade(String username, String tradeDealId, String offeredCardId) {
-        return tradeDealDAO.carryOutTrade(username, tradeDealId, offeredCardId);
+        return getQueryTimer().time("carryOutTrade", () -> tradeDealDAO.carryOutTrade(username, tradeDealId, offeredCardId));
     }
 
 }
@@ -3,6 +3,8 @@ package org.example.app.repositories;
 import org.example.app.daos.UserDAO;
 import org.example.app.dtos.UserDataDTO;
 import org.example.app.dtos.UserStatDTO;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.QueryTimer;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,44 +16,50 @@ import java.util.List;
 public class UserRepository {
 
     private UserDAO userDAO;
+    private QueryTimer queryTimer;
 
-    public UserRepository(UserDAO userDAO) {
+    public UserRepository(UserDAO userDAO, MetricsRegistry metricsRegistry) {
         setUserDAO(userDAO);
+        setQueryTimer(new QueryTimer(metricsRegistry, "UserDAO"));
     }
 
     public List<UserDataDTO> getUsers() {
-        return userDAO.getUsers();
+        return getQueryTimer().time("getUsers", () -> userDAO.getUsers());
     }
 
     public UserDataDTO getUser(String username) {
-        return userDAO.getUser(username);
+        return getQueryTimer().time("getUser", () -> userDAO.getUser(username));
     }
 
     public Integer createUser(String username, String password) {
-        return userDAO.createUser(username, password);
+        return getQueryTimer().time("createUser", () -> userDAO.createUser(username, password));
     }
 
     public Integer updateUser(String username, String name, String bio, String image) {
-        return userDAO.updateUser(username, name, bio, image);
+        return getQueryTimer().time("updateUser", () -> userDAO.updateUser(username, name, bio, image));
     }
 
     public String loginUser(String username, String password) {
-        return userDAO.loginUser(username, password);
+        return getQueryTimer().time("loginUser", () -> userDAO.loginUser(username, password));
+    }
+
+    public String getUsernameByToken(String token) {
+        return getQueryTimer().time("getUsernameByToken", () -> userDAO.getUsernameByToken(token));
     }
 
     public String logoutUser(String username) {
-        return userDAO.logoutUser(username);
+        return getQueryTimer().time("logoutUser", () -> userDAO.logoutUser(username));
     }
 
     public UserStatDTO getStats(String username) {
-        return userDAO.getStats(username);
+        return getQueryTimer().time("getStats", () -> userDAO.getStats(username));
     }
 
     public List<UserStatDTO> getScoreBoard() {
-        return userDAO.getScoreBoard();
+        return getQueryTimer().time("getScoreBoard", () -> userDAO.getScoreBoard());
     }
 
     public void deleteUser(String username) {
-        userDAO.deleteUser(username);
+        getQueryTimer().time("deleteUser", () -> userDAO.deleteUser(username));
     }
 }
@@ -0,0 +1,66 @@
+package org.example.app.services;
+
+import org.example.app.repositories.UserRepository;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Resolves bearer tokens to the username they were issued to.
+ * Tokens are validated against the "token" column of the "User" table; validated tokens are kept
+ * in a TokenCache, so authenticated requests normally do not need a database round trip.
+ * Logins add tokens to the cache, logouts and deleted users remove them.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class AuthenticationService {
+    private static final int DEFAULT_MAX_TOKENS = 10_000;
+    private static final long DEFAULT_TOKEN_TTL_MILLIS = 30 * 60 * 1000;
+
+    private UserRepository userRepository;
+    private TokenCache tokenCache;
+
+    public AuthenticationService(UserRepository userRepository) {
+        this(userRepository, new TokenCache(DEFAULT_MAX_TOKENS, DEFAULT_TOKEN_TTL_MILLIS));
+    }
+
+    public AuthenticationService(UserRepository userRepository, TokenCache tokenCache) {
+        setUserRepository(userRepository);
+        setTokenCache(tokenCache);
+    }
+
+    /**
+     * Resolves a bearer token.
+     *
+     * @param token The token from the Authorization header, without the "Bearer " prefix.
+     * @return The username of the authenticated user, or null if the token is missing or invalid.
+     */
+    public String authenticate(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String username = getTokenCache().get(token);
+        if (username == null) {
+            // cache miss, the token may have been issued before a restart or expired from the cache
+            long generation = getTokenCache().getGeneration();
+            username = getUserRepository().getUsernameByToken(token);
+            if (username != null) {
+                // a logout that ran during the lookup wins, the token is then checked against the database again next time
+                getTokenCache().putIfUnchanged(token, username, generation);
+            }
+        }
+        return username;
+    }
+
+    // Called after a successful login with the token handed out to the user
+    public void loggedIn(String username, String token) {
+        getTokenCache().put(token, username);
+    }
+
+    // Called after a logout or when the user is deleted, once the token is gone from the database;
+    // the user's tokens are no longer accepted
+    public void invalidate(String username) {
+        getTokenCache().removeUser(username);
+    }
+}
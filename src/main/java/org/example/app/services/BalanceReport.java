@@ -0,0 +1,225 @@
+package org.example.app.services;
+
+import org.example.Card;
+import org.example.CardName;
+import org.example.ElementType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Win counts of a balance simulation. Every simulation worker fills its own report, the reports are merged at the end.
+ * <p>
+ * Card names and elements are compared round by round: the win rate of a row against a column is the share of the rounds
+ * between the two that the row won, of those that were not a draw. Archetypes are compared by battles,
+ * a battle that ends after the last round with cards on both sides counts as a battle that neither archetype won.
+ */
+public class BalanceReport {
+    private static final CardName[] CARD_NAMES = CardName.values();
+    private static final ElementType[] ELEMENT_TYPES = ElementType.values();
+
+    private final List<String> archetypeNames;
+    // [winner][loser], rounds won
+    private final long[][] cardWins = new long[CARD_NAMES.length][CARD_NAMES.length];
+    private final long[][] elementWins = new long[ELEMENT_TYPES.length][ELEMENT_TYPES.length];
+    // [archetype][opponent archetype], battles won and battles played
+    private final long[][] archetypeWins;
+    private final long[][] archetypeBattles;
+    private long battles;
+    private long rounds;
+    private long drawnRounds;
+
+    public BalanceReport(List<String> archetypeNames) {
+        this.archetypeNames = List.copyOf(archetypeNames);
+        archetypeWins = new long[archetypeNames.size()][archetypeNames.size()];
+        archetypeBattles = new long[archetypeNames.size()][archetypeNames.size()];
+    }
+
+    /**
+     * Counts the rounds and the outcome of a simulated battle.
+     *
+     * @param archetype1 The index of the first player's archetype.
+     * @param archetype2 The index of the second player's archetype.
+     * @param battle     The battle after its last round.
+     */
+    void record(int archetype1, int archetype2, BattleContext battle) {
+        battles++;
+        for (BattleRound round : battle.getRounds()) {
+            rounds++;
+            if (round.isDraw()) {
+                drawnRounds++;
+                continue;
+            }
+            Card winnerCard = round.getWinnerCard();
+            Card loserCard = round.getLoserCard();
+            cardWins[winnerCard.getName().ordinal()][loserCard.getName().ordinal()]++;
+            elementWins[winnerCard.getElementType().ordinal()][loserCard.getElementType().ordinal()]++;
+        }
+
+        // a mirror match is played twice by the archetype and won at most once
+        archetypeBattles[archetype1][archetype2]++;
+        archetypeBattles[archetype2][archetype1]++;
+        if (battle.getUser2Deck().isEmpty()) {
+            archetypeWins[archetype1][archetype2]++;
+        } else if (battle.getUser1Deck().isEmpty()) {
+            archetypeWins[archetype2][archetype1]++;
+        }
+    }
+
+    /**
+     * Adds the counts of another report to this one.
+     *
+     * @param other A report over the same archetypes.
+     * @return This report.
+     */
+    BalanceReport merge(BalanceReport other) {
+        add(cardWins, other.cardWins);
+        add(elementWins, other.elementWins);
+        add(archetypeWins, other.archetypeWins);
+        add(archetypeBattles, other.archetypeBattles);
+        battles += other.battles;
+        rounds += other.rounds;
+        drawnRounds += other.drawnRounds;
+        return this;
+    }
+
+    public long getBattles() {
+        return battles;
+    }
+
+    public long getRounds() {
+        return rounds;
+    }
+
+    public long getDrawnRounds() {
+        return drawnRounds;
+    }
+
+    /**
+     * Looks up how often a card name beat another one.
+     *
+     * @param cardName     The card name of the row.
+     * @param opponentName The card name of the column.
+     * @return The share of the decided rounds between the two that cardName won, NaN if no round between them was decided.
+     */
+    public double cardWinRate(CardName cardName, CardName opponentName) {
+        return winRate(cardWins, cardName.ordinal(), opponentName.ordinal());
+    }
+
+    /**
+     * Looks up how often cards of an element beat cards of another element.
+     *
+     * @param elementType         The element of the row.
+     * @param opponentElementType The element of the column.
+     * @return The share of the decided rounds between the two that elementType won, NaN if no round between them was decided.
+     */
+    public double elementWinRate(ElementType elementType, ElementType opponentElementType) {
+        return winRate(elementWins, elementType.ordinal(), opponentElementType.ordinal());
+    }
+
+    /**
+     * Looks up how often an archetype won its battles against another one.
+     *
+     * @param archetype         The index of the row archetype.
+     * @param opponentArchetype The index of the column archetype.
+     * @return The share of the battles between the two that archetype won, NaN if they never met.
+     */
+    public double archetypeWinRate(int archetype, int opponentArchetype) {
+        long played = archetypeBattles[archetype][opponentArchetype];
+        return played == 0 ? Double.NaN : archetypeWins[archetype][opponentArchetype] / (double) played;
+    }
+
+    // Win rates of the card names, row against column; pairs without a decided round are left out
+    public Map<String, Map<String, Double>> getCardWinRates() {
+        Map<String, Map<String, Double>> winRates = new LinkedHashMap<>();
+        for (CardName cardName : CARD_NAMES) {
+            Map<String, Double> row = new LinkedHashMap<>();
+            for (CardName opponentName : CARD_NAMES) {
+                putRate(row, opponentName.name(), cardWinRate(cardName, opponentName));
+            }
+            winRates.put(cardName.name(), row);
+        }
+        return winRates;
+    }
+
+    public Map<String, Map<String, Double>> getElementWinRates() {
+        Map<String, Map<String, Double>> winRates = new LinkedHashMap<>();
+        for (ElementType elementType : ELEMENT_TYPES) {
+            Map<String, Double> row = new LinkedHashMap<>();
+            for (ElementType opponentElementType : ELEMENT_TYPES) {
+                putRate(row, opponentElementType.name(), elementWinRate(elementType, opponentElementType));
+            }
+            winRates.put(elementType.name(), row);
+        }
+        return winRates;
+    }
+
+    public Map<String, Map<String, Double>> getArchetypeWinRates() {
+        Map<String, Map<String, Double>> winRates = new LinkedHashMap<>();
+        for (int archetype = 0; archetype < archetypeNames.size(); archetype++) {
+            Map<String, Double> row = new LinkedHashMap<>();
+            for (int opponent = 0; opponent < archetypeNames.size(); opponent++) {
+                putRate(row, archetypeNames.get(opponent), archetypeWinRate(archetype, opponent));
+            }
+            winRates.put(archetypeNames.get(archetype), row);
+        }
+        return winRates;
+    }
+
+    /**
+     * Formats the report as plain text tables for the command line.
+     *
+     * @return The totals and the win rate matrices, rows against columns.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%d battles, %d rounds, %.1f%% of the rounds drawn%n",
+                battles, rounds, rounds == 0 ? 0.0 : 100.0 * drawnRounds / rounds));
+        appendMatrix(text, "Archetypes (battles won)", getArchetypeWinRates());
+        appendMatrix(text, "Elements (rounds won)", getElementWinRates());
+        appendMatrix(text, "Card names (rounds won)", getCardWinRates());
+        return text.toString();
+    }
+
+    private static void appendMatrix(StringBuilder text, String title, Map<String, Map<String, Double>> winRates) {
+        text.append(System.lineSeparator()).append(title).append(System.lineSeparator());
+        text.append(String.format("%-14s", ""));
+        for (String column : winRates.keySet()) {
+            text.append(String.format("%14s", column));
+        }
+        text.append(System.lineSeparator());
+        for (Map.Entry<String, Map<String, Double>> row : winRates.entrySet()) {
+            text.append(String.format("%-14s", row.getKey()));
+            for (String column : winRates.keySet()) {
+                Double winRate = row.getValue().get(column);
+                text.append(winRate == null ? String.format("%14s", "-") : String.format("%13.1f%%", 100 * winRate));
+            }
+            text.append(System.lineSeparator());
+        }
+    }
+
+    private static double winRate(long[][] wins, int row, int column) {
+        if (row == column) {
+            // a card name against itself wins every decided round and loses it as well
+            return wins[row][column] == 0 ? Double.NaN : 0.5;
+        }
+        long decided = wins[row][column] + wins[column][row];
+        return decided == 0 ? Double.NaN : wins[row][column] / (double) decided;
+    }
+
+    // NaN is not valid JSON, pairs that never met are left out
+    private static void putRate(Map<String, Double> row, String column, double winRate) {
+        if (!Double.isNaN(winRate)) {
+            row.put(column, winRate);
+        }
+    }
+
+    private static void add(long[][] target, long[][] source) {
+        for (int i = 0; i < target.length; i++) {
+            for (int j = 0; j < target[i].length; j++) {
+                target[i][j] += source[i][j];
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo balance simulation: plays many battles between deck archetypes with the in-memory BattleSimulator
+ * and counts who wins against whom. Nothing is read from or written to the database.
+ * <p>
+ * The battles are split into ranges on a ForkJoinPool. Every range gets its own SplittableRandom split off the one of
+ * its parent range, so the workers share no state and the same seed gives the same report with any number of threads.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class BalanceSimulator implements AutoCloseable {
+    // battles a worker plays without splitting its range further
+    private static final int BATTLES_PER_TASK = 1024;
+    private static final double MIN_DAMAGE = 10;
+    private static final double MAX_DAMAGE = 100;
+
+    private BattleSimulator battleSimulator;
+    private ForkJoinPool pool;
+
+    public BalanceSimulator(int parallelism) {
+        this(BattleRules.standard(), parallelism);
+    }
+
+    public BalanceSimulator(BattleRules rules, int parallelism) {
+        // the seed source is never used, every simulated battle gets its seed from its worker
+        setBattleSimulator(new BattleSimulator(() -> 0L, rules));
+        setPool(new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Plays the given number of battles. The archetypes meet in turn, every ordered pairing about equally often.
+     *
+     * @param archetypes The archetypes to compare.
+     * @param battles    The number of battles to play.
+     * @param seed       The seed of the simulation.
+     * @return The win counts of all battles.
+     */
+    public BalanceReport simulate(List<DeckArchetype> archetypes, long battles, long seed) {
+        return getPool().invoke(new BattleRange(archetypes, 0, battles, new SplittableRandom(seed)));
+    }
+
+    /**
+     * Runs a simulation on the simulator's pool, the calling thread does not wait for it.
+     *
+     * @param archetypes The archetypes to compare.
+     * @param battles    The number of battles to play.
+     * @param seed       The seed of the simulation.
+     * @return A future with the win counts of all battles.
+     */
+    public CompletableFuture<BalanceReport> simulateAsync(List<DeckArchetype> archetypes, long battles, long seed) {
+        return CompletableFuture.supplyAsync(() -> simulate(archetypes, battles, seed), getPool());
+    }
+
+    @Override
+    public void close() {
+        getPool().shutdownNow();
+    }
+
+    private class BattleRange extends RecursiveTask<BalanceReport> {
+        private final List<DeckArchetype> archetypes;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        private BattleRange(List<DeckArchetype> archetypes, long from, long to, SplittableRandom random) {
+            this.archetypes = archetypes;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected BalanceReport compute() {
+            if (to - from <= BATTLES_PER_TASK) {
+                return playBattles();
+            }
+
+            long middle = (from + to) >>> 1;
+            // split before forking, the split depends only on the range and not on the thread that runs it
+            BattleRange upper = new BattleRange(archetypes, middle, to, random.split());
+            BattleRange lower = new BattleRange(archetypes, from, middle, random);
+            upper.fork();
+            BalanceReport report = lower.compute();
+            return report.merge(upper.join());
+        }
+
+        private BalanceReport playBattles() {
+            List<String> archetypeNames = new ArrayList<>(archetypes.size());
+            for (DeckArchetype archetype : archetypes) {
+                archetypeNames.add(archetype.getName());
+            }
+            BalanceReport report = new BalanceReport(archetypeNames);
+
+            int pairings = archetypes.size() * archetypes.size();
+            for (long battle = from; battle < to; battle++) {
+                int pairing = (int) (battle % pairings);
+                int archetype1 = pairing / archetypes.size();
+                int archetype2 = pairing % archetypes.size();
+
+                List<Card> deck1 = archetypes.get(archetype1).dealDeck("player1", random, MIN_DAMAGE, MAX_DAMAGE);
+                List<Card> deck2 = archetypes.get(archetype2).dealDeck("player2", random, MIN_DAMAGE, MAX_DAMAGE);
+                report.record(archetype1, archetype2,
+                        getBattleSimulator().play("player1", deck1, "player2", deck2, random.nextLong()));
+            }
+            return report;
+        }
+    }
+}
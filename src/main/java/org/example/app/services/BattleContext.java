@@ -0,0 +1,101 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * State of one battle in progress: the players, their decks, the rounds played so far and the stat changes.
+ * A context is created for every battle and used by a single thread, so concurrent battles share nothing.
+ */
+@Getter(AccessLevel.PACKAGE)
+@Setter(AccessLevel.PRIVATE)
+class BattleContext {
+    private String username1;
+    private String username2;
+    // the decks the players brought to the battle
+    private List<Card> startingDeck1;
+    private List<Card> startingDeck2;
+    private List<Card> user1Deck;
+    private List<Card> user2Deck;
+    private StatDelta user1Stats;
+    private StatDelta user2Stats;
+    private List<BattleRound> rounds;
+    private long seed;
+    private SplittableRandom random;
+
+    BattleContext(String username1, List<Card> deck1, String username2, List<Card> deck2, long seed) {
+        setUsername1(username1);
+        setUsername2(username2);
+        setStartingDeck1(deck1);
+        setStartingDeck2(deck2);
+        setUser1Deck(new ArrayList<>(deck1));
+        setUser2Deck(new ArrayList<>(deck2));
+        setUser1Stats(new StatDelta(username1));
+        setUser2Stats(new StatDelta(username2));
+        setRounds(new ArrayList<>());
+        setSeed(seed);
+        setRandom(new SplittableRandom(seed));
+    }
+
+    // The battle ends, if one user has lost all his cards
+    boolean isOver() {
+        return user1Deck.isEmpty() || user2Deck.isEmpty();
+    }
+
+    /**
+     * Records a round and moves the defeated card to the winner's deck.
+     *
+     * @param roundNumber The round number.
+     * @param outcome     Positive if the first user won, negative if the second user won, 0 for a draw.
+     * @param user1Card   The card of the first user.
+     * @param user2Card   The card of the second user.
+     */
+    void recordRound(int roundNumber, int outcome, Card user1Card, Card user2Card) {
+        if (outcome > 0) {
+            user2Deck.remove(user2Card);
+            user1Deck.add(user2Card);
+            user1Stats.recordWin();
+            user2Stats.recordLoss();
+            rounds.add(new BattleRound(roundNumber, username1, username2, user1Card, user2Card));
+        } else if (outcome < 0) {
+            user1Deck.remove(user1Card);
+            user2Deck.add(user1Card);
+            user2Stats.recordWin();
+            user1Stats.recordLoss();
+            rounds.add(new BattleRound(roundNumber, username2, username1, user2Card, user1Card));
+        } else {
+            rounds.add(new BattleRound(roundNumber));
+        }
+    }
+
+    BattleResult toResult() {
+        List<CardTransfer> transfers = new ArrayList<>();
+        collectTransfers(startingDeck1, username1, user2Deck, username2, transfers);
+        collectTransfers(startingDeck2, username2, user1Deck, username1, transfers);
+
+        return new BattleResult(UUID.randomUUID(), seed, username1, username2, startingDeck1, startingDeck2, rounds,
+                user1Deck, user2Deck, transfers, user1Stats, user2Stats);
+    }
+
+    // Adds a transfer for every card of the starting deck that ended up in the opponent's deck
+    private static void collectTransfers(List<Card> startingDeck, String owner, List<Card> opponentDeck, String opponent,
+                                         List<CardTransfer> transfers) {
+        Set<Card> wonByOpponent = Collections.newSetFromMap(new IdentityHashMap<>());
+        wonByOpponent.addAll(opponentDeck);
+        for (Card card : startingDeck) {
+            if (wonByOpponent.contains(card)) {
+                transfers.add(new CardTransfer(card, owner, opponent));
+            }
+        }
+    }
+}
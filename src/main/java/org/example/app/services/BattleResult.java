@@ -0,0 +1,95 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+import org.example.app.dtos.BattleHistoryDTO;
+import org.example.app.dtos.RoundLogDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything a simulated battle changes, computed before anything is written to the database.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class BattleResult {
+    private UUID battleId;
+    // seed of the battle's random number generator, replays the battle together with the starting decks
+    private long seed;
+    private String username1;
+    private String username2;
+    private List<Card> user1StartingDeck;
+    private List<Card> user2StartingDeck;
+    private List<BattleRound> rounds;
+    // the decks as they are after the last round
+    private List<Card> user1Deck;
+    private List<Card> user2Deck;
+    private List<CardTransfer> transfers;
+    private StatDelta user1Stats;
+    private StatDelta user2Stats;
+
+    public BattleResult(UUID battleId, long seed, String username1, String username2,
+                        List<Card> user1StartingDeck, List<Card> user2StartingDeck, List<BattleRound> rounds,
+                        List<Card> user1Deck, List<Card> user2Deck, List<CardTransfer> transfers,
+                        StatDelta user1Stats, StatDelta user2Stats) {
+        setBattleId(battleId);
+        setSeed(seed);
+        setUsername1(username1);
+        setUsername2(username2);
+        setUser1StartingDeck(user1StartingDeck);
+        setUser2StartingDeck(user2StartingDeck);
+        setRounds(rounds);
+        setUser1Deck(user1Deck);
+        setUser2Deck(user2Deck);
+        setTransfers(transfers);
+        setUser1Stats(user1Stats);
+        setUser2Stats(user2Stats);
+    }
+
+    /**
+     * Builds the battle log from the simulated rounds.
+     *
+     * @return The log returned to the players.
+     */
+    public String getBattleLog() {
+        StringBuilder battleLog = new StringBuilder("Battle completed\n");
+        for (BattleRound round : getRounds()) {
+            battleLog.append(round.describe());
+        }
+        return battleLog.toString();
+    }
+
+    /**
+     * Builds the history rows of the battle, including the seed and the starting decks for a replay. Every round gets its ID here,
+     * so writing the same history twice is recognized by the battle ID.
+     *
+     * @return The battle and its rounds as they are stored in "Battle", "RoundDetail" and "RoundLog".
+     */
+    public BattleHistoryDTO toHistory() {
+        List<RoundLogDTO> roundLogs = new ArrayList<>(getRounds().size());
+        for (BattleRound round : getRounds()) {
+            if (round.isDraw()) {
+                roundLogs.add(new RoundLogDTO(UUID.randomUUID(), round.getRoundNumber(), null, null, true,
+                        null, null, null, null));
+            } else {
+                roundLogs.add(new RoundLogDTO(UUID.randomUUID(), round.getRoundNumber(), round.getWinner(), round.getLoser(), false,
+                        round.getWinnerCard().getId(), round.getWinnerCard().getName().name(),
+                        round.getLoserCard().getId(), round.getLoserCard().getName().name()));
+            }
+        }
+        return new BattleHistoryDTO(getBattleId(), getUsername1(), getUsername2(), getSeed(),
+                cardIds(getUser1StartingDeck()), cardIds(getUser2StartingDeck()), roundLogs);
+    }
+
+    private static List<UUID> cardIds(List<Card> deck) {
+        List<UUID> cardIds = new ArrayList<>(deck.size());
+        for (Card card : deck) {
+            cardIds.add(card.getId());
+        }
+        return cardIds;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+
+/**
+ * Outcome of one simulated battle round.
+ * For a draw the winner, the loser and their cards are null.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class BattleRound {
+    private int roundNumber;
+    private boolean draw;
+    private String winner;
+    private String loser;
+    private Card winnerCard;
+    private Card loserCard;
+
+    // a round that ended in a draw
+    public BattleRound(int roundNumber) {
+        setRoundNumber(roundNumber);
+        setDraw(true);
+    }
+
+    public BattleRound(int roundNumber, String winner, String loser, Card winnerCard, Card loserCard) {
+        setRoundNumber(roundNumber);
+        setDraw(false);
+        setWinner(winner);
+        setLoser(loser);
+        setWinnerCard(winnerCard);
+        setLoserCard(loserCard);
+    }
+
+    /**
+     * Formats the round for the battle log.
+     *
+     * @return The round as it appears in the log returned by /battles.
+     */
+    public String describe() {
+        if (isDraw()) {
+            return String.format("Round %d ended in a draw.\n", getRoundNumber());
+        }
+        return String.format("Round %d Details:\n", getRoundNumber()) +
+                String.format("  Winner: %s, Winning Card: %s, Winning Card ID: %s\n" +
+                                " Loser: %s, Losing Card: %s, Losing Card ID: %s\n" +
+                                " \n",
+                        getWinner(), getWinnerCard().getName(), getWinnerCard().getId(),
+                        getLoser(), getLoserCard().getName(), getLoserCard().getId());
+    }
+}
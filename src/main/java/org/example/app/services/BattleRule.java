@@ -0,0 +1,41 @@
+package org.example.app.services;
+
+/**
+ * A rule of the battle. Rules are listed in BattleRules and compiled once into a RuleTable,
+ * so a rule itself is never evaluated during a battle unless a card has unusual specialties.
+ * Cards are described by their specialty masks (see Specialty).
+ */
+public interface BattleRule {
+
+    /**
+     * Decides the round outright for a card against the opponent's card.
+     *
+     * @param cardMask     The specialty mask of the card.
+     * @param opponentMask The specialty mask of the opponent's card.
+     * @return 1 if the card wins, -1 if it loses, 0 if this rule does not decide the round.
+     */
+    default int outcome(long cardMask, long opponentMask) {
+        return 0;
+    }
+
+    /**
+     * Factor for the damage the card deals to the opponent's card, on top of the element effectiveness.
+     *
+     * @param cardMask     The specialty mask of the card.
+     * @param opponentMask The specialty mask of the opponent's card.
+     * @return The factor, 1.0 if this rule does not change the damage.
+     */
+    default double damageMultiplier(long cardMask, long opponentMask) {
+        return 1.0;
+    }
+
+    /**
+     * Whether a round is decided by chance instead of by the cards.
+     *
+     * @param round The round number, starting at 1.
+     * @return True if the round is a chaos round.
+     */
+    default boolean isChaosRound(int round) {
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Specialty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ordered rules of a battle. For outcomes the first rule that decides a pairing wins,
+ * damage multipliers of all rules apply. Balance changes are made here, or by passing other rules
+ * to the BattleSimulator, without touching the simulator or the DAOs.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class BattleRules {
+    private List<BattleRule> rules;
+
+    public BattleRules(List<BattleRule> rules) {
+        setRules(List.copyOf(rules));
+    }
+
+    /**
+     * The rules of the game as specified.
+     *
+     * @return The chaos rounds and the specialty rules.
+     */
+    public static BattleRules standard() {
+        return new BattleRules(List.of(
+                new ChaosRule(25, 50, 75),
+                // Goblins are too afraid of Dragons to attack
+                SpecialtyRule.autoLose(Specialty.GOBLIN, Specialty.DRAGON),
+                // Wizzard can control Orks so they are not able to damage them
+                SpecialtyRule.immunity(Specialty.WIZZARD, Specialty.ORK),
+                // The armor of Knights is so heavy that WaterSpells make them drown instantly
+                SpecialtyRule.autoLose(Specialty.KNIGHT, Specialty.WATER_SPELL),
+                // The Kraken is immune against spells
+                SpecialtyRule.immunity(Specialty.KRAKEN, Specialty.SPELL),
+                // The FireElves know Dragons since they were little and can evade their attacks
+                SpecialtyRule.immunity(Specialty.FIRE_ELF, Specialty.DRAGON)));
+    }
+
+    /**
+     * Adds a rule after the existing ones.
+     *
+     * @param rule The rule to add.
+     * @return New rules, these rules are not changed.
+     */
+    public BattleRules with(BattleRule rule) {
+        List<BattleRule> extended = new ArrayList<>(getRules());
+        extended.add(rule);
+        return new BattleRules(extended);
+    }
+
+    /**
+     * Compiles the rules into a dispatch table for the battle's hot path.
+     *
+     * @param numberOfRounds The number of rounds of a battle.
+     * @return The compiled rules.
+     */
+    public RuleTable compile(int numberOfRounds) {
+        return new RuleTable(getRules(), numberOfRounds);
+    }
+}
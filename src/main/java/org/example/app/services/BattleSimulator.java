@@ -0,0 +1,158 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Plays a battle between two decks entirely in memory.
+ * The simulator does not touch the database, the returned BattleResult holds everything that has to be persisted.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class BattleSimulator {
+    public static final int NUMBER_OF_ROUNDS = 100;
+
+    // hands out the seed of a battle, every battle plays with its own SplittableRandom
+    private LongSupplier seedSource;
+    private RuleTable ruleTable;
+
+    public BattleSimulator() {
+        // ThreadLocalRandom avoids contention on a shared seed when battles run in parallel
+        this(() -> ThreadLocalRandom.current().nextLong());
+    }
+
+    // Seeds drawn from a fixed Random make a sequence of battles reproducible, used by tests
+    public BattleSimulator(Random random) {
+        this(random::nextLong);
+    }
+
+    public BattleSimulator(LongSupplier seedSource) {
+        this(seedSource, BattleRules.standard());
+    }
+
+    public BattleSimulator(LongSupplier seedSource, BattleRules rules) {
+        setSeedSource(seedSource);
+        setRuleTable(rules.compile(NUMBER_OF_ROUNDS));
+    }
+
+    /**
+     * Simulates a battle. The given decks are not modified.
+     * All state of the battle lives in its own BattleContext, so one simulator can run many battles concurrently.
+     *
+     * @param username1 The username of the first user.
+     * @param deck1     The deck of the first user.
+     * @param username2 The username of the second user.
+     * @param deck2     The deck of the second user.
+     * @return The rounds, the final decks, the cards that changed hands and the stat changes of both users.
+     */
+    public BattleResult simulate(String username1, List<Card> deck1, String username2, List<Card> deck2) {
+        return simulate(username1, deck1, username2, deck2, getSeedSource().getAsLong());
+    }
+
+    /**
+     * Simulates a battle with a given seed. The same seed, decks in the same order and the same rules
+     * play the same rounds, so a stored battle can be replayed.
+     *
+     * @param username1 The username of the first user.
+     * @param deck1     The deck of the first user.
+     * @param username2 The username of the second user.
+     * @param deck2     The deck of the second user.
+     * @param seed      The seed of the battle's random number generator.
+     * @return The rounds, the final decks, the cards that changed hands and the stat changes of both users.
+     */
+    public BattleResult simulate(String username1, List<Card> deck1, String username2, List<Card> deck2, long seed) {
+        return play(username1, deck1, username2, deck2, seed).toResult();
+    }
+
+    /**
+     * Plays the rounds of a battle without building a BattleResult.
+     * The BalanceSimulator reads the rounds straight from the context, it needs neither a battle ID nor the card transfers.
+     *
+     * @param username1 The username of the first user.
+     * @param deck1     The deck of the first user.
+     * @param username2 The username of the second user.
+     * @param deck2     The deck of the second user.
+     * @param seed      The seed of the battle's random number generator.
+     * @return The context after the last round.
+     */
+    BattleContext play(String username1, List<Card> deck1, String username2, List<Card> deck2, long seed) {
+        BattleContext context = new BattleContext(username1, deck1, username2, deck2, seed);
+
+        for (int round = 1; round <= NUMBER_OF_ROUNDS && !context.isOver(); round++) {
+            // Select one card for each user from their decks
+            Card user1Card = selectRandomCardFromDeck(context.getUser1Deck(), context.getRandom());
+            Card user2Card = selectRandomCardFromDeck(context.getUser2Deck(), context.getRandom());
+
+            context.recordRound(round, fight(round, user1Card, user2Card, context.getRandom()), user1Card, user2Card);
+        }
+
+        return context;
+    }
+
+    /**
+     * Decides a round. Chaos rounds are decided by random damage,
+     * all other rounds by the specialty rules and then by the effective damage of the cards.
+     *
+     * @param round     The round number.
+     * @param user1Card The card of the first user.
+     * @param user2Card The card of the second user.
+     * @param random    The random number generator of the battle.
+     * @return A positive value if the first user wins, a negative value if the second user wins, 0 for a draw.
+     */
+    private int fight(int round, Card user1Card, Card user2Card, SplittableRandom random) {
+        if (getRuleTable().isChaosRound(round)) {
+            return Double.compare(getRandomEffectiveDamage(random), getRandomEffectiveDamage(random));
+        }
+
+        // The first specialty that applies decides the round
+        int outcome = applySpecialty(user1Card, user2Card);
+        if (outcome == 0) {
+            outcome = -applySpecialty(user2Card, user1Card);
+        }
+        if (outcome != 0) {
+            return outcome;
+        }
+
+        return Double.compare(getRuleTable().effectiveDamage(user1Card, user2Card), getRuleTable().effectiveDamage(user2Card, user1Card));
+    }
+
+    /**
+     * Generates a random value representing effective damage for chaos rounds.
+     *
+     * @param random The random number generator of the battle.
+     * @return A random double value between 0 (inclusive) and 101 (exclusive).
+     */
+    private double getRandomEffectiveDamage(SplittableRandom random) {
+        return random.nextDouble() * 101;
+    }
+
+    /**
+     * Selects a random card from the given deck.
+     *
+     * @param deck   The deck from which to select a card, must not be empty.
+     * @param random The random number generator of the battle.
+     * @return A randomly selected card from the deck.
+     */
+    private Card selectRandomCardFromDeck(List<Card> deck, SplittableRandom random) {
+        return deck.get(random.nextInt(deck.size()));
+    }
+
+    /**
+     * Checks the specialties of a card against the card of the opponent.
+     *
+     * @param card         The card whose specialties are checked.
+     * @param opponentCard The card of the opponent.
+     * @return 1 if a specialty makes the card win, -1 if it makes the card lose, 0 if no specialty applies.
+     */
+    public int applySpecialty(Card card, Card opponentCard) {
+        return getRuleTable().outcome(card, opponentCard);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A player's place in the lobby. The battle log future completes once the player has been paired
+ * and the battle has been carried out; both players of a battle receive the same log.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class BattleTicket {
+    private UUID id;
+    private String username;
+    // Elo score of the player when entering the lobby
+    private int rating;
+    private CompletableFuture<String> battleLog;
+    private long createdAtMillis;
+    // when the battle ended; only set once the battle log future is done
+    private long completedAtMillis;
+
+    public BattleTicket(String username, int rating, long createdAtMillis) {
+        setId(UUID.randomUUID());
+        setUsername(username);
+        setRating(rating);
+        setBattleLog(new CompletableFuture<>());
+        setCreatedAtMillis(createdAtMillis);
+    }
+
+    public boolean isDone() {
+        return getBattleLog().isDone();
+    }
+
+    /**
+     * Hands the log of the finished battle to the player.
+     *
+     * @param battleLog         The log of the battle.
+     * @param completedAtMillis When the battle ended.
+     */
+    public void complete(String battleLog, long completedAtMillis) {
+        // set before the future completes, so whoever sees the ticket done also sees the time
+        setCompletedAtMillis(completedAtMillis);
+        getBattleLog().complete(battleLog);
+    }
+
+    /**
+     * Hands the error of the failed battle to the player.
+     *
+     * @param error             Why the battle failed.
+     * @param completedAtMillis When the battle ended.
+     */
+    public void completeExceptionally(Throwable error, long completedAtMillis) {
+        setCompletedAtMillis(completedAtMillis);
+        getBattleLog().completeExceptionally(error);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+
+/**
+ * A card that ended a battle in another player's deck than it started in.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class CardTransfer {
+    private Card card;
+    private String fromUsername;
+    private String toUsername;
+
+    public CardTransfer(Card card, String fromUsername, String toUsername) {
+        setCard(card);
+        setFromUsername(fromUsername);
+        setToUsername(toUsername);
+    }
+}
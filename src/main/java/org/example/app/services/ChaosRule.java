@@ -0,0 +1,19 @@
+package org.example.app.services;
+
+import java.util.Arrays;
+
+/**
+ * Rounds that are decided by random damage instead of by the cards.
+ */
+public class ChaosRule implements BattleRule {
+    private final int[] rounds;
+
+    public ChaosRule(int... rounds) {
+        this.rounds = rounds.clone();
+    }
+
+    @Override
+    public boolean isChaosRound(int round) {
+        return Arrays.stream(rounds).anyMatch(chaosRound -> chaosRound == round);
+    }
+}
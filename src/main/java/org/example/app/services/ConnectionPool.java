@@ -0,0 +1,435 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Small JDBC connection pool on top of a driver DataSource.
+ * getConnection() hands out a pooled connection, closing it returns the connection to the pool instead of
+ * closing the database session, so DAOs borrow a connection per unit of work with try-with-resources.
+ * At most maxSize connections are borrowed at the same time, further borrowers wait up to the connection timeout.
+ * Connections that come back with auto-commit disabled are rolled back and reset, so an aborted transaction
+ * never leaks into the next borrower. A background task keeps minIdle connections open, closes surplus idle
+ * connections and reports connections that are borrowed for longer than the leak detection threshold.
+ * Each connection keeps a StatementCache, so the constant statements of the DAOs are prepared once per connection.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private DataSource dataSource;
+    private ConnectionPoolConfig config;
+    private ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // one permit per connection that may be borrowed
+    private final Semaphore permits;
+    // most recently returned connections first, so few connections stay warm and the rest can time out
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConnectionPool(DataSource dataSource, ConnectionPoolConfig config) {
+        setDataSource(dataSource);
+        setConfig(config);
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        fillIdle();
+
+        ScheduledExecutorService housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getHousekeepingIntervalMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, interval, interval, TimeUnit.MILLISECONDS);
+        setHousekeeper(housekeeper);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no idle connection is available.
+     * The connection has to be closed to return it to the pool.
+     *
+     * @return The borrowed connection.
+     * @throws SQLException If the pool is closed, no connection became available within the timeout
+     *                      or a new connection could not be opened.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        waitingThreads.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.getConnectionTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+            waitNanos.add(System.nanoTime() - start);
+        }
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException("No database connection available after "
+                    + config.getConnectionTimeoutMillis() + " ms (" + config.getMaxSize() + " connections in use)");
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                openConnections.incrementAndGet();
+                try {
+                    pooled = new PooledConnection(dataSource.getConnection());
+                } catch (SQLException | RuntimeException e) {
+                    openConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+            // capturing the borrow site walks the stack, too expensive for every borrow unless a leak is being hunted
+            Lease lease = new Lease(pooled, config.isLeakDebugStackTraces() ? new Exception("Connection borrowed here") : null);
+            leases.add(lease);
+            borrows.increment();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the credentials of the pool");
+    }
+
+    // Closes all idle connections; borrowed connections are closed when they are returned
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    // Number of connections currently borrowed
+    public int getActiveConnections() {
+        return leases.size();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    // Number of open database connections, borrowed or idle
+    public int getTotalConnections() {
+        return openConnections.get();
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return waitingThreads.get();
+    }
+
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+
+    // Number of getConnection() calls that gave up because the pool was exhausted
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    // Number of borrowed connections that were held longer than the leak detection threshold
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    // Time all borrowers spent waiting for a connection
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    // Number of prepareStatement() calls answered from a statement cache
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    // Number of prepareStatement() calls that had to prepare a new statement
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[total=" + getTotalConnections() + ", active=" + getActiveConnections()
+                + ", idle=" + getIdleConnections() + ", waiting=" + getThreadsAwaitingConnection()
+                + ", borrows=" + getBorrowCount() + ", timeouts=" + getTimeoutCount() + ", leaks=" + getLeakCount()
+                + ", statementCacheHits=" + getStatementCacheHits() + ", statementCacheMisses=" + getStatementCacheMisses() + "]";
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    // Takes the most recently used idle connection; connections that were idle for a while are validated first
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.lastUsedAt < config.getValidationIntervalMillis() || isValid(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.connection.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(Lease lease) {
+        leases.remove(lease);
+        PooledConnection pooled = lease.pooled;
+        if (pooled.statementCache != null) {
+            pooled.statementCache.reset();
+        }
+        boolean reusable;
+        try {
+            // finish what the borrower left open, the next borrower expects auto-commit mode
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            reusable = !pooled.connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        pooled.lastUsedAt = System.currentTimeMillis();
+        if (reusable && !closed && openConnections.get() <= config.getMaxSize()) {
+            idle.offerFirst(pooled);
+        } else {
+            discard(pooled);
+        }
+        permits.release();
+    }
+
+    private void discard(PooledConnection pooled) {
+        openConnections.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void housekeeping() {
+        try {
+            detectLeaks();
+            evictIdle();
+            fillIdle();
+        } catch (RuntimeException e) {
+            // keep the housekeeper scheduled
+            e.printStackTrace();
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = config.getLeakDetectionThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases) {
+            long borrowedFor = now - lease.borrowedAt;
+            if (!lease.leakReported && borrowedFor > threshold) {
+                lease.leakReported = true;
+                leaks.increment();
+                System.err.println("Possible connection leak, connection borrowed " + borrowedFor + " ms ago by " + lease.thread.getName() + ":");
+                if (lease.borrowSite != null) {
+                    lease.borrowSite.printStackTrace();
+                } else if (lease.thread.isAlive()) {
+                    // without the borrow site, where the borrower is now usually shows what holds the connection
+                    for (StackTraceElement element : lease.thread.getStackTrace()) {
+                        System.err.println("\tat " + element);
+                    }
+                }
+            }
+        }
+    }
+
+    // Closes connections above minIdle that have not been used for the idle timeout, oldest first
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && idle.size() > config.getMinIdle()) {
+            PooledConnection pooled = iterator.next();
+            // removal fails if a borrower took the connection in the meantime
+            if (now - pooled.lastUsedAt > config.getIdleTimeoutMillis() && idle.removeLastOccurrence(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    private void fillIdle() {
+        while (!closed && idle.size() < config.getMinIdle()) {
+            int open = openConnections.get();
+            if (open >= config.getMaxSize()) {
+                return;
+            }
+            if (!openConnections.compareAndSet(open, open + 1)) {
+                continue;
+            }
+            try {
+                idle.offerLast(new PooledConnection(dataSource.getConnection()));
+            } catch (SQLException | RuntimeException e) {
+                openConnections.decrementAndGet();
+                // the database may not be up yet, try again on the next run
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection connection;
+        // null if statement caching is disabled
+        private final StatementCache statementCache;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            int statementCacheSize = config.getStatementCacheSize();
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(connection, statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+    }
+
+    // One borrow of a pooled connection; the proxy handed to the borrower delegates to the connection until it is closed
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        // null unless leakDebugStackTraces is enabled
+        private final Exception borrowSite;
+        private final Thread thread = Thread.currentThread();
+        private final long borrowedAt = System.currentTimeMillis();
+        private volatile boolean returned;
+        private volatile boolean leakReported;
+
+        private Lease(PooledConnection pooled, Exception borrowSite) {
+            this.pooled = pooled;
+            this.borrowSite = borrowSite;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.connection;
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (pooled.statementCache != null && method.getName().equals("prepareStatement")) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length == 1) {
+                    return pooled.statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS, (Connection) proxy);
+                }
+                if (parameterTypes.length == 2 && parameterTypes[1] == int.class) {
+                    return pooled.statementCache.prepare((String) args[0], (Integer) args[1], (Connection) proxy);
+                }
+            }
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.app.services;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ConnectionPoolConfig {
+    private static final int DEFAULT_MIN_IDLE = 2;
+    private static final int DEFAULT_MAX_SIZE = 20;
+    private static final long DEFAULT_CONNECTION_TIMEOUT_MILLIS = 5_000;
+    private static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = 30_000;
+    private static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+    private static final long DEFAULT_LEAK_DETECTION_THRESHOLD_MILLIS = 60_000;
+    private static final long DEFAULT_HOUSEKEEPING_INTERVAL_MILLIS = 5_000;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 100;
+
+    // number of idle connections the pool keeps open, also opened at startup
+    private int minIdle = DEFAULT_MIN_IDLE;
+    // upper bound for open connections, borrowers wait when all of them are in use
+    private int maxSize = DEFAULT_MAX_SIZE;
+    // how long getConnection() waits for a free connection before failing
+    private long connectionTimeoutMillis = DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+    // idle connections that were not used for this long are validated before they are handed out
+    private long validationIntervalMillis = DEFAULT_VALIDATION_INTERVAL_MILLIS;
+    private int validationTimeoutSeconds = DEFAULT_VALIDATION_TIMEOUT_SECONDS;
+    // idle connections above minIdle are closed after this time
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    // a connection borrowed for longer than this is reported as a possible leak, 0 disables the check
+    private long leakDetectionThresholdMillis = DEFAULT_LEAK_DETECTION_THRESHOLD_MILLIS;
+    // records the stack trace of every borrow, so a leak report shows where the connection was borrowed; for debugging only
+    private boolean leakDebugStackTraces;
+    private long housekeepingIntervalMillis = DEFAULT_HOUSEKEEPING_INTERVAL_MILLIS;
+    // prepared statements kept open per connection, least recently used ones are closed first, 0 disables the cache
+    private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+    public ConnectionPoolConfig() {
+    }
+
+    /**
+     * Builds a configuration from the "mtcg.db.pool.*" system properties, falling back to the defaults.
+     *
+     * @return The pool configuration.
+     */
+    public static ConnectionPoolConfig fromSystemProperties() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinIdle(Integer.getInteger("mtcg.db.pool.minIdle", config.getMinIdle()));
+        config.setMaxSize(Integer.getInteger("mtcg.db.pool.maxSize", config.getMaxSize()));
+        config.setConnectionTimeoutMillis(Long.getLong("mtcg.db.pool.connectionTimeoutMillis", config.getConnectionTimeoutMillis()));
+        config.setValidationIntervalMillis(Long.getLong("mtcg.db.pool.validationIntervalMillis", config.getValidationIntervalMillis()));
+        config.setValidationTimeoutSeconds(Integer.getInteger("mtcg.db.pool.validationTimeoutSeconds", config.getValidationTimeoutSeconds()));
+        config.setIdleTimeoutMillis(Long.getLong("mtcg.db.pool.idleTimeoutMillis", config.getIdleTimeoutMillis()));
+        config.setLeakDetectionThresholdMillis(Long.getLong("mtcg.db.pool.leakDetectionThresholdMillis", config.getLeakDetectionThresholdMillis()));
+        config.setLeakDebugStackTraces(Boolean.getBoolean("mtcg.db.pool.leakDebugStackTraces"));
+        config.setHousekeepingIntervalMillis(Long.getLong("mtcg.db.pool.housekeepingIntervalMillis", config.getHousekeepingIntervalMillis()));
+        config.setStatementCacheSize(Integer.getInteger("mtcg.db.pool.statementCacheSize", config.getStatementCacheSize()));
+        return config;
+    }
+}
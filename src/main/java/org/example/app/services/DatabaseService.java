@@ -3,29 +3,31 @@ package org.example.app.services;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import org.postgresql.ds.PGSimpleDataSource;
 
 public class DatabaseService {
     private String connectionString = "jdbc:postgresql://localhost:5432/mtcg_database?user=postgres&password=postgres";
+    // shared by all DAOs, each DAO call borrows a connection for its unit of work
     @Setter(AccessLevel.PRIVATE)
     @Getter
-    private Connection connection;
+    private ConnectionPool dataSource;
 
     public DatabaseService() {
-        try {
-            // Load the PostgreSQL JDBC driver
-            Class.forName("org.postgresql.Driver");
+        this(ConnectionPoolConfig.fromSystemProperties());
+    }
+
+    public DatabaseService(ConnectionPoolConfig config) {
+        PGSimpleDataSource postgres = new PGSimpleDataSource();
+        postgres.setURL(System.getProperty("mtcg.db.url", connectionString));
+        // batched inserts, like the round logs of a battle, are sent as multi-row INSERTs
+        postgres.setReWriteBatchedInserts(true);
 
-            // Establish the database connection
-            Connection connection = DriverManager.getConnection(connectionString);
-            setConnection(connection);
-            System.out.println("Connected to the database.");
-        } catch (ClassNotFoundException | SQLException e) {
-            e.printStackTrace();
-        }
+        // Open the pool, it connects minIdle sessions right away and retries in the background if the database is down
+        setDataSource(new ConnectionPool(postgres, config));
+        System.out.println("Database connection pool started: " + getDataSource());
     }
-}
 
+    public void close() {
+        getDataSource().close();
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.Card;
+import org.example.CardName;
+import org.example.CardType;
+import org.example.ElementType;
+import org.example.MonsterCard;
+import org.example.SpellCard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * A kind of deck played in balance simulations: a name and the card names of the deck.
+ * The damage of the cards is drawn anew for every battle, so the results describe the card names and not one set of cards.
+ * An archetype without card names deals random cards.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class DeckArchetype {
+    public static final int DECK_SIZE = 4;
+    private static final CardName[] CARD_NAMES = CardName.values();
+
+    private String name;
+    // empty for random decks
+    private List<CardName> cardNames;
+
+    public DeckArchetype(String name, List<CardName> cardNames) {
+        setName(name);
+        setCardNames(List.copyOf(cardNames));
+    }
+
+    /**
+     * The archetypes of the balance report: one deck per element, pure spells, the special monsters and random decks.
+     *
+     * @return The standard archetypes.
+     */
+    public static List<DeckArchetype> standard() {
+        return List.of(
+                new DeckArchetype("Water", List.of(CardName.WaterGoblin, CardName.WaterTroll, CardName.WaterElf, CardName.WaterSpell)),
+                new DeckArchetype("Fire", List.of(CardName.FireGoblin, CardName.FireTroll, CardName.FireElf, CardName.FireSpell)),
+                new DeckArchetype("Regular", List.of(CardName.RegularGoblin, CardName.RegularTroll, CardName.RegularElf, CardName.RegularSpell)),
+                new DeckArchetype("Spells", List.of(CardName.WaterSpell, CardName.FireSpell, CardName.RegularSpell, CardName.WaterSpell)),
+                new DeckArchetype("Monsters", List.of(CardName.Dragon, CardName.Knight, CardName.Ork, CardName.Kraken)),
+                new DeckArchetype("Random", List.of()));
+    }
+
+    /**
+     * Deals a deck of this archetype.
+     *
+     * @param owner     The owner of the cards.
+     * @param random    The random number generator of the simulation worker.
+     * @param minDamage The lowest damage of a card.
+     * @param maxDamage The highest damage of a card (exclusive).
+     * @return A new deck of DECK_SIZE cards.
+     */
+    public List<Card> dealDeck(String owner, SplittableRandom random, double minDamage, double maxDamage) {
+        List<Card> deck = new ArrayList<>(DECK_SIZE);
+        for (int i = 0; i < DECK_SIZE; i++) {
+            CardName cardName = getCardNames().isEmpty()
+                    ? CARD_NAMES[random.nextInt(CARD_NAMES.length)]
+                    : getCardNames().get(i % getCardNames().size());
+            // IDs from the worker's generator, UUID.randomUUID() would make the workers share one SecureRandom
+            UUID cardId = new UUID(random.nextLong(), random.nextLong());
+            deck.add(createCard(cardId, cardName, random.nextDouble(minDamage, maxDamage), owner));
+        }
+        return deck;
+    }
+
+    // Element, type and specialty follow from the name, like CardDAO.createCard derives them
+    static Card createCard(UUID cardId, CardName cardName, double damage, String owner) {
+        ElementType elementType = RuleTable.elementTypeOf(cardName);
+        String[] specialties = {cardName.name()};
+        if (RuleTable.cardTypeOf(cardName) == CardType.SPELL) {
+            return new SpellCard(cardId, cardName, damage, elementType, specialties, owner);
+        }
+        return new MonsterCard(cardId, cardName, damage, elementType, specialties, owner);
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Waiting players ordered by Elo score.
+ * A player is paired with the closest-rated waiting player whose rating is within the allowed gap. The gap starts
+ * at baseRatingGap and widens by ratingGapPerSecond for every second a player waits, up to maxRatingGap.
+ * Enqueue, cancel and match are O(log n); matchWaiting() re-checks all waiting players in one O(n) pass.
+ * Not synchronized, MatchmakingService guards it with its lock.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class MatchmakingQueue {
+    private static final int DEFAULT_BASE_RATING_GAP = 50;
+    private static final int DEFAULT_RATING_GAP_PER_SECOND = 25;
+    private static final int DEFAULT_MAX_RATING_GAP = 500;
+
+    private int baseRatingGap;
+    private int ratingGapPerSecond;
+    private int maxRatingGap;
+    // ties are broken by arrival, then by ticket ID, so every ticket has its own place
+    private final TreeSet<BattleTicket> byRating = new TreeSet<>(Comparator.comparingInt(BattleTicket::getRating)
+            .thenComparingLong(BattleTicket::getCreatedAtMillis)
+            .thenComparing(BattleTicket::getId));
+    private final Map<String, BattleTicket> byUsername = new HashMap<>();
+
+    public MatchmakingQueue() {
+        this(DEFAULT_BASE_RATING_GAP, DEFAULT_RATING_GAP_PER_SECOND, DEFAULT_MAX_RATING_GAP);
+    }
+
+    public MatchmakingQueue(int baseRatingGap, int ratingGapPerSecond, int maxRatingGap) {
+        setBaseRatingGap(baseRatingGap);
+        setRatingGapPerSecond(ratingGapPerSecond);
+        setMaxRatingGap(maxRatingGap);
+    }
+
+    /**
+     * Looks up the waiting ticket of a player.
+     *
+     * @param username The player.
+     * @return The ticket, or null if the player is not waiting.
+     */
+    public BattleTicket get(String username) {
+        return byUsername.get(username);
+    }
+
+    /**
+     * Pairs a new ticket with the closest-rated waiting ticket, or queues it if no waiting player is close enough.
+     *
+     * @param ticket   The ticket of the player entering the queue.
+     * @param nowMillis The current time.
+     * @return The opponent, which has been removed from the queue, or null if the ticket was queued.
+     */
+    public BattleTicket match(BattleTicket ticket, long nowMillis) {
+        BattleTicket lower = byRating.lower(ticket);
+        BattleTicket higher = byRating.higher(ticket);
+
+        // try the closer neighbour first, the other one may have waited longer and accept the gap
+        BattleTicket first = lower;
+        BattleTicket second = higher;
+        if (lower == null || (higher != null && ratingGap(ticket, higher) < ratingGap(ticket, lower))) {
+            first = higher;
+            second = lower;
+        }
+        for (BattleTicket candidate : new BattleTicket[]{first, second}) {
+            if (candidate != null && accepts(ticket, candidate, nowMillis)) {
+                remove(candidate);
+                return candidate;
+            }
+        }
+
+        byRating.add(ticket);
+        byUsername.put(ticket.getUsername(), ticket);
+        return null;
+    }
+
+    /**
+     * Removes a player from the queue.
+     *
+     * @param username The player leaving the queue.
+     * @return The removed ticket, or null if the player was not waiting.
+     */
+    public BattleTicket cancel(String username) {
+        BattleTicket ticket = byUsername.get(username);
+        if (ticket != null) {
+            remove(ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * Pairs waiting players whose allowed gap has widened enough since they entered the queue.
+     * Only neighbours in rating order are paired, so every pair is the closest-rated one available.
+     *
+     * @param nowMillis The current time.
+     * @return The pairs, removed from the queue.
+     */
+    public List<BattleTicket[]> matchWaiting(long nowMillis) {
+        List<BattleTicket[]> pairs = new ArrayList<>();
+        Iterator<BattleTicket> iterator = byRating.iterator();
+        BattleTicket previous = null;
+        while (iterator.hasNext()) {
+            BattleTicket current = iterator.next();
+            if (previous != null && accepts(previous, current, nowMillis)) {
+                pairs.add(new BattleTicket[]{previous, current});
+                previous = null;
+            } else {
+                previous = current;
+            }
+        }
+        for (BattleTicket[] pair : pairs) {
+            remove(pair[0]);
+            remove(pair[1]);
+        }
+        return pairs;
+    }
+
+    public int size() {
+        return byRating.size();
+    }
+
+    /**
+     * Rating gap a waiting player accepts at the given time.
+     *
+     * @param ticket    The ticket of the player.
+     * @param nowMillis The current time.
+     * @return The allowed gap, widened by the time the player has waited.
+     */
+    public int allowedRatingGap(BattleTicket ticket, long nowMillis) {
+        long waitedSeconds = Math.max(0, nowMillis - ticket.getCreatedAtMillis()) / 1000;
+        return (int) Math.min(getMaxRatingGap(), getBaseRatingGap() + waitedSeconds * getRatingGapPerSecond());
+    }
+
+    // The player who has waited longer decides, so a newcomer can join a long-waiting player's wider bracket
+    private boolean accepts(BattleTicket ticket, BattleTicket candidate, long nowMillis) {
+        int allowedGap = Math.max(allowedRatingGap(ticket, nowMillis), allowedRatingGap(candidate, nowMillis));
+        return ratingGap(ticket, candidate) <= allowedGap;
+    }
+
+    private static int ratingGap(BattleTicket a, BattleTicket b) {
+        return Math.abs(a.getRating() - b.getRating());
+    }
+
+    private void remove(BattleTicket ticket) {
+        byRating.remove(ticket);
+        byUsername.remove(ticket.getUsername());
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pairs the players that enter the lobby and carries out their battles on a dedicated executor.
+ * Entering the lobby never blocks: every player gets a BattleTicket whose future completes with the battle log,
+ * so request threads are not held while a player waits for an opponent or while the battle runs.
+ * Players are paired by Elo score through a MatchmakingQueue; a background sweep pairs waiting players
+ * once their allowed rating gap has widened enough.
+ * Tickets stay available for a while after the battle, so the result can also be fetched later by ticket id.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class MatchmakingService implements AutoCloseable {
+    private static final long DEFAULT_TICKET_RETENTION_MILLIS = 10 * 60 * 1000;
+    private static final long SWEEP_INTERVAL_MILLIS = 500;
+
+    private BattleRunner battleRunner;
+    // Elo score of a player
+    private ToIntFunction<String> ratingLookup;
+    private ExecutorService battleExecutor;
+    private ScheduledExecutorService sweeper;
+    private long ticketRetentionMillis;
+    // injectable for tests
+    private LongSupplier clock;
+    // waiting players, guarded by its own monitor
+    private MatchmakingQueue queue;
+    // players who have been paired and whose battle has not finished, guarded by the monitor of the queue
+    private final Set<String> playersInBattle = new HashSet<>();
+    private final Map<UUID, BattleTicket> tickets = new ConcurrentHashMap<>();
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder totalTimeToMatchMillis = new LongAdder();
+    private final LongAdder totalRatingSpread = new LongAdder();
+    private final AtomicInteger maxRatingSpread = new AtomicInteger();
+
+    // Carries out a battle and returns its log, GameRepository::carryOutBattle in production
+    @FunctionalInterface
+    public interface BattleRunner {
+        String carryOutBattle(String username1, String username2);
+    }
+
+    public MatchmakingService(BattleRunner battleRunner, ToIntFunction<String> ratingLookup, int battleThreads) {
+        this(battleRunner, ratingLookup, new MatchmakingQueue(), battleThreads,
+                DEFAULT_TICKET_RETENTION_MILLIS, System::currentTimeMillis);
+    }
+
+    public MatchmakingService(BattleRunner battleRunner, ToIntFunction<String> ratingLookup, MatchmakingQueue queue,
+                              int battleThreads, long ticketRetentionMillis, LongSupplier clock) {
+        setBattleRunner(battleRunner);
+        setRatingLookup(ratingLookup);
+        setQueue(queue);
+        setBattleExecutor(Executors.newFixedThreadPool(battleThreads, new DaemonThreadFactory("battle-")));
+        setTicketRetentionMillis(ticketRetentionMillis);
+        setClock(clock);
+        setSweeper(Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("matchmaking-sweeper-")));
+        getSweeper().scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Puts a player into the lobby. If a waiting player is rated close enough, the two are paired
+     * and their battle is submitted to the battle executor.
+     *
+     * @param username The player entering the lobby.
+     * @return The player's ticket; a player who is already waiting gets the ticket they already hold,
+     *         a player whose battle has not finished yet gets null, the battle would use the same deck.
+     */
+    public BattleTicket enterLobby(String username) {
+        // read before taking the lock, the lookup may go to the database
+        int rating = getRatingLookup().applyAsInt(username);
+
+        BattleTicket ticket;
+        BattleTicket opponent;
+        synchronized (queue) {
+            BattleTicket waiting = queue.get(username);
+            if (waiting != null) {
+                // entering twice does not pair a player with themselves
+                return waiting;
+            }
+            if (playersInBattle.contains(username)) {
+                return null;
+            }
+
+            ticket = new BattleTicket(username, rating, getClock().getAsLong());
+            tickets.put(ticket.getId(), ticket);
+            opponent = queue.match(ticket, ticket.getCreatedAtMillis());
+            if (opponent != null) {
+                playersInBattle.add(username);
+                playersInBattle.add(opponent.getUsername());
+            }
+        }
+
+        if (opponent != null) {
+            // the player who waited goes first, like in the FIFO lobby
+            startBattle(opponent, ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * Takes a waiting player out of the lobby; pending long-polls of the ticket are cancelled.
+     *
+     * @param username The player leaving the lobby.
+     * @return True if the player was waiting; false if they were not in the lobby or already paired.
+     */
+    public boolean leaveLobby(String username) {
+        BattleTicket ticket;
+        synchronized (queue) {
+            ticket = queue.cancel(username);
+        }
+        if (ticket == null) {
+            return false;
+        }
+        tickets.remove(ticket.getId());
+        ticket.getBattleLog().cancel(false);
+        return true;
+    }
+
+    /**
+     * Looks up a ticket of a player.
+     *
+     * @param ticketId The ID of the ticket.
+     * @param username The player asking for the ticket.
+     * @return The ticket, or null if there is no such ticket or it belongs to another player.
+     */
+    public BattleTicket getTicket(UUID ticketId, String username) {
+        BattleTicket ticket = tickets.get(ticketId);
+        if (ticket == null || !ticket.getUsername().equals(username)) {
+            return null;
+        }
+        return ticket;
+    }
+
+    /**
+     * Pairs waiting players whose rating gap has widened enough and drops expired tickets.
+     * Runs every SWEEP_INTERVAL_MILLIS on the sweeper thread.
+     */
+    public void sweep() {
+        long now = getClock().getAsLong();
+        List<BattleTicket[]> pairs;
+        synchronized (queue) {
+            pairs = queue.matchWaiting(now);
+            for (BattleTicket[] pair : pairs) {
+                playersInBattle.add(pair[0].getUsername());
+                playersInBattle.add(pair[1].getUsername());
+            }
+        }
+        for (BattleTicket[] pair : pairs) {
+            // the player who waited longer goes first
+            if (pair[0].getCreatedAtMillis() <= pair[1].getCreatedAtMillis()) {
+                startBattle(pair[0], pair[1]);
+            } else {
+                startBattle(pair[1], pair[0]);
+            }
+        }
+
+        // Tickets of finished battles are kept for the retention time after the battle, then they can no longer be fetched
+        long expiredBefore = now - getTicketRetentionMillis();
+        tickets.values().removeIf(ticket -> ticket.isDone() && ticket.getCompletedAtMillis() < expiredBefore);
+    }
+
+    // Number of players waiting for an opponent
+    public int getWaitingPlayers() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    // Number of pairs formed since start
+    public long getMatchCount() {
+        return matches.sum();
+    }
+
+    // Average time a player spent in the lobby before being paired
+    public double getAverageTimeToMatchMillis() {
+        long count = matches.sum();
+        return count == 0 ? 0 : totalTimeToMatchMillis.sum() / (2.0 * count);
+    }
+
+    // Average Elo difference of the pairs formed
+    public double getAverageRatingSpread() {
+        long count = matches.sum();
+        return count == 0 ? 0 : totalRatingSpread.sum() / (double) count;
+    }
+
+    // Largest Elo difference of a pair formed since start
+    public int getMaxRatingSpread() {
+        return maxRatingSpread.get();
+    }
+
+    @Override
+    public void close() {
+        getSweeper().shutdownNow();
+        getBattleExecutor().shutdown();
+        try {
+            if (!getBattleExecutor().awaitTermination(10, TimeUnit.SECONDS)) {
+                getBattleExecutor().shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            getBattleExecutor().shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startBattle(BattleTicket first, BattleTicket second) {
+        recordMatch(first, second);
+
+        CompletableFuture<String> battle;
+        try {
+            battle = CompletableFuture.supplyAsync(
+                    () -> getBattleRunner().carryOutBattle(first.getUsername(), second.getUsername()), getBattleExecutor());
+        } catch (RejectedExecutionException e) {
+            battle = CompletableFuture.failedFuture(e);
+        }
+
+        // both players get the same log, or the same error
+        battle.whenComplete((battleLog, error) -> {
+            // released before the tickets complete, so a player can enter the lobby again as soon as they have the log
+            synchronized (queue) {
+                playersInBattle.remove(first.getUsername());
+                playersInBattle.remove(second.getUsername());
+            }
+            long completedAtMillis = getClock().getAsLong();
+            for (BattleTicket ticket : new BattleTicket[]{first, second}) {
+                if (error != null) {
+                    ticket.completeExceptionally(error, completedAtMillis);
+                } else {
+                    ticket.complete(battleLog, completedAtMillis);
+                }
+            }
+        });
+    }
+
+    private void recordMatch(BattleTicket first, BattleTicket second) {
+        long now = getClock().getAsLong();
+        int ratingSpread = Math.abs(first.getRating() - second.getRating());
+        matches.increment();
+        totalTimeToMatchMillis.add((now - first.getCreatedAtMillis()) + (now - second.getCreatedAtMillis()));
+        totalRatingSpread.add(ratingSpread);
+        maxRatingSpread.accumulateAndGet(ratingSpread, Math::max);
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            // battles in progress do not keep the server process alive
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.app.services;
+
+import java.sql.SQLException;
+
+/**
+ * A card that was stored with a battle no longer exists, so the battle cannot be replayed with the decks it was played with.
+ */
+public class MissingCardException extends SQLException {
+    public MissingCardException(String message) {
+        super(message);
+    }
+}
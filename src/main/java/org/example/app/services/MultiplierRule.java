@@ -0,0 +1,24 @@
+package org.example.app.services;
+
+import org.example.Specialty;
+
+/**
+ * Scales the damage a card with one specialty deals to a card with another one, e.g. for balance changes.
+ * Several multiplier rules that apply to the same pairing are multiplied.
+ */
+public class MultiplierRule implements BattleRule {
+    private final long cardBit;
+    private final long opponentBit;
+    private final double factor;
+
+    public MultiplierRule(Specialty cardSpecialty, Specialty opponentSpecialty, double factor) {
+        this.cardBit = cardSpecialty.bit();
+        this.opponentBit = opponentSpecialty.bit();
+        this.factor = factor;
+    }
+
+    @Override
+    public double damageMultiplier(long cardMask, long opponentMask) {
+        return (cardMask & cardBit) != 0 && (opponentMask & opponentBit) != 0 ? factor : 1.0;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.app.services;
+
+import org.example.Card;
+import org.example.CardName;
+import org.example.CardType;
+import org.example.ElementType;
+import org.example.Specialty;
+
+import java.util.List;
+
+/**
+ * BattleRules compiled into flat arrays indexed by the card names of both cards.
+ * Every card name stands for one card type, element and specialty, like the cards CardDAO creates,
+ * so a round needs one array read for the outcome and one for the damage multiplier of each card.
+ * Cards whose specialties differ from the ones of their name are evaluated against the rules directly.
+ */
+public class RuleTable {
+    private static final CardName[] CARD_NAMES = CardName.values();
+
+    private final List<BattleRule> rules;
+    // [round], true for chaos rounds
+    private final boolean[] chaosRounds;
+    // [card name], the specialty mask of a regular card with this name
+    private final long[] nameMasks;
+    // [card name * number of names + opponent card name]
+    private final int[] outcomes;
+    private final double[] multipliers;
+
+    RuleTable(List<BattleRule> rules, int numberOfRounds) {
+        this.rules = rules;
+
+        chaosRounds = new boolean[numberOfRounds + 1];
+        for (int round = 1; round <= numberOfRounds; round++) {
+            for (BattleRule rule : rules) {
+                chaosRounds[round] |= rule.isChaosRound(round);
+            }
+        }
+
+        nameMasks = new long[CARD_NAMES.length];
+        for (CardName name : CARD_NAMES) {
+            nameMasks[name.ordinal()] = Specialty.maskOf(new String[]{name.name()}, cardTypeOf(name), elementTypeOf(name));
+        }
+
+        outcomes = new int[CARD_NAMES.length * CARD_NAMES.length];
+        multipliers = new double[CARD_NAMES.length * CARD_NAMES.length];
+        for (CardName card : CARD_NAMES) {
+            for (CardName opponent : CARD_NAMES) {
+                int index = card.ordinal() * CARD_NAMES.length + opponent.ordinal();
+                outcomes[index] = evaluateOutcome(nameMasks[card.ordinal()], nameMasks[opponent.ordinal()]);
+                multipliers[index] = evaluateMultiplier(nameMasks[card.ordinal()], nameMasks[opponent.ordinal()]);
+            }
+        }
+    }
+
+    public boolean isChaosRound(int round) {
+        return round < chaosRounds.length && chaosRounds[round];
+    }
+
+    /**
+     * Looks up whether a rule decides the round for a card against the opponent's card.
+     *
+     * @param card         The card.
+     * @param opponentCard The card of the opponent.
+     * @return 1 if the card wins, -1 if it loses, 0 if no rule decides the round.
+     */
+    public int outcome(Card card, Card opponentCard) {
+        if (isRegular(card) && isRegular(opponentCard)) {
+            return outcomes[card.getName().ordinal() * CARD_NAMES.length + opponentCard.getName().ordinal()];
+        }
+        return evaluateOutcome(card.getSpecialtyMask(), opponentCard.getSpecialtyMask());
+    }
+
+    /**
+     * Calculates the damage a card deals to the opponent's card: element effectiveness and rule multipliers.
+     *
+     * @param card         The attacking card.
+     * @param opponentCard The defending card.
+     * @return The effective damage.
+     */
+    public double effectiveDamage(Card card, Card opponentCard) {
+        double multiplier = isRegular(card) && isRegular(opponentCard)
+                ? multipliers[card.getName().ordinal() * CARD_NAMES.length + opponentCard.getName().ordinal()]
+                : evaluateMultiplier(card.getSpecialtyMask(), opponentCard.getSpecialtyMask());
+        return card.calculateEffectiveDamage(opponentCard) * multiplier;
+    }
+
+    // A card whose specialties are those of its name can use the table
+    private boolean isRegular(Card card) {
+        return card.getName() != null && card.getSpecialtyMask() == nameMasks[card.getName().ordinal()];
+    }
+
+    private int evaluateOutcome(long cardMask, long opponentMask) {
+        for (BattleRule rule : rules) {
+            int outcome = rule.outcome(cardMask, opponentMask);
+            if (outcome != 0) {
+                return outcome;
+            }
+        }
+        return 0;
+    }
+
+    private double evaluateMultiplier(long cardMask, long opponentMask) {
+        double multiplier = 1.0;
+        for (BattleRule rule : rules) {
+            multiplier *= rule.damageMultiplier(cardMask, opponentMask);
+        }
+        return multiplier;
+    }
+
+    // Same derivation as CardDAO.createCard
+    static CardType cardTypeOf(CardName name) {
+        return name.name().endsWith("Spell") ? CardType.SPELL : CardType.MONSTER;
+    }
+
+    static ElementType elementTypeOf(CardName name) {
+        if (name.name().contains("Water")) {
+            return ElementType.WATER;
+        }
+        if (name.name().contains("Fire")) {
+            return ElementType.FIRE;
+        }
+        return ElementType.NORMAL;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.app.services;
+
+import org.example.Specialty;
+
+/**
+ * Decides a round when a card with one specialty meets a card with another one.
+ */
+public class SpecialtyRule implements BattleRule {
+    private final long cardBit;
+    private final long opponentBit;
+    private final int outcome;
+
+    private SpecialtyRule(Specialty cardSpecialty, Specialty opponentSpecialty, int outcome) {
+        this.cardBit = cardSpecialty.bit();
+        this.opponentBit = opponentSpecialty.bit();
+        this.outcome = outcome;
+    }
+
+    // The card wins against the opponent's card
+    public static SpecialtyRule autoWin(Specialty cardSpecialty, Specialty opponentSpecialty) {
+        return new SpecialtyRule(cardSpecialty, opponentSpecialty, 1);
+    }
+
+    // The card loses against the opponent's card
+    public static SpecialtyRule autoLose(Specialty cardSpecialty, Specialty opponentSpecialty) {
+        return new SpecialtyRule(cardSpecialty, opponentSpecialty, -1);
+    }
+
+    // The opponent's card cannot damage the card, so the card wins
+    public static SpecialtyRule immunity(Specialty cardSpecialty, Specialty opponentSpecialty) {
+        return autoWin(cardSpecialty, opponentSpecialty);
+    }
+
+    @Override
+    public int outcome(long cardMask, long opponentMask) {
+        return (cardMask & cardBit) != 0 && (opponentMask & opponentBit) != 0 ? outcome : 0;
+    }
+}
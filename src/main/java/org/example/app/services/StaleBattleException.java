@@ -0,0 +1,14 @@
+package org.example.app.services;
+
+import java.sql.SQLException;
+
+/**
+ * A simulated battle that can no longer be saved because its decks changed while the rounds were played,
+ * e.g. a card was traded, the deck was reconfigured or another battle already used the deck.
+ * Nothing of the battle is written.
+ */
+public class StaleBattleException extends SQLException {
+    public StaleBattleException(String message) {
+        super(message);
+    }
+}
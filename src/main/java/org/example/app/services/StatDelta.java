@@ -0,0 +1,38 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Change of a player's wins, losses and Elo score over one battle.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class StatDelta {
+    public static final int ELO_PER_WIN = 3;
+    public static final int ELO_PER_LOSS = 5;
+
+    private String username;
+    private int wins;
+    private int losses;
+    private int eloDelta;
+
+    public StatDelta(String username) {
+        setUsername(username);
+    }
+
+    public boolean hasChanges() {
+        return getWins() != 0 || getLosses() != 0 || getEloDelta() != 0;
+    }
+
+    void recordWin() {
+        setWins(getWins() + 1);
+        setEloDelta(getEloDelta() + ELO_PER_WIN);
+    }
+
+    void recordLoss() {
+        setLosses(getLosses() + 1);
+        setEloDelta(getEloDelta() - ELO_PER_LOSS);
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.app.services;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepared statements of one pooled connection, keyed by SQL text.
+ * The DAOs prepare the same constant statements over and over; with this cache a statement is parsed once per
+ * connection and closing it only clears its parameters, so the driver can keep using the server-side prepared
+ * statement and its plan. The cache is bounded, the least recently used statement is closed when it is full.
+ * A connection is used by one borrower at a time, so the cache is not synchronized.
+ */
+final class StatementCache {
+    private final Connection connection;
+    private final int maxStatements;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, CachedStatement> statements;
+    // incremented whenever the connection goes back to the pool, statements handed out before are no longer usable
+    private int generation;
+
+    StatementCache(Connection connection, int maxStatements, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.maxStatements = maxStatements;
+        this.hits = hits;
+        this.misses = misses;
+        // access order turns the map into an LRU list
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxStatements) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the SQL text, from the cache if possible.
+     *
+     * @param sql               The SQL text of the statement.
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS.
+     * @param owner             The pooled connection the statement is handed out for, returned by getConnection().
+     * @return A statement whose close() keeps the underlying statement open for the next caller.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        CachedStatement cached = statements.get(key);
+        if (cached == null) {
+            misses.increment();
+            cached = new CachedStatement(key, connection.prepareStatement(sql, autoGeneratedKeys));
+            statements.put(key, cached);
+        } else if (cached.inUse) {
+            // the same statement is still open further up the call stack, fall back to an uncached one
+            misses.increment();
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        } else {
+            hits.increment();
+        }
+
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Handle(cached, owner, generation));
+    }
+
+    // Called when the connection goes back to the pool; statements the borrower did not close are released
+    // like a close() would, with their parameters and batch cleared, and dropped if that fails
+    void reset() {
+        generation++;
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            CachedStatement cached = iterator.next();
+            if (cached.inUse && !cached.release()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static final class CachedStatement {
+        private final String key;
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        // Evicted while in use, the statement is closed once the caller is done with it
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        // Makes the statement ready for the next caller; false if it was closed instead and must leave the cache.
+        // A batch is left behind when executeBatch() threw or was never reached, the next caller must not run it.
+        private boolean release() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return false;
+            }
+            try {
+                ResultSet resultSet = statement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                return true;
+            } catch (SQLException e) {
+                // a statement in an unknown state is not reused
+                evicted = true;
+                closeQuietly();
+                return false;
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // The statement as seen by one caller, closing it hands the cached statement back
+    private final class Handle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final int handedOutIn;
+        private boolean closed;
+
+        private Handle(CachedStatement cached, Connection owner, int handedOutIn) {
+            this.cached = cached;
+            this.owner = owner;
+            this.handedOutIn = handedOutIn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean stale = closed || handedOutIn != generation;
+            switch (method.getName()) {
+                case "close":
+                    if (!stale) {
+                        closed = true;
+                        if (!cached.release()) {
+                            // an evicted statement has already left the cache, a newer one may have its key
+                            statements.remove(cached.key, cached);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return stale || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + cached.statement;
+                default:
+                    break;
+            }
+            if (stale) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded map from bearer token to username.
+ * Entries expire after a fixed time to live; when the cache is full the least recently used token is dropped.
+ * All methods are synchronized, the critical sections are a single map operation each.
+ * Every removal starts a new generation; a token looked up in the database is only cached if no removal happened
+ * since the lookup started, so a lookup that races with a logout cannot put the logged out token back.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class TokenCache {
+    private int maxEntries;
+    private long timeToLiveMillis;
+    // injectable for tests
+    private LongSupplier clock;
+    private LinkedHashMap<String, Entry> entries;
+    private long generation;
+
+    public TokenCache(int maxEntries, long timeToLiveMillis) {
+        this(maxEntries, timeToLiveMillis, System::currentTimeMillis);
+    }
+
+    public TokenCache(int maxEntries, long timeToLiveMillis, LongSupplier clock) {
+        setMaxEntries(maxEntries);
+        setTimeToLiveMillis(timeToLiveMillis);
+        setClock(clock);
+        // access order turns the map into an LRU list
+        setEntries(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > getMaxEntries();
+            }
+        });
+    }
+
+    /**
+     * Looks up the username of a token.
+     *
+     * @param token The bearer token.
+     * @return The username, or null if the token is not cached or has expired.
+     */
+    public synchronized String get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(token);
+            return null;
+        }
+        return entry.username;
+    }
+
+    public synchronized void put(String token, String username) {
+        entries.put(token, new Entry(username, clock.getAsLong() + timeToLiveMillis));
+    }
+
+    // Current generation, read before looking up a token in the database
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches a token looked up in the database, unless tokens have been removed since the lookup started.
+     *
+     * @param token      The bearer token.
+     * @param username   The username the database returned for the token.
+     * @param generation The generation read before the lookup.
+     * @return True if the token was cached.
+     */
+    public synchronized boolean putIfUnchanged(String token, String username, long generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+        put(token, username);
+        return true;
+    }
+
+    // Removes every token of the user, e.g. after logout or when the user is deleted
+    public synchronized void removeUser(String username) {
+        generation++;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().username.equals(username)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(String username, long expiresAt) {
+    }
+}
@@ -72,9 +72,18 @@ CREATE TABLE IF NOT EXISTS "Battle" (
     "id" UUID PRIMARY KEY,
     "user1_username" VARCHAR(255) REFERENCES "User"("username"),
     "user2_username" VARCHAR(255) REFERENCES "User"("username"),
+    -- seed and starting decks (card IDs in slot order) replay the battle
+    "seed" BIGINT,
+    "user1_deck" VARCHAR(36) ARRAY,
+    "user2_deck" VARCHAR(36) ARRAY,
     UNIQUE("id")
 );
 
+-- Databases created before battles could be replayed
+ALTER TABLE "Battle" ADD COLUMN IF NOT EXISTS "seed" BIGINT;
+ALTER TABLE "Battle" ADD COLUMN IF NOT EXISTS "user1_deck" VARCHAR(36) ARRAY;
+ALTER TABLE "Battle" ADD COLUMN IF NOT EXISTS "user2_deck" VARCHAR(36) ARRAY;
+
 -- Create RoundDetail Table
 CREATE TABLE IF NOT EXISTS "RoundDetail" (
     "round_id" UUID PRIMARY KEY,
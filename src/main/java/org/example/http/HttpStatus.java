@@ -8,13 +8,17 @@ import lombok.Setter;
 public enum HttpStatus {
     OK(200, "OK"),
     CREATED(201, "CREATED"),
+    ACCEPTED(202, "Accepted"),
     NO_CONTENT(204, "No Content"),
     BAD_REQUEST(400, "Bad Request"),
     UNAUTHORIZED(401, "Unauthorized"),
     FORBIDDEN(403, "Forbidden"),
     NOT_FOUND(404, "Not Found"),
     CONFLICT(409, "Conflict"),
-    INTERNAL_SERVER_ERROR(500, "Internal Server Error");
+    PAYLOAD_TOO_LARGE(413, "Payload Too Large"),
+    REQUEST_HEADER_FIELDS_TOO_LARGE(431, "Request Header Fields Too Large"),
+    INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
+    SERVICE_UNAVAILABLE(503, "Service Unavailable");
 
     @Setter(AccessLevel.PRIVATE)
     private int code;
@@ -0,0 +1,100 @@
+package org.example.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with the bucket layout of an HdrHistogram: values below 2048 get a bucket each, above that
+ * every power of two is split into 1024 buckets. A recorded value is off by less than 0.1 %, whatever its size,
+ * and the histogram has a fixed size no matter how many values are recorded.
+ * Recording is lock-free, all virtual users of a load test record into the histograms of the endpoints they call.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 11;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param highestTrackableValue Larger values are recorded as this value.
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        this.highestTrackableValue = Math.max(highestTrackableValue, SUB_BUCKET_COUNT);
+        counts = new AtomicLongArray(indexOf(this.highestTrackableValue) + 1);
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value, e.g. a latency in microseconds; negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), highestTrackableValue);
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(clamped);
+        maxValue.accumulateAndGet(clamped, Math::max);
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalValue.get() / (double) count;
+    }
+
+    /**
+     * Looks up a percentile.
+     *
+     * @param percentile The percentile, e.g. 99.9.
+     * @return The highest value that is equivalent to the value at the percentile, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        // the rank of the value at the percentile, at least the first value;
+        // the small offset keeps 99.9 % of 1000 at rank 999 despite the rounding of 99.9
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count - 1e-9));
+        long seen = 0;
+        for (int index = 0; index < counts.length(); index++) {
+            seen += counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(index), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    // Values below SUB_BUCKET_COUNT map to themselves; above, the top SUB_BUCKET_BITS bits of the value pick the bucket
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (int) ((value >>> shift) - HALF_SUB_BUCKET_COUNT);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,252 @@
+package org.example.load;
+
+import org.example.app.App;
+import org.example.server.NioServer;
+import org.example.server.Server;
+import org.example.server.ServerConfig;
+import org.example.server.ServerEngine;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of a running MTCG server with the traffic of the curl script:
+ * <pre>
+ * java -cp target/classes:&lt;dependencies&gt; org.example.load.LoadGenerator --users 200 --rate 20 [--url http://localhost:10001] [--embedded]
+ * </pre>
+ * Virtual users arrive at a fixed rate, whether or not earlier users got their answers (an open workload,
+ * like real players), and each one runs the workflow of VirtualUser once on its own virtual thread.
+ * With --embedded the server is started in this process on the port of the URL, against the database of mtcg.db.url.
+ * <p>
+ * The report lists the throughput and the latency percentiles of every endpoint.
+ */
+public class LoadGenerator {
+    // long polls of POST /battles take up to 20 s, everything above 10 minutes is recorded as 10 minutes
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final String ADMIN_CREDENTIALS = "{\"Username\":\"admin\", \"Password\":\"istrator\"}";
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    // sorted by endpoint for the report
+    private final Map<String, EndpointStats> endpoints = new ConcurrentSkipListMap<>();
+
+    public LoadGenerator(URI baseUri) {
+        this.baseUri = baseUri;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI baseUri = URI.create("http://localhost:10001");
+        int users = 50;
+        double rate = 10;
+        boolean embedded = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--url" -> baseUri = URI.create(args[++i]);
+                    case "--users" -> users = Integer.parseInt(args[++i]);
+                    case "--rate" -> rate = Double.parseDouble(args[++i]);
+                    case "--embedded" -> embedded = true;
+                    default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+                }
+            }
+            if (users < 1 || rate <= 0) {
+                throw new IllegalArgumentException("--users and --rate must be positive");
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LoadGenerator [--users N] [--rate USERS_PER_SECOND] [--url URL] [--embedded]");
+            System.exit(2);
+        }
+
+        App app = null;
+        ServerEngine server = null;
+        if (embedded) {
+            app = new App();
+            server = startServer(app, baseUri.getPort());
+        }
+
+        try {
+            LoadGenerator loadGenerator = new LoadGenerator(baseUri);
+            long elapsedNanos = loadGenerator.run(users, rate);
+            System.out.print(loadGenerator.report(elapsedNanos));
+        } finally {
+            if (server != null) {
+                server.stop();
+                app.close();
+            }
+        }
+    }
+
+    /**
+     * Lets the virtual users arrive and waits until all of them are through their workflow.
+     *
+     * @param users The number of virtual users.
+     * @param rate  The number of virtual users arriving per second.
+     * @return The duration of the test in nanoseconds.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    public long run(int users, double rate) throws InterruptedException {
+        // the admin may exist already, a 409 is fine
+        send("POST /users", "POST", "/users", null, ADMIN_CREDENTIALS);
+        send("POST /sessions", "POST", "/sessions", null, ADMIN_CREDENTIALS);
+        String adminToken = "admin-mtcgToken";
+        // unique usernames, so the test can run again against the same database
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        CountDownLatch finished = new CountDownLatch(users);
+        AtomicInteger arrived = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService virtualUsers = Executors.newVirtualThreadPerTaskExecutor();
+             ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor()) {
+            arrivals.scheduleAtFixedRate(() -> {
+                int index = arrived.getAndIncrement();
+                if (index >= users) {
+                    return;
+                }
+                VirtualUser virtualUser = new VirtualUser(this, "load-" + runId + "-" + index, adminToken);
+                virtualUsers.execute(() -> {
+                    try {
+                        virtualUser.run();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }, 0, (long) (TimeUnit.SECONDS.toNanos(1) / rate), TimeUnit.NANOSECONDS);
+
+            finished.await();
+            arrivals.shutdownNow();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sends a request and records its latency and status under the endpoint.
+     *
+     * @param endpoint The endpoint as it appears in the report, e.g. "PUT /users/{username}".
+     * @param method   The HTTP method.
+     * @param path     The path, with the query.
+     * @param token    The token of the user, or null for requests without authentication.
+     * @param body     The request body, or null for none.
+     * @return The response, or null if the request failed without a response.
+     */
+    HttpResponse<String> send(String endpoint, String method, String path, String token, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofMinutes(1))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            stats.record(System.nanoTime() - start, response.statusCode());
+            return response;
+        } catch (IOException e) {
+            stats.recordFailure();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore interrupted status
+            stats.recordFailure();
+            return null;
+        }
+    }
+
+    /**
+     * Formats the results of the test.
+     *
+     * @param elapsedNanos The duration of the test.
+     * @return One line per endpoint: requests, throughput, responses that were not 2xx, requests without a response
+     *         and the latency percentiles in milliseconds.
+     */
+    public String report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder(String.format("%.1f s%n", seconds));
+        report.append(String.format("%-30s %8s %9s %7s %7s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "non-2xx", "failed", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            LatencyHistogram latencies = stats.latencies;
+            report.append(String.format("%-30s %8d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                    stats.non2xx.sum(), stats.failed.sum(),
+                    latencies.getValueAtPercentile(50) / 1000.0, latencies.getValueAtPercentile(99) / 1000.0,
+                    latencies.getValueAtPercentile(99.9) / 1000.0, latencies.getMaxValue() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    // Starts the server like Main does and waits until it accepts connections
+    private static ServerEngine startServer(App app, int port) throws InterruptedException {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        ServerEngine server = config.getEngine() == ServerConfig.Engine.NIO
+                ? new NioServer(app, port, config)
+                : new Server(app, port, config);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "embedded-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        for (int attempt = 0; attempt < 50; attempt++) {
+            try {
+                // only probes whether the server accepts, the connection is not used
+                new Socket("localhost", port).close();
+                return server;
+            } catch (ConnectException e) {
+                Thread.sleep(100);
+            } catch (IOException e) {
+                e.printStackTrace();
+                break;
+            }
+        }
+        throw new IllegalStateException("Embedded server did not start on port " + port);
+    }
+
+    private static final class EndpointStats {
+        private final LatencyHistogram latencies = new LatencyHistogram(HIGHEST_LATENCY_MICROS);
+        private final LongAdder non2xx = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private void record(long latencyNanos, int statusCode) {
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            if (statusCode < 200 || statusCode >= 300) {
+                non2xx.increment();
+            }
+        }
+
+        private void recordFailure() {
+            failed.increment();
+        }
+    }
+}
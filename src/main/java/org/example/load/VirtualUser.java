@@ -0,0 +1,105 @@
+package org.example.load;
+
+import org.example.CardName;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One player going through the workflow of the MTCG curl script: register, log in, buy packages,
+ * configure the deck, look at profile, stats and scoreboard, battle, offer and withdraw a trade, log out.
+ * The admin creates the packages the player buys right before the player buys them.
+ */
+class VirtualUser implements Runnable {
+    private static final int PACKAGES = 4;
+    private static final int CARDS_PER_PACKAGE = 5;
+    private static final CardName[] CARD_NAMES = CardName.values();
+    // the card IDs in the body of GET /cards
+    private static final Pattern CARD_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-fA-F-]{36})\"");
+
+    private final LoadGenerator loadGenerator;
+    private final String username;
+    private final String adminToken;
+
+    VirtualUser(LoadGenerator loadGenerator, String username, String adminToken) {
+        this.loadGenerator = loadGenerator;
+        this.username = username;
+        this.adminToken = adminToken;
+    }
+
+    @Override
+    public void run() {
+        String credentials = String.format("{\"Username\":\"%s\", \"Password\":\"%s\"}", username, "password");
+        String token = username + "-mtcgToken";
+
+        loadGenerator.send("POST /users", "POST", "/users", null, credentials);
+        loadGenerator.send("POST /sessions", "POST", "/sessions", null, credentials);
+
+        for (int i = 0; i < PACKAGES; i++) {
+            loadGenerator.send("POST /packages", "POST", "/packages", adminToken, packageBody());
+            loadGenerator.send("POST /transactions/packages", "POST", "/transactions/packages", token, "");
+        }
+
+        HttpResponse<String> cards = loadGenerator.send("GET /cards", "GET", "/cards", token, null);
+        List<String> cardIds = cardIds(cards);
+        if (cardIds.size() >= 4) {
+            String deck = String.format("[\"%s\", \"%s\", \"%s\", \"%s\"]", cardIds.get(0), cardIds.get(1), cardIds.get(2), cardIds.get(3));
+            loadGenerator.send("PUT /deck", "PUT", "/deck", token, deck);
+        }
+        loadGenerator.send("GET /deck", "GET", "/deck", token, null);
+        loadGenerator.send("GET /deck?format=plain", "GET", "/deck?format=plain", token, null);
+
+        loadGenerator.send("PUT /users/{username}", "PUT", "/users/" + username, token,
+                "{\"Name\": \"Load\", \"Bio\": \"virtual user\", \"Image\": \":-)\"}");
+        loadGenerator.send("GET /users/{username}", "GET", "/users/" + username, token, null);
+        loadGenerator.send("GET /stats", "GET", "/stats", token, null);
+        loadGenerator.send("GET /scoreboard", "GET", "/scoreboard", token, null);
+
+        HttpResponse<String> battle = loadGenerator.send("POST /battles", "POST", "/battles", token, "");
+        if (battle != null && battle.statusCode() == 202) {
+            // nobody to battle within the long poll, do not keep waiting in the lobby
+            loadGenerator.send("DELETE /battles", "DELETE", "/battles", token, null);
+        }
+
+        loadGenerator.send("GET /tradings", "GET", "/tradings", token, null);
+        if (cardIds.size() > 4) {
+            // a card that is not in the deck
+            String tradeId = UUID.randomUUID().toString();
+            loadGenerator.send("POST /tradings", "POST", "/tradings", token, String.format(
+                    "{\"Id\": \"%s\", \"CardToTrade\": \"%s\", \"Type\": \"monster\", \"MinimumDamage\": 15}", tradeId, cardIds.get(4)));
+            loadGenerator.send("DELETE /tradings/{id}", "DELETE", "/tradings/" + tradeId, token, null);
+        }
+
+        loadGenerator.send("POST /logout", "POST", "/logout", token, "");
+    }
+
+    private static String packageBody() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < CARDS_PER_PACKAGE; i++) {
+            if (i > 0) {
+                body.append(", ");
+            }
+            body.append(String.format("{\"Id\":\"%s\", \"Name\":\"%s\", \"Damage\": %d.0}",
+                    UUID.randomUUID(), CARD_NAMES[random.nextInt(CARD_NAMES.length)], 10 + random.nextInt(91)));
+        }
+        return body.append("]").toString();
+    }
+
+    private static List<String> cardIds(HttpResponse<String> response) {
+        List<String> cardIds = new ArrayList<>();
+        if (response == null || response.statusCode() != 200) {
+            return cardIds;
+        }
+        Matcher matcher = CARD_ID.matcher(response.body());
+        while (matcher.find()) {
+            cardIds.add(matcher.group(1));
+        }
+        return cardIds;
+    }
+}
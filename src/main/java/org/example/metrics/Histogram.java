@@ -0,0 +1,74 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Prometheus histogram: counts of observations per bucket, their number and their sum.
+ * Observing is lock-free, a LongAdder per bucket keeps threads that observe at the same time from contending,
+ * so histograms can stay on in production. The buckets are made cumulative only when they are scraped.
+ */
+public class Histogram {
+    // seconds, from half a millisecond for the token cache up to the long poll of a battle
+    public static final double[] LATENCY_BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    private final double[] upperBounds;
+    // one more than the upper bounds, the last one is +Inf
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    public Histogram(double[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        int bucket = 0;
+        while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sum.add(value);
+    }
+
+    // Observes a duration measured with System.nanoTime(), in seconds
+    public void observeNanos(long nanos) {
+        observe(nanos / 1e9);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Writes the _bucket, _sum and _count lines of the histogram.
+     *
+     * @param out    The scrape being written.
+     * @param name   The name of the metric.
+     * @param labels The labels of this histogram without braces, e.g. method="GET",route="/cards"; may be empty.
+     */
+    void writeTo(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String le = i < upperBounds.length ? MetricsRegistry.formatValue(upperBounds[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(MetricsRegistry.formatValue(getSum())).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The metrics of the server, written in the Prometheus text format by GET /metrics.
+ * Histograms are recorded as things happen; gauges and counters that other classes already keep,
+ * like the ConnectionPool statistics, are registered as suppliers and read only when the metrics are scraped.
+ */
+public class MetricsRegistry {
+    private enum Type {
+        GAUGE, COUNTER, HISTOGRAM
+    }
+
+    // sorted by name, so every scrape lists the metrics in the same order
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the histogram of a metric with the given labels, creating it on first use.
+     * Callers on hot paths keep the returned histogram instead of looking it up for every observation.
+     *
+     * @param name         The name of the metric, e.g. mtcg_http_request_duration_seconds.
+     * @param help         The description of the metric.
+     * @param labels       The labels without braces, e.g. method="GET",route="/cards"; empty for none.
+     * @param upperBounds  The upper bounds of the buckets.
+     * @return The histogram, the same instance for the same name and labels.
+     */
+    public Histogram histogram(String name, String help, String labels, double[] upperBounds) {
+        Family family = family(name, help, Type.HISTOGRAM);
+        return (Histogram) family.series.computeIfAbsent(labels, key -> new Histogram(upperBounds));
+    }
+
+    /**
+     * Registers a value that can go up and down, read when the metrics are scraped.
+     *
+     * @param name  The name of the metric.
+     * @param help  The description of the metric.
+     * @param value Reads the current value.
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        family(name, help, Type.GAUGE).series.put("", value);
+    }
+
+    /**
+     * Registers a value that only goes up, read when the metrics are scraped.
+     *
+     * @param name  The name of the metric, ending in _total.
+     * @param help  The description of the metric.
+     * @param value Reads the current value.
+     */
+    public void counter(String name, String help, DoubleSupplier value) {
+        family(name, help, Type.COUNTER).series.put("", value);
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     *
+     * @return The body of GET /metrics.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+            // labels sorted, so the series of a metric keep their order between scrapes
+            for (Map.Entry<String, Object> series : new ConcurrentSkipListMap<>(family.series).entrySet()) {
+                if (series.getValue() instanceof Histogram histogram) {
+                    histogram.writeTo(out, name, series.getKey());
+                } else {
+                    out.append(name);
+                    if (!series.getKey().isEmpty()) {
+                        out.append('{').append(series.getKey()).append('}');
+                    }
+                    out.append(' ').append(formatValue(((DoubleSupplier) series.getValue()).getAsDouble())).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    // Prometheus reads integers without the trailing .0 and NaN/Inf in its own spelling
+    static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private static final class Family {
+        private final String help;
+        private final Type type;
+        // labels -> Histogram or DoubleSupplier
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Times the calls of a DAO, one histogram per method in mtcg_dao_query_duration_seconds.
+ * <pre>
+ * return queryTimer.time("getStats", () -&gt; userDAO.getStats(username));
+ * </pre>
+ * Calls that throw checked exceptions go through {@link #timeChecked(String, CheckedCall)} instead.
+ */
+public class QueryTimer {
+    private static final String METRIC = "mtcg_dao_query_duration_seconds";
+    private static final String HELP = "Duration of DAO calls, including waiting for a pooled connection.";
+
+    private final MetricsRegistry metricsRegistry;
+    private final String dao;
+    // method name -> histogram, so a call costs one map lookup and no label formatting
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public QueryTimer(MetricsRegistry metricsRegistry, String dao) {
+        this.metricsRegistry = metricsRegistry;
+        this.dao = dao;
+    }
+
+    /**
+     * A DAO call that throws up to two checked exception types.
+     */
+    @FunctionalInterface
+    public interface CheckedCall<T, E1 extends Exception, E2 extends Exception> {
+        T call() throws E1, E2;
+    }
+
+    /**
+     * Runs a DAO call and records its duration, also when it throws.
+     *
+     * @param method The name of the DAO method.
+     * @param call   The DAO call.
+     * @return The result of the call.
+     */
+    public <T> T time(String method, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(method, start);
+        }
+    }
+
+    /**
+     * Runs a DAO call without a result and records its duration, also when it throws.
+     *
+     * @param method The name of the DAO method.
+     * @param call   The DAO call.
+     */
+    public void time(String method, Runnable call) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } finally {
+            record(method, start);
+        }
+    }
+
+    /**
+     * Runs a DAO call that throws checked exceptions and records its duration, also when it throws.
+     * A call throwing two exception types needs explicit type arguments, javac infers Exception otherwise.
+     *
+     * @param method The name of the DAO method.
+     * @param call   The DAO call.
+     * @return The result of the call.
+     * @throws E1 If the call throws it.
+     * @throws E2 If the call throws it.
+     */
+    public <T, E1 extends Exception, E2 extends Exception> T timeChecked(String method, CheckedCall<T, E1, E2> call) throws E1, E2 {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(method, start);
+        }
+    }
+
+    /**
+     * Records a finished DAO call.
+     *
+     * @param method     The name of the DAO method.
+     * @param startNanos System.nanoTime() before the call.
+     */
+    public void record(String method, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Histogram histogram = histograms.get(method);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(method, key -> metricsRegistry.histogram(METRIC, HELP,
+                    "dao=\"" + dao + "\",method=\"" + key + "\"", Histogram.LATENCY_BUCKETS));
+        }
+        histogram.observeNanos(elapsed);
+    }
+}
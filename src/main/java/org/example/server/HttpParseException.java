@@ -0,0 +1,15 @@
+package org.example.server;
+
+import org.example.http.HttpStatus;
+import lombok.Getter;
+
+// Thrown by HttpRequestParser for requests that cannot be served; carries the status to answer with
+@Getter
+public class HttpParseException extends Exception {
+    private final HttpStatus status;
+
+    public HttpParseException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,260 @@
+package org.example.server;
+
+import org.example.http.HttpStatus;
+import org.example.http.Method;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses HTTP/1.x requests directly from bytes.
+ * The request line and headers are scanned once without splitting lines into Strings;
+ * only the values the application uses are materialized, and the body is decoded
+ * as UTF-8 in a single bulk operation sized by Content-Length.
+ * An instance is meant to be reused for all requests of one connection and is not thread-safe.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class HttpRequestParser {
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] CONTENT_TYPE = bytes("content-type");
+    private static final byte[] CONTENT_LENGTH = bytes("content-length");
+    private static final byte[] AUTHORIZATION = bytes("authorization");
+    private static final byte[] CONNECTION = bytes("connection");
+    private static final byte[] BEARER = bytes("bearer ");
+    private static final Method[] METHODS = Method.values();
+    private static final byte[][] METHOD_NAMES = new byte[METHODS.length][];
+
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_NAMES[i] = bytes(METHODS[i].name());
+        }
+    }
+
+    private final int maxHeaderBytes;
+    private final int maxBodyBytes;
+    // length of the last parsed request, so callers can advance past it
+    private int consumedBytes;
+
+    // offsets of the header values found by the last scan, -1 if absent
+    @Getter(AccessLevel.NONE)
+    private int contentTypeStart, contentTypeEnd;
+    @Getter(AccessLevel.NONE)
+    private int authorizationStart, authorizationEnd;
+    @Getter(AccessLevel.NONE)
+    private int connectionStart, connectionEnd;
+
+    public HttpRequestParser(int maxHeaderBytes, int maxBodyBytes) {
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Parses the request starting at the given offset.
+     *
+     * @param buffer The bytes received from the client.
+     * @param offset The index of the first byte of the request.
+     * @param length The number of bytes available from the offset on.
+     * @return The parsed request, or null if the buffer does not yet hold the complete request.
+     * @throws HttpParseException If the request is malformed or exceeds the header or body limit.
+     */
+    public Request parse(byte[] buffer, int offset, int length) throws HttpParseException {
+        int limit = offset + length;
+        int headerEnd = findHeaderEnd(buffer, offset, limit);
+        if (headerEnd == -1) {
+            if (length > maxHeaderBytes) {
+                throw new HttpParseException(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Request header too large");
+            }
+            return null;
+        }
+        if (headerEnd - offset > maxHeaderBytes) {
+            throw new HttpParseException(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, "Request header too large");
+        }
+
+        // request line: METHOD SP target SP version CRLF
+        int lineEnd = indexOf(buffer, offset, headerEnd, CR);
+        int methodEnd = indexOf(buffer, offset, lineEnd, (byte) ' ');
+        if (methodEnd == -1) {
+            throw new HttpParseException(HttpStatus.BAD_REQUEST, "Malformed request line");
+        }
+        int targetStart = methodEnd + 1;
+        int targetEnd = indexOf(buffer, targetStart, lineEnd, (byte) ' ');
+        if (targetEnd == -1) {
+            targetEnd = lineEnd;
+        }
+        Method method = parseMethod(buffer, offset, methodEnd);
+        if (method == null || targetStart >= targetEnd) {
+            throw new HttpParseException(HttpStatus.BAD_REQUEST, "Malformed request line");
+        }
+
+        int contentLength = scanHeaders(buffer, lineEnd + 2, headerEnd - 2);
+        if (contentLength > maxBodyBytes) {
+            throw new HttpParseException(HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+        }
+        int bodyStart = headerEnd;
+        if (limit - bodyStart < Math.max(contentLength, 0)) {
+            // the body has not fully arrived yet
+            return null;
+        }
+
+        Request request = new Request();
+        request.setMethod(method);
+        int queryStart = indexOf(buffer, targetStart, targetEnd, (byte) '?');
+        if (queryStart == -1) {
+            request.setPathname(text(buffer, targetStart, targetEnd));
+            request.setParams("");
+        } else {
+            request.setPathname(text(buffer, targetStart, queryStart));
+            request.setParams(text(buffer, queryStart + 1, targetEnd));
+        }
+        request.setHttpVersion(targetEnd < lineEnd ? text(buffer, targetEnd + 1, lineEnd) : "HTTP/1.0");
+
+        if (contentTypeStart != -1) {
+            request.setContentType(text(buffer, contentTypeStart, contentTypeEnd));
+        }
+        if (connectionStart != -1) {
+            request.setConnection(text(buffer, connectionStart, connectionEnd));
+        }
+        if (authorizationStart != -1) {
+            request.setAuthorization(text(buffer, authorizationStart, authorizationEnd));
+        }
+        if (contentLength >= 0) {
+            request.setContentLength(contentLength);
+            if (contentLength > 0) {
+                request.setBody(new String(buffer, bodyStart, contentLength, StandardCharsets.UTF_8));
+            }
+        }
+
+        setConsumedBytes(bodyStart - offset + Math.max(contentLength, 0));
+        return request;
+    }
+
+    /**
+     * Records where the interesting header values are and returns the Content-Length.
+     *
+     * @return The Content-Length, or -1 if the header is absent.
+     */
+    private int scanHeaders(byte[] buffer, int start, int end) throws HttpParseException {
+        contentTypeStart = contentTypeEnd = -1;
+        authorizationStart = authorizationEnd = -1;
+        connectionStart = connectionEnd = -1;
+        int contentLength = -1;
+
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = indexOf(buffer, lineStart, end, CR);
+            if (lineEnd == -1) {
+                lineEnd = end;
+            }
+            int colon = indexOf(buffer, lineStart, lineEnd, (byte) ':');
+            if (colon == -1) {
+                throw new HttpParseException(HttpStatus.BAD_REQUEST, "Malformed header line");
+            }
+            int valueStart = skipSpaces(buffer, colon + 1, lineEnd);
+            int valueEnd = trimEnd(buffer, valueStart, lineEnd);
+
+            if (nameEquals(buffer, lineStart, colon, CONTENT_LENGTH)) {
+                contentLength = parseContentLength(buffer, valueStart, valueEnd);
+            } else if (nameEquals(buffer, lineStart, colon, CONTENT_TYPE)) {
+                contentTypeStart = valueStart;
+                contentTypeEnd = valueEnd;
+            } else if (nameEquals(buffer, lineStart, colon, AUTHORIZATION)) {
+                // only bearer tokens are used, the scheme is stripped like before
+                if (valueEnd - valueStart >= BEARER.length && nameEquals(buffer, valueStart, valueStart + BEARER.length, BEARER)) {
+                    authorizationStart = valueStart + BEARER.length;
+                    authorizationEnd = valueEnd;
+                }
+            } else if (nameEquals(buffer, lineStart, colon, CONNECTION)) {
+                connectionStart = valueStart;
+                connectionEnd = valueEnd;
+            }
+            lineStart = lineEnd + 2;
+        }
+        return contentLength;
+    }
+
+    // Returns the index right after the empty line that ends the headers, or -1
+    private static int findHeaderEnd(byte[] buffer, int offset, int limit) {
+        for (int i = offset + 3; i < limit; i++) {
+            if (buffer[i] == LF && buffer[i - 1] == CR && buffer[i - 2] == LF && buffer[i - 3] == CR) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static Method parseMethod(byte[] buffer, int start, int end) {
+        for (int i = 0; i < METHOD_NAMES.length; i++) {
+            if (nameEquals(buffer, start, end, METHOD_NAMES[i])) {
+                return METHODS[i];
+            }
+        }
+        return null;
+    }
+
+    private static int parseContentLength(byte[] buffer, int start, int end) throws HttpParseException {
+        if (start == end || end - start > 10) {
+            throw new HttpParseException(HttpStatus.BAD_REQUEST, "Invalid Content-Length");
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new HttpParseException(HttpStatus.BAD_REQUEST, "Invalid Content-Length");
+            }
+            value = value * 10 + digit;
+        }
+        return value > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+
+    // Compares an ASCII range case-insensitively against a lower-case name
+    private static boolean nameEquals(byte[] buffer, int start, int end, byte[] lowerCaseName) {
+        if (end - start != lowerCaseName.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCaseName.length; i++) {
+            byte b = buffer[start + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCaseName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] buffer, int start, int end, byte value) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(byte[] buffer, int start, int end) {
+        while (start < end && (buffer[start] == ' ' || buffer[start] == '\t')) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(byte[] buffer, int start, int end) {
+        while (end > start && (buffer[end - 1] == ' ' || buffer[end - 1] == '\t')) {
+            end--;
+        }
+        return end;
+    }
+
+    private static String text(byte[] buffer, int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.toLowerCase().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.server;
+
+import org.example.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads requests from a blocking stream into one reused byte buffer and parses them with HttpRequestParser.
+ * Bytes of pipelined requests that arrive together stay in the buffer for the next call.
+ */
+public class HttpRequestReader {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final InputStream inputStream;
+    private final HttpRequestParser parser;
+    private final int maxBufferSize;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    // buffered bytes that were not consumed yet are buffer[start, end)
+    private int start;
+    private int end;
+
+    public HttpRequestReader(InputStream inputStream, int maxHeaderBytes, int maxBodyBytes) {
+        this.inputStream = inputStream;
+        this.parser = new HttpRequestParser(maxHeaderBytes, maxBodyBytes);
+        // room for the largest request the parser accepts, including the empty line after the headers
+        this.maxBufferSize = maxHeaderBytes + maxBodyBytes + 4;
+    }
+
+    /**
+     * Blocks until the next complete request is available.
+     *
+     * @return The next request, or null if the client closed the connection.
+     * @throws IOException        If reading fails, e.g. because the idle timeout elapsed.
+     * @throws HttpParseException If the request is malformed or too large.
+     */
+    public Request read() throws IOException, HttpParseException {
+        while (true) {
+            if (end > start) {
+                Request request = parser.parse(buffer, start, end - start);
+                if (request != null) {
+                    start += parser.getConsumedBytes();
+                    if (start == end) {
+                        start = 0;
+                        end = 0;
+                    }
+                    return request;
+                }
+            }
+
+            makeRoom();
+            int bytesRead = inputStream.read(buffer, end, buffer.length - end);
+            if (bytesRead == -1) {
+                return null;
+            }
+            end += bytesRead;
+        }
+    }
+
+    // Moves unconsumed bytes to the front of the buffer, growing it if a single request does not fit
+    private void makeRoom() throws HttpParseException {
+        if (end < buffer.length) {
+            return;
+        }
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+            return;
+        }
+        if (buffer.length >= maxBufferSize) {
+            throw new HttpParseException(HttpStatus.PAYLOAD_TOO_LARGE, "Request too large");
+        }
+        byte[] grown = new byte[Math.min(buffer.length * 2, maxBufferSize)];
+        System.arraycopy(buffer, 0, grown, 0, end);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,491 @@
+package org.example.server;
+
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking front end for a ServerApp.
+ * A few selector threads accept connections, read and frame requests and write responses;
+ * the request handlers run on the executor configured in ServerConfig.
+ * Idle keep-alive connections only cost a selection key and a read buffer.
+ */
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class NioServer implements ServerEngine {
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final long SELECT_TIMEOUT_MILLIS = 1000;
+
+    private ServerApp app;
+    private int port;
+    private ServerConfig config;
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] eventLoops;
+    private ExecutorService workers;
+    // permits for requests that are currently being handled by the workers
+    private Semaphore inFlight;
+    private volatile boolean running;
+    private volatile int localPort = -1;
+    // round-robin index for distributing accepted connections, only used by the accepting loop
+    private int nextEventLoop;
+
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    public NioServer(ServerApp app, int port) {
+        this(app, port, ServerConfig.fromSystemProperties());
+    }
+
+    public NioServer(ServerApp app, int port, ServerConfig config) {
+        setApp(app);
+        setPort(port);
+        setConfig(config);
+        setInFlight(new Semaphore(config.getMaxInFlight()));
+    }
+
+    @Override
+    public void start() throws IOException {
+        setWorkers(getConfig().createExecutor());
+        setServerChannel(ServerSocketChannel.open());
+        getServerChannel().bind(new InetSocketAddress(getPort()));
+        setLocalPort(getServerChannel().socket().getLocalPort());
+        getServerChannel().configureBlocking(false);
+
+        EventLoop[] loops = new EventLoop[Math.max(1, getConfig().getEventLoopThreads())];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop();
+        }
+        setEventLoops(loops);
+        // the first loop also accepts new connections
+        getServerChannel().register(loops[0].selector, SelectionKey.OP_ACCEPT);
+
+        setRunning(true);
+        for (int i = 1; i < loops.length; i++) {
+            Thread thread = new Thread(loops[i], "mtcg-nio-loop-" + i);
+            thread.start();
+        }
+        // like Server.start(), block the calling thread while serving
+        Thread.currentThread().setName("mtcg-nio-loop-0");
+        loops[0].run();
+    }
+
+    @Override
+    public void stop() {
+        setRunning(false);
+        if (getEventLoops() != null) {
+            for (EventLoop loop : getEventLoops()) {
+                loop.selector.wakeup();
+            }
+        }
+        try {
+            if (getServerChannel() != null && getServerChannel().isOpen()) {
+                getServerChannel().close();
+            }
+        } catch (IOException e) {
+            handleException(e);
+        }
+
+        if (getWorkers() != null) {
+            getWorkers().shutdown();
+            try {
+                if (!getWorkers().awaitTermination(10, TimeUnit.SECONDS)) {
+                    getWorkers().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                getWorkers().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    // Number of connections accepted since start
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    // Number of requests answered with 503 because the workers were saturated
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    // Number of connections currently open
+    @Override
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = getServerChannel().accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            acceptedConnections.incrementAndGet();
+            activeConnections.incrementAndGet();
+
+            EventLoop loop = getEventLoops()[nextEventLoop];
+            nextEventLoop = (nextEventLoop + 1) % getEventLoops().length;
+            SocketChannel accepted = channel;
+            loop.execute(() -> loop.register(accepted));
+        }
+    }
+
+    private void handleException(Throwable e) {
+        e.printStackTrace();
+    }
+
+    // Selector thread owning a set of connections; all connection state is only touched on this thread
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private long lastIdleCheck = System.currentTimeMillis();
+
+        private EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        // Run a task on this loop's thread, used by the workers to hand back responses
+        private void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        private void register(SocketChannel channel) {
+            try {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(this, channel, key));
+            } catch (IOException e) {
+                handleException(e);
+                closeQuietly(channel);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (isRunning()) {
+                    selector.select(SELECT_TIMEOUT_MILLIS);
+                    runTasks();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    }
+
+                    closeIdleConnections();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (isRunning()) {
+                    handleException(e);
+                }
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void closeIdleConnections() {
+            long now = System.currentTimeMillis();
+            if (now - lastIdleCheck < SELECT_TIMEOUT_MILLIS) {
+                return;
+            }
+            lastIdleCheck = now;
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection && connection.isIdleSince(now - getConfig().getIdleTimeoutMillis())) {
+                    connection.close();
+                }
+            }
+        }
+
+        private void closeAll() {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection connection) {
+                        connection.close();
+                    }
+                }
+                selector.close();
+            } catch (IOException | ClosedSelectorException e) {
+                handleException(e);
+            }
+        }
+    }
+
+    // State of one client connection: buffered input, pending output and the request being handled
+    private final class Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer input = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final HttpRequestParser parser = new HttpRequestParser(getConfig().getMaxHeaderBytes(), getConfig().getMaxBodyBytes());
+        private final Deque<ByteBuffer> output = new ArrayDeque<>();
+        // true while a request of this connection is on a worker; pipelined requests wait in the input buffer
+        private boolean handling;
+        private boolean closeAfterWrite;
+        private boolean closed;
+        private int servedRequests;
+        private long lastActivity = System.currentTimeMillis();
+
+        private Connection(EventLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        private void read() {
+            int bytesRead;
+            try {
+                if (!input.hasRemaining() && !growInput(input.capacity() * 2)) {
+                    // buffer is at its limit while a request is handled, stop reading until it is answered
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    return;
+                }
+                bytesRead = channel.read(input);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            if (bytesRead == -1) {
+                // the client half-closed the connection, finish what was already received
+                closeAfterWrite = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                if (!handling && output.isEmpty() && !processInput()) {
+                    close();
+                }
+                return;
+            }
+
+            lastActivity = System.currentTimeMillis();
+            processInput();
+        }
+
+        /**
+         * Parses the next complete request in the input buffer and hands it to a worker.
+         *
+         * @return True if a request was dispatched or a response was queued.
+         */
+        private boolean processInput() {
+            if (handling || closed) {
+                return false;
+            }
+
+            Request request;
+            try {
+                request = parser.parse(input.array(), 0, input.position());
+            } catch (HttpParseException e) {
+                reject(e.getStatus(), e.getMessage());
+                return true;
+            }
+            if (request == null) {
+                // wait for the rest of the request, read() grows the buffer when it is full
+                return false;
+            }
+
+            // drop the parsed request, pipelined requests move to the front of the buffer
+            input.flip();
+            input.position(parser.getConsumedBytes());
+            input.compact();
+
+            dispatch(request);
+            return true;
+        }
+
+        private void dispatch(Request request) {
+            servedRequests++;
+            boolean keepAlive = request.isKeepAlive() && servedRequests < getConfig().getMaxRequestsPerConnection();
+            if (!keepAlive) {
+                closeAfterWrite = true;
+            }
+
+            if (!getInFlight().tryAcquire()) {
+                rejectedRequests.incrementAndGet();
+                closeAfterWrite = true;
+                send(serviceUnavailableResponse(), false);
+                return;
+            }
+
+            handling = true;
+            try {
+                getWorkers().execute(() -> {
+                    CompletableFuture<Response> response;
+                    try {
+                        response = getApp().handleRequestAsync(request);
+                    } catch (RuntimeException e) {
+                        response = CompletableFuture.failedFuture(e);
+                    } finally {
+                        // a request waiting on its future no longer occupies a worker
+                        getInFlight().release();
+                    }
+                    response.whenComplete((result, error) -> {
+                        if (error != null) {
+                            handleException(error);
+                        }
+                        Response finalResponse = error == null && result != null ? result : internalServerErrorResponse();
+                        loop.execute(() -> {
+                            handling = false;
+                            send(finalResponse, keepAlive);
+                        });
+                    });
+                });
+            } catch (RejectedExecutionException e) {
+                getInFlight().release();
+                handling = false;
+                rejectedRequests.incrementAndGet();
+                closeAfterWrite = true;
+                send(serviceUnavailableResponse(), false);
+            }
+        }
+
+        private void reject(HttpStatus status, String message) {
+            closeAfterWrite = true;
+            input.clear();
+            send(new Response(status, ContentType.TEXT, message), false);
+        }
+
+        private void send(Response response, boolean keepAlive) {
+            if (closed) {
+                return;
+            }
+            for (ByteBuffer buffer : response.toByteBuffers(keepAlive)) {
+                output.add(buffer);
+            }
+            write();
+        }
+
+        private void write() {
+            try {
+                if (!output.isEmpty()) {
+                    // one gathering write for the headers and bodies of all pending responses
+                    channel.write(output.toArray(new ByteBuffer[0]));
+                    while (!output.isEmpty() && !output.peek().hasRemaining()) {
+                        output.poll();
+                    }
+                    if (!output.isEmpty()) {
+                        // socket buffer is full, continue when the channel becomes writable
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            lastActivity = System.currentTimeMillis();
+            if (closeAfterWrite && !handling) {
+                close();
+                return;
+            }
+            int interestOps = key.interestOps() & ~SelectionKey.OP_WRITE;
+            if (!closeAfterWrite) {
+                interestOps |= SelectionKey.OP_READ;
+            }
+            key.interestOps(interestOps);
+            // answer the next pipelined request, if it is already buffered
+            processInput();
+        }
+
+        private boolean isIdleSince(long deadline) {
+            return !handling && output.isEmpty() && lastActivity < deadline;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            key.cancel();
+            closeQuietly(channel);
+            activeConnections.decrementAndGet();
+        }
+
+        private boolean growInput(int minimumCapacity) {
+            int limit = getConfig().getMaxHeaderBytes() + getConfig().getMaxBodyBytes();
+            if (input.capacity() >= limit) {
+                return false;
+            }
+            int capacity = Math.min(Math.max(minimumCapacity, input.capacity() * 2), limit);
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            input.flip();
+            grown.put(input);
+            input = grown;
+            return true;
+        }
+    }
+
+    private static Response internalServerErrorResponse() {
+        return new Response(
+                HttpStatus.INTERNAL_SERVER_ERROR,
+                ContentType.JSON,
+                "{ \"error\": \"Internal Server Error\", \"data\": null }"
+        );
+    }
+
+    private static Response serviceUnavailableResponse() {
+        return new Response(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ContentType.JSON,
+                "{ \"error\": \"Service Unavailable\", \"data\": null }"
+        );
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to do for a connection that is already broken
+        }
+    }
+}
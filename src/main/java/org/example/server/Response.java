@@ -7,28 +7,85 @@ import org.example.http.ContentType;
 import org.example.http.HttpStatus;
 import lombok.Getter;
 import lombok.Setter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 @Getter
 @Setter
 public class Response {
-    // Accessor method for status code
-    private int statusCode;
-    private String statusMessage;
-    private String contentType;
+    private static final byte[] CONTENT_LENGTH_END = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    // status line, Content-Type and Connection header up to the Content-Length value,
+    // precomputed for every [HttpStatus][ContentType][keep-alive] combination
+    private static final byte[][][][] HEADERS = new byte[HttpStatus.values().length][ContentType.values().length][2][];
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            for (ContentType type : ContentType.values()) {
+                for (int keepAlive = 0; keepAlive < 2; keepAlive++) {
+                    HEADERS[status.ordinal()][type.ordinal()][keepAlive] = (
+                            "HTTP/1.1 " + status.getCode() + " " + status.getMessage() + "\r\n" +
+                            "Content-Type: " + type.getType() + "\r\n" +
+                            "Connection: " + (keepAlive == 1 ? "keep-alive" : "close") + "\r\n" +
+                            "Content-Length: "
+                    ).getBytes(StandardCharsets.US_ASCII);
+                }
+            }
+        }
+    }
+
+    private HttpStatus httpStatus;
+    private ContentType type;
     private String content;
 
     public Response(HttpStatus httpStatus, ContentType contentType, String content) {
-        setStatusCode(httpStatus.getCode());
-        setContentType(contentType.getType());
-        setStatusMessage(httpStatus.getMessage());
+        setHttpStatus(httpStatus);
+        setType(contentType);
         setContent(content);
     }
 
-    protected String build() {
-        return "HTTP/1.1 " + getStatusCode() + " " + getStatusMessage() + "\r\n" +
-                "Content-Type: " + getContentType() + "\r\n" +
-                "Content-Length: " + getContent().length() + "\r\n" +
-                "\r\n" +
-                getContent();
+    // Accessor method for status code
+    public int getStatusCode() {
+        return getHttpStatus().getCode();
+    }
+
+    public String getStatusMessage() {
+        return getHttpStatus().getMessage();
+    }
+
+    public String getContentType() {
+        return getType().getType();
+    }
+
+    /**
+     * Serializes the response for a gathering write: the shared header bytes, the Content-Length value
+     * and the UTF-8 body are separate buffers, so the body is encoded once and never copied again.
+     *
+     * @param keepAlive Whether the connection stays open after this response.
+     * @return The buffers to write in order.
+     */
+    protected ByteBuffer[] toByteBuffers(boolean keepAlive) {
+        byte[] body = encodeBody();
+        return new ByteBuffer[]{
+                ByteBuffer.wrap(header(keepAlive)),
+                ByteBuffer.wrap(contentLength(body.length)),
+                ByteBuffer.wrap(body)
+        };
+    }
+
+    /**
+     * Writes the response to a stream; callers pass a buffered stream and flush it afterwards.
+     *
+     * @param outputStream The stream of the client connection.
+     * @param keepAlive    Whether the connection stays open after this response.
+     */
+    protected void writeTo(OutputStream outputStream, boolean keepAlive) throws IOException {
+        byte[] body = encodeBody();
+        outputStream.write(header(keepAlive));
+        outputStream.write(contentLength(body.length));
+        outputStream.write(body);
     }
 
     // Method to parse JSON response and return JsonNode
@@ -36,4 +93,27 @@ public class Response {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.readTree(getContent());
     }
-}
\ No newline at end of file
+
+    private byte[] header(boolean keepAlive) {
+        return HEADERS[getHttpStatus().ordinal()][getType().ordinal()][keepAlive ? 1 : 0];
+    }
+
+    private byte[] encodeBody() {
+        return getContent() == null ? new byte[0] : getContent().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Content-Length digits followed by the empty line that ends the headers
+    private static byte[] contentLength(int length) {
+        int digits = 1;
+        for (int rest = length / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        byte[] bytes = new byte[digits + CONTENT_LENGTH_END.length];
+        for (int i = digits - 1; i >= 0; i--) {
+            bytes[i] = (byte) ('0' + length % 10);
+            length /= 10;
+        }
+        System.arraycopy(CONTENT_LENGTH_END, 0, bytes, digits, CONTENT_LENGTH_END.length);
+        return bytes;
+    }
+}
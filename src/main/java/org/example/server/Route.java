@@ -0,0 +1,46 @@
+package org.example.server;
+
+import org.example.http.Method;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * A path template bound to a handler, e.g. GET /users/{username}.
+ * Besides the handler it carries the access rules of the route, so they are declared in one place.
+ *
+ * @param <H> The handler type of the application.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class Route<H> {
+    private Method method;
+    private String template;
+    private H handler;
+    // a bearer token is required
+    private boolean authRequired;
+    // the token has to belong to the admin user
+    private boolean adminOnly;
+    // names of the {placeholders} in the order they appear in the template
+    private List<String> paramNames;
+    // positions of the placeholders among the path segments, e.g. {1} for /users/{username}
+    @Getter(AccessLevel.PACKAGE)
+    private int[] paramSegments;
+    // shared result for routes without placeholders
+    @Getter(AccessLevel.PACKAGE)
+    private RouteMatch<H> match;
+
+    Route(Method method, String template, H handler, boolean authRequired, boolean adminOnly, List<String> paramNames, int[] paramSegments) {
+        setMethod(method);
+        setTemplate(template);
+        setHandler(handler);
+        // admin-only routes need a token as well
+        setAuthRequired(authRequired || adminOnly);
+        setAdminOnly(adminOnly);
+        setParamNames(paramNames);
+        setParamSegments(paramSegments);
+        setMatch(new RouteMatch<>(this, new String[0]));
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.server;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Result of a successful Router lookup: the route and the values of its path parameters.
+ *
+ * @param <H> The handler type of the application.
+ */
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class RouteMatch<H> {
+    private Route<H> route;
+    // values in the order of route.getParamNames()
+    @Getter(AccessLevel.NONE)
+    private String[] paramValues;
+
+    RouteMatch(Route<H> route, String[] paramValues) {
+        setRoute(route);
+        setParamValues(paramValues);
+    }
+
+    /**
+     * Returns the value of a path parameter, e.g. "kienboec" for {username} in /users/kienboec.
+     *
+     * @param name The placeholder name without braces.
+     * @return The value, or null if the template has no such placeholder.
+     */
+    public String getPathParam(String name) {
+        int index = route.getParamNames().indexOf(name);
+        return index == -1 ? null : paramValues[index];
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.server;
+
+import org.example.http.Method;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Route table organized as a trie of path segments.
+ * A lookup walks the path once, segment by segment, comparing each segment in place
+ * against the literal children of the current node that have the same length;
+ * nothing is allocated unless the route has {placeholders}, whose values are copied
+ * out of the path. Literal segments take precedence over placeholders,
+ * so /users and /users/{username} can coexist.
+ * Routes are added once at startup; lookups are thread-safe afterwards.
+ *
+ * @param <H> The handler type of the application.
+ */
+public class Router<H> {
+    private final Node<H> root = new Node<>();
+    private final List<Route<H>> routes = new ArrayList<>();
+
+    /**
+     * Binds a path template to a handler.
+     *
+     * @param method       The HTTP method of the route.
+     * @param template     The path template, e.g. "/tradings/{id}".
+     * @param handler      The handler to call for matching requests.
+     * @param authRequired Whether a bearer token is required.
+     * @param adminOnly    Whether the token has to belong to the admin user.
+     * @return This router, to chain further routes.
+     */
+    public Router<H> add(Method method, String template, H handler, boolean authRequired, boolean adminOnly) {
+        if (!template.startsWith("/") || template.endsWith("/") || template.contains("//")) {
+            throw new IllegalArgumentException("Path template must start with '/' and have no empty segments: " + template);
+        }
+
+        Node<H> node = root;
+        List<String> paramNames = new ArrayList<>();
+        List<Integer> paramSegments = new ArrayList<>();
+        String[] segments = template.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                paramNames.add(segment.substring(1, segment.length() - 1));
+                paramSegments.add(i);
+                if (node.paramChild == null) {
+                    node.paramChild = new Node<>();
+                }
+                node = node.paramChild;
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+
+        if (node.routes[method.ordinal()] != null) {
+            throw new IllegalArgumentException("Duplicate route: " + method + " " + template);
+        }
+        Route<H> route = new Route<>(method, template, handler, authRequired, adminOnly,
+                Collections.unmodifiableList(paramNames), paramSegments.stream().mapToInt(Integer::intValue).toArray());
+        node.routes[method.ordinal()] = route;
+        routes.add(route);
+        return this;
+    }
+
+    /**
+     * Looks up the route for a request path.
+     *
+     * @param method   The HTTP method of the request.
+     * @param pathname The request path without query string.
+     * @return The matching route with its path parameters, or null if no route matches.
+     */
+    public RouteMatch<H> match(Method method, String pathname) {
+        if (method == null || pathname == null || !pathname.startsWith("/")) {
+            return null;
+        }
+        Route<H> route = find(root, method, pathname, 0);
+        if (route == null) {
+            return null;
+        }
+        // matches of routes without placeholders are all the same, so they are shared
+        return route.getParamSegments().length == 0 ? route.getMatch() : new RouteMatch<>(route, paramValues(route, pathname));
+    }
+
+    // All routes in the order they were added
+    public List<Route<H>> getRoutes() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    // Walks the path segment by segment starting at the '/' at position slash;
+    // recursion is only needed where a node has both literal and placeholder children,
+    // to fall back to the placeholder if the literal branch does not lead to a route
+    private Route<H> find(Node<H> node, Method method, String pathname, int slash) {
+        int pathLength = pathname.length();
+        while (slash != pathLength) {
+            int start = slash + 1;
+            int end = pathname.indexOf('/', start);
+            if (end == -1) {
+                end = pathLength;
+            }
+            int length = end - start;
+
+            Node<H> literalChild = node.findLiteralChild(pathname, start, length);
+            // placeholders never match empty segments, e.g. "/users/"
+            Node<H> paramChild = length > 0 ? node.paramChild : null;
+            if (literalChild != null && paramChild != null) {
+                Route<H> route = find(literalChild, method, pathname, end);
+                if (route != null) {
+                    return route;
+                }
+                node = paramChild;
+            } else if (literalChild != null) {
+                node = literalChild;
+            } else if (paramChild != null) {
+                node = paramChild;
+            } else {
+                return null;
+            }
+            slash = end;
+        }
+        return node.routes[method.ordinal()];
+    }
+
+    // Copies the placeholder values out of the path, only done once the route is known
+    private static String[] paramValues(Route<?> route, String pathname) {
+        int[] paramSegments = route.getParamSegments();
+        String[] values = new String[paramSegments.length];
+        int segment = 0;
+        int start = 1;
+        for (int i = 0; i < paramSegments.length; i++) {
+            while (segment < paramSegments[i]) {
+                start = pathname.indexOf('/', start) + 1;
+                segment++;
+            }
+            int end = pathname.indexOf('/', start);
+            values[i] = pathname.substring(start, end == -1 ? pathname.length() : end);
+        }
+        return values;
+    }
+
+    private static final class Node<H> {
+        private static final String[] NO_LITERALS = new String[0];
+
+        // literal child segments and their nodes, bucketed by segment length so that a lookup
+        // only compares the one or two literals of the same length
+        private String[][] literalsByLength = new String[0][];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Node<H>[][] childrenByLength = new Node[0][];
+        private Node<H> paramChild;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final Route<H>[] routes = new Route[Method.values().length];
+
+        private Node<H> findLiteralChild(String pathname, int start, int length) {
+            if (length == 0 || length >= literalsByLength.length) {
+                return null;
+            }
+            String[] literals = literalsByLength[length];
+            for (int i = 0; i < literals.length; i++) {
+                if (pathname.regionMatches(start, literals[i], 0, length)) {
+                    return childrenByLength[length][i];
+                }
+            }
+            return null;
+        }
+
+        private Node<H> literalChild(String segment) {
+            int length = segment.length();
+            if (length >= literalsByLength.length) {
+                int oldLength = literalsByLength.length;
+                literalsByLength = Arrays.copyOf(literalsByLength, length + 1);
+                childrenByLength = Arrays.copyOf(childrenByLength, length + 1);
+                for (int i = oldLength; i <= length; i++) {
+                    literalsByLength[i] = NO_LITERALS;
+                    childrenByLength[i] = newNodeArray(0);
+                }
+            }
+            String[] literals = literalsByLength[length];
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) {
+                    return childrenByLength[length][i];
+                }
+            }
+            Node<H> child = new Node<>();
+            literalsByLength[length] = Arrays.copyOf(literals, literals.length + 1);
+            literalsByLength[length][literals.length] = segment;
+            childrenByLength[length] = Arrays.copyOf(childrenByLength[length], literals.length + 1);
+            childrenByLength[length][literals.length] = child;
+            return child;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <H> Node<H>[] newNodeArray(int size) {
+            return new Node[size];
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package org.example.server;
 
-import org.example.app.App;
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.io.*;
 import java.net.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
-public class Server {
+public class Server implements ServerEngine {
     private static final int DEFAULT_BUFFER_SIZE = 1024;
+    // rejected connections waiting for their 503, further ones are closed without an answer
+    private static final int MAX_PENDING_REJECTIONS = 256;
 
     //private Socket clientSocket;
     //private PrintWriter outputStream;
@@ -19,31 +30,120 @@ public class Server {
     //private Request request;
     //private Response response;
     private ServerSocket serverSocket;
-    private App app;
+    private ServerApp app;
     private int port;
+    private ServerConfig config;
+    private ExecutorService executor;
+    // permits for connections that are currently being served
+    private Semaphore inFlight;
+    // writes the 503 of rejected connections, so a client that does not read cannot stall the accept loop
+    private ExecutorService rejector;
+    private volatile int localPort = -1;
+
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    public Server(ServerApp app, int port) {
+        this(app, port, ServerConfig.fromSystemProperties());
+    }
 
-    public Server(App app, int port) {
+    public Server(ServerApp app, int port, ServerConfig config) {
         setApp(app);
         setPort(port);
+        setConfig(config);
+        setInFlight(new Semaphore(config.getMaxInFlight()));
     }
 
+    @Override
     public void start() throws IOException {
         setServerSocket(new ServerSocket(getPort()));
+        setLocalPort(getServerSocket().getLocalPort());
+        setExecutor(getConfig().createExecutor());
+        setRejector(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING_REJECTIONS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mtcg-reject");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
         run();
     }
 
     private void run() {
-        while (true) {
+        while (!getServerSocket().isClosed()) {
             try {
                 Socket clientSocket = getServerSocket().accept();
-                Task task = new Task(clientSocket, getApp());
-                new Thread(task).start();
+                dispatch(clientSocket);
+            } catch (SocketException e) {
+                // the server socket was closed by stop()
+                if (!getServerSocket().isClosed()) {
+                    handleException(e);
+                }
             } catch (IOException e) {
                 handleException(e);
             }
         }
     }
 
+    // Hand the connection to the executor, or reject it right away if the server is saturated
+    private void dispatch(Socket clientSocket) {
+        if (!getInFlight().tryAcquire()) {
+            reject(clientSocket);
+            return;
+        }
+
+        acceptedConnections.incrementAndGet();
+        activeConnections.incrementAndGet();
+        Task task = new Task(clientSocket, getApp(), getConfig());
+        try {
+            getExecutor().execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release();
+            reject(clientSocket);
+        }
+    }
+
+    private void release() {
+        activeConnections.decrementAndGet();
+        getInFlight().release();
+    }
+
+    // Answer with 503 without reading the request; the accepting thread only hands the connection over
+    private void reject(Socket clientSocket) {
+        rejectedConnections.incrementAndGet();
+        try {
+            getRejector().execute(() -> writeServiceUnavailable(clientSocket));
+        } catch (RejectedExecutionException e) {
+            // too many rejections pending, drop the connection
+            try {
+                clientSocket.close();
+            } catch (IOException closeException) {
+                handleException(closeException);
+            }
+        }
+    }
+
+    private void writeServiceUnavailable(Socket clientSocket) {
+        Response response = new Response(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ContentType.JSON,
+                "{ \"error\": \"Service Unavailable\", \"data\": null }"
+        );
+        try (clientSocket; OutputStream outputStream = new BufferedOutputStream(clientSocket.getOutputStream())) {
+            response.writeTo(outputStream, false);
+            outputStream.flush();
+        } catch (IOException e) {
+            handleException(e);
+        }
+    }
+
+    @Override
     public void stop() {
         try {
             if (getServerSocket() != null && !getServerSocket().isClosed()) {
@@ -52,6 +152,44 @@ public class Server {
         } catch (IOException e) {
             handleException(e);
         }
+
+        if (getRejector() != null) {
+            getRejector().shutdownNow();
+        }
+
+        if (getExecutor() != null) {
+            getExecutor().shutdown();
+            try {
+                if (!getExecutor().awaitTermination(10, TimeUnit.SECONDS)) {
+                    getExecutor().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                getExecutor().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    // Number of connections handed to the executor since start
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    // Number of connections answered with 503 because the server was saturated
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
+    // Number of connections currently being served
+    @Override
+    public int getActiveConnections() {
+        return activeConnections.get();
     }
 
     /*
@@ -1,5 +1,13 @@
 package org.example.server;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface ServerApp {
     Response handleRequest(Request request);
+
+    // Handlers that wait for something else (e.g. a battle opponent) complete the future later instead of
+    // blocking the calling thread; NioServer uses this, the blocking Server waits for the result
+    default CompletableFuture<Response> handleRequestAsync(Request request) {
+        return CompletableFuture.completedFuture(handleRequest(request));
+    }
 }
@@ -0,0 +1,89 @@
+package org.example.server;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Getter
+@Setter
+public class ServerConfig {
+
+    // Front end that accepts connections and reads requests
+    public enum Engine {
+        // blocking sockets, one Task per connection (Server)
+        BLOCKING,
+        // non-blocking selector event loops, handlers run on the executor (NioServer)
+        NIO
+    }
+
+    // How accepted connections are executed
+    public enum ExecutorMode {
+        // one virtual thread per connection
+        VIRTUAL,
+        // fixed pool of platform threads
+        PLATFORM
+    }
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+    private static final int DEFAULT_PLATFORM_POOL_SIZE = 200;
+    private static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 5_000;
+    private static final int DEFAULT_MAX_REQUESTS_PER_CONNECTION = 100;
+    private static final int DEFAULT_EVENT_LOOP_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int DEFAULT_MAX_HEADER_BYTES = 8 * 1024;
+    private static final int DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+
+    private Engine engine = Engine.BLOCKING;
+    private ExecutorMode executorMode = ExecutorMode.VIRTUAL;
+    // maximum number of connections that are served at the same time, further connections are rejected with 503
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    // number of worker threads, only used for ExecutorMode.PLATFORM
+    private int platformPoolSize = DEFAULT_PLATFORM_POOL_SIZE;
+    // time a keep-alive connection may stay idle between two requests
+    private int idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    // number of requests served on one connection before it is closed
+    private int maxRequestsPerConnection = DEFAULT_MAX_REQUESTS_PER_CONNECTION;
+    // number of selector threads accepting and reading connections, only used for Engine.NIO
+    private int eventLoopThreads = DEFAULT_EVENT_LOOP_THREADS;
+    // upper bound for the request line and headers of a single request
+    private int maxHeaderBytes = DEFAULT_MAX_HEADER_BYTES;
+    // upper bound for the body of a single request
+    private int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+
+    public ServerConfig() {
+    }
+
+    /**
+     * Builds a configuration from the "mtcg.server.*" system properties, falling back to the defaults.
+     *
+     * @return The server configuration.
+     */
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setEngine(Engine.valueOf(
+                System.getProperty("mtcg.server.engine", config.getEngine().name()).toUpperCase()));
+        config.setExecutorMode(ExecutorMode.valueOf(
+                System.getProperty("mtcg.server.executor", config.getExecutorMode().name()).toUpperCase()));
+        config.setMaxInFlight(Integer.getInteger("mtcg.server.maxInFlight", config.getMaxInFlight()));
+        config.setPlatformPoolSize(Integer.getInteger("mtcg.server.platformPoolSize", config.getPlatformPoolSize()));
+        config.setIdleTimeoutMillis(Integer.getInteger("mtcg.server.idleTimeoutMillis", config.getIdleTimeoutMillis()));
+        config.setMaxRequestsPerConnection(Integer.getInteger("mtcg.server.maxRequestsPerConnection", config.getMaxRequestsPerConnection()));
+        config.setEventLoopThreads(Integer.getInteger("mtcg.server.eventLoopThreads", config.getEventLoopThreads()));
+        config.setMaxHeaderBytes(Integer.getInteger("mtcg.server.maxHeaderBytes", config.getMaxHeaderBytes()));
+        config.setMaxBodyBytes(Integer.getInteger("mtcg.server.maxBodyBytes", config.getMaxBodyBytes()));
+        return config;
+    }
+
+    /**
+     * Creates the executor that runs connections (Server) or request handlers (NioServer).
+     *
+     * @return A virtual-thread-per-task executor or a fixed platform thread pool, depending on the executor mode.
+     */
+    public ExecutorService createExecutor() {
+        if (getExecutorMode() == ExecutorMode.PLATFORM) {
+            return Executors.newFixedThreadPool(getPlatformPoolSize());
+        }
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.server;
+
+import java.io.IOException;
+
+public interface ServerEngine {
+    // Binds the port and serves requests until stop() is called
+    void start() throws IOException;
+
+    void stop();
+
+    // Port the server listens on, the bound port if it was started with port 0; -1 until start() has bound it
+    int getLocalPort();
+
+    // Number of connections accepted since start
+    long getAcceptedConnections();
+
+    // Number of connections currently open
+    int getActiveConnections();
+}
@@ -2,55 +2,83 @@ package org.example.server;
 
 import lombok.Getter;
 import lombok.Setter;
-import org.example.app.App;
 import org.example.http.ContentType;
-import org.example.http.HttpStatus;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
 @Getter
 @Setter
 public class Task implements Runnable {
 
-    private PrintWriter outputStream;
-    private BufferedReader inputStream;
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    private OutputStream outputStream;
+    private InputStream inputStream;
     private Socket clientSocket;
-    private App app;
+    private ServerApp app;
+    private ServerConfig config;
+
+    public Task(Socket clientSocket, ServerApp app) {
+        this(clientSocket, app, new ServerConfig());
+    }
 
-    public Task(Socket clientSocket, App app) {
+    public Task(Socket clientSocket, ServerApp app, ServerConfig config) {
         setClientSocket(clientSocket);
         setApp(app);
+        setConfig(config);
     }
 
     @Override
     public void run() {
         try (
-                BufferedReader reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                PrintWriter writer = new PrintWriter(clientSocket.getOutputStream(), true)
+                InputStream input = clientSocket.getInputStream();
+                // headers and small bodies leave in one write, larger bodies are passed through without copying
+                OutputStream writer = new BufferedOutputStream(clientSocket.getOutputStream(), OUTPUT_BUFFER_SIZE)
         ) {
-            setInputStream(reader);
+            setInputStream(input);
             setOutputStream(writer);
+            HttpRequestReader reader = new HttpRequestReader(input, getConfig().getMaxHeaderBytes(), getConfig().getMaxBodyBytes());
 
-            Request request = new Request(reader);
-            Response response;
-
-            if (request.getPathname() == null) {
-                response = new Response(
-                        HttpStatus.BAD_REQUEST,
-                        ContentType.TEXT,
-                        ""
-                );
-            } else {
-                response = app.handleRequest(request);
-            }
+            // the timeout bounds how long an idle keep-alive connection waits for its next request
+            clientSocket.setSoTimeout(getConfig().getIdleTimeoutMillis());
+
+            // serve requests on the same connection until the client closes it, asks to close it,
+            // stays idle for too long or reaches the per-connection limit;
+            // pipelined requests are buffered by the reader and answered in order
+            int servedRequests = 0;
+            boolean keepAlive = true;
+            while (keepAlive) {
+                Request request;
+                try {
+                    request = reader.read();
+                } catch (HttpParseException e) {
+                    // malformed or oversized request, answer and drop the connection
+                    new Response(e.getStatus(), ContentType.TEXT, e.getMessage()).writeTo(writer, false);
+                    writer.flush();
+                    break;
+                }
+
+                // the client closed the connection
+                if (request == null) {
+                    break;
+                }
 
-            writer.write(response.build());
-            // flush the stream to ensure data is sent immediately
-            writer.flush();
+                servedRequests++;
+                keepAlive = request.isKeepAlive() && servedRequests < getConfig().getMaxRequestsPerConnection();
+
+                Response response = app.handleRequest(request);
+
+                response.writeTo(writer, keepAlive);
+                // flush the stream to ensure data is sent immediately
+                writer.flush();
+            }
+        } catch (SocketTimeoutException e) {
+            // the keep-alive connection stayed idle for too long
         } catch (IOException e) {
             handleException(e);
         } finally {
@@ -62,26 +90,18 @@ public class Task implements Runnable {
         try {
             if (outputStream != null) {
                 outputStream.close();
-                System.out.println("OutputStream closed");
             }
             if (inputStream != null) {
                 inputStream.close();
-                System.out.println("InputStream closed");
             }
             if (clientSocket != null && !clientSocket.isClosed()) {
                 clientSocket.close();
-                System.out.println("ClientSocket closed");
             }
         } catch (IOException e) {
             handleException(e);
         }
     }
 
-    private String getAuthenticatedUsernameFromToken(String userToken) {
-        // extract the username from the user token
-        return userToken != null ? userToken.replace("-mtcgToken", "") : null;
-    }
-
     private void handleException(Exception e) {
         // Log the exception or handle it based on your application's logging strategy
         e.printStackTrace();
@@ -0,0 +1,63 @@
+import org.example.CardName;
+import org.example.ElementType;
+import org.example.app.services.BalanceReport;
+import org.example.app.services.BalanceSimulator;
+import org.example.app.services.BattleRules;
+import org.example.app.services.DeckArchetype;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceSimulatorTest {
+
+    @Test
+    void simulate_SameSeedGivesSameReportWithAnyNumberOfThreads() {
+        // A - arrange, given
+        BalanceReport singleThreaded;
+        BalanceReport multiThreaded;
+
+        // A - act, when
+        try (BalanceSimulator balanceSimulator = new BalanceSimulator(1)) {
+            singleThreaded = balanceSimulator.simulate(DeckArchetype.standard(), 5000, 42);
+        }
+        try (BalanceSimulator balanceSimulator = new BalanceSimulator(4)) {
+            multiThreaded = balanceSimulator.simulate(DeckArchetype.standard(), 5000, 42);
+        }
+
+        // A - assert, then
+        assertEquals(5000, singleThreaded.getBattles());
+        assertEquals(singleThreaded.getRounds(), multiThreaded.getRounds());
+        assertEquals(singleThreaded.getDrawnRounds(), multiThreaded.getDrawnRounds());
+        assertEquals(singleThreaded.getCardWinRates(), multiThreaded.getCardWinRates());
+        assertEquals(singleThreaded.getArchetypeWinRates(), multiThreaded.getArchetypeWinRates());
+    }
+
+    @Test
+    void simulate_WinRatesFollowTheRules() {
+        // A - arrange, given
+        // without chaos rounds the specialty rules decide every round between these cards
+        BattleRules rules = new BattleRules(BattleRules.standard().getRules().subList(1, BattleRules.standard().getRules().size()));
+        List<DeckArchetype> archetypes = List.of(
+                new DeckArchetype("Dragons", List.of(CardName.Dragon)),
+                new DeckArchetype("Goblins", List.of(CardName.WaterGoblin, CardName.FireGoblin)));
+
+        // A - act, when
+        BalanceReport report;
+        try (BalanceSimulator balanceSimulator = new BalanceSimulator(rules, 2)) {
+            report = balanceSimulator.simulate(archetypes, 400, 7);
+        }
+
+        // A - assert, then
+        // Goblins are too afraid of Dragons to attack
+        assertEquals(1.0, report.cardWinRate(CardName.Dragon, CardName.WaterGoblin));
+        assertEquals(0.0, report.cardWinRate(CardName.FireGoblin, CardName.Dragon));
+        assertEquals(1.0, report.archetypeWinRate(0, 1));
+        assertEquals(0.0, report.archetypeWinRate(1, 0));
+        // the Dragon is the only normal card, it beats the WaterGoblin whatever the elements say
+        assertEquals(1.0, report.elementWinRate(ElementType.NORMAL, ElementType.WATER));
+        assertTrue(Double.isNaN(report.cardWinRate(CardName.Knight, CardName.Kraken)));
+        assertFalse(report.getCardWinRates().get("Knight").containsKey("Kraken"));
+    }
+}
@@ -0,0 +1,267 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.daos.BattleHistoryWriter;
+import org.example.app.daos.UserDAO;
+import org.example.app.dtos.BattleHistoryDTO;
+import org.example.app.dtos.RoundLogDTO;
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.ConnectionPoolConfig;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class BattleHistoryWriterTest {
+
+    private static Connection testConnection; // in-memory database connection
+    private static ConnectionPool dataSource; // pool on the same database, used by the writer
+    private static String resetSql;
+
+    @TempDir
+    Path tempDir;
+    private Path spoolFile;
+
+    @BeforeAll
+    static void beforeAll() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        testConnection = h2.getConnection();
+        dataSource = new ConnectionPool(h2, new ConnectionPoolConfig());
+
+        resetSql = loadScriptAsString("src/test/java/Reset.sql");
+        executeScript(loadScriptAsString("src/test/java/Schema.sql"));
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        executeScript(resetSql);
+        UserDAO userDAO = new UserDAO(dataSource);
+        userDAO.createUser("kienboec", "password");
+        userDAO.createUser("altenhof", "password");
+        spoolFile = tempDir.resolve("battle-history.spool");
+    }
+
+    @AfterAll
+    static void afterAll() throws SQLException {
+        dataSource.close();
+        testConnection.close();
+    }
+
+    private static void executeScript(String scriptContent) {
+        try (Statement statement = testConnection.createStatement()) {
+            statement.execute(scriptContent);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error executing script", e);
+        }
+    }
+
+    private static String loadScriptAsString(String absolutePath) {
+        try (InputStream inputStream = Files.newInputStream(Paths.get(absolutePath))) {
+            return new BufferedReader(new InputStreamReader(inputStream))
+                    .lines().collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading script file: " + absolutePath, e);
+        }
+    }
+
+    private static int queryInt(String query) throws SQLException {
+        try (Statement statement = testConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    // A battle of draws only, so no cards are needed
+    private static BattleHistoryDTO drawnBattle(int rounds) {
+        List<RoundLogDTO> roundLogs = new ArrayList<>();
+        for (int i = 1; i <= rounds; i++) {
+            roundLogs.add(new RoundLogDTO(UUID.randomUUID(), i, null, null, true, null, null, null, null));
+        }
+        return new BattleHistoryDTO(UUID.randomUUID(), "kienboec", "altenhof", 42L, List.of(), List.of(), roundLogs);
+    }
+
+    // What GameDAO.saveBattle does: the "Battle" row commits with the result, the rounds are spooled and published
+    private static void publishCommitted(BattleHistoryWriter writer, BattleHistoryDTO history) {
+        insertBattleRow(history);
+        writer.spool(history);
+        writer.publish(history);
+    }
+
+    // Spool segments in the temp directory, without the dead-letter file
+    private List<String> spoolSegments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> !name.endsWith(".failed"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void insertBattleRow(BattleHistoryDTO history) {
+        executeScript("INSERT INTO \"Battle\" (\"id\", \"user1_username\", \"user2_username\") VALUES ('" + history.getBattleId() + "', 'kienboec', 'altenhof')");
+    }
+
+    @Test
+    void close_FlushesPublishedBattlesAndEmptiesSpool() throws SQLException, IOException {
+        // A - arrange, given
+        BattleHistoryWriter writer = new BattleHistoryWriter(dataSource, spoolFile, 4);
+
+        // A - act, when
+        for (int i = 0; i < 20; i++) {
+            publishCommitted(writer, drawnBattle(3));
+        }
+        writer.close();
+
+        // A - assert, then
+        assertEquals(20, queryInt("SELECT COUNT(*) FROM \"Battle\""));
+        assertEquals(60, queryInt("SELECT COUNT(*) FROM \"RoundLog\""));
+        assertEquals(20, writer.getWrittenBattles());
+        assertEquals(0, writer.getPending());
+        assertEquals(List.of(), spoolSegments());
+    }
+
+    // The pool, except that getConnection() fails while the database is down
+    private static DataSource failingWhile(AtomicBoolean databaseDown) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection") && databaseDown.get()) {
+                        throw new SQLException("Database is down", "08001");
+                    }
+                    try {
+                        return method.invoke(dataSource, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    void publish_FailedInlineWriteIsRetried() throws SQLException, IOException {
+        // A - arrange, given
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        BattleHistoryWriter writer = new BattleHistoryWriter(failingWhile(databaseDown), spoolFile, 1);
+
+        // A - act, when
+        // the writer thread is stuck on the first battle, the queue holds the second, the others are written inline and fail
+        for (int i = 0; i < 5; i++) {
+            publishCommitted(writer, drawnBattle(2));
+        }
+        databaseDown.set(false);
+        writer.close();
+
+        // A - assert, then
+        assertTrue(writer.getInlineWrites() > 0);
+        assertEquals(10, queryInt("SELECT COUNT(*) FROM \"RoundLog\""));
+        assertEquals(5, writer.getWrittenBattles());
+        assertEquals(0, writer.getPending());
+        assertEquals(List.of(), spoolSegments());
+    }
+
+    @Test
+    void writeLoop_BattleTheDatabaseRefusesIsDeadLettered() throws Exception {
+        // A - arrange, given
+        // the battles pile up in one batch while the database is down
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        BattleHistoryWriter writer = new BattleHistoryWriter(failingWhile(databaseDown), spoolFile);
+        BattleHistoryDTO refused = drawnBattle(2); // no "Battle" row, its rounds violate the foreign key
+        publishCommitted(writer, drawnBattle(1));
+        writer.spool(refused);
+        writer.publish(refused);
+        publishCommitted(writer, drawnBattle(1));
+
+        // A - act, when
+        databaseDown.set(false);
+        writer.close();
+
+        // A - assert, then
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM \"RoundLog\""));
+        assertEquals(2, writer.getWrittenBattles());
+        assertEquals(1, writer.getDeadLetters());
+        assertEquals(List.of(), spoolSegments());
+        List<String> deadLetters = Files.readAllLines(tempDir.resolve("battle-history.spool.failed"));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains(refused.getBattleId().toString()));
+    }
+
+    @Test
+    void release_WrittenSegmentIsDeletedWhileLaterBattlesAreInFlight() throws IOException {
+        // A - arrange, given
+        // nothing is written until the first segment of 256 battles is full
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        BattleHistoryWriter writer = new BattleHistoryWriter(failingWhile(databaseDown), spoolFile);
+        for (int i = 0; i < 256; i++) {
+            publishCommitted(writer, drawnBattle(1));
+        }
+        // under constant load some battle is always between spooling and writing
+        BattleHistoryDTO inFlight = drawnBattle(1);
+        insertBattleRow(inFlight);
+        writer.spool(inFlight);
+
+        // A - act, when
+        databaseDown.set(false);
+        writer.close();
+
+        // A - assert, then
+        assertEquals(256, writer.getWrittenBattles());
+        assertEquals(List.of("battle-history.spool.2"), spoolSegments());
+    }
+
+    @Test
+    void constructor_WritesBattlesLeftInSpool() throws Exception {
+        // A - arrange, given
+        // one battle was written before the crash, one was committed but its rounds were still queued,
+        // and the crash hit one between spooling and committing
+        ObjectMapper objectMapper = new ObjectMapper();
+        BattleHistoryDTO written = drawnBattle(1);
+        BattleHistoryDTO lost = drawnBattle(2);
+        BattleHistoryDTO rolledBack = drawnBattle(3);
+        insertBattleRow(written);
+        UUID writtenRoundId = written.getRounds().get(0).getRoundId();
+        executeScript("INSERT INTO \"RoundDetail\" (\"round_id\") VALUES ('" + writtenRoundId + "');" +
+                "INSERT INTO \"RoundLog\" (\"battle_id\", \"round_number\", \"draw\", \"round_id\") VALUES ('" + written.getBattleId() + "', 1, TRUE, '" + writtenRoundId + "')");
+        insertBattleRow(lost);
+        Files.write(tempDir.resolve("battle-history.spool.1"),
+                List.of(objectMapper.writeValueAsString(written), objectMapper.writeValueAsString(lost)));
+        Files.write(tempDir.resolve("battle-history.spool.2"),
+                List.of(objectMapper.writeValueAsString(rolledBack), "{\"battleId\":"));
+
+        // A - act, when
+        BattleHistoryWriter writer = new BattleHistoryWriter(dataSource, spoolFile);
+        // a battle that is spooled but not written yet, when the server stops
+        BattleHistoryDTO next = drawnBattle(1);
+        insertBattleRow(next);
+        writer.spool(next);
+        writer.close();
+
+        // A - assert, then
+        assertEquals(3, queryInt("SELECT COUNT(*) FROM \"Battle\""));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM \"RoundLog\" WHERE \"battle_id\" = '" + written.getBattleId() + "'"));
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM \"RoundLog\" WHERE \"battle_id\" = '" + lost.getBattleId() + "'"));
+        assertEquals(3, queryInt("SELECT COUNT(*) FROM \"RoundLog\""));
+        // the recovered segments are gone, new battles go to a new one
+        assertEquals(List.of("battle-history.spool.3"), spoolSegments());
+    }
+}
@@ -0,0 +1,170 @@
+import org.example.*;
+import org.example.app.services.BattleResult;
+import org.example.app.services.BattleRound;
+import org.example.app.services.BattleSimulator;
+import org.example.app.services.CardTransfer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BattleSimulatorTest {
+
+    private final BattleSimulator battleSimulator = new BattleSimulator(new Random(42));
+
+    private static Card monster(CardName name, double damage, ElementType elementType) {
+        return new MonsterCard(UUID.randomUUID(), name, damage, elementType, new String[]{name.name()}, null);
+    }
+
+    private static Card spell(CardName name, double damage, ElementType elementType) {
+        return new SpellCard(UUID.randomUUID(), name, damage, elementType, new String[]{name.name()}, null);
+    }
+
+    @Test
+    void simulate_GoblinIsAfraidOfDragon() {
+        // A - arrange, given
+        Card goblin = monster(CardName.WaterGoblin, 100.0, ElementType.WATER);
+        Card dragon = monster(CardName.Dragon, 1.0, ElementType.FIRE);
+
+        // A - act, when
+        BattleResult result = battleSimulator.simulate("user1", List.of(goblin), "user2", List.of(dragon));
+
+        // A - assert, then
+        assertEquals(1, result.getRounds().size());
+        BattleRound round = result.getRounds().get(0);
+        assertEquals("user2", round.getWinner());
+        assertSame(dragon, round.getWinnerCard());
+        assertSame(goblin, round.getLoserCard());
+        assertTrue(result.getUser1Deck().isEmpty());
+        assertEquals(Arrays.asList(dragon, goblin), result.getUser2Deck());
+    }
+
+    @Test
+    void simulate_FireElfEvadesDragon() {
+        // A - arrange, given
+        Card fireElf = monster(CardName.FireElf, 1.0, ElementType.FIRE);
+        Card dragon = monster(CardName.Dragon, 100.0, ElementType.FIRE);
+
+        // A - act, when
+        BattleResult result = battleSimulator.simulate("user1", List.of(fireElf), "user2", List.of(dragon));
+
+        // A - assert, then
+        assertEquals("user1", result.getRounds().get(0).getWinner());
+        assertEquals(1, result.getTransfers().size());
+        CardTransfer transfer = result.getTransfers().get(0);
+        assertSame(dragon, transfer.getCard());
+        assertEquals("user2", transfer.getFromUsername());
+        assertEquals("user1", transfer.getToUsername());
+    }
+
+    @Test
+    void simulate_EveryRoundIsDecidedOnItsOwn() {
+        // A - arrange, given
+        // equal monsters draw every round except the chaos rounds
+        List<Card> deck1 = new ArrayList<>();
+        List<Card> deck2 = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            deck1.add(monster(CardName.Ork, 50.0, ElementType.NORMAL));
+            deck2.add(monster(CardName.Knight, 50.0, ElementType.NORMAL));
+        }
+
+        // A - act, when
+        BattleResult result = battleSimulator.simulate("user1", deck1, "user2", deck2);
+
+        // A - assert, then
+        assertEquals(BattleSimulator.NUMBER_OF_ROUNDS, result.getRounds().size());
+        for (BattleRound round : result.getRounds()) {
+            int number = round.getRoundNumber();
+            boolean chaosRound = number == 25 || number == 50 || number == 75;
+            // a round won earlier must not carry its winner into the following rounds
+            assertEquals(!chaosRound, round.isDraw(), "round " + number);
+        }
+        assertEquals(3, result.getUser1Stats().getWins() + result.getUser2Stats().getWins());
+        assertEquals(4, deck1.size(), "the given decks are not modified");
+    }
+
+    @Test
+    void simulate_StatDeltasMatchRounds() {
+        // A - arrange, given
+        List<Card> deck1 = Arrays.asList(
+                monster(CardName.Knight, 30.0, ElementType.NORMAL),
+                spell(CardName.FireSpell, 25.0, ElementType.FIRE),
+                monster(CardName.Kraken, 20.0, ElementType.WATER),
+                monster(CardName.WaterGoblin, 10.0, ElementType.WATER));
+        List<Card> deck2 = Arrays.asList(
+                spell(CardName.WaterSpell, 20.0, ElementType.WATER),
+                monster(CardName.Dragon, 50.0, ElementType.FIRE),
+                monster(CardName.Ork, 45.0, ElementType.NORMAL),
+                monster(CardName.RegularElf, 35.0, ElementType.NORMAL));
+
+        // A - act, when
+        BattleResult result = battleSimulator.simulate("user1", deck1, "user2", deck2);
+
+        // A - assert, then
+        long user1Wins = result.getRounds().stream().filter(round -> "user1".equals(round.getWinner())).count();
+        long user2Wins = result.getRounds().stream().filter(round -> "user2".equals(round.getWinner())).count();
+        assertEquals(user1Wins, result.getUser1Stats().getWins());
+        assertEquals(user2Wins, result.getUser1Stats().getLosses());
+        assertEquals(user1Wins * 3 - user2Wins * 5, result.getUser1Stats().getEloDelta());
+        assertEquals(user2Wins * 3 - user1Wins * 5, result.getUser2Stats().getEloDelta());
+        assertEquals(8, result.getUser1Deck().size() + result.getUser2Deck().size());
+        // every card that ended in the other deck is reported once
+        for (CardTransfer transfer : result.getTransfers()) {
+            List<Card> newDeck = "user1".equals(transfer.getToUsername()) ? result.getUser1Deck() : result.getUser2Deck();
+            assertTrue(newDeck.contains(transfer.getCard()));
+        }
+        long movedCards = result.getUser1Deck().stream().filter(deck2::contains).count()
+                + result.getUser2Deck().stream().filter(deck1::contains).count();
+        assertEquals(movedCards, result.getTransfers().size());
+    }
+
+    @Test
+    void simulate_EmptyDeckEndsBattleImmediately() {
+        // A - act, when
+        BattleResult result = battleSimulator.simulate("user1", Collections.emptyList(),
+                "user2", List.of(monster(CardName.Dragon, 50.0, ElementType.FIRE)));
+
+        // A - assert, then
+        assertTrue(result.getRounds().isEmpty());
+        assertEquals("Battle completed\n", result.getBattleLog());
+    }
+
+    @Test
+    void applySpecialty_EvaluatesRulesOnSpecialtyMasks() {
+        // A - arrange, given
+        Card knight = monster(CardName.Knight, 100.0, ElementType.NORMAL);
+        Card kraken = monster(CardName.Kraken, 1.0, ElementType.WATER);
+        Card waterSpell = spell(CardName.WaterSpell, 1.0, ElementType.WATER);
+        Card fireSpell = spell(CardName.FireSpell, 1.0, ElementType.FIRE);
+        Card ork = monster(CardName.Ork, 1.0, ElementType.NORMAL);
+
+        // A - act, when / A - assert, then
+        assertEquals(-1, battleSimulator.applySpecialty(knight, waterSpell));
+        assertEquals(0, battleSimulator.applySpecialty(knight, fireSpell));
+        assertEquals(1, battleSimulator.applySpecialty(kraken, fireSpell));
+        assertEquals(0, battleSimulator.applySpecialty(kraken, ork));
+        assertEquals(0, battleSimulator.applySpecialty(waterSpell, knight));
+        assertTrue(waterSpell.hasSpecialty(Specialty.WATER_SPELL));
+        assertFalse(fireSpell.hasSpecialty(Specialty.WATER_SPELL));
+    }
+
+    @Test
+    void applySpecialty_FollowsChangedSpecialties() {
+        // A - arrange, given
+        Card card = monster(CardName.RegularElf, 1.0, ElementType.NORMAL);
+        Card ork = monster(CardName.Ork, 100.0, ElementType.NORMAL);
+        assertEquals(0, battleSimulator.applySpecialty(card, ork));
+
+        // A - act, when
+        card.setSpecialties(new String[]{"RegularElf", "Wizzard"});
+
+        // A - assert, then
+        assertEquals(1, battleSimulator.applySpecialty(card, ork));
+    }
+}
@@ -2,6 +2,8 @@ import org.example.app.daos.UserDAO;
 import org.example.app.daos.CardDAO;
 import org.example.app.dtos.CardDTO;
 import org.example.app.repositories.CardRepository;
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.ConnectionPoolConfig;
 import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.*;
 
@@ -14,9 +16,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class CardDAOTest {
 
     private static Connection testConnection; // in-memory database connection
+    private static ConnectionPool dataSource; // pool on the same database, used by the DAOs
     private CardDAO cardDAO;
     private UserDAO userDAO;
 
@@ -37,6 +51,7 @@ public class CardDAOTest {
     static void beforeAll() {
         // Set up an H2 in-memory database connection
         testConnection = createH2Connection();
+        dataSource = createH2Pool();
 
         // Load the content of Schema.sql and Reset.sql into strings
         schemaSql = loadScriptAsString("src/test/java/Schema.sql");
@@ -55,9 +70,9 @@ public class CardDAOTest {
     @BeforeEach
     void beforeEach() {
         // Create a clean instance of CardDAO for each test
-        cardDAO = new CardDAO(testConnection);
+        cardDAO = new CardDAO(dataSource);
         // Create a clean instance of UserDAO for each test
-        userDAO = new UserDAO(testConnection);
+        userDAO = new UserDAO(dataSource);
         // Ensure the database is in a clean state for each test
         resetDatabase();
     }
@@ -66,6 +81,7 @@ public class CardDAOTest {
     static void afterAll() {
         // Close the H2 in-memory database connection or clean up resources
         try {
+            dataSource.close();
             testConnection.close();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -89,6 +105,12 @@ public class CardDAOTest {
         }
     }
 
+    private static ConnectionPool createH2Pool() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        return new ConnectionPool(h2, new ConnectionPoolConfig());
+    }
+
     private static void executeScript(String scriptContent, Connection connection) {
         try (Statement statement = connection.createStatement()) {
             statement.execute(scriptContent);
@@ -249,6 +271,113 @@ public class CardDAOTest {
     }
 
 
+    @Test
+    public void buyPackage_ConcurrentBuyersNeverGetTheSamePackage() throws Exception {
+        // A - arrange, given
+        int packages = 2;
+        int buyers = 6;
+        for (int i = 0; i < packages; i++) {
+            List<CardDTO> cards = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                cards.add(new CardDTO(UUID.randomUUID().toString(), "Ork", 10.0 * (j + 1)));
+            }
+            cardDAO.createPackage(cards);
+        }
+        for (int i = 0; i < buyers; i++) {
+            userDAO.createUser("buyer" + i, "password");
+        }
+
+        // A - act, when
+        // all buyers ask for a package at the same time, each on its own pooled connection
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<CardDTO>>> purchases = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            String username = "buyer" + i;
+            purchases.add(executor.submit(() -> {
+                start.await();
+                return cardDAO.buyPackage(username);
+            }));
+        }
+        start.countDown();
+
+        // A - assert, then
+        int bought = 0;
+        Set<String> purchasedCardIds = new HashSet<>();
+        try {
+            for (Future<List<CardDTO>> purchase : purchases) {
+                try {
+                    for (CardDTO card : purchase.get(30, TimeUnit.SECONDS)) {
+                        purchasedCardIds.add(card.getId());
+                    }
+                    bought++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(CardRepository.CardPackageNotFoundException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(packages, bought);
+        // no card was handed out twice
+        assertEquals(packages * 5, purchasedCardIds.size());
+        int stackedCards = 0;
+        for (int i = 0; i < buyers; i++) {
+            stackedCards += cardDAO.getUserCards("buyer" + i).size();
+        }
+        assertEquals(packages * 5, stackedCards);
+    }
+
+    @Test
+    public void buyPackage_ConcurrentPurchasesOfOneUserEachPay() throws Exception {
+        // A - arrange, given
+        // enough packages for everyone, but 20 coins only pay for 4 of them
+        int purchases = 8;
+        for (int i = 0; i < purchases; i++) {
+            List<CardDTO> cards = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                cards.add(new CardDTO(UUID.randomUUID().toString(), "Ork", 10.0 * (j + 1)));
+            }
+            cardDAO.createPackage(cards);
+        }
+        userDAO.createUser("buyer", "password");
+
+        // A - act, when
+        // the same user buys from several requests at the same time, each on its own pooled connection
+        ExecutorService executor = Executors.newFixedThreadPool(purchases);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<CardDTO>>> results = new ArrayList<>();
+        for (int i = 0; i < purchases; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cardDAO.buyPackage("buyer");
+            }));
+        }
+        start.countDown();
+
+        // A - assert, then
+        int bought = 0;
+        try {
+            for (Future<List<CardDTO>> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                    bought++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(CardRepository.InsufficientFundsException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4, bought);
+        assertEquals(4 * 5, cardDAO.getUserCards("buyer").size());
+        try (Statement statement = testConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT \"coins\" FROM \"User\" WHERE \"username\" = 'buyer'")) {
+            assertTrue(resultSet.next());
+            assertEquals(0.0, resultSet.getDouble(1));
+        }
+    }
+
     @Test
     public void buyPackage_Failure_NotEnoughCoins() {
         // A - arrange, given
@@ -0,0 +1,238 @@
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.ConnectionPoolConfig;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void beforeEach() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinIdle(1);
+        config.setMaxSize(2);
+        config.setConnectionTimeoutMillis(100);
+        config.setLeakDetectionThresholdMillis(50);
+        config.setHousekeepingIntervalMillis(20);
+        config.setStatementCacheSize(2);
+        pool = new ConnectionPool(h2, config);
+    }
+
+    @AfterEach
+    void afterEach() {
+        pool.close();
+    }
+
+    @Test
+    void getConnection_ClosedConnectionIsReused() throws SQLException {
+        // A - arrange, given
+        int idleAtStart = pool.getIdleConnections();
+
+        // A - act, when
+        try (Connection connection = pool.getConnection()) {
+            assertEquals(1, pool.getActiveConnections());
+            assertEquals(0, pool.getIdleConnections());
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertEquals(1, pool.getTotalConnections());
+        }
+
+        // A - assert, then
+        assertEquals(1, idleAtStart);
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(2, pool.getBorrowCount());
+    }
+
+    @Test
+    void getConnection_ExhaustedPoolTimesOut() throws SQLException {
+        // A - arrange, given
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        // A - act, when
+        SQLTransientConnectionException exception = assertThrows(SQLTransientConnectionException.class, () -> pool.getConnection());
+        first.close();
+        second.close();
+
+        // A - assert, then
+        assertNotNull(exception);
+        assertEquals(1, pool.getTimeoutCount());
+        assertEquals(2, pool.getTotalConnections());
+        // a returned connection can be borrowed again
+        pool.getConnection().close();
+    }
+
+    @Test
+    void close_OpenTransactionIsRolledBack() throws SQLException {
+        // A - arrange, given
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS \"Counter\" (\"value\" INT)");
+            statement.execute("DELETE FROM \"Counter\"");
+        }
+
+        // A - act, when
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO \"Counter\" VALUES (1)");
+            // returned without commit
+        }
+
+        // A - assert, then
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM \"Counter\"")) {
+            assertTrue(connection.getAutoCommit());
+            resultSet.next();
+            assertEquals(0, resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    void close_ReturnedConnectionCannotBeUsed() throws SQLException {
+        // A - arrange, given
+        Connection connection = pool.getConnection();
+
+        // A - act, when
+        connection.close();
+        // closing twice must not return the connection twice
+        connection.close();
+
+        // A - assert, then
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+        assertEquals(1, pool.getIdleConnections());
+    }
+
+    @Test
+    void housekeeping_LeakIsDetected() throws SQLException, InterruptedException {
+        // A - arrange, given
+        // A - act, when
+        try (Connection connection = pool.getConnection()) {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (pool.getLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+
+        // A - assert, then
+        assertEquals(1, pool.getLeakCount());
+    }
+
+    @Test
+    void prepareStatement_StatementsAreCached() throws SQLException {
+        // A - arrange, given
+        // A - act, when
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement("SELECT ?")) {
+                preparedStatement.setInt(1, i);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    resultSet.next();
+                    assertEquals(i, resultSet.getInt(1));
+                }
+            }
+        }
+
+        // A - assert, then
+        assertEquals(1, pool.getStatementCacheMisses());
+        assertEquals(2, pool.getStatementCacheHits());
+    }
+
+    @Test
+    void prepareStatement_StatementInUseIsNotHandedOutTwice() throws SQLException {
+        // A - arrange, given
+        try (Connection connection = pool.getConnection()) {
+            // A - act, when
+            try (PreparedStatement outer = connection.prepareStatement("SELECT ?");
+                 PreparedStatement inner = connection.prepareStatement("SELECT ?")) {
+                outer.setInt(1, 1);
+                inner.setInt(1, 2);
+                try (ResultSet resultSet = outer.executeQuery()) {
+                    resultSet.next();
+                    assertEquals(1, resultSet.getInt(1));
+                }
+            }
+        }
+
+        // A - assert, then
+        assertEquals(2, pool.getStatementCacheMisses());
+        assertEquals(0, pool.getStatementCacheHits());
+    }
+
+    @Test
+    void prepareStatement_LeastRecentlyUsedStatementIsEvicted() throws SQLException {
+        // A - arrange, given
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 2").close();
+            connection.prepareStatement("SELECT 1").close();
+
+            // A - act, when
+            // the cache holds two statements, "SELECT 2" is dropped
+            connection.prepareStatement("SELECT 3").close();
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 2").close();
+        }
+
+        // A - assert, then
+        assertEquals(2, pool.getStatementCacheHits());
+        assertEquals(4, pool.getStatementCacheMisses());
+    }
+
+    @Test
+    void prepareStatement_AbandonedBatchIsNotExecutedByTheNextBorrower() throws SQLException {
+        // A - arrange, given
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS \"Batched\" (\"value\" INT)");
+            statement.execute("DELETE FROM \"Batched\"");
+        }
+
+        String insert = "INSERT INTO \"Batched\" VALUES (?)";
+        // a batch given up before executeBatch(), e.g. because an earlier batch of the transaction failed
+        try (Connection connection = pool.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(insert)) {
+            preparedStatement.setInt(1, 1);
+            preparedStatement.addBatch();
+        }
+        // a statement the borrower never closed is released when the connection goes back
+        Connection leaking = pool.getConnection();
+        PreparedStatement notClosed = leaking.prepareStatement(insert);
+        notClosed.setInt(1, 2);
+        notClosed.addBatch();
+        leaking.close();
+
+        // A - act, when
+        int[] updateCounts;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(insert)) {
+            preparedStatement.setInt(1, 3);
+            preparedStatement.addBatch();
+            updateCounts = preparedStatement.executeBatch();
+        }
+
+        // A - assert, then
+        assertArrayEquals(new int[]{1}, updateCounts);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT \"value\" FROM \"Batched\"")) {
+            assertTrue(resultSet.next());
+            assertEquals(3, resultSet.getInt(1));
+            assertFalse(resultSet.next());
+        }
+        assertEquals(1, pool.getTotalConnections());
+    }
+}
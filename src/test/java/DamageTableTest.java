@@ -0,0 +1,54 @@
+import org.example.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DamageTableTest {
+
+    private static Card monster(ElementType elementType, double damage) {
+        return new MonsterCard(UUID.randomUUID(), CardName.Knight, damage, elementType, new String[]{"Knight"}, null);
+    }
+
+    private static Card spell(ElementType elementType, double damage) {
+        return new SpellCard(UUID.randomUUID(), CardName.RegularSpell, damage, elementType, new String[]{"RegularSpell"}, null);
+    }
+
+    @Test
+    void multiplier_PureMonsterFightIgnoresElements() {
+        // A - arrange, given / A - act, when / A - assert, then
+        for (ElementType attacker : ElementType.values()) {
+            for (ElementType defender : ElementType.values()) {
+                assertEquals(1.0, DamageTable.multiplier(monster(attacker, 10), monster(defender, 10)));
+            }
+        }
+    }
+
+    @Test
+    void multiplier_ElementsApplyWhenASpellIsInvolved() {
+        // A - arrange, given
+        Card waterSpell = spell(ElementType.WATER, 10);
+        Card fireMonster = monster(ElementType.FIRE, 10);
+        Card normalSpell = spell(ElementType.NORMAL, 10);
+
+        // A - act, when / A - assert, then
+        assertEquals(2.0, DamageTable.multiplier(waterSpell, fireMonster));
+        assertEquals(0.5, DamageTable.multiplier(fireMonster, waterSpell));
+        assertEquals(2.0, DamageTable.multiplier(fireMonster, normalSpell));
+        assertEquals(2.0, DamageTable.multiplier(normalSpell, waterSpell));
+        assertEquals(0.5, DamageTable.multiplier(waterSpell, normalSpell));
+        assertEquals(1.0, DamageTable.multiplier(waterSpell, spell(ElementType.WATER, 10)));
+    }
+
+    @Test
+    void calculateEffectiveDamage_MultipliesBaseDamage() {
+        // A - arrange, given
+        Card fireSpell = spell(ElementType.FIRE, 30);
+        Card waterMonster = monster(ElementType.WATER, 20);
+
+        // A - act, when / A - assert, then
+        assertEquals(15.0, fireSpell.calculateEffectiveDamage(waterMonster));
+        assertEquals(40.0, waterMonster.calculateEffectiveDamage(fireSpell));
+    }
+}
@@ -0,0 +1,408 @@
+import org.example.Card;
+import org.example.CardName;
+import org.example.ElementType;
+import org.example.MonsterCard;
+import org.example.app.daos.BattleHistoryWriter;
+import org.example.app.daos.GameDAO;
+import org.example.app.daos.UserDAO;
+import org.example.app.dtos.UserStatDTO;
+import org.example.app.services.BattleResult;
+import org.example.app.services.BattleSimulator;
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.ConnectionPoolConfig;
+import org.example.app.services.MissingCardException;
+import org.example.app.services.StaleBattleException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class GameDAOTest {
+
+    private static Connection testConnection; // in-memory database connection
+    private static ConnectionPool dataSource; // pool on the same database, used by the DAOs
+    private GameDAO gameDAO;
+    private UserDAO userDAO;
+
+    // String to store SQL DB reset-script content
+    private static String resetSql;
+
+    @BeforeAll
+    static void beforeAll() {
+        // Set up an H2 in-memory database connection
+        testConnection = createH2Connection();
+        dataSource = createH2Pool();
+
+        resetSql = loadScriptAsString("src/test/java/Reset.sql");
+        executeScript(loadScriptAsString("src/test/java/Schema.sql"), testConnection);
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        gameDAO = new GameDAO(dataSource);
+        userDAO = new UserDAO(dataSource);
+        // Ensure the database is in a clean state for each test
+        executeScript(resetSql, testConnection);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        try {
+            dataSource.close();
+            testConnection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Connection createH2Connection() {
+        try {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1"); // Creating an in-memory database
+
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating H2 connection for testing", e);
+        }
+    }
+
+    private static ConnectionPool createH2Pool() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        return new ConnectionPool(h2, new ConnectionPoolConfig());
+    }
+
+    private static void executeScript(String scriptContent, Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(scriptContent);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error executing script", e);
+        }
+    }
+
+    private static String loadScriptAsString(String absolutePath) {
+        try (InputStream inputStream = Files.newInputStream(Paths.get(absolutePath))) {
+            return new BufferedReader(new InputStreamReader(inputStream))
+                    .lines().collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading script file: " + absolutePath, e);
+        }
+    }
+
+    // Gives the user a card in the stack and puts it into a deck slot
+    private static UUID giveDeckCard(String username, int slot, String name, double damage, String elementType) {
+        UUID cardId = UUID.randomUUID();
+        executeScript("INSERT INTO \"Card\" (\"id\", \"name\", \"damage\", \"elementType\", \"specialties\", \"cardType\", \"owner_username\") " +
+                "VALUES ('" + cardId + "', '" + name + "', " + damage + ", '" + elementType + "', ARRAY['" + name + "'], 'MONSTER', '" + username + "');" +
+                "INSERT INTO \"Stack\" (\"username\", \"card_id\") VALUES ('" + username + "', '" + cardId + "');" +
+                "UPDATE \"Deck\" SET \"card" + slot + "_id\" = '" + cardId + "' WHERE \"username\" = '" + username + "'", testConnection);
+        return cardId;
+    }
+
+    private static int queryInt(String query) throws SQLException {
+        return Integer.parseInt(queryString(query));
+    }
+
+    private static int countOccurrences(String text, String part) {
+        return text.split(Pattern.quote(part), -1).length - 1;
+    }
+
+    private static String queryString(String query) throws SQLException {
+        try (Statement statement = testConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    @Test
+    void carryOutBattle_PersistsResultInOneTransaction() throws SQLException {
+        // A - arrange, given
+        userDAO.createUser("elf", "password");
+        userDAO.createUser("dragon", "password");
+        giveDeckCard("elf", 1, "FireElf", 1.0, "FIRE");
+        UUID dragonId = giveDeckCard("dragon", 1, "Dragon", 100.0, "FIRE");
+
+        // A - act, when
+        // the FireElf evades the Dragon, the battle is over after one round
+        String battleLog = gameDAO.carryOutBattle("elf", "dragon");
+
+        // A - assert, then
+        assertTrue(battleLog.startsWith("Battle completed\nRound 1 Details:\n  Winner: elf, Winning Card: FireElf"));
+
+        UserStatDTO winnerStats = userDAO.getStats("elf");
+        UserStatDTO loserStats = userDAO.getStats("dragon");
+        assertEquals(1, winnerStats.getWins());
+        assertEquals(103, winnerStats.getElo_score());
+        assertEquals(1, loserStats.getLosses());
+        assertEquals(95, loserStats.getElo_score());
+
+        assertEquals("1", queryString("SELECT COUNT(*) FROM \"RoundLog\""));
+        assertEquals(dragonId.toString(), queryString("SELECT \"loser_card_id\" FROM \"RoundDetail\""));
+        assertEquals("elf", queryString("SELECT \"owner_username\" FROM \"Card\" WHERE \"id\" = '" + dragonId + "'"));
+        assertEquals("elf", queryString("SELECT \"username\" FROM \"Stack\" WHERE \"card_id\" = '" + dragonId + "'"));
+        assertEquals("1", queryString("SELECT COUNT(*) FROM \"Stack\" WHERE \"card_id\" = '" + dragonId + "'"));
+        // the decks are emptied but kept for the next configuration
+        assertEquals("2", queryString("SELECT COUNT(*) FROM \"Deck\" WHERE \"card1_id\" IS NULL"));
+    }
+
+    @Test
+    void carryOutBattle_WithHistoryWriterCommitsBattleRowAndWritesRoundsBehind(@TempDir Path tempDir) throws SQLException {
+        // A - arrange, given
+        Path spoolFile = tempDir.resolve("battle-history.spool");
+        BattleHistoryWriter historyWriter = new BattleHistoryWriter(dataSource, spoolFile);
+        GameDAO writeBehindGameDAO = new GameDAO(dataSource, new BattleSimulator(), historyWriter);
+        userDAO.createUser("elf", "password");
+        userDAO.createUser("dragon", "password");
+        giveDeckCard("elf", 1, "FireElf", 1.0, "FIRE");
+        giveDeckCard("dragon", 1, "Dragon", 100.0, "FIRE");
+
+        // A - act, when
+        writeBehindGameDAO.carryOutBattle("elf", "dragon");
+        // the "Battle" row is there as soon as the battle is saved
+        int battlesBeforeClose = queryInt("SELECT COUNT(*) FROM \"Battle\"");
+        historyWriter.close();
+
+        // A - assert, then
+        assertEquals(1, battlesBeforeClose);
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM \"Battle\""));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM \"RoundLog\""));
+        assertEquals(1, historyWriter.getWrittenBattles());
+        assertFalse(Files.exists(tempDir.resolve("battle-history.spool.1")));
+    }
+
+    @Test
+    void replayBattle_PlaysTheSameRoundsFromTheStoredSeed() throws SQLException {
+        // A - arrange, given
+        userDAO.createUser("kienboec", "password");
+        userDAO.createUser("altenhof", "password");
+        String[] monsters = {"WaterGoblin", "Knight", "Ork", "RegularElf"};
+        String[] spells = {"WaterSpell", "FireSpell", "RegularSpell", "Knight"};
+        for (int slot = 1; slot <= 4; slot++) {
+            giveDeckCard("kienboec", slot, monsters[slot - 1], 10.0 * slot, "NORMAL");
+            giveDeckCard("altenhof", slot, spells[slot - 1], 12.0 * slot, slot == 1 ? "WATER" : "FIRE");
+        }
+        String battleLog = gameDAO.carryOutBattle("kienboec", "altenhof");
+        UUID battleId = UUID.fromString(queryString("SELECT \"id\" FROM \"Battle\""));
+
+        // A - act, when
+        // the cards have changed hands and the decks are empty, the replay uses the stored decks
+        BattleResult replay = gameDAO.replayBattle(battleId);
+
+        // A - assert, then
+        assertEquals(battleLog, replay.getBattleLog());
+        assertNull(gameDAO.replayBattle(UUID.randomUUID()));
+    }
+
+    @Test
+    void replayBattle_MissingCardFailsTheReplay() throws SQLException {
+        // A - arrange, given
+        userDAO.createUser("kienboec", "password");
+        userDAO.createUser("altenhof", "password");
+        List<String> altenhofDeck = new ArrayList<>();
+        for (int slot = 1; slot <= 4; slot++) {
+            giveDeckCard("kienboec", slot, "Knight", 10.0 * slot, "NORMAL");
+            altenhofDeck.add("'" + giveDeckCard("altenhof", slot, "Ork", 12.0 * slot, "NORMAL") + "'");
+        }
+        gameDAO.carryOutBattle("kienboec", "altenhof");
+        UUID battleId = UUID.fromString(queryString("SELECT \"id\" FROM \"Battle\""));
+
+        // A - act, when
+        // the third card of the stored deck no longer exists
+        altenhofDeck.set(2, "'" + UUID.randomUUID() + "'");
+        executeScript("UPDATE \"Battle\" SET \"user2_deck\" = ARRAY[" + String.join(", ", altenhofDeck) + "]", testConnection);
+
+        // A - assert, then
+        // a replay without the card would play different rounds
+        assertThrows(MissingCardException.class, () -> gameDAO.replayBattle(battleId));
+    }
+
+    @Test
+    void carryOutBattle_EloScoreDoesNotDropBelowZero() throws SQLException {
+        // A - arrange, given
+        userDAO.createUser("elf", "password");
+        userDAO.createUser("dragon", "password");
+        executeScript("UPDATE \"User\" SET \"elo_score\" = 2 WHERE \"username\" = 'dragon'", testConnection);
+        giveDeckCard("elf", 1, "FireElf", 1.0, "FIRE");
+        giveDeckCard("dragon", 1, "Dragon", 100.0, "FIRE");
+
+        // A - act, when
+        gameDAO.carryOutBattle("elf", "dragon");
+
+        // A - assert, then
+        assertEquals("0", queryString("SELECT \"elo_score\" FROM \"User\" WHERE \"username\" = 'dragon'"));
+    }
+
+    @Test
+    void carryOutBattle_ConcurrentBattlesKeepResultsConsistent() throws Exception {
+        // A - arrange, given
+        int battles = 16;
+        String[] monsters = {"WaterGoblin", "Dragon", "Ork", "Knight", "FireElf", "Kraken", "WaterTroll", "RegularElf"};
+        String[] elements = {"WATER", "FIRE", "NORMAL"};
+        Random random = new Random(7);
+        for (int i = 0; i < battles; i++) {
+            for (String username : new String[]{"player" + i + "a", "player" + i + "b"}) {
+                userDAO.createUser(username, "password");
+                for (int slot = 1; slot <= 4; slot++) {
+                    giveDeckCard(username, slot, monsters[random.nextInt(monsters.length)],
+                            10 + random.nextInt(5) * 10, elements[random.nextInt(elements.length)]);
+                }
+            }
+        }
+
+        // A - act, when
+        // all battles start at the same time on one shared GameDAO
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> battleLogs = new ArrayList<>();
+        for (int i = 0; i < battles; i++) {
+            String username1 = "player" + i + "a";
+            String username2 = "player" + i + "b";
+            battleLogs.add(executor.submit(() -> {
+                start.await();
+                return gameDAO.carryOutBattle(username1, username2);
+            }));
+        }
+        start.countDown();
+
+        // A - assert, then
+        try {
+            for (int i = 0; i < battles; i++) {
+                String username1 = "player" + i + "a";
+                String username2 = "player" + i + "b";
+                String battleLog = battleLogs.get(i).get(30, TimeUnit.SECONDS);
+
+                // every battle only reports its own players
+                int rounds = countOccurrences(battleLog, "Round ");
+                int wins1 = countOccurrences(battleLog, "Winner: " + username1 + ",");
+                int wins2 = countOccurrences(battleLog, "Winner: " + username2 + ",");
+                assertEquals(rounds, wins1 + wins2 + countOccurrences(battleLog, "ended in a draw"));
+
+                UserStatDTO stats1 = userDAO.getStats(username1);
+                UserStatDTO stats2 = userDAO.getStats(username2);
+                assertEquals(wins1, stats1.getWins());
+                assertEquals(wins2, stats1.getLosses());
+                assertEquals(wins2, stats2.getWins());
+                assertEquals(wins1, stats2.getLosses());
+                assertEquals(Math.max(100 + 3 * wins1 - 5 * wins2, 0), stats1.getElo_score());
+                assertEquals(Math.max(100 + 3 * wins2 - 5 * wins1, 0), stats2.getElo_score());
+                assertEquals(rounds, queryInt("SELECT COUNT(*) FROM \"RoundLog\" rl JOIN \"Battle\" b ON b.\"id\" = rl.\"battle_id\" " +
+                        "WHERE b.\"user1_username\" = '" + username1 + "'"));
+
+                // no card is lost or duplicated, stack and owner agree
+                assertEquals(8, queryInt("SELECT COUNT(*) FROM \"Stack\" WHERE \"username\" IN ('" + username1 + "', '" + username2 + "')"));
+                assertEquals(queryInt("SELECT COUNT(*) FROM \"Stack\" WHERE \"username\" = '" + username1 + "'"),
+                        queryInt("SELECT COUNT(*) FROM \"Card\" WHERE \"owner_username\" = '" + username1 + "'"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void saveBattle_TwoBattlesOverTheSameDeckSaveOnlyOne() throws Exception {
+        // A - arrange, given
+        int battles = 12;
+        userDAO.createUser("champion", "password");
+        UUID elfId = giveDeckCard("champion", 1, "FireElf", 1.0, "FIRE");
+        Card elf = new MonsterCard(elfId, CardName.FireElf, 1.0, ElementType.FIRE, new String[]{"FireElf"}, "champion");
+        BattleSimulator battleSimulator = new BattleSimulator(new Random(42));
+        List<BattleResult> results = new ArrayList<>();
+        for (int i = 0; i < battles; i++) {
+            String opponent = "dragon" + i;
+            userDAO.createUser(opponent, "password");
+            UUID dragonId = giveDeckCard(opponent, 1, "Dragon", 100.0, "FIRE");
+            Card dragon = new MonsterCard(dragonId, CardName.Dragon, 100.0, ElementType.FIRE, new String[]{"Dragon"}, opponent);
+            // the FireElf evades the Dragon, the champion wins every battle in one round
+            results.add(battleSimulator.simulate("champion", List.of(elf), opponent, List.of(dragon)));
+        }
+
+        // A - act, when
+        // all battles were played with the same deck of the champion
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> saves = new ArrayList<>();
+        for (BattleResult result : results) {
+            saves.add(executor.submit(() -> {
+                start.await();
+                gameDAO.saveBattle(result);
+                return null;
+            }));
+        }
+        start.countDown();
+
+        // A - assert, then
+        int saved = 0;
+        try {
+            for (Future<?> save : saves) {
+                try {
+                    save.get(30, TimeUnit.SECONDS);
+                    saved++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(StaleBattleException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, saved);
+        UserStatDTO championStats = userDAO.getStats("champion");
+        assertEquals(1, championStats.getWins());
+        assertEquals(103, championStats.getElo_score());
+        // the elf and the one dragon won, every card is in exactly one stack
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM \"Stack\" WHERE \"username\" = 'champion'"));
+        assertEquals(battles + 1, queryInt("SELECT COUNT(*) FROM \"Stack\""));
+        assertEquals(battles + 1, queryInt("SELECT COUNT(DISTINCT \"card_id\") FROM \"Stack\""));
+    }
+
+    @Test
+    void saveBattle_CardTradedDuringTheBattleIsNotOverwritten() throws SQLException {
+        // A - arrange, given
+        userDAO.createUser("elf", "password");
+        userDAO.createUser("dragon", "password");
+        userDAO.createUser("trader", "password");
+        UUID elfId = giveDeckCard("elf", 1, "FireElf", 1.0, "FIRE");
+        UUID dragonId = giveDeckCard("dragon", 1, "Dragon", 100.0, "FIRE");
+        Card elf = new MonsterCard(elfId, CardName.FireElf, 1.0, ElementType.FIRE, new String[]{"FireElf"}, "elf");
+        Card dragon = new MonsterCard(dragonId, CardName.Dragon, 100.0, ElementType.FIRE, new String[]{"Dragon"}, "dragon");
+        BattleResult result = new BattleSimulator(new Random(42)).simulate("elf", List.of(elf), "dragon", List.of(dragon));
+
+        // A - act, when
+        // the dragon is traded away while the rounds are played
+        executeScript("UPDATE \"Card\" SET \"owner_username\" = 'trader' WHERE \"id\" = '" + dragonId + "';" +
+                "UPDATE \"Stack\" SET \"username\" = 'trader' WHERE \"card_id\" = '" + dragonId + "'", testConnection);
+
+        // A - assert, then
+        assertThrows(StaleBattleException.class, () -> gameDAO.saveBattle(result));
+        assertEquals("trader", queryString("SELECT \"owner_username\" FROM \"Card\" WHERE \"id\" = '" + dragonId + "'"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM \"Stack\" WHERE \"card_id\" = '" + dragonId + "'"));
+        // nothing of the battle was written
+        assertEquals(0, userDAO.getStats("elf").getWins());
+        assertEquals(elfId.toString(), queryString("SELECT \"card1_id\" FROM \"Deck\" WHERE \"username\" = 'elf'"));
+    }
+}
@@ -0,0 +1,106 @@
+import org.example.http.HttpStatus;
+import org.example.http.Method;
+import org.example.server.HttpParseException;
+import org.example.server.HttpRequestParser;
+import org.example.server.Request;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpRequestParserTest {
+
+    private final HttpRequestParser parser = new HttpRequestParser(1024, 4096);
+
+    @Test
+    void parse_RequestWithBody() throws HttpParseException {
+        // A - arrange, given
+        String body = "{\"Username\":\"kienboec\", \"Bio\":\"me playin... ☺\"}";
+        byte[] bytes = ("PUT /users/kienboec?format=plain HTTP/1.1\r\n"
+                + "content-type: application/json\r\n"
+                + "AUTHORIZATION: Bearer kienboec-mtcgToken\r\n"
+                + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                + "\r\n"
+                + body).getBytes(StandardCharsets.UTF_8);
+
+        // A - act, when
+        Request request = parser.parse(bytes, 0, bytes.length);
+
+        // A - assert, then
+        assertNotNull(request);
+        assertEquals(Method.PUT, request.getMethod());
+        assertEquals("/users/kienboec", request.getPathname());
+        assertEquals("format=plain", request.getParams());
+        assertEquals("application/json", request.getContentType());
+        assertEquals("kienboec-mtcgToken", request.getAuthorization());
+        // multi-byte characters must survive decoding
+        assertEquals(body, request.getBody());
+        assertEquals(bytes.length, parser.getConsumedBytes());
+    }
+
+    @Test
+    void parse_IncompleteRequestReturnsNull() throws HttpParseException {
+        // A - arrange, given
+        byte[] bytes = "POST /sessions HTTP/1.1\r\nContent-Length: 10\r\n\r\n{\"Us".getBytes(StandardCharsets.US_ASCII);
+
+        // A - act, when
+        Request request = parser.parse(bytes, 0, bytes.length);
+
+        // A - assert, then
+        assertNull(request);
+    }
+
+    @Test
+    void parse_PipelinedRequestsOneAfterTheOther() throws HttpParseException {
+        // A - arrange, given
+        byte[] bytes = "GET /cards HTTP/1.1\r\n\r\nGET /deck HTTP/1.1\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // A - act, when
+        Request first = parser.parse(bytes, 0, bytes.length);
+        int offset = parser.getConsumedBytes();
+        Request second = parser.parse(bytes, offset, bytes.length - offset);
+
+        // A - assert, then
+        assertEquals("/cards", first.getPathname());
+        assertTrue(first.isKeepAlive());
+        assertEquals("/deck", second.getPathname());
+        assertFalse(second.isKeepAlive());
+    }
+
+    @Test
+    void parse_OversizedBodyIsRejected() {
+        // A - arrange, given
+        byte[] bytes = "POST /packages HTTP/1.1\r\nContent-Length: 5000\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // A - act, when
+        HttpParseException exception = assertThrows(HttpParseException.class, () -> parser.parse(bytes, 0, bytes.length));
+
+        // A - assert, then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatus());
+    }
+
+    @Test
+    void parse_OversizedHeaderIsRejected() {
+        // A - arrange, given
+        byte[] bytes = ("GET /cards HTTP/1.1\r\nX-Padding: " + "a".repeat(2000)).getBytes(StandardCharsets.US_ASCII);
+
+        // A - act, when
+        HttpParseException exception = assertThrows(HttpParseException.class, () -> parser.parse(bytes, 0, bytes.length));
+
+        // A - assert, then
+        assertEquals(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE, exception.getStatus());
+    }
+
+    @Test
+    void parse_UnknownMethodIsRejected() {
+        // A - arrange, given
+        byte[] bytes = "FETCH /cards HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // A - act, when
+        HttpParseException exception = assertThrows(HttpParseException.class, () -> parser.parse(bytes, 0, bytes.length));
+
+        // A - assert, then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+}
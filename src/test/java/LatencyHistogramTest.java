@@ -0,0 +1,58 @@
+import org.example.load.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void getValueAtPercentile_SmallValuesAreExact() {
+        // A - arrange, given
+        LatencyHistogram histogram = new LatencyHistogram(1_000_000);
+
+        // A - act, when
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        // A - assert, then
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(500, histogram.getValueAtPercentile(50));
+        assertEquals(990, histogram.getValueAtPercentile(99));
+        assertEquals(999, histogram.getValueAtPercentile(99.9));
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+        assertEquals(500.5, histogram.getMean());
+    }
+
+    @Test
+    void getValueAtPercentile_LargeValuesWithinOneTenthOfAPercent() {
+        // A - arrange, given
+        LatencyHistogram histogram = new LatencyHistogram(600_000_000);
+
+        // A - act, when
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        // A - assert, then
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.001);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.001);
+        assertEquals(99_900_000, histogram.getValueAtPercentile(99.9), 99_900_000 * 0.001);
+        assertEquals(100_000_000, histogram.getMaxValue());
+    }
+
+    @Test
+    void record_ClampsValuesOutsideTheRange() {
+        // A - arrange, given
+        LatencyHistogram histogram = new LatencyHistogram(10_000);
+
+        // A - act, when
+        histogram.record(-5);
+        histogram.record(1_000_000);
+
+        // A - assert, then
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(10_000, histogram.getValueAtPercentile(100));
+        assertEquals(10_000, histogram.getMaxValue());
+    }
+}
@@ -0,0 +1,87 @@
+import org.example.app.services.BattleTicket;
+import org.example.app.services.MatchmakingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchmakingQueueTest {
+
+    // no widening, so only the rating decides
+    private final MatchmakingQueue queue = new MatchmakingQueue(50, 0, 50);
+
+    @Test
+    void match_PairsClosestRatedPlayer() {
+        // A - arrange, given
+        BattleTicket low = new BattleTicket("low", 60, 0);
+        BattleTicket high = new BattleTicket("high", 130, 0);
+        assertNull(queue.match(low, 0));
+        assertNull(queue.match(high, 0));
+
+        // A - act, when
+        BattleTicket opponent = queue.match(new BattleTicket("newcomer", 110, 0), 0);
+
+        // A - assert, then
+        assertSame(high, opponent);
+        assertEquals(1, queue.size());
+        assertSame(low, queue.get("low"));
+        assertNull(queue.get("high"));
+    }
+
+    @Test
+    void match_QueuesPlayerOutsideTheGap() {
+        // A - arrange, given
+        assertNull(queue.match(new BattleTicket("low", 0, 0), 0));
+
+        // A - act, when
+        BattleTicket opponent = queue.match(new BattleTicket("high", 51, 0), 0);
+
+        // A - assert, then
+        assertNull(opponent);
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void matchWaiting_WidensGapWithWaitingTime() {
+        // A - arrange, given
+        MatchmakingQueue widening = new MatchmakingQueue(50, 10, 100);
+        BattleTicket first = new BattleTicket("first", 100, 0);
+        BattleTicket second = new BattleTicket("second", 180, 0);
+        BattleTicket far = new BattleTicket("far", 400, 0);
+        widening.match(first, 0);
+        widening.match(second, 0);
+        widening.match(far, 0);
+
+        // A - act, when
+        List<BattleTicket[]> early = widening.matchWaiting(2000);
+        List<BattleTicket[]> later = widening.matchWaiting(3000);
+
+        // A - assert, then
+        assertTrue(early.isEmpty());
+        assertEquals(1, later.size());
+        assertSame(first, later.get(0)[0]);
+        assertSame(second, later.get(0)[1]);
+        // the gap is capped, the far player keeps waiting
+        assertEquals(100, widening.allowedRatingGap(far, 60_000));
+        assertTrue(widening.matchWaiting(60_000).isEmpty());
+        assertSame(far, widening.get("far"));
+    }
+
+    @Test
+    void cancel_RemovesWaitingPlayer() {
+        // A - arrange, given
+        BattleTicket ticket = new BattleTicket("player", 100, 0);
+        queue.match(ticket, 0);
+
+        // A - act, when
+        BattleTicket cancelled = queue.cancel("player");
+
+        // A - assert, then
+        assertSame(ticket, cancelled);
+        assertEquals(0, queue.size());
+        assertNull(queue.cancel("player"));
+        // a cancelled player is not matched any more
+        assertNull(queue.match(new BattleTicket("other", 100, 0), 0));
+    }
+}
@@ -0,0 +1,214 @@
+import org.example.app.services.BattleTicket;
+import org.example.app.services.MatchmakingQueue;
+import org.example.app.services.MatchmakingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchmakingServiceTest {
+
+    private final List<String> battles = new CopyOnWriteArrayList<>();
+    private final AtomicLong clock = new AtomicLong();
+    private MatchmakingService matchmakingService;
+
+    @AfterEach
+    void afterEach() {
+        matchmakingService.close();
+    }
+
+    private MatchmakingService createService(MatchmakingService.BattleRunner battleRunner) {
+        // everyone has the same rating, so players are paired right away
+        return new MatchmakingService(battleRunner, username -> 100, new MatchmakingQueue(), 2, 1000, clock::get);
+    }
+
+    @Test
+    void enterLobby_PairsPlayersAndNotifiesBoth() throws Exception {
+        // A - arrange, given
+        matchmakingService = createService((username1, username2) -> {
+            battles.add(username1 + " vs " + username2);
+            return "Battle completed\n";
+        });
+
+        // A - act, when
+        BattleTicket first = matchmakingService.enterLobby("kienboec");
+        // the first player waits without holding a thread
+        assertFalse(first.isDone());
+        assertEquals(1, matchmakingService.getWaitingPlayers());
+        BattleTicket second = matchmakingService.enterLobby("altenhof");
+
+        // A - assert, then
+        assertEquals("Battle completed\n", first.getBattleLog().get(5, TimeUnit.SECONDS));
+        assertEquals("Battle completed\n", second.getBattleLog().get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("kienboec vs altenhof"), battles);
+        assertEquals(0, matchmakingService.getWaitingPlayers());
+        assertEquals(1, matchmakingService.getMatchCount());
+    }
+
+    @Test
+    void enterLobby_WaitsForCloseRatingAndWidensOverTime() throws Exception {
+        // A - arrange, given
+        Map<String, Integer> ratings = Map.of("kienboec", 100, "altenhof", 300, "admin", 120);
+        matchmakingService = new MatchmakingService((username1, username2) -> username1 + " vs " + username2,
+                ratings::get, new MatchmakingQueue(50, 25, 500), 2, 60_000, clock::get);
+
+        // A - act, when
+        BattleTicket kienboec = matchmakingService.enterLobby("kienboec");
+        BattleTicket altenhof = matchmakingService.enterLobby("altenhof");
+        // 200 points apart is too far for a fresh ticket
+        matchmakingService.sweep();
+        assertEquals(2, matchmakingService.getWaitingPlayers());
+
+        // after 6 seconds both accept a gap of 50 + 6 * 25 = 200
+        clock.addAndGet(6000);
+        matchmakingService.sweep();
+
+        // A - assert, then
+        assertEquals("kienboec vs altenhof", kienboec.getBattleLog().get(5, TimeUnit.SECONDS));
+        assertEquals("kienboec vs altenhof", altenhof.getBattleLog().get(5, TimeUnit.SECONDS));
+        assertEquals(200, matchmakingService.getMaxRatingSpread());
+        assertEquals(6000, matchmakingService.getAverageTimeToMatchMillis());
+    }
+
+    @Test
+    void leaveLobby_CancelsWaitingTicket() {
+        // A - arrange, given
+        matchmakingService = createService((username1, username2) -> "Battle completed\n");
+        BattleTicket ticket = matchmakingService.enterLobby("kienboec");
+
+        // A - act, when
+        boolean left = matchmakingService.leaveLobby("kienboec");
+
+        // A - assert, then
+        assertTrue(left);
+        assertTrue(ticket.getBattleLog().isCancelled());
+        assertNull(matchmakingService.getTicket(ticket.getId(), "kienboec"));
+        assertFalse(matchmakingService.leaveLobby("kienboec"));
+        assertEquals(0, matchmakingService.getWaitingPlayers());
+    }
+
+    @Test
+    void enterLobby_TwiceReturnsTheWaitingTicket() {
+        // A - arrange, given
+        matchmakingService = createService((username1, username2) -> "Battle completed\n");
+
+        // A - act, when
+        BattleTicket first = matchmakingService.enterLobby("kienboec");
+        BattleTicket again = matchmakingService.enterLobby("kienboec");
+
+        // A - assert, then
+        assertSame(first, again);
+        assertEquals(1, matchmakingService.getWaitingPlayers());
+    }
+
+    @Test
+    void getTicket_OnlyForItsOwnerUntilExpired() throws Exception {
+        // A - arrange, given
+        CountDownLatch battleStarted = new CountDownLatch(1);
+        matchmakingService = createService((username1, username2) -> {
+            battleStarted.countDown();
+            return "Battle completed\n";
+        });
+        BattleTicket ticket = matchmakingService.enterLobby("kienboec");
+        matchmakingService.enterLobby("altenhof");
+        assertTrue(battleStarted.await(5, TimeUnit.SECONDS));
+        ticket.getBattleLog().get(5, TimeUnit.SECONDS);
+
+        // A - act, when / A - assert, then
+        assertSame(ticket, matchmakingService.getTicket(ticket.getId(), "kienboec"));
+        assertNull(matchmakingService.getTicket(ticket.getId(), "altenhof"));
+
+        // finished tickets are dropped after the retention time
+        clock.addAndGet(2000);
+        matchmakingService.sweep();
+        assertNull(matchmakingService.getTicket(ticket.getId(), "kienboec"));
+    }
+
+    @Test
+    void sweep_RetentionStartsWhenTheBattleEnds() throws Exception {
+        // A - arrange, given
+        CountDownLatch battleStarted = new CountDownLatch(1);
+        CountDownLatch battleMayEnd = new CountDownLatch(1);
+        matchmakingService = createService((username1, username2) -> {
+            battleStarted.countDown();
+            try {
+                battleMayEnd.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Battle completed\n";
+        });
+        BattleTicket ticket = matchmakingService.enterLobby("kienboec");
+        matchmakingService.enterLobby("altenhof");
+        assertTrue(battleStarted.await(5, TimeUnit.SECONDS));
+
+        // A - act, when
+        // the battle takes longer than the retention time
+        clock.addAndGet(5000);
+        battleMayEnd.countDown();
+        ticket.getBattleLog().get(5, TimeUnit.SECONDS);
+        matchmakingService.sweep();
+
+        // A - assert, then
+        assertSame(ticket, matchmakingService.getTicket(ticket.getId(), "kienboec"));
+        clock.addAndGet(2000);
+        matchmakingService.sweep();
+        assertNull(matchmakingService.getTicket(ticket.getId(), "kienboec"));
+    }
+
+    @Test
+    void enterLobby_FailedBattleFailsBothTickets() {
+        // A - arrange, given
+        matchmakingService = createService((username1, username2) -> {
+            throw new IllegalStateException("Database unavailable");
+        });
+
+        // A - act, when
+        BattleTicket first = matchmakingService.enterLobby("kienboec");
+        BattleTicket second = matchmakingService.enterLobby("altenhof");
+
+        // A - assert, then
+        ExecutionException error = assertThrows(ExecutionException.class, () -> first.getBattleLog().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertThrows(ExecutionException.class, () -> second.getBattleLog().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void enterLobby_RejectedWhileTheBattleIsInProgress() throws Exception {
+        // A - arrange, given
+        CountDownLatch battleStarted = new CountDownLatch(1);
+        CountDownLatch finishBattle = new CountDownLatch(1);
+        matchmakingService = createService((username1, username2) -> {
+            battleStarted.countDown();
+            try {
+                finishBattle.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Battle completed\n";
+        });
+        BattleTicket ticket = matchmakingService.enterLobby("kienboec");
+        matchmakingService.enterLobby("altenhof");
+        assertTrue(battleStarted.await(5, TimeUnit.SECONDS));
+
+        // A - act, when
+        // a second battle would load the same deck
+        BattleTicket during = matchmakingService.enterLobby("kienboec");
+        finishBattle.countDown();
+        ticket.getBattleLog().get(5, TimeUnit.SECONDS);
+        BattleTicket after = matchmakingService.enterLobby("kienboec");
+
+        // A - assert, then
+        assertNull(during);
+        assertNotNull(after);
+        assertEquals(1, matchmakingService.getWaitingPlayers());
+    }
+}
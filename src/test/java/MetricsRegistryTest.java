@@ -0,0 +1,88 @@
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.QueryTimer;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    void scrape_HistogramBucketsAreCumulative() {
+        // A - arrange, given
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("test_duration_seconds", "Test durations.",
+                "route=\"/cards\"", new double[]{0.1, 1});
+
+        // A - act, when
+        histogram.observe(0.05);
+        histogram.observe(0.5);
+        histogram.observe(0.5);
+        histogram.observe(2);
+        String scrape = registry.scrape();
+
+        // A - assert, then
+        assertTrue(scrape.contains("# TYPE test_duration_seconds histogram\n"));
+        assertTrue(scrape.contains("test_duration_seconds_bucket{route=\"/cards\",le=\"0.1\"} 1\n"));
+        assertTrue(scrape.contains("test_duration_seconds_bucket{route=\"/cards\",le=\"1\"} 3\n"));
+        assertTrue(scrape.contains("test_duration_seconds_bucket{route=\"/cards\",le=\"+Inf\"} 4\n"));
+        assertTrue(scrape.contains("test_duration_seconds_sum{route=\"/cards\"} 3.05\n"));
+        assertTrue(scrape.contains("test_duration_seconds_count{route=\"/cards\"} 4\n"));
+    }
+
+    @Test
+    void scrape_GaugesAreReadWhenScraped() {
+        // A - arrange, given
+        MetricsRegistry registry = new MetricsRegistry();
+        int[] waitingPlayers = {3};
+        registry.gauge("test_waiting_players", "Players waiting.", () -> waitingPlayers[0]);
+
+        // A - act, when
+        waitingPlayers[0] = 5;
+        String scrape = registry.scrape();
+
+        // A - assert, then
+        assertTrue(scrape.contains("# HELP test_waiting_players Players waiting.\n"));
+        assertTrue(scrape.contains("# TYPE test_waiting_players gauge\n"));
+        assertTrue(scrape.contains("test_waiting_players 5\n"));
+    }
+
+    @Test
+    void record_OneHistogramPerDaoMethod() {
+        // A - arrange, given
+        MetricsRegistry registry = new MetricsRegistry();
+        QueryTimer queryTimer = new QueryTimer(registry, "UserDAO");
+
+        // A - act, when
+        queryTimer.record("getStats", System.nanoTime());
+        queryTimer.record("getStats", System.nanoTime());
+        queryTimer.record("getScoreBoard", System.nanoTime());
+
+        // A - assert, then
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("mtcg_dao_query_duration_seconds_count{dao=\"UserDAO\",method=\"getStats\"} 2\n"));
+        assertTrue(scrape.contains("mtcg_dao_query_duration_seconds_count{dao=\"UserDAO\",method=\"getScoreBoard\"} 1\n"));
+    }
+
+    @Test
+    void timeChecked_FailedCallIsRecordedAndRethrown() {
+        // A - arrange, given
+        MetricsRegistry registry = new MetricsRegistry();
+        QueryTimer queryTimer = new QueryTimer(registry, "GameDAO");
+
+        // A - act, when
+        String result = queryTimer.time("getStats", () -> "stats");
+        SQLException exception = assertThrows(SQLException.class, () -> queryTimer.timeChecked("replayBattle", () -> {
+            throw new SQLException("database down");
+        }));
+
+        // A - assert, then
+        assertEquals("stats", result);
+        assertEquals("database down", exception.getMessage());
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("mtcg_dao_query_duration_seconds_count{dao=\"GameDAO\",method=\"getStats\"} 1\n"));
+        assertTrue(scrape.contains("mtcg_dao_query_duration_seconds_count{dao=\"GameDAO\",method=\"replayBattle\"} 1\n"));
+    }
+}
@@ -0,0 +1,279 @@
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
+import org.example.server.NioServer;
+import org.example.server.Request;
+import org.example.server.Response;
+import org.example.server.ServerApp;
+import org.example.server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NioServerTest {
+
+    private static final int TIMEOUT_MILLIS = 5_000;
+
+    // Echoes the path and the body, "/slow" takes a while so a pipelined request behind it would overtake it
+    private static final ServerApp ECHO_APP = request -> {
+        if (request.getPathname().equals("/slow")) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (request.getPathname().equals("/large")) {
+            return new Response(HttpStatus.OK, ContentType.TEXT, "x".repeat(1024 * 1024));
+        }
+        return new Response(HttpStatus.OK, ContentType.TEXT, request.getPathname() + " " + request.getBody());
+    };
+
+    private NioServer server;
+    private Thread serverThread;
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        if (server != null) {
+            server.stop();
+            serverThread.join(TIMEOUT_MILLIS);
+            assertFalse(serverThread.isAlive(), "Server did not stop");
+        }
+    }
+
+    // Starts the server on a free port with two event loops, so accepting and serving happen on different selectors
+    private void start(ServerApp app, ServerConfig config) throws InterruptedException {
+        config.setEventLoopThreads(2);
+        server = new NioServer(app, 0, config);
+        serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new RuntimeException("Error starting server", e);
+            }
+        });
+        serverThread.start();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (server.getLocalPort() <= 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "Server did not start");
+            Thread.sleep(10);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", server.getLocalPort());
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        // every write leaves in its own packet
+        socket.setTcpNoDelay(true);
+        return socket;
+    }
+
+    private static String request(String path, String body, String connection) {
+        return "POST " + path + " HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                (connection == null ? "" : "Connection: " + connection + "\r\n") +
+                "Content-Type: text/plain\r\n" +
+                "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n" +
+                "\r\n" +
+                body;
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+        OutputStream outputStream = socket.getOutputStream();
+        outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+
+    // Reads one response: the headers up to the empty line, then as many body bytes as Content-Length announces
+    private static String readResponse(Socket socket) throws IOException {
+        InputStream inputStream = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int b = inputStream.read();
+            assertNotEquals(-1, b, "Connection closed before the end of the headers");
+            head.write(b);
+        }
+
+        String headers = head.toString(StandardCharsets.US_ASCII);
+        int contentLength = 0;
+        for (String line : headers.split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+        byte[] body = inputStream.readNBytes(contentLength);
+        assertEquals(contentLength, body.length, "Connection closed before the end of the body");
+        return headers + new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void keepAlive_ServesSeveralRequestsOnOneConnection() throws Exception {
+        // A - arrange, given
+        start(ECHO_APP, new ServerConfig());
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            send(socket, request("/first", "1", null));
+            String first = readResponse(socket);
+            send(socket, request("/second", "2", null));
+            String second = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(first.startsWith("HTTP/1.1 200"));
+            assertTrue(first.contains("Connection: keep-alive\r\n"));
+            assertTrue(first.endsWith("\r\n\r\n/first 1"));
+            assertTrue(second.endsWith("\r\n\r\n/second 2"));
+            assertEquals(1, server.getAcceptedConnections());
+        }
+    }
+
+    @Test
+    void pipelining_AnswersRequestsInOrder() throws Exception {
+        // A - arrange, given
+        start(ECHO_APP, new ServerConfig());
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            // both requests arrive in one packet, the first one is slower to handle
+            send(socket, request("/slow", "1", null) + request("/fast", "2", null));
+            String first = readResponse(socket);
+            String second = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(first.endsWith("\r\n\r\n/slow 1"));
+            assertTrue(second.endsWith("\r\n\r\n/fast 2"));
+        }
+    }
+
+    @Test
+    void partialRead_RequestSplitAcrossPacketsIsReassembled() throws Exception {
+        // A - arrange, given
+        start(ECHO_APP, new ServerConfig());
+        String request = request("/cards", "{\"Name\": \"Dragon\"}", null);
+        int headerSplit = request.indexOf("Content-Length") + 4;
+        int bodySplit = request.length() - 5;
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            // the server reads each part before the next one is sent
+            send(socket, request.substring(0, headerSplit));
+            Thread.sleep(50);
+            send(socket, request.substring(headerSplit, bodySplit));
+            Thread.sleep(50);
+            send(socket, request.substring(bodySplit));
+            String response = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.endsWith("\r\n\r\n/cards {\"Name\": \"Dragon\"}"));
+        }
+    }
+
+    @Test
+    void connectionClose_ClosesTheConnectionAfterTheResponse() throws Exception {
+        // A - arrange, given
+        start(ECHO_APP, new ServerConfig());
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            send(socket, request("/last", "", "close"));
+            String response = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertTrue(response.endsWith("\r\n\r\n/last "));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void largeResponse_ArrivesComplete() throws Exception {
+        // A - arrange, given
+        start(ECHO_APP, new ServerConfig());
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            // more than one socket buffer, the event loop has to write it in several steps
+            send(socket, request("/large", "", null));
+            String response = readResponse(socket);
+            send(socket, request("/after", "", null));
+            String after = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.contains("Content-Length: " + 1024 * 1024 + "\r\n"));
+            assertTrue(after.endsWith("\r\n\r\n/after "));
+        }
+    }
+
+    @Test
+    void handleRequestAsync_WaitingRequestDoesNotBlockOthers() throws Exception {
+        // A - arrange, given
+        // "/battles" waits for an opponent, like a lobby long-poll, without holding a thread
+        CompletableFuture<Response> opponentFound = new CompletableFuture<>();
+        ServerConfig config = new ServerConfig();
+        config.setExecutorMode(ServerConfig.ExecutorMode.PLATFORM);
+        config.setPlatformPoolSize(1);
+        start(new ServerApp() {
+            @Override
+            public Response handleRequest(Request request) {
+                return ECHO_APP.handleRequest(request);
+            }
+
+            @Override
+            public CompletableFuture<Response> handleRequestAsync(Request request) {
+                if (request.getPathname().equals("/battles")) {
+                    return opponentFound;
+                }
+                return ServerApp.super.handleRequestAsync(request);
+            }
+        }, config);
+
+        try (Socket waiting = connect(); Socket other = connect()) {
+
+            // A - act, when
+            send(waiting, request("/battles", "", null));
+            send(other, request("/stats", "", null));
+            String otherResponse = readResponse(other);
+            opponentFound.complete(new Response(HttpStatus.OK, ContentType.TEXT, "Battle completed"));
+            String battleResponse = readResponse(waiting);
+
+            // A - assert, then
+            assertTrue(otherResponse.endsWith("\r\n\r\n/stats "));
+            assertTrue(battleResponse.endsWith("\r\n\r\nBattle completed"));
+        }
+    }
+
+    @Test
+    void inFlight_SaturatedWorkersAnswer503AndClose() throws Exception {
+        // A - arrange, given
+        ServerConfig config = new ServerConfig();
+        config.setMaxInFlight(0);
+        start(ECHO_APP, config);
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            send(socket, request("/cards", "", null));
+            String response = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.startsWith("HTTP/1.1 503"));
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertEquals(-1, socket.getInputStream().read());
+            assertEquals(1, server.getRejectedRequests());
+        }
+    }
+}
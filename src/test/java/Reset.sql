@@ -1,3 +1,9 @@
+-- Delete contents of the "RoundLog" table
+DELETE FROM "RoundLog";
+
+-- Delete contents of the "RoundDetail" table
+DELETE FROM "RoundDetail";
+
 -- Delete contents of the "Battle" table
 DELETE FROM "Battle";
 
@@ -7,12 +13,6 @@ DELETE FROM "Deck";
 -- Delete contents of the "Package" table
 DELETE FROM "Package";
 
--- Delete contents of the "RoundDetail" table
-DELETE FROM "RoundDetail";
-
--- Delete contents of the "RoundLog" table
-DELETE FROM "RoundLog";
-
 -- Delete contents of the "Stack" table
 DELETE FROM "Stack";
 
@@ -24,5 +24,3 @@ DELETE FROM "Card";
 
 -- Delete contents of the "User" table
 DELETE FROM "User";
-
-
@@ -0,0 +1,118 @@
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
+import org.example.server.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseTest {
+
+    // Exposes both serializations of a response, they are only meant for the server engines
+    private static class SerializedResponse extends Response {
+        SerializedResponse(HttpStatus httpStatus, ContentType contentType, String content) {
+            super(httpStatus, contentType, content);
+        }
+
+        byte[] written(boolean keepAlive) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            writeTo(outputStream, keepAlive);
+            return outputStream.toByteArray();
+        }
+
+        byte[] gathered(boolean keepAlive) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            for (ByteBuffer buffer : toByteBuffers(keepAlive)) {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                outputStream.writeBytes(bytes);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Test
+    void writeTo_ContentLengthCountsUtf8Bytes() throws IOException {
+        // A - arrange, given
+        String content = "{ \"Name\": \"Drache 🐉 Größe\" }";
+        SerializedResponse response = new SerializedResponse(HttpStatus.OK, ContentType.JSON, content);
+
+        // A - act, when
+        String written = new String(response.written(true), StandardCharsets.UTF_8);
+
+        // A - assert, then
+        // the body has fewer chars than UTF-8 bytes
+        int bytes = content.getBytes(StandardCharsets.UTF_8).length;
+        assertNotEquals(content.length(), bytes);
+        assertTrue(written.contains("Content-Length: " + bytes + "\r\n\r\n"));
+        assertTrue(written.endsWith("\r\n\r\n" + content));
+    }
+
+    @Test
+    void writeTo_NullBodyHasContentLengthZero() throws IOException {
+        // A - arrange, given
+        SerializedResponse response = new SerializedResponse(HttpStatus.NOT_FOUND, ContentType.TEXT, null);
+
+        // A - act, when
+        String written = new String(response.written(false), StandardCharsets.US_ASCII);
+
+        // A - assert, then
+        assertEquals("HTTP/1.1 404 Not Found\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Connection: close\r\n" +
+                "Content-Length: 0\r\n" +
+                "\r\n", written);
+    }
+
+    @Test
+    void writeTo_ConnectionHeaderFollowsKeepAlive() throws IOException {
+        // A - arrange, given
+        SerializedResponse response = new SerializedResponse(HttpStatus.OK, ContentType.JSON, "{}");
+
+        // A - act, when
+        String keepAlive = new String(response.written(true), StandardCharsets.US_ASCII);
+        String close = new String(response.written(false), StandardCharsets.US_ASCII);
+
+        // A - assert, then
+        assertEquals("HTTP/1.1 200 OK\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Connection: keep-alive\r\n" +
+                "Content-Length: 2\r\n" +
+                "\r\n" +
+                "{}", keepAlive);
+        assertEquals("HTTP/1.1 200 OK\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Connection: close\r\n" +
+                "Content-Length: 2\r\n" +
+                "\r\n" +
+                "{}", close);
+    }
+
+    @Test
+    void toByteBuffers_SameBytesAsWriteToForEveryStatusAndType() throws IOException {
+        for (HttpStatus status : HttpStatus.values()) {
+            for (ContentType type : ContentType.values()) {
+                for (boolean keepAlive : new boolean[]{true, false}) {
+                    // A - arrange, given
+                    SerializedResponse response = new SerializedResponse(status, type, "Ünïcödé " + status.getCode());
+
+                    // A - act, when
+                    byte[] written = response.written(keepAlive);
+                    byte[] gathered = response.gathered(keepAlive);
+
+                    // A - assert, then
+                    // the precomputed header of this combination
+                    String expectedHeader = "HTTP/1.1 " + status.getCode() + " " + status.getMessage() + "\r\n" +
+                            "Content-Type: " + type.getType() + "\r\n" +
+                            "Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n";
+                    assertArrayEquals(written, gathered);
+                    assertTrue(new String(written, StandardCharsets.UTF_8).startsWith(expectedHeader));
+                }
+            }
+        }
+    }
+}
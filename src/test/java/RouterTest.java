@@ -0,0 +1,83 @@
+import org.example.http.Method;
+import org.example.server.Route;
+import org.example.server.RouteMatch;
+import org.example.server.Router;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouterTest {
+
+    private final Router<String> router = new Router<String>()
+            .add(Method.GET, "/users", "getUsers", true, true)
+            .add(Method.GET, "/users/{username}", "getUser", true, false)
+            .add(Method.PUT, "/users/{username}", "updateUser", true, false)
+            .add(Method.POST, "/transactions/packages", "buyPackage", true, false)
+            .add(Method.POST, "/tradings/{id}", "carryOutTrade", true, false)
+            .add(Method.POST, "/sessions", "loginUser", false, false);
+
+    @Test
+    void match_LiteralRoute() {
+        // A - arrange, given
+        // A - act, when
+        RouteMatch<String> users = router.match(Method.GET, "/users");
+        RouteMatch<String> packages = router.match(Method.POST, "/transactions/packages");
+
+        // A - assert, then
+        assertEquals("getUsers", users.getRoute().getHandler());
+        assertEquals("buyPackage", packages.getRoute().getHandler());
+    }
+
+    @Test
+    void match_TemplateRouteExtractsPathParams() {
+        // A - arrange, given
+        String tradeId = "6cd85277-4590-49d4-b0cf-ba0a921faad0";
+
+        // A - act, when
+        RouteMatch<String> user = router.match(Method.GET, "/users/kienboec");
+        RouteMatch<String> trade = router.match(Method.POST, "/tradings/" + tradeId);
+
+        // A - assert, then
+        assertEquals("getUser", user.getRoute().getHandler());
+        assertEquals("kienboec", user.getPathParam("username"));
+        assertEquals("carryOutTrade", trade.getRoute().getHandler());
+        assertEquals(tradeId, trade.getPathParam("id"));
+    }
+
+    @Test
+    void match_RouteCarriesItsAccessRules() {
+        // A - arrange, given
+        // A - act, when
+        Route<String> getUsers = router.match(Method.GET, "/users").getRoute();
+        Route<String> updateUser = router.match(Method.PUT, "/users/altenhof").getRoute();
+        Route<String> loginUser = router.match(Method.POST, "/sessions").getRoute();
+
+        // A - assert, then
+        assertTrue(getUsers.isAdminOnly());
+        assertTrue(updateUser.isAuthRequired());
+        assertFalse(updateUser.isAdminOnly());
+        assertFalse(loginUser.isAuthRequired());
+    }
+
+    @Test
+    void match_UnknownRouteReturnsNull() {
+        // A - arrange, given
+        // A - act, when
+        // A - assert, then
+        assertNull(router.match(Method.DELETE, "/users/kienboec"));
+        assertNull(router.match(Method.GET, "/users/"));
+        assertNull(router.match(Method.GET, "/users/kienboec/cards"));
+        assertNull(router.match(Method.POST, "/transactions"));
+        assertNull(router.match(Method.GET, "/unknown"));
+    }
+
+    @Test
+    void add_DuplicateRouteIsRejected() {
+        // A - arrange, given
+        // "/users/{username}" is already registered for GET, the parameter name does not matter
+
+        // A - act, when
+        // A - assert, then
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/users/{name}", "other", true, false));
+    }
+}
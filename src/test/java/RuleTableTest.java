@@ -0,0 +1,72 @@
+import org.example.*;
+import org.example.app.services.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleTableTest {
+
+    private static Card monster(CardName name, double damage, ElementType elementType) {
+        return new MonsterCard(UUID.randomUUID(), name, damage, elementType, new String[]{name.name()}, null);
+    }
+
+    private static Card spell(CardName name, double damage, ElementType elementType) {
+        return new SpellCard(UUID.randomUUID(), name, damage, elementType, new String[]{name.name()}, null);
+    }
+
+    @Test
+    void compile_StandardRulesMatchSpecification() {
+        // A - arrange, given
+        RuleTable ruleTable = BattleRules.standard().compile(BattleSimulator.NUMBER_OF_ROUNDS);
+        Card goblin = monster(CardName.FireGoblin, 100.0, ElementType.FIRE);
+        Card dragon = monster(CardName.Dragon, 1.0, ElementType.FIRE);
+        Card knight = monster(CardName.Knight, 100.0, ElementType.NORMAL);
+        Card waterSpell = spell(CardName.WaterSpell, 1.0, ElementType.WATER);
+
+        // A - act, when / A - assert, then
+        assertTrue(ruleTable.isChaosRound(25));
+        assertTrue(ruleTable.isChaosRound(75));
+        assertFalse(ruleTable.isChaosRound(26));
+        assertFalse(ruleTable.isChaosRound(1000));
+        assertEquals(-1, ruleTable.outcome(goblin, dragon));
+        assertEquals(0, ruleTable.outcome(dragon, goblin));
+        assertEquals(-1, ruleTable.outcome(knight, waterSpell));
+        // a FireSpell that is a water card drowns the Knight as well, it is evaluated without the table
+        assertEquals(-1, ruleTable.outcome(knight, spell(CardName.FireSpell, 1.0, ElementType.WATER)));
+        assertEquals(2.0, ruleTable.effectiveDamage(waterSpell, monster(CardName.FireElf, 1.0, ElementType.FIRE)));
+    }
+
+    @Test
+    void simulate_UsesAddedMultiplierRule() {
+        // A - arrange, given
+        // balance change: Dragons deal only a tenth of their damage to Knights
+        BattleRules rules = BattleRules.standard().with(new MultiplierRule(Specialty.DRAGON, Specialty.KNIGHT, 0.1));
+        BattleSimulator battleSimulator = new BattleSimulator(() -> 42L, rules);
+        Card dragon = monster(CardName.Dragon, 50.0, ElementType.FIRE);
+        Card knight = monster(CardName.Knight, 10.0, ElementType.NORMAL);
+
+        // A - act, when
+        BattleResult result = battleSimulator.simulate("user1", List.of(dragon), "user2", List.of(knight));
+
+        // A - assert, then
+        assertEquals("user2", result.getRounds().get(0).getWinner());
+    }
+
+    @Test
+    void compile_FirstDecidingRuleWinsAndCustomChaosRounds() {
+        // A - arrange, given
+        RuleTable ruleTable = new BattleRules(List.of(
+                new ChaosRule(1),
+                SpecialtyRule.autoWin(Specialty.GOBLIN, Specialty.DRAGON),
+                SpecialtyRule.autoLose(Specialty.GOBLIN, Specialty.DRAGON)))
+                .compile(BattleSimulator.NUMBER_OF_ROUNDS);
+
+        // A - act, when / A - assert, then
+        assertTrue(ruleTable.isChaosRound(1));
+        assertFalse(ruleTable.isChaosRound(25));
+        assertEquals(1, ruleTable.outcome(monster(CardName.WaterGoblin, 1.0, ElementType.WATER), monster(CardName.Dragon, 1.0, ElementType.FIRE)));
+    }
+}
@@ -69,16 +69,23 @@ CREATE TABLE IF NOT EXISTS "Battle" (
     "id" UUID PRIMARY KEY,
     "user1_username" VARCHAR(255) REFERENCES "User"("username"),
     "user2_username" VARCHAR(255) REFERENCES "User"("username"),
+    -- seed and starting decks (card IDs in slot order) replay the battle
+    "seed" BIGINT,
+    "user1_deck" VARCHAR(36) ARRAY,
+    "user2_deck" VARCHAR(36) ARRAY,
     UNIQUE("id")
 );
 
 -- Create RoundDetail Table
 CREATE TABLE IF NOT EXISTS "RoundDetail" (
     "round_id" UUID PRIMARY KEY,
-    "card_id" UUID REFERENCES "Card"("id"),
-    "card_name" VARCHAR(255),
-    "player_username" VARCHAR(255) REFERENCES "User"("username"),
-    UNIQUE("round_id", "card_id")
+    "winner_card_id" UUID REFERENCES "Card"("id"),
+    "winner_card_name" VARCHAR(255),
+    "winner_player_username" VARCHAR(255) REFERENCES "User"("username"),
+    "loser_card_id" UUID REFERENCES "Card"("id"),
+    "loser_card_name" VARCHAR(255),
+    "loser_player_username" VARCHAR(255) REFERENCES "User"("username"),
+    UNIQUE("round_id", "winner_card_id")
 );
 
 -- Create RoundLog Table
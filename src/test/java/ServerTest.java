@@ -0,0 +1,200 @@
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
+import org.example.server.Response;
+import org.example.server.Server;
+import org.example.server.ServerApp;
+import org.example.server.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerTest {
+
+    private static final int TIMEOUT_MILLIS = 5_000;
+
+    private Server server;
+    private Thread serverThread;
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        if (server != null) {
+            server.stop();
+            serverThread.join(TIMEOUT_MILLIS);
+            assertFalse(serverThread.isAlive(), "Server did not stop");
+        }
+    }
+
+    // Starts the server on a free port and waits until it accepts connections
+    private void start(ServerApp app, ServerConfig config) throws InterruptedException {
+        server = new Server(app, 0, config);
+        serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new RuntimeException("Error starting server", e);
+            }
+        });
+        serverThread.start();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (server.getLocalPort() <= 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "Server did not start");
+            Thread.sleep(10);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", server.getLocalPort());
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        return socket;
+    }
+
+    private static String request(String path, String connection) {
+        return "GET " + path + " HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                (connection == null ? "" : "Connection: " + connection + "\r\n") +
+                "\r\n";
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+        OutputStream outputStream = socket.getOutputStream();
+        outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+
+    // Reads one response: the headers up to the empty line, then as many body bytes as Content-Length announces
+    private static String readResponse(Socket socket) throws IOException {
+        InputStream inputStream = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int b = inputStream.read();
+            assertNotEquals(-1, b, "Connection closed before the end of the headers");
+            head.write(b);
+        }
+
+        String headers = head.toString(StandardCharsets.US_ASCII);
+        int contentLength = 0;
+        for (String line : headers.split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+        byte[] body = inputStream.readNBytes(contentLength);
+        assertEquals(contentLength, body.length, "Connection closed before the end of the body");
+        return headers + new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static Response ok(String content) {
+        return new Response(HttpStatus.OK, ContentType.TEXT, content);
+    }
+
+    @Test
+    void start_ServesConnectionsAndCountsThem() throws Exception {
+        // A - arrange, given
+        start(request -> ok(request.getPathname()), new ServerConfig());
+
+        // A - act, when
+        String response;
+        try (Socket socket = connect()) {
+            send(socket, request("/cards", "close"));
+            response = readResponse(socket);
+        }
+
+        // A - assert, then
+        assertTrue(response.startsWith("HTTP/1.1 200"));
+        assertTrue(response.endsWith("\r\n\r\n/cards"));
+        assertEquals(1, server.getAcceptedConnections());
+        assertEquals(0, server.getRejectedConnections());
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (server.getActiveConnections() != 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "Connection was not released");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void start_PlatformExecutorServesConnections() throws Exception {
+        // A - arrange, given
+        ServerConfig config = new ServerConfig();
+        config.setExecutorMode(ServerConfig.ExecutorMode.PLATFORM);
+        config.setPlatformPoolSize(2);
+        start(request -> ok(Thread.currentThread().isVirtual() ? "virtual" : "platform"), config);
+
+        // A - act, when
+        String response;
+        try (Socket socket = connect()) {
+            send(socket, request("/stats", "close"));
+            response = readResponse(socket);
+        }
+
+        // A - assert, then
+        assertTrue(response.endsWith("\r\n\r\nplatform"));
+    }
+
+    @Test
+    void dispatch_ConnectionBeyondMaxInFlightIsRejected() throws Exception {
+        // A - arrange, given
+        // the first connection holds the only permit until the test lets it finish
+        CountDownLatch handling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ServerConfig config = new ServerConfig();
+        config.setMaxInFlight(1);
+        start(request -> {
+            handling.countDown();
+            try {
+                release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ok("served");
+        }, config);
+
+        try (Socket first = connect(); Socket second = connect()) {
+            send(first, request("/battles", "close"));
+            assertTrue(handling.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+            // A - act, when
+            send(second, request("/battles", "close"));
+            String rejected = readResponse(second);
+            release.countDown();
+            String served = readResponse(first);
+
+            // A - assert, then
+            assertTrue(rejected.startsWith("HTTP/1.1 503"));
+            assertTrue(served.endsWith("\r\n\r\nserved"));
+            assertEquals(1, server.getAcceptedConnections());
+            assertEquals(1, server.getRejectedConnections());
+        }
+    }
+
+    @Test
+    void reject_SaturatedServerAnswers503AndCloses() throws Exception {
+        // A - arrange, given
+        ServerConfig config = new ServerConfig();
+        config.setMaxInFlight(0);
+        start(request -> null, config);
+
+        try (Socket socket = connect()) {
+
+            // A - act, when
+            send(socket, request("/cards", null));
+            String response = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.startsWith("HTTP/1.1 503"));
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertEquals(-1, socket.getInputStream().read());
+            assertEquals(1, server.getRejectedConnections());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import org.example.http.ContentType;
+import org.example.http.HttpStatus;
+import org.example.server.Response;
+import org.example.server.ServerApp;
+import org.example.server.ServerConfig;
+import org.example.server.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTest {
+
+    private static final int TIMEOUT_MILLIS = 5_000;
+
+    // Echoes the path and the body, "/slow" takes a while so a pipelined request behind it would overtake it
+    private static final ServerApp ECHO_APP = request -> {
+        if (request.getPathname().equals("/slow")) {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new Response(HttpStatus.OK, ContentType.TEXT, request.getPathname() + " " + request.getBody());
+    };
+
+    private Thread taskThread;
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        if (taskThread != null) {
+            taskThread.join(TIMEOUT_MILLIS);
+            assertFalse(taskThread.isAlive(), "Task did not end");
+        }
+    }
+
+    // Connects a client and runs a Task on the accepted end of the connection
+    private Socket serve(ServerConfig config) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Socket client = new Socket("localhost", serverSocket.getLocalPort());
+            client.setSoTimeout(TIMEOUT_MILLIS);
+            Task task = new Task(serverSocket.accept(), ECHO_APP, config);
+            taskThread = new Thread(task);
+            taskThread.start();
+            return client;
+        }
+    }
+
+    private static String request(String path, String body, String httpVersion, String connection) {
+        return "POST " + path + " " + httpVersion + "\r\n" +
+                "Host: localhost\r\n" +
+                (connection == null ? "" : "Connection: " + connection + "\r\n") +
+                "Content-Type: text/plain\r\n" +
+                "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n" +
+                "\r\n" +
+                body;
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+        OutputStream outputStream = socket.getOutputStream();
+        outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+
+    // Reads one response: the headers up to the empty line, then as many body bytes as Content-Length announces
+    private static String readResponse(Socket socket) throws IOException {
+        InputStream inputStream = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int b = inputStream.read();
+            assertNotEquals(-1, b, "Connection closed before the end of the headers");
+            head.write(b);
+        }
+
+        String headers = head.toString(StandardCharsets.US_ASCII);
+        int contentLength = 0;
+        for (String line : headers.split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+        byte[] body = inputStream.readNBytes(contentLength);
+        assertEquals(contentLength, body.length, "Connection closed before the end of the body");
+        return headers + new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void run_KeepAliveServesSeveralRequestsOnOneConnection() throws IOException {
+        // A - arrange, given
+        try (Socket socket = serve(new ServerConfig())) {
+
+            // A - act, when
+            send(socket, request("/first", "1", "HTTP/1.1", null));
+            String first = readResponse(socket);
+            send(socket, request("/second", "2", "HTTP/1.1", null));
+            String second = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(first.contains("Connection: keep-alive\r\n"));
+            assertTrue(first.endsWith("\r\n\r\n/first 1"));
+            assertTrue(second.contains("Connection: keep-alive\r\n"));
+            assertTrue(second.endsWith("\r\n\r\n/second 2"));
+        }
+    }
+
+    @Test
+    void run_PipelinedRequestsAreAnsweredInOrder() throws IOException {
+        // A - arrange, given
+        try (Socket socket = serve(new ServerConfig())) {
+
+            // A - act, when
+            // both requests arrive in one packet, the first one is slower to handle
+            send(socket, request("/slow", "1", "HTTP/1.1", null) + request("/fast", "2", "HTTP/1.1", null));
+            String first = readResponse(socket);
+            String second = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(first.endsWith("\r\n\r\n/slow 1"));
+            assertTrue(second.endsWith("\r\n\r\n/fast 2"));
+        }
+    }
+
+    @Test
+    void run_ConnectionCloseEndsTheConnection() throws IOException {
+        // A - arrange, given
+        try (Socket socket = serve(new ServerConfig())) {
+
+            // A - act, when
+            send(socket, request("/last", "", "HTTP/1.1", "close"));
+            String response = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void run_Http10WithoutKeepAliveEndsTheConnection() throws IOException {
+        // A - arrange, given
+        try (Socket socket = serve(new ServerConfig())) {
+
+            // A - act, when
+            send(socket, request("/old", "", "HTTP/1.0", null));
+            String response = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void run_IdleConnectionIsClosedAfterTheTimeout() throws IOException {
+        // A - arrange, given
+        ServerConfig config = new ServerConfig();
+        config.setIdleTimeoutMillis(200);
+
+        try (Socket socket = serve(config)) {
+            send(socket, request("/first", "", "HTTP/1.1", null));
+            readResponse(socket);
+
+            // A - act, when
+            // the client sends nothing more
+            long idleSince = System.currentTimeMillis();
+            int next = socket.getInputStream().read();
+
+            // A - assert, then
+            assertEquals(-1, next);
+            assertTrue(System.currentTimeMillis() - idleSince < TIMEOUT_MILLIS);
+        }
+    }
+
+    @Test
+    void run_ConnectionIsClosedAfterMaxRequests() throws IOException {
+        // A - arrange, given
+        ServerConfig config = new ServerConfig();
+        config.setMaxRequestsPerConnection(2);
+
+        try (Socket socket = serve(config)) {
+
+            // A - act, when
+            send(socket, request("/first", "", "HTTP/1.1", null));
+            String first = readResponse(socket);
+            send(socket, request("/second", "", "HTTP/1.1", null));
+            String second = readResponse(socket);
+
+            // A - assert, then
+            assertTrue(first.contains("Connection: keep-alive\r\n"));
+            // the last response announces the close
+            assertTrue(second.contains("Connection: close\r\n"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+}
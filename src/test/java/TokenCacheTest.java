@@ -0,0 +1,79 @@
+import org.example.app.services.TokenCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenCache tokenCache = new TokenCache(2, 1000, now::get);
+
+    @Test
+    void get_TokenExpiresAfterTheTimeToLive() {
+        // A - arrange, given
+        tokenCache.put("kienboec-mtcgToken", "kienboec");
+
+        // A - act, when
+        now.set(999);
+        String beforeExpiry = tokenCache.get("kienboec-mtcgToken");
+        now.set(1000);
+        String afterExpiry = tokenCache.get("kienboec-mtcgToken");
+
+        // A - assert, then
+        assertEquals("kienboec", beforeExpiry);
+        assertNull(afterExpiry);
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void put_LeastRecentlyUsedTokenIsEvicted() {
+        // A - arrange, given
+        tokenCache.put("kienboec-mtcgToken", "kienboec");
+        tokenCache.put("altenhof-mtcgToken", "altenhof");
+        // touch kienboec so that altenhof becomes the eldest entry
+        tokenCache.get("kienboec-mtcgToken");
+
+        // A - act, when
+        tokenCache.put("admin-mtcgToken", "admin");
+
+        // A - assert, then
+        assertEquals("kienboec", tokenCache.get("kienboec-mtcgToken"));
+        assertNull(tokenCache.get("altenhof-mtcgToken"));
+        assertEquals("admin", tokenCache.get("admin-mtcgToken"));
+    }
+
+    @Test
+    void removeUser_OnlyTokensOfTheUserAreRemoved() {
+        // A - arrange, given
+        tokenCache.put("kienboec-mtcgToken", "kienboec");
+        tokenCache.put("admin-mtcgToken", "admin");
+
+        // A - act, when
+        tokenCache.removeUser("kienboec");
+
+        // A - assert, then
+        assertNull(tokenCache.get("kienboec-mtcgToken"));
+        assertEquals("admin", tokenCache.get("admin-mtcgToken"));
+    }
+
+    @Test
+    void putIfUnchanged_LookupThatRacedWithRemoveUserIsNotCached() {
+        // A - arrange, given
+        // a request reads the token from the database, then the user logs out before the request caches it
+        long generation = tokenCache.getGeneration();
+        tokenCache.removeUser("kienboec");
+
+        // A - act, when
+        boolean staleCached = tokenCache.putIfUnchanged("kienboec-mtcgToken", "kienboec", generation);
+        String afterStale = tokenCache.get("kienboec-mtcgToken");
+        boolean freshCached = tokenCache.putIfUnchanged("kienboec-mtcgToken", "kienboec", tokenCache.getGeneration());
+
+        // A - assert, then
+        assertFalse(staleCached);
+        assertNull(afterStale);
+        assertTrue(freshCached);
+        assertEquals("kienboec", tokenCache.get("kienboec-mtcgToken"));
+    }
+}
@@ -1,6 +1,11 @@
 import org.example.app.daos.UserDAO;
 import org.example.app.dtos.UserDataDTO;
 import org.example.app.dtos.UserStatDTO;
+import org.example.app.services.ConnectionPool;
+import org.example.app.services.ConnectionPoolConfig;
+import org.example.Card;
+import org.example.CardName;
+import org.example.MonsterCard;
 import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.*;
 
@@ -15,6 +20,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class UserDAOTest {
 
     private static Connection testConnection; // in-memory database connection
+    private static ConnectionPool dataSource; // pool on the same database, used by the DAO
 
     private UserDAO userDAO;
 
@@ -35,6 +42,7 @@ public class UserDAOTest {
     static void beforeAll() {
         // Set up an H2 in-memory database connection
         testConnection = createH2Connection();
+        dataSource = createH2Pool();
 
         // Load the content of Schema.sql and Reset.sql into strings
         schemaSql = loadScriptAsString("src/test/java/Schema.sql");
@@ -53,7 +61,7 @@ public class UserDAOTest {
     @BeforeEach
     void beforeEach() {
         // Create a clean instance of UserDAO for each test
-        userDAO = new UserDAO(testConnection);
+        userDAO = new UserDAO(dataSource);
         // Ensure the database is in a clean state for each test
         resetDatabase();
     }
@@ -62,6 +70,7 @@ public class UserDAOTest {
     static void afterAll() {
         // Close the H2 in-memory database connection or clean up resources
         try {
+            dataSource.close();
             testConnection.close();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -85,6 +94,12 @@ public class UserDAOTest {
         }
     }
 
+    private static ConnectionPool createH2Pool() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        return new ConnectionPool(h2, new ConnectionPoolConfig());
+    }
+
     private static void executeScript(String scriptContent, Connection connection) {
         try (Statement statement = connection.createStatement()) {
             statement.execute(scriptContent);
@@ -180,6 +195,36 @@ public class UserDAOTest {
         assertEquals("testuser-mtcgToken", token);
     }
 
+    @Test
+    void getUsernameByToken_Success() {
+        // A - arrange, given
+        userDAO.createUser("testuser", "password");
+        String token = userDAO.loginUser("testuser", "password");
+
+        // A - act, when
+        String username = userDAO.getUsernameByToken(token);
+        // A - assert, then
+        assertEquals("testuser", username);
+        assertNull(userDAO.getUsernameByToken("forged-mtcgToken"));
+    }
+
+    @Test
+    void getCardById_Success() {
+        // A - arrange, given
+        UUID cardId = UUID.randomUUID();
+        executeScript("INSERT INTO \"Card\" (\"id\", \"name\", \"damage\", \"elementType\", \"specialties\", \"cardType\") " +
+                "VALUES ('" + cardId + "', 'WaterGoblin', 10.0, 'WATER', ARRAY['WaterGoblin'], 'MONSTER')", testConnection);
+
+        // A - act, when
+        Card card = userDAO.getCardById(cardId);
+        // A - assert, then
+        assertInstanceOf(MonsterCard.class, card);
+        assertEquals(cardId, card.getId());
+        assertEquals(CardName.WaterGoblin, card.getName());
+        assertArrayEquals(new String[]{"WaterGoblin"}, card.getSpecialties());
+        assertNull(userDAO.getCardById(UUID.randomUUID()));
+    }
+
     @Test
     void loginUser_Failure_UserNotFound() {
         // A - arrange, given